@@ -0,0 +1,30 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.api;
+
+/**
+ * Counterpart of {@link ConfigValue} for boolean values, read without boxing.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public interface BooleanConfigValue {
+
+    /**
+     * @return the current value, which will be false if no value has been applied yet.
+     */
+    boolean get();
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.api;
+
+/**
+ * Implemented by {@link ConfigurationSource}s that can declare whether their retrieval operations may be invoked by
+ * multiple threads at the same time. Sources that do not implement this interface are assumed not to support
+ * concurrent reads.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public interface ConcurrentReadCapable {
+
+    /**
+     * Determine whether the lookup and retrieve operations of this source can be safely called concurrently.
+     *
+     * @return true if concurrent reads are supported.
+     */
+    boolean supportsConcurrentReads();
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.api;
+
+/**
+ * A live handle to a configuration value that can be declared as the type of a configured field. The handle is
+ * injected once, after which configuration changes are applied to the handle rather than to the field. Reading the
+ * value is a single volatile read, so the most recently applied value is always seen.
+ *
+ * See {@link IntConfigValue}, {@link LongConfigValue}, {@link DoubleConfigValue} and {@link BooleanConfigValue} for
+ * primitive values.
+ *
+ * @param <T>
+ *            the type of the value
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public interface ConfigValue<T> {
+
+    /**
+     * @return the current value, which will be null if no value has been applied yet.
+     */
+    T get();
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.api;
+
+/**
+ * Optional capability of a {@link ConfigurationSource} that can resolve numeric and boolean values directly as
+ * primitives, without boxing them. Intended for values that are read very frequently.
+ *
+ * As a primitive cannot represent null, each of the methods will throw a {@link ConfigurationException} if the
+ * expression resolves to null, in addition to the conditions under which
+ * {@link ConfigurationSource#retrieve(String, Class)} would do so.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public interface PrimitiveValueLookup {
+
+    /**
+     * Retrieve the value identified by <code>expression</code> as an int.
+     *
+     * @param expression
+     *            the expression used to identify the value to return.
+     * @return the value
+     * @throws ConfigurationException
+     *             if the expression does not resolve to a single non-null value convertible to an int.
+     */
+    int retrieveInt(String expression);
+
+    /**
+     * Retrieve the value identified by <code>expression</code> as a long.
+     *
+     * @param expression
+     *            the expression used to identify the value to return.
+     * @return the value
+     * @throws ConfigurationException
+     *             if the expression does not resolve to a single non-null value convertible to a long.
+     */
+    long retrieveLong(String expression);
+
+    /**
+     * Retrieve the value identified by <code>expression</code> as a double.
+     *
+     * @param expression
+     *            the expression used to identify the value to return.
+     * @return the value
+     * @throws ConfigurationException
+     *             if the expression does not resolve to a single non-null value convertible to a double.
+     */
+    double retrieveDouble(String expression);
+
+    /**
+     * Retrieve the value identified by <code>expression</code> as a boolean.
+     *
+     * @param expression
+     *            the expression used to identify the value to return.
+     * @return the value
+     * @throws ConfigurationException
+     *             if the expression does not resolve to a single non-null value convertible to a boolean.
+     */
+    boolean retrieveBoolean(String expression);
+}
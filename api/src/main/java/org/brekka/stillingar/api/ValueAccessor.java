@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.api;
+
+/**
+ * A reusable, thread-safe handle to a single configuration value identified by an expression. Intended to be obtained
+ * once and then kept (for example in a field) so that frequently executed code can read the value without the
+ * expression being evaluated and converted on every call.
+ *
+ * @param <T>
+ *            the type of the value
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public interface ValueAccessor<T> {
+
+    /**
+     * Retrieve the current value.
+     *
+     * @return the value which may be null if the expression explicitly resolves to null.
+     * @throws ConfigurationException
+     *             if the expression does not resolve to a value or it could not be converted.
+     */
+    T get();
+
+    /**
+     * @return the expression that identifies the value.
+     */
+    String getExpression();
+
+    /**
+     * @return the type of the value.
+     */
+    Class<T> getValueType();
+}
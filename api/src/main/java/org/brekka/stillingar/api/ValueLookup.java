@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.api;
+
+/**
+ * Optional capability of a {@link ConfigurationSource} that can determine whether a value exists and resolve it with a
+ * single evaluation of the expression. Without it, callers must first call
+ * {@link ConfigurationSource#isAvailable(String)} and then {@link ConfigurationSource#retrieve(String, Class)}, which
+ * evaluates the expression twice.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public interface ValueLookup {
+
+    /**
+     * Returned by the lookup methods when the expression does not identify any value. Compare by identity.
+     */
+    Object NOT_FOUND = new Object() {
+        @Override
+        public String toString() {
+            return "NOT_FOUND";
+        }
+    };
+
+    /**
+     * Resolve the single value identified by <code>expression</code>, converted to <code>valueType</code>.
+     *
+     * @param expression
+     *            the expression used to identify the value to return.
+     * @param valueType
+     *            the expected value type to be returned.
+     * @return the value (which may be null), or {@link #NOT_FOUND} if the expression does not identify a value
+     *         (equivalent to {@link ConfigurationSource#isAvailable(String)} returning false).
+     * @throws ConfigurationException
+     *             under the same conditions as {@link ConfigurationSource#retrieve(String, Class)}, other than the value
+     *             not being found.
+     */
+    Object lookup(String expression, Class<?> valueType);
+
+    /**
+     * Resolve the list of values identified by <code>expression</code>, each converted to <code>valueType</code>.
+     *
+     * @param expression
+     *            the expression used to identify the list of values to return.
+     * @param valueType
+     *            the expected value type for each element of the list.
+     * @return the list of values, or {@link #NOT_FOUND} if the expression does not identify a value (equivalent to
+     *         {@link ConfigurationSource#isAvailable(String)} returning false).
+     * @throws ConfigurationException
+     *             under the same conditions as {@link ConfigurationSource#retrieveList(String, Class)}.
+     */
+    Object lookupList(String expression, Class<?> valueType);
+}
@@ -17,6 +17,7 @@
 package org.brekka.stillingar.core;
 
 import org.brekka.stillingar.api.ConfigurationSource;
+import org.brekka.stillingar.api.ValueAccessor;
 
 
 /**
@@ -67,4 +68,25 @@ public interface ConfigurationService extends ConfigurationSource {
      * @param valueGroup the group to remove
      */
     void unregister(ValueDefinitionGroup valueGroup);
+
+    /**
+     * Prepare a reusable handle for the value identified by <code>expression</code>. The handle always reflects the
+     * current configuration, while only evaluating the expression again once the configuration has changed.
+     * 
+     * @param expression
+     *            the expression used to identify the value.
+     * @param valueType
+     *            the expected value type.
+     * @return the thread-safe handle.
+     */
+    <T> ValueAccessor<T> compile(String expression, Class<T> valueType);
+
+    /**
+     * Obtain the configuration source that currently backs this service. Multiple lookups made against the returned
+     * source will all see the same configuration, even if this service is updated in the meantime. The source should
+     * not be retained beyond the unit of work (for example a single request) as it will not receive updates.
+     * 
+     * @return the current configuration snapshot.
+     */
+    ConfigurationSource pin();
 }
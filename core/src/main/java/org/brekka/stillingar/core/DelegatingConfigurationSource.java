@@ -18,16 +18,30 @@ package org.brekka.stillingar.core;
 
 import java.util.List;
 
+import org.brekka.stillingar.api.ConcurrentReadCapable;
 import org.brekka.stillingar.api.ConfigurationSource;
+import org.brekka.stillingar.api.PrimitiveValueLookup;
+import org.brekka.stillingar.api.ValueLookup;
+import org.brekka.stillingar.core.support.PrimitiveLookupSupport;
+import org.brekka.stillingar.core.support.ValueLookupSupport;
 
 /**
  * {@link ConfigurationSource} delegate. Useful for swapping out the underlying configuration source at runtime.
  * 
+ * The delegate is published via a volatile field so that readers always see a fully constructed source without
+ * needing to acquire any lock. Each read operation reads the field exactly once, so it will be serviced entirely by
+ * one delegate even if it is swapped concurrently. Callers that need several lookups to be consistent with each other
+ * should use {@link #pin()}.
+ * 
  * @author Andrew Taylor (andrew@brekka.org)
  */
-public class DelegatingConfigurationSource<CS extends ConfigurationSource> implements ConfigurationSource {
+public class DelegatingConfigurationSource<CS extends ConfigurationSource> implements ConfigurationSource, ValueLookup, PrimitiveValueLookup,
+        ConcurrentReadCapable {
 
-    private CS delegate;
+    /**
+     * The current delegate. Should be immutable as it will be read concurrently without locking.
+     */
+    private volatile CS delegate;
 
     /**
      * @param delegate
@@ -51,6 +65,16 @@ public class DelegatingConfigurationSource<CS extends ConfigurationSource> imple
         return delegate;
     }
 
+    /**
+     * Obtain the source currently being delegated to. All lookups made against the returned source will be consistent
+     * with each other, regardless of whether the delegate of this instance is changed in the meantime.
+     * 
+     * @return the current delegate
+     */
+    public CS pin() {
+        return delegate;
+    }
+
     /**
      * @param expression
      * @return
@@ -112,4 +136,77 @@ public class DelegatingConfigurationSource<CS extends ConfigurationSource> imple
     public <T> List<T> retrieveList(Class<T> valueType) {
         return delegate.retrieveList(valueType);
     }
+
+    /**
+     * @param expression
+     * @param valueType
+     * @return
+     * @see org.brekka.stillingar.api.ValueLookup#lookup(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookup(String expression, Class<?> valueType) {
+        return ValueLookupSupport.lookup(delegate, expression, valueType);
+    }
+
+    /**
+     * @param expression
+     * @param valueType
+     * @return
+     * @see org.brekka.stillingar.api.ValueLookup#lookupList(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookupList(String expression, Class<?> valueType) {
+        return ValueLookupSupport.lookupList(delegate, expression, valueType);
+    }
+
+    /**
+     * @param expression
+     * @return
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveInt(java.lang.String)
+     */
+    @Override
+    public int retrieveInt(String expression) {
+        return PrimitiveLookupSupport.retrieveInt(delegate, expression);
+    }
+
+    /**
+     * @param expression
+     * @return
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveLong(java.lang.String)
+     */
+    @Override
+    public long retrieveLong(String expression) {
+        return PrimitiveLookupSupport.retrieveLong(delegate, expression);
+    }
+
+    /**
+     * @param expression
+     * @return
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveDouble(java.lang.String)
+     */
+    @Override
+    public double retrieveDouble(String expression) {
+        return PrimitiveLookupSupport.retrieveDouble(delegate, expression);
+    }
+
+    /**
+     * @param expression
+     * @return
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveBoolean(java.lang.String)
+     */
+    @Override
+    public boolean retrieveBoolean(String expression) {
+        return PrimitiveLookupSupport.retrieveBoolean(delegate, expression);
+    }
+
+    /**
+     * @return true if the current delegate supports concurrent reads
+     * @see org.brekka.stillingar.api.ConcurrentReadCapable#supportsConcurrentReads()
+     */
+    @Override
+    public boolean supportsConcurrentReads() {
+        CS current = delegate;
+        return current instanceof ConcurrentReadCapable
+            && ((ConcurrentReadCapable) current).supportsConcurrentReads();
+    }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.brekka.stillingar.core;
+
+import org.brekka.stillingar.api.ConfigurationSource;
+
+/**
+ * Implemented by {@link ConfigurationSource}s that are able to determine what has changed since a previous version of
+ * the same source, allowing only those values that are affected by the change to be resolved again.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public interface DiffableConfigurationSource extends ConfigurationSource {
+
+    /**
+     * Determine what has changed between <code>previous</code> and this source.
+     *
+     * @param previous
+     *            the source that this one is replacing.
+     * @return the changes, or null if the sources cannot be compared (for example because <code>previous</code> is of a
+     *         different type), in which case all values should be considered changed.
+     */
+    SourceChanges diff(ConfigurationSource previous);
+}
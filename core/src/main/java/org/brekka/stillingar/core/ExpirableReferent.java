@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.brekka.stillingar.core;
+
+import java.lang.ref.ReferenceQueue;
+
+/**
+ * An {@link Expirable} that expires when a single referent object is garbage collected. Exposing the referent allows
+ * the configuration service to track it with its own {@link ReferenceQueue}, so that expired listeners are discovered
+ * as they are collected rather than by polling {@link #isExpired()} for every listener on each refresh.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public interface ExpirableReferent extends Expirable {
+
+    /**
+     * Retrieve the object whose collection will cause this instance to expire. Callers must not retain a strong
+     * reference to the result.
+     * 
+     * @return the referent, or null if it has already been collected.
+     */
+    Object getReferent();
+}
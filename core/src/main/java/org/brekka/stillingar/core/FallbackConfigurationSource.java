@@ -18,8 +18,13 @@ package org.brekka.stillingar.core;
 
 import java.util.List;
 
+import org.brekka.stillingar.api.ConcurrentReadCapable;
 import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ConfigurationSource;
+import org.brekka.stillingar.api.PrimitiveValueLookup;
+import org.brekka.stillingar.api.ValueLookup;
+import org.brekka.stillingar.core.support.PrimitiveLookupSupport;
+import org.brekka.stillingar.core.support.ValueLookupSupport;
 
 /**
  * A base configuration source which supports a default source as a fallback if the expression/type cannot be resolved
@@ -27,7 +32,8 @@ import org.brekka.stillingar.api.ConfigurationSource;
  * 
  * @author Andrew Taylor (andrew@brekka.org)
  */
-public class FallbackConfigurationSource implements ConfigurationSource {
+public class FallbackConfigurationSource implements ConfigurationSource, ValueLookup, PrimitiveValueLookup,
+        ConcurrentReadCapable {
 
     /**
      * Should be returned by {@link #getSecondarySource()} if there is no default available.
@@ -151,18 +157,11 @@ public class FallbackConfigurationSource implements ConfigurationSource {
      * @see org.brekka.stillingar.core.ConfigurationSource#retrieve(java.lang.String, java.lang.Class)
      */
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T retrieve(String expression, Class<T> valueType) {
-        if (expression == null) {
-            throw new IllegalArgumentException("An expression must be specified");
-        }
-        if (valueType == null) {
-            throw new IllegalArgumentException("A value type must be specified");
-        }
-        if (primarySource.isAvailable(expression)) {
-            return primarySource.retrieve(expression, valueType);
-        }
-        if (secondarySource.isAvailable(expression)) {
-            return secondarySource.retrieve(expression, valueType);
+        Object value = lookup(expression, valueType);
+        if (value != NOT_FOUND) {
+            return (T) value;
         }
         throw new ConfigurationException(String.format("Expression '%s' did not evaluate to a value "
                 + "in any of the available configuration sources. Expected return type '%s'.", 
@@ -195,21 +194,158 @@ public class FallbackConfigurationSource implements ConfigurationSource {
      * @see org.brekka.stillingar.core.ConfigurationSource#retrieveList(java.lang.String, java.lang.Class)
      */
     @Override
+    @SuppressWarnings("unchecked")
     public <T> List<T> retrieveList(String expression, Class<T> valueType) {
+        Object value = lookupList(expression, valueType);
+        if (value != NOT_FOUND) {
+            return (List<T>) value;
+        }
+        throw new ConfigurationException(String.format(
+                "Expression '%s' did not evaluate to any values within any of the available " +
+                "configuration sources. Expected to return list of type '%s'.", expression, valueType.getName()));
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.ValueLookup#lookup(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookup(String expression, Class<?> valueType) {
         if (expression == null) {
             throw new IllegalArgumentException("An expression must be specified");
         }
         if (valueType == null) {
             throw new IllegalArgumentException("A value type must be specified");
         }
-        if (primarySource.isAvailable(expression)) {
-            return primarySource.retrieveList(expression, valueType);
+        Object value = ValueLookupSupport.lookup(primarySource, expression, valueType);
+        if (value == NOT_FOUND) {
+            value = ValueLookupSupport.lookup(secondarySource, expression, valueType);
         }
-        if (secondarySource.isAvailable(expression)) {
-            return secondarySource.retrieveList(expression, valueType);
+        return value;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.ValueLookup#lookupList(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookupList(String expression, Class<?> valueType) {
+        if (expression == null) {
+            throw new IllegalArgumentException("An expression must be specified");
         }
-        throw new ConfigurationException(String.format(
-                "Expression '%s' did not evaluate to any values within any of the available " +
-                "configuration sources. Expected to return list of type '%s'.", expression, valueType.getName()));
+        if (valueType == null) {
+            throw new IllegalArgumentException("A value type must be specified");
+        }
+        Object value = ValueLookupSupport.lookupList(primarySource, expression, valueType);
+        if (value == NOT_FOUND) {
+            value = ValueLookupSupport.lookupList(secondarySource, expression, valueType);
+        }
+        return value;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveInt(java.lang.String)
+     */
+    @Override
+    public int retrieveInt(String expression) {
+        Object value = locatePrimary(expression, Integer.TYPE);
+        if (value == NOT_FOUND) {
+            value = locateSecondary(expression, Integer.TYPE);
+            return PrimitiveLookupSupport.toInt(secondarySource, value, expression);
+        }
+        return PrimitiveLookupSupport.toInt(primarySource, value, expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveLong(java.lang.String)
+     */
+    @Override
+    public long retrieveLong(String expression) {
+        Object value = locatePrimary(expression, Long.TYPE);
+        if (value == NOT_FOUND) {
+            value = locateSecondary(expression, Long.TYPE);
+            return PrimitiveLookupSupport.toLong(secondarySource, value, expression);
+        }
+        return PrimitiveLookupSupport.toLong(primarySource, value, expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveDouble(java.lang.String)
+     */
+    @Override
+    public double retrieveDouble(String expression) {
+        Object value = locatePrimary(expression, Double.TYPE);
+        if (value == NOT_FOUND) {
+            value = locateSecondary(expression, Double.TYPE);
+            return PrimitiveLookupSupport.toDouble(secondarySource, value, expression);
+        }
+        return PrimitiveLookupSupport.toDouble(primarySource, value, expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveBoolean(java.lang.String)
+     */
+    @Override
+    public boolean retrieveBoolean(String expression) {
+        Object value = locatePrimary(expression, Boolean.TYPE);
+        if (value == NOT_FOUND) {
+            value = locateSecondary(expression, Boolean.TYPE);
+            return PrimitiveLookupSupport.toBoolean(secondarySource, value, expression);
+        }
+        return PrimitiveLookupSupport.toBoolean(primarySource, value, expression);
+    }
+
+    /**
+     * Locate the value that is to be converted to a primitive in the primary source.
+     */
+    private Object locatePrimary(String expression, Class<?> primitiveType) {
+        if (expression == null) {
+            throw new IllegalArgumentException("An expression must be specified");
+        }
+        return PrimitiveLookupSupport.locate(primarySource, expression, primitiveType);
+    }
+
+    /**
+     * Locate the value that is to be converted to a primitive in the secondary source, having not been found in the
+     * primary.
+     */
+    private Object locateSecondary(String expression, Class<?> primitiveType) {
+        Object value = PrimitiveLookupSupport.locate(secondarySource, expression, primitiveType);
+        if (value == NOT_FOUND) {
+            throw new ConfigurationException(String.format("Expression '%s' did not evaluate to a value "
+                    + "in any of the available configuration sources.", expression));
+        }
+        return value;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.ConcurrentReadCapable#supportsConcurrentReads()
+     */
+    @Override
+    public boolean supportsConcurrentReads() {
+        return supportsConcurrentReads(primarySource) && supportsConcurrentReads(secondarySource);
+    }
+
+    /**
+     * Determine whether the specified source supports concurrent reads.
+     */
+    private static boolean supportsConcurrentReads(ConfigurationSource source) {
+        if (source == NONE) {
+            return true;
+        }
+        return source instanceof ConcurrentReadCapable
+            && ((ConcurrentReadCapable) source).supportsConcurrentReads();
     }
 }
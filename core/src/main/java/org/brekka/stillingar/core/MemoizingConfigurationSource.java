@@ -0,0 +1,208 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.brekka.stillingar.api.ConcurrentReadCapable;
+import org.brekka.stillingar.api.ConfigurationSource;
+import org.brekka.stillingar.api.ValueLookup;
+import org.brekka.stillingar.core.support.ConvertedValueCache;
+import org.brekka.stillingar.core.support.ImmutableTypes;
+import org.brekka.stillingar.core.support.ValueLookupSupport;
+
+/**
+ * Wraps a snapshot of the configuration, remembering the result of each distinct lookup (by expression or type, value
+ * type and whether a single value or list was requested) so that it is only evaluated and converted once, no matter
+ * how many value definitions ask for it.
+ *
+ * Results are remembered in a {@link ConvertedValueCache}, so only those that are immutable (see
+ * {@link ImmutableTypes}) are shared between callers, and values with their own lifecycle are never handed to more than
+ * one definition. Lists are copied for each caller. Failed lookups are not remembered. The wrapped source must not
+ * change while this instance is in use.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class MemoizingConfigurationSource implements ConfigurationSource, ValueLookup, ConcurrentReadCapable {
+
+    /**
+     * The snapshot being memoized
+     */
+    private final ConfigurationSource targetSource;
+
+    /**
+     * The results of lookups made so far
+     */
+    private final ConvertedValueCache results = new ConvertedValueCache(Integer.MAX_VALUE);
+
+    /**
+     * The results of availability checks by type made so far
+     */
+    private final ConcurrentMap<Class<?>, Boolean> availableTypes = new ConcurrentHashMap<Class<?>, Boolean>();
+
+    /**
+     * @param targetSource
+     *            the snapshot to memoize lookups against, which must not change.
+     */
+    public MemoizingConfigurationSource(ConfigurationSource targetSource) {
+        if (targetSource == null) {
+            throw new IllegalArgumentException("A target source must be specified");
+        }
+        this.targetSource = targetSource;
+    }
+
+    /**
+     * @return the snapshot being memoized
+     */
+    public final ConfigurationSource getTargetSource() {
+        return targetSource;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.brekka.stillingar.api.ConfigurationSource#isAvailable(java.lang.String)
+     */
+    @Override
+    public boolean isAvailable(String expression) {
+        return targetSource.isAvailable(expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.brekka.stillingar.api.ConfigurationSource#isAvailable(java.lang.Class)
+     */
+    @Override
+    public boolean isAvailable(Class<?> valueType) {
+        if (valueType == null) {
+            throw new IllegalArgumentException("A value type must be specified");
+        }
+        Boolean result = availableTypes.get(valueType);
+        if (result == null) {
+            result = Boolean.valueOf(targetSource.isAvailable(valueType));
+            availableTypes.putIfAbsent(valueType, result);
+        }
+        return result.booleanValue();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.brekka.stillingar.api.ConfigurationSource#retrieve(java.lang.String, java.lang.Class)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T retrieve(String expression, Class<T> valueType) {
+        Object value = lookup(expression, valueType);
+        if (value != NOT_FOUND) {
+            return (T) value;
+        }
+        // Let the target report the problem in its own terms
+        return targetSource.retrieve(expression, valueType);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.brekka.stillingar.api.ConfigurationSource#retrieve(java.lang.Class)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T retrieve(Class<T> valueType) {
+        Object result = results.get(null, valueType);
+        if (result == ConvertedValueCache.MISS) {
+            result = targetSource.retrieve(valueType);
+            results.put(null, valueType, result);
+        }
+        return (T) result;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.brekka.stillingar.api.ConfigurationSource#retrieveList(java.lang.String, java.lang.Class)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> retrieveList(String expression, Class<T> valueType) {
+        Object value = lookupList(expression, valueType);
+        if (value != NOT_FOUND) {
+            return (List<T>) value;
+        }
+        return targetSource.retrieveList(expression, valueType);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.brekka.stillingar.api.ConfigurationSource#retrieveList(java.lang.Class)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> retrieveList(Class<T> valueType) {
+        Object result = results.getList(null, valueType);
+        if (result == ConvertedValueCache.MISS) {
+            result = targetSource.retrieveList(valueType);
+            results.putList(null, valueType, result);
+        }
+        return (List<T>) result;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.brekka.stillingar.api.ValueLookup#lookup(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookup(String expression, Class<?> valueType) {
+        Object result = results.get(expression, valueType);
+        if (result == ConvertedValueCache.MISS) {
+            result = ValueLookupSupport.lookup(targetSource, expression, valueType);
+            results.put(expression, valueType, result);
+        }
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.brekka.stillingar.api.ValueLookup#lookupList(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookupList(String expression, Class<?> valueType) {
+        Object result = results.getList(expression, valueType);
+        if (result == ConvertedValueCache.MISS) {
+            result = ValueLookupSupport.lookupList(targetSource, expression, valueType);
+            results.putList(expression, valueType, result);
+        }
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.brekka.stillingar.api.ConcurrentReadCapable#supportsConcurrentReads()
+     */
+    @Override
+    public boolean supportsConcurrentReads() {
+        return targetSource instanceof ConcurrentReadCapable
+                && ((ConcurrentReadCapable) targetSource).supportsConcurrentReads();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.brekka.stillingar.core;
+
+import org.brekka.stillingar.api.PrimitiveValueLookup;
+import org.brekka.stillingar.api.ValueLookup;
+
+/**
+ * Implemented by sources that can separate locating a value that is to be converted to a primitive from the conversion
+ * itself. This allows a primitive to be resolved from the first of several sources that defines it with a single
+ * evaluation per source, in the same way as {@link ValueLookup#lookup(String, Class)}, and without boxing.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public interface PrimitiveValueLocator extends PrimitiveValueLookup {
+
+    /**
+     * Locate the value identified by <code>expression</code>, in the form held by this source.
+     * 
+     * @param expression
+     *            the expression used to identify the value.
+     * @param primitiveType
+     *            the primitive type the value will be converted to, for error reporting.
+     * @return the value, to be passed to one of the conversion methods of this source, or {@link ValueLookup#NOT_FOUND}
+     *         if the expression does not identify a value.
+     * @throws org.brekka.stillingar.api.ConfigurationException
+     *             if the expression identifies more than one value.
+     */
+    Object locatePrimitive(String expression, Class<?> primitiveType);
+
+    /**
+     * @param value
+     *            a value returned by {@link #locatePrimitive(String, Class)}
+     * @param expression
+     *            the expression that located the value, for error reporting.
+     * @return the value as an int
+     */
+    int toInt(Object value, String expression);
+
+    /**
+     * @param value
+     *            a value returned by {@link #locatePrimitive(String, Class)}
+     * @param expression
+     *            the expression that located the value, for error reporting.
+     * @return the value as a long
+     */
+    long toLong(Object value, String expression);
+
+    /**
+     * @param value
+     *            a value returned by {@link #locatePrimitive(String, Class)}
+     * @param expression
+     *            the expression that located the value, for error reporting.
+     * @return the value as a double
+     */
+    double toDouble(Object value, String expression);
+
+    /**
+     * @param value
+     *            a value returned by {@link #locatePrimitive(String, Class)}
+     * @param expression
+     *            the expression that located the value, for error reporting.
+     * @return the value as a boolean
+     */
+    boolean toBoolean(Object value, String expression);
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.brekka.stillingar.core;
+
+/**
+ * Describes what differs between two versions of a configuration source, as produced by
+ * {@link DiffableConfigurationSource#diff(org.brekka.stillingar.api.ConfigurationSource)}. Used to identify which of
+ * the registered expressions need to be resolved again following a refresh.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public interface SourceChanges {
+
+    /**
+     * @return true if the two sources contain exactly the same values.
+     */
+    boolean isEmpty();
+
+    /**
+     * Determine whether the value(s) identified by <code>expression</code> may have changed. Implementations must be
+     * conservative, returning true whenever they cannot be certain that the value is unaffected.
+     *
+     * @param expression
+     *            the expression to check, or null for values that are resolved by type.
+     * @return false only if the value(s) identified by the expression are definitely unchanged.
+     */
+    boolean affects(String expression);
+}
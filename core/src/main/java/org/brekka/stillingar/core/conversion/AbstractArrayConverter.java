@@ -0,0 +1,204 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import static java.lang.String.format;
+
+import java.util.Collection;
+
+/**
+ * Support class for converters to array types. Text is treated as a comma-delimited list of elements, each of which is
+ * parsed in place into the array without splitting the text first. A collection (for example the text of repeated
+ * nodes) provides one element per entry.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public abstract class AbstractArrayConverter<A> extends AbstractTypeConverter<A> {
+
+    /**
+     * The delimiter between elements in text
+     */
+    private static final char DELIMITER = ',';
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.AbstractTypeConverter#convert(java.lang.Object)
+     */
+    @Override
+    public A convert(Object obj) {
+        A value;
+        if (targetType().isInstance(obj)) {
+            value = targetType().cast(obj);
+        } else if (obj instanceof CharSequence) {
+            value = fromDelimited((CharSequence) obj);
+        } else if (obj instanceof Collection) {
+            value = fromCollection((Collection<?>) obj);
+        } else {
+            value = super.convert(obj);
+        }
+        return value;
+    }
+
+    /**
+     * Create a new array of the target type.
+     * 
+     * @param length
+     *            the length of the array
+     * @return the new array
+     */
+    protected abstract A newArray(int length);
+
+    /**
+     * Parse the element text between <code>start</code> and <code>end</code> (exclusive) and assign it to the array.
+     * Leading and trailing whitespace will already have been excluded.
+     * 
+     * @param array
+     *            the array to update
+     * @param index
+     *            the index of the element
+     * @param text
+     *            the text containing the element
+     * @param start
+     *            the start of the element within the text
+     * @param end
+     *            the end of the element within the text (exclusive)
+     */
+    protected abstract void set(A array, int index, CharSequence text, int start, int end);
+
+    /**
+     * Assign an element that was provided as something other than text. By default the string form of the value is
+     * parsed.
+     * 
+     * @param array
+     *            the array to update
+     * @param index
+     *            the index of the element
+     * @param value
+     *            the element value (not null)
+     */
+    protected void setValue(A array, int index, Object value) {
+        String str = value.toString();
+        set(array, index, str, start(str, 0, str.length()), end(str, 0, str.length()));
+    }
+
+    protected A fromDelimited(CharSequence text) {
+        int length = text.length();
+        if (start(text, 0, length) == length) {
+            return newArray(0);
+        }
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == DELIMITER) {
+                count++;
+            }
+        }
+        A array = newArray(count);
+        int index = 0;
+        int tokenStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || text.charAt(i) == DELIMITER) {
+                int start = start(text, tokenStart, i);
+                set(array, index++, text, start, end(text, start, i));
+                tokenStart = i + 1;
+            }
+        }
+        return array;
+    }
+
+    protected A fromCollection(Collection<?> values) {
+        A array = newArray(values.size());
+        int index = 0;
+        for (Object value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException(format("Null element at index %d for '%s'", 
+                        index, targetType().getName()));
+            }
+            if (value instanceof CharSequence) {
+                CharSequence text = (CharSequence) value;
+                int start = start(text, 0, text.length());
+                set(array, index, text, start, end(text, start, text.length()));
+            } else {
+                setValue(array, index, value);
+            }
+            index++;
+        }
+        return array;
+    }
+
+    /**
+     * Parse a whole number from part of the text, without creating a substring.
+     * 
+     * @param text
+     *            the text containing the number
+     * @param start
+     *            the start of the number
+     * @param end
+     *            the end of the number (exclusive)
+     * @param min
+     *            the minimum permitted value
+     * @param max
+     *            the maximum permitted value
+     * @return the number
+     * @throws IllegalArgumentException
+     *             if the text is not a number within the permitted range.
+     */
+    protected static long parseLong(CharSequence text, int start, int end, long min, long max) {
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (text.charAt(pos) == '-' || text.charAt(pos) == '+')) {
+            negative = text.charAt(pos) == '-';
+            pos++;
+        }
+        if (pos == end) {
+            throw invalid(text, start, end);
+        }
+        // Accumulate negatively so that Long.MIN_VALUE can be represented
+        long limit = negative ? min : -max;
+        long multmin = limit / 10;
+        long result = 0;
+        for (; pos < end; pos++) {
+            int digit = text.charAt(pos) - '0';
+            if (digit < 0 || digit > 9 
+                    || result < multmin) {
+                throw invalid(text, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw invalid(text, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    protected static IllegalArgumentException invalid(CharSequence text, int start, int end) {
+        return new IllegalArgumentException(format("Invalid number '%s'", text.subSequence(start, end)));
+    }
+
+    private static int start(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int end(CharSequence text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
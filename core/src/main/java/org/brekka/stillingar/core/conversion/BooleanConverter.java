@@ -20,7 +20,7 @@ package org.brekka.stillingar.core.conversion;
 /**
  * @author Andrew Taylor
  */
-public class BooleanConverter extends AbstractTypeConverter<Boolean> {
+public class BooleanConverter extends AbstractTypeConverter<Boolean> implements BooleanValueConverter {
 
     @Override
     public final Class<Boolean> targetType() {
@@ -48,4 +48,22 @@ public class BooleanConverter extends AbstractTypeConverter<Boolean> {
         }
         return value;
     }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.BooleanValueConverter#toBoolean(java.lang.Object)
+     */
+    @Override
+    public boolean toBoolean(Object obj) {
+        boolean value;
+        if (obj instanceof Boolean) {
+            value = ((Boolean) obj).booleanValue();
+        } else if (obj instanceof String) {
+            value = Boolean.parseBoolean((String) obj);
+        } else if (obj instanceof Number) {
+            value = ((Number) obj).intValue() == 1;
+        } else {
+            value = convert(obj).booleanValue();
+        }
+        return value;
+    }
 }
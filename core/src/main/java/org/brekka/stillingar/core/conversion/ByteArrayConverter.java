@@ -19,6 +19,7 @@ package org.brekka.stillingar.core.conversion;
 import static java.lang.String.format;
 
 import java.io.IOException;
+import java.util.Collection;
 
 /**
  * @author Andrew Taylor
@@ -62,6 +63,8 @@ public class ByteArrayConverter extends AbstractTypeConverter<byte[]> {
             value = (byte[]) obj;
         } else if (obj instanceof String) {
             value = parseString((String) obj);
+        } else if (obj instanceof Collection) {
+            value = parseCollection((Collection<?>) obj);
         } else {
             value = super.convert(obj);
         }
@@ -69,6 +72,35 @@ public class ByteArrayConverter extends AbstractTypeConverter<byte[]> {
     }
 
 
+    /**
+     * Each element of the collection (for example the text of repeated nodes) is a single byte value.
+     * 
+     * @param values
+     *            the byte values
+     * @return the array
+     */
+    protected byte[] parseCollection(Collection<?> values) {
+        byte[] value = new byte[values.size()];
+        int index = 0;
+        for (Object element : values) {
+            long byteValue;
+            if (element instanceof Number) {
+                byteValue = ((Number) element).longValue();
+            } else {
+                try {
+                    byteValue = Long.parseLong(String.valueOf(element).trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(format("Invalid byte value '%s'", element), e);
+                }
+            }
+            if (byteValue < Byte.MIN_VALUE || byteValue > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException(format("Byte value out of range '%s'", element));
+            }
+            value[index++] = (byte) byteValue;
+        }
+        return value;
+    }
+
     /**
      * @param obj
      * @return
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import static java.lang.String.format;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Converts base64 text into a read-only {@link ByteBuffer} backed by direct (off-heap) memory. The text is decoded
+ * straight into the buffer, without an intermediate byte array. Buffers are remembered by a hash of their content so
+ * that when the same payload reappears (normally in a new snapshot of the configuration) the existing buffer is reused
+ * rather than decoded again. The content is always verified before a buffer is reused.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class ByteBufferConverter extends AbstractTypeConverter<ByteBuffer> {
+
+    /**
+     * Maps each base64 character to its six bit value, or -1 if not part of the alphabet. Both the standard and URL
+     * safe alphabets are accepted.
+     */
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+        DECODE['-'] = 62;
+        DECODE['_'] = 63;
+    }
+
+    /**
+     * Buffers previously decoded, keyed on the hash of their content. Only weakly held, so a buffer is released once
+     * nothing else refers to it.
+     */
+    private final ConcurrentMap<Long, WeakReference<ByteBuffer>> buffers = 
+            new ConcurrentHashMap<Long, WeakReference<ByteBuffer>>();
+
+    @Override
+    public final Class<ByteBuffer> targetType() {
+        return ByteBuffer.class;
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.AbstractTypeConverter#convert(java.lang.Object)
+     */
+    @Override
+    public ByteBuffer convert(Object obj) {
+        ByteBuffer value;
+        if (obj instanceof ByteBuffer) {
+            value = (ByteBuffer) obj;
+        } else if (obj instanceof byte[]) {
+            byte[] bytes = (byte[]) obj;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            value = buffer.asReadOnlyBuffer();
+        } else if (obj instanceof CharSequence) {
+            value = decode((CharSequence) obj);
+        } else {
+            value = super.convert(obj);
+        }
+        return value;
+    }
+
+    /**
+     * Decode the base64 text, reusing a previously decoded buffer with the same content where possible.
+     * 
+     * @param text
+     *            the base64 text
+     * @return a read-only view of the decoded buffer.
+     */
+    protected ByteBuffer decode(CharSequence text) {
+        // First pass, count the significant characters and hash them.
+        long hash = 0xcbf29ce484222325L;
+        int count = 0;
+        int padding = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            if (ch == '=') {
+                padding++;
+            } else if (ch < 128 && DECODE[ch] >= 0) {
+                if (padding > 0) {
+                    throw new IllegalArgumentException(format("Invalid base64, data follows padding at %d", i));
+                }
+                count++;
+                hash = (hash ^ ch) * 0x100000001b3L;
+            } else if (!Character.isWhitespace(ch)) {
+                throw new IllegalArgumentException(format("Invalid base64 character '%s' at %d", ch, i));
+            }
+        }
+        if (count % 4 == 1) {
+            throw new IllegalArgumentException("Invalid base64, incomplete final quantum");
+        }
+        int size = (int) ((count * 3L) / 4);
+        Long key = Long.valueOf(hash ^ size);
+
+        WeakReference<ByteBuffer> ref = buffers.get(key);
+        ByteBuffer existing = (ref != null ? ref.get() : null);
+        if (existing != null 
+                && existing.capacity() == size
+                && decodeInto(text, existing, false)) {
+            return existing.asReadOnlyBuffer();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        decodeInto(text, buffer, true);
+        buffers.put(key, new WeakReference<ByteBuffer>(buffer));
+        purgeCleared();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Second pass, either writing the decoded bytes into the buffer or comparing them against its existing content.
+     * 
+     * @return true if written, or the content matches.
+     */
+    private static boolean decodeInto(CharSequence text, ByteBuffer buffer, boolean write) {
+        int bits = 0;
+        int accumulated = 0;
+        int index = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            if (ch >= 128 || DECODE[ch] < 0) {
+                // Whitespace or padding, already validated
+                continue;
+            }
+            accumulated = (accumulated << 6) | DECODE[ch];
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                byte b = (byte) (accumulated >> bits);
+                if (write) {
+                    buffer.put(index, b);
+                } else if (buffer.get(index) != b) {
+                    return false;
+                }
+                index++;
+                accumulated &= (1 << bits) - 1;
+            }
+        }
+        return true;
+    }
+
+    private void purgeCleared() {
+        for (Long key : buffers.keySet()) {
+            WeakReference<ByteBuffer> ref = buffers.get(key);
+            if (ref != null && ref.get() == null) {
+                buffers.remove(key, ref);
+            }
+        }
+    }
+}
@@ -19,51 +19,79 @@ package org.brekka.stillingar.core.conversion;
 import static java.lang.String.format;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * TODO Documentation
+ * Converts values to a requested type using the {@link TypeConverter} registered for that type. The converter for
+ * each requested type is resolved once and cached per class: an exact match is preferred, otherwise the single
+ * converter producing a subtype of the requested type (if there is only one). Enum types are handled by the converter
+ * registered for {@link Enum}, bound to the concrete enum type. Types that have no registered converter at all fall back
+ * to a {@link FactoryMethodConverter} where the type provides a suitable factory method or constructor, unless disabled
+ * via {@link #setFactoryMethodFallback(boolean)}.
  * 
  * @author Andrew Taylor
  */
 public class ConversionManager {
 
+    /**
+     * Cached in place of a converter for types that have none.
+     */
+    private static final TypeConverter<?> NO_CONVERTER = new AbstractTypeConverter<Object>() {
+        @Override
+        public Class<Object> targetType() {
+            return null;
+        }
+    };
+
+    /**
+     * Converters keyed on their target (and primitive) type.
+     */
     private final Map<Class<?>, TypeConverter<?>> converters;
     
+    /**
+     * The converter resolved for each requested type. Replaced whenever a converter is added.
+     */
+    private volatile ClassValue<TypeConverter<?>> dispatch = newDispatch();
+    
+    /**
+     * Whether types with no registered converter should be converted using their own factory method or constructor.
+     */
+    private volatile boolean factoryMethodFallback = true;
+    
     public ConversionManager(Collection<TypeConverter<?>> converters) {
         this.converters = prepare(converters);
     }
     
+    /**
+     * Obtain the converter that will be used to convert values to <code>targetType</code>.
+     * 
+     * @param targetType
+     *            the requested type
+     * @return the converter or null if there is none.
+     */
     @SuppressWarnings("unchecked")
     public <To> TypeConverter<To> getConverterForTarget(Class<To> targetType) {
         if (targetType == null) {
             return null;
         }
-        return (TypeConverter<To>) this.converters.get(targetType);
+        TypeConverter<?> converter = dispatch.get(targetType);
+        if (converter == NO_CONVERTER) {
+            return null;
+        }
+        return (TypeConverter<To>) converter;
     }
     
     public boolean hasConverter(Class<?> targetType) {
-        if (targetType.isEnum()) {
-            return getConverterForTarget(Enum.class) != null;
-        }
         return getConverterForTarget(targetType) != null;
     }
     
-    @SuppressWarnings("unchecked")
     public <T> T convert(Object value, Class<T> valueType) {
         if (value == null) {
             return null;
-        } else if (valueType.isAssignableFrom(value.getClass())) {
+        } else if (valueType.isInstance(value)) {
             return valueType.cast(value);
         }
-        if (valueType.isEnum()) {
-            Object converterForTarget = getConverterForTarget(Enum.class);
-            if (converterForTarget instanceof EnumConverter) {
-                EnumConverter converter = (EnumConverter) converterForTarget;
-                return (T) converter.convert(value, (Class<Enum<?>>) valueType);
-            }
-        }
         TypeConverter<T> converterForTarget = getConverterForTarget(valueType);
         if (converterForTarget == null) {
             throw new IllegalArgumentException(format("Unable to find converter"
@@ -72,16 +100,160 @@ public class ConversionManager {
         return converterForTarget.convert(value);
     }
     
-    public synchronized void addConverter(TypeConverter<?> converter) {
+    /**
+     * Convert the value to an int without boxing, where the converter for int supports it (see {@link IntValueConverter}).
+     * 
+     * @param value
+     *            the value to convert
+     * @return the converted value
+     * @throws IllegalArgumentException
+     *             if the value is null or cannot be converted.
+     */
+    public int convertToInt(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot convert null to int");
+        }
+        TypeConverter<?> converter = getConverterForTarget(Integer.TYPE);
+        if (converter instanceof IntValueConverter) {
+            return ((IntValueConverter) converter).toInt(value);
+        }
+        return convert(value, Integer.class).intValue();
+    }
+    
+    /**
+     * Convert the value to a long without boxing, where the converter for long supports it (see {@link LongValueConverter}).
+     * 
+     * @param value
+     *            the value to convert
+     * @return the converted value
+     * @throws IllegalArgumentException
+     *             if the value is null or cannot be converted.
+     */
+    public long convertToLong(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot convert null to long");
+        }
+        TypeConverter<?> converter = getConverterForTarget(Long.TYPE);
+        if (converter instanceof LongValueConverter) {
+            return ((LongValueConverter) converter).toLong(value);
+        }
+        return convert(value, Long.class).longValue();
+    }
+    
+    /**
+     * Convert the value to a double without boxing, where the converter for double supports it (see {@link DoubleValueConverter}).
+     * 
+     * @param value
+     *            the value to convert
+     * @return the converted value
+     * @throws IllegalArgumentException
+     *             if the value is null or cannot be converted.
+     */
+    public double convertToDouble(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot convert null to double");
+        }
+        TypeConverter<?> converter = getConverterForTarget(Double.TYPE);
+        if (converter instanceof DoubleValueConverter) {
+            return ((DoubleValueConverter) converter).toDouble(value);
+        }
+        return convert(value, Double.class).doubleValue();
+    }
+    
+    /**
+     * Convert the value to a boolean without boxing, where the converter for boolean supports it (see {@link BooleanValueConverter}).
+     * 
+     * @param value
+     *            the value to convert
+     * @return the converted value
+     * @throws IllegalArgumentException
+     *             if the value is null or cannot be converted.
+     */
+    public boolean convertToBoolean(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot convert null to boolean");
+        }
+        TypeConverter<?> converter = getConverterForTarget(Boolean.TYPE);
+        if (converter instanceof BooleanValueConverter) {
+            return ((BooleanValueConverter) converter).toBoolean(value);
+        }
+        return convert(value, Boolean.class).booleanValue();
+    }
+    
+    /**
+     * Add (or replace) the converter for its target type. Can be called concurrently with conversions, which will use
+     * the new converter once it has been added.
+     * 
+     * @param converter
+     *            the converter to add.
+     */
+    public void addConverter(TypeConverter<?> converter) {
         Class<?> targetType = converter.targetType();
         if (targetType != null) {
             // Target type can be null if the converter is not available due to missing libraries
             converters.put(targetType, converter);
+            // Previously resolved types may now resolve differently
+            dispatch = newDispatch();
+        }
+    }
+    
+    /**
+     * Enable or disable the conversion of types with no registered converter using their own factory method or
+     * constructor (see {@link FactoryMethodConverter}). Enabled by default.
+     * 
+     * @param factoryMethodFallback
+     *            true to enable the fallback.
+     */
+    public void setFactoryMethodFallback(boolean factoryMethodFallback) {
+        this.factoryMethodFallback = factoryMethodFallback;
+        dispatch = newDispatch();
+    }
+    
+    /**
+     * Resolve the converter for the requested type (see class description).
+     * 
+     * @param targetType
+     *            the requested type
+     * @return the converter or {@link #NO_CONVERTER}.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected TypeConverter<?> resolve(Class<?> targetType) {
+        TypeConverter<?> converter = converters.get(targetType);
+        if (converter != null) {
+            return converter;
+        }
+        if (targetType.isEnum()) {
+            TypeConverter<?> enumConverter = converters.get(Enum.class);
+            if (enumConverter instanceof EnumConverter) {
+                return new BoundEnumConverter((EnumConverter) enumConverter, (Class) targetType);
+            }
+            return NO_CONVERTER;
+        }
+        TypeConverter<?> match = NO_CONVERTER;
+        for (TypeConverter<?> candidate : converters.values()) {
+            Class<?> candidateType = candidate.targetType();
+            if (candidate == match
+                    || !targetType.isAssignableFrom(candidateType)) {
+                continue;
+            }
+            if (match != NO_CONVERTER) {
+                // Ambiguous, don't fall back either
+                return NO_CONVERTER;
+            }
+            match = candidate;
+        }
+        if (match == NO_CONVERTER
+                && factoryMethodFallback) {
+            TypeConverter<?> fallback = FactoryMethodConverter.forType(targetType);
+            if (fallback != null) {
+                return fallback;
+            }
         }
+        return match;
     }
     
     protected static Map<Class<?>, TypeConverter<?>> prepare(Collection<TypeConverter<?>> converters) {
-        Map<Class<?>, TypeConverter<?>> converterMap = new HashMap<Class<?>, TypeConverter<?>>();
+        Map<Class<?>, TypeConverter<?>> converterMap = new ConcurrentHashMap<Class<?>, TypeConverter<?>>();
         for (TypeConverter<?> converter : converters) {
             Class<?> targetType = converter.targetType();
             if (targetType == null) {
@@ -96,4 +268,43 @@ public class ConversionManager {
         }
         return converterMap;
     }
+    
+    private ClassValue<TypeConverter<?>> newDispatch() {
+        return new ClassValue<TypeConverter<?>>() {
+            @Override
+            protected TypeConverter<?> computeValue(Class<?> type) {
+                return resolve(type);
+            }
+        };
+    }
+    
+    /**
+     * Applies the {@link EnumConverter} registered for {@link Enum} to one concrete enum type.
+     */
+    private static final class BoundEnumConverter implements TypeConverter<Enum<?>> {
+        
+        private final EnumConverter enumConverter;
+        
+        private final Class<Enum<?>> enumType;
+        
+        BoundEnumConverter(EnumConverter enumConverter, Class<Enum<?>> enumType) {
+            this.enumConverter = enumConverter;
+            this.enumType = enumType;
+        }
+        
+        @Override
+        public Enum<?> convert(Object value) {
+            return enumConverter.convert(value, enumType);
+        }
+        
+        @Override
+        public Class<Enum<?>> targetType() {
+            return enumType;
+        }
+        
+        @Override
+        public Class<?> primitiveType() {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The default converters of a configuration source loader, prepared once on first use and then shared by every loader
+ * relying on them. Converters registered as services (see {@link TypeConverterListBuilder#addDiscovered(ClassLoader)})
+ * are added after those returned by {@link #prepare()}. As the list is shared by every thread, these are discovered
+ * using the class loader of the subclass (normally declared by the loader itself) rather than that of whichever thread
+ * happens to use it first.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public abstract class DefaultConverters {
+
+    /**
+     * The unmodifiable list of converters, once prepared.
+     */
+    private volatile List<TypeConverter<?>> converters;
+
+    /**
+     * @return the unmodifiable list of default converters.
+     */
+    public final List<TypeConverter<?>> getConverters() {
+        List<TypeConverter<?>> list = converters;
+        if (list == null) {
+            synchronized (this) {
+                list = converters;
+                if (list == null) {
+                    list = withDiscovered(prepare(), getClass().getClassLoader());
+                    converters = list;
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Create a conversion manager for the default converters. Converters can be added to a conversion manager, so each
+     * loader is given its own rather than sharing one.
+     *
+     * @return the new conversion manager.
+     */
+    public final ConversionManager newConversionManager() {
+        return new ConversionManager(getConverters());
+    }
+
+    /**
+     * Prepare the converters specific to the loader, to which any discovered converters will be added.
+     *
+     * @return the list of converters.
+     */
+    protected abstract List<TypeConverter<?>> prepare();
+
+    /**
+     * Add the converters registered as services that are visible to <code>classLoader</code> to a copy of
+     * <code>converters</code>.
+     *
+     * @param converters
+     *            the converters to start from.
+     * @param classLoader
+     *            the class loader to search.
+     * @return the unmodifiable list of converters.
+     * @throws IllegalStateException
+     *             if a registered converter cannot be loaded or instantiated.
+     */
+    public static List<TypeConverter<?>> withDiscovered(List<TypeConverter<?>> converters, ClassLoader classLoader) {
+        return Collections.unmodifiableList(
+                new TypeConverterListBuilder(converters).addDiscovered(classLoader).toList());
+    }
+}
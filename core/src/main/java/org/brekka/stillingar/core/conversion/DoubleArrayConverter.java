@@ -0,0 +1,125 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+/**
+ * Converts comma-delimited text, or a collection of elements, to <code>double[]</code>.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class DoubleArrayConverter extends AbstractArrayConverter<double[]> {
+
+    private static final double[] EMPTY = new double[0];
+
+    /**
+     * The largest mantissa for which every value is exactly representable as a double (2^53).
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * The powers of ten that are exactly representable as a double.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Class<double[]> targetType() {
+        return (Class<double[]>) EMPTY.getClass();
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.AbstractArrayConverter#newArray(int)
+     */
+    @Override
+    protected double[] newArray(int length) {
+        return (length == 0 ? EMPTY : new double[length]);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.AbstractArrayConverter#set(java.lang.Object, int, java.lang.CharSequence, int, int)
+     */
+    @Override
+    protected void set(double[] array, int index, CharSequence text, int start, int end) {
+        array[index] = parseDouble(text, start, end);
+    }
+
+    /**
+     * Parse a decimal number from part of the text. Plain decimals (such as <code>-12.75</code>) whose digits and
+     * scale are small enough for a single division to give the correctly rounded result are parsed in place. Anything
+     * else (exponents, long fractions, <code>NaN</code>) falls back to {@link Double#parseDouble(String)}.
+     */
+    static double parseDouble(CharSequence text, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (text.charAt(pos) == '-' || text.charAt(pos) == '+')) {
+            negative = text.charAt(pos) == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        boolean plain = true;
+        for (; pos < end && plain; pos++) {
+            char c = text.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                int digit = c - '0';
+                if (mantissa > (MAX_EXACT_MANTISSA - digit) / 10) {
+                    plain = false;
+                } else {
+                    mantissa = mantissa * 10 + digit;
+                    digits++;
+                    if (scale >= 0) {
+                        scale++;
+                    }
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                plain = false;
+            }
+        }
+        if (plain 
+                && digits > 0
+                && scale < POWERS_OF_TEN.length) {
+            double value = mantissa;
+            if (scale > 0) {
+                value /= POWERS_OF_TEN[scale];
+            }
+            return (negative ? -value : value);
+        }
+        try {
+            return Double.parseDouble(text.subSequence(start, end).toString());
+        } catch (NumberFormatException e) {
+            throw invalid(text, start, end);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.AbstractArrayConverter#setValue(java.lang.Object, int, java.lang.Object)
+     */
+    @Override
+    protected void setValue(double[] array, int index, Object value) {
+        if (value instanceof Number) {
+            array[index] = ((Number) value).doubleValue();
+        } else {
+            super.setValue(array, index, value);
+        }
+    }
+}
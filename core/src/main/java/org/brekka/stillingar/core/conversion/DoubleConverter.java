@@ -20,7 +20,7 @@ package org.brekka.stillingar.core.conversion;
 /**
  * @author Andrew Taylor
  */
-public class DoubleConverter extends AbstractTypeConverter<Double> {
+public class DoubleConverter extends AbstractTypeConverter<Double> implements DoubleValueConverter {
 
     @Override
     public final Class<Double> targetType() {
@@ -48,4 +48,20 @@ public class DoubleConverter extends AbstractTypeConverter<Double> {
         }
         return value;
     }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.DoubleValueConverter#toDouble(java.lang.Object)
+     */
+    @Override
+    public double toDouble(Object obj) {
+        double value;
+        if (obj instanceof String) {
+            value = Double.parseDouble((String) obj);
+        } else if (obj instanceof Number) {
+            value = ((Number) obj).doubleValue();
+        } else {
+            value = convert(obj).doubleValue();
+        }
+        return value;
+    }
 }
@@ -16,6 +16,11 @@
 
 package org.brekka.stillingar.core.conversion;
 
+import static java.lang.String.format;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * EnumConverter
@@ -24,6 +29,21 @@ package org.brekka.stillingar.core.conversion;
  */
 public class EnumConverter extends AbstractTypeConverter<Enum<?>> {
 
+    /**
+     * The constants of each enum type, keyed on name. Computed once per enum type.
+     */
+    private static final ClassValue<Map<String, Enum<?>>> CONSTANTS = new ClassValue<Map<String, Enum<?>>>() {
+        @Override
+        protected Map<String, Enum<?>> computeValue(Class<?> type) {
+            Map<String, Enum<?>> constants = new HashMap<String, Enum<?>>();
+            for (Object constant : type.getEnumConstants()) {
+                Enum<?> enumConstant = (Enum<?>) constant;
+                constants.put(enumConstant.name(), enumConstant);
+            }
+            return Collections.unmodifiableMap(constants);
+        }
+    };
+
     /**
      * The enum type
      */
@@ -54,17 +74,38 @@ public class EnumConverter extends AbstractTypeConverter<Enum<?>> {
         return convert(obj, targetType);
     }
     
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public Enum<?> convert(Object obj, Class<Enum<?>> enumType) {
         Enum<?> value;
         if (obj instanceof Enum<?>) {
             value = (Enum<?>) obj;
         } else if (obj instanceof String) {
-            String strValue = (String) obj;
-            value = Enum.valueOf((Class) enumType, strValue);
+            value = valueOf(enumType, (String) obj);
         } else {
             value = super.convert(obj);
         }
         return value;
     }
+
+    /**
+     * Identify the constant of <code>enumType</code> with the specified name, equivalent to
+     * {@link Enum#valueOf(Class, String)}.
+     * 
+     * @param enumType
+     *            the enum type
+     * @param name
+     *            the name of the constant
+     * @return the constant
+     * @throws IllegalArgumentException
+     *             if the enum type has no constant with the name.
+     */
+    protected Enum<?> valueOf(Class<Enum<?>> enumType, String name) {
+        if (!enumType.isEnum()) {
+            throw new IllegalArgumentException(format("'%s' is not an enum type", enumType.getName()));
+        }
+        Enum<?> value = CONSTANTS.get(enumType).get(name);
+        if (value == null) {
+            throw new IllegalArgumentException(format("No enum constant %s.%s", enumType.getName(), name));
+        }
+        return value;
+    }
 }
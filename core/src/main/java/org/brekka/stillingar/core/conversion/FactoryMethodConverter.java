@@ -0,0 +1,179 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import static java.lang.String.format;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Converts strings to a value type that has no registered {@link TypeConverter}, using a public factory method or
+ * constructor of the type itself. The first of the following found is used:
+ * <ul>
+ * <li><code>static valueOf(String)</code></li>
+ * <li><code>static of(String)</code> or <code>static of(String, String...)</code></li>
+ * <li><code>static parse(CharSequence)</code> or <code>static parse(String)</code></li>
+ * <li><code>static fromString(String)</code></li>
+ * <li><code>static getByName(String)</code></li>
+ * <li>a <code>(String)</code> constructor</li>
+ * </ul>
+ * The factory is looked up once when the converter is created and invoked through a {@link MethodHandle} thereafter.
+ * Values that are not strings are converted using their <code>toString()</code>.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class FactoryMethodConverter<T> extends AbstractTypeConverter<T> {
+
+    /**
+     * The names of the static factory methods to look for, in order of preference.
+     */
+    private static final String[] FACTORY_METHOD_NAMES = { "valueOf", "of", "parse", "fromString", "getByName" };
+
+    /**
+     * The type produced
+     */
+    private final Class<T> targetType;
+
+    /**
+     * Invokes the factory, adapted to take a string and return an object.
+     */
+    private final MethodHandle factory;
+
+    /**
+     * @param targetType
+     *            the type produced
+     * @param factory
+     *            the handle to the factory method or constructor, taking a single string (or char sequence).
+     */
+    protected FactoryMethodConverter(Class<T> targetType, MethodHandle factory) {
+        this.targetType = targetType;
+        this.factory = factory.asType(MethodType.methodType(Object.class, String.class));
+    }
+
+    /**
+     * Create a converter for <code>targetType</code> if it has a suitable factory method or constructor (see class
+     * description).
+     * 
+     * @param targetType
+     *            the type to convert to
+     * @return the converter or null if the type has no suitable factory.
+     */
+    public static <T> FactoryMethodConverter<T> forType(Class<T> targetType) {
+        if (targetType == null) {
+            throw new IllegalArgumentException("A target type must be specified");
+        }
+        if (targetType.isPrimitive()
+                || targetType.isArray()
+                || targetType.isEnum()
+                || !Modifier.isPublic(targetType.getModifiers())) {
+            return null;
+        }
+        MethodHandle factory = findFactory(targetType);
+        if (factory == null) {
+            return null;
+        }
+        return new FactoryMethodConverter<T>(targetType, factory);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.core.conversion.TypeConverter#targetType()
+     */
+    @Override
+    public Class<T> targetType() {
+        return targetType;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.core.conversion.AbstractTypeConverter#convert(java.lang.Object)
+     */
+    @Override
+    public T convert(Object obj) {
+        if (targetType.isInstance(obj)) {
+            return targetType.cast(obj);
+        }
+        String str = obj.toString();
+        Object value;
+        try {
+            value = factory.invokeExact(str);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(format("Failed to convert '%s' to '%s'", str, targetType.getName()), e);
+        }
+        return targetType.cast(value);
+    }
+
+    private static MethodHandle findFactory(Class<?> targetType) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (String name : FACTORY_METHOD_NAMES) {
+            MethodHandle handle = findStatic(lookup, targetType, name, String.class);
+            if (handle == null) {
+                handle = findStatic(lookup, targetType, name, CharSequence.class);
+            }
+            if (handle == null) {
+                handle = findStatic(lookup, targetType, name, String.class, String[].class);
+                if (handle != null) {
+                    // Supply an empty varargs array
+                    handle = MethodHandles.insertArguments(handle, 1, (Object) new String[0]);
+                }
+            }
+            if (handle != null) {
+                return handle;
+            }
+        }
+        if (Modifier.isAbstract(targetType.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> constructor = targetType.getConstructor(String.class);
+            return lookup.unreflectConstructor(constructor);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle findStatic(MethodHandles.Lookup lookup, Class<?> targetType, String name,
+            Class<?>... parameterTypes) {
+        try {
+            Method method = targetType.getMethod(name, parameterTypes);
+            if (!Modifier.isStatic(method.getModifiers())
+                    || !targetType.isAssignableFrom(method.getReturnType())) {
+                return null;
+            }
+            return lookup.unreflect(method);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+}
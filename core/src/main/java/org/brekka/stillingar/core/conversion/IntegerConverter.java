@@ -20,7 +20,7 @@ package org.brekka.stillingar.core.conversion;
 /**
  * @author Andrew Taylor
  */
-public class IntegerConverter extends AbstractTypeConverter<Integer> {
+public class IntegerConverter extends AbstractTypeConverter<Integer> implements IntValueConverter {
 
     @Override
     public final Class<Integer> targetType() {
@@ -48,4 +48,20 @@ public class IntegerConverter extends AbstractTypeConverter<Integer> {
         }
         return value;
     }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.IntValueConverter#toInt(java.lang.Object)
+     */
+    @Override
+    public int toInt(Object obj) {
+        int value;
+        if (obj instanceof String) {
+            value = Integer.parseInt((String) obj);
+        } else if (obj instanceof Number) {
+            value = ((Number) obj).intValue();
+        } else {
+            value = convert(obj).intValue();
+        }
+        return value;
+    }
 }
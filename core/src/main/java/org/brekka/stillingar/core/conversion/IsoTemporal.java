@@ -0,0 +1,223 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * The fields of an ISO-8601 date, time or date/time, as produced by {@link IsoTemporalParser}. Deliberately free of
+ * any dependency on java.time or JodaTime so that it can be used to build whichever temporal type is requested.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public final class IsoTemporal {
+
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    private final boolean hasDate;
+
+    private final int year;
+
+    private final int month;
+
+    private final int day;
+
+    private final boolean hasTime;
+
+    private final int hour;
+
+    private final int minute;
+
+    private final int second;
+
+    private final int nano;
+
+    private final boolean hasOffset;
+
+    private final int offsetSeconds;
+
+    private final String zoneId;
+
+    /**
+     * @param hasDate
+     *            whether the year, month and day were specified
+     * @param year
+     * @param month
+     *            1-12
+     * @param day
+     *            1-31
+     * @param hasTime
+     *            whether the hour, minute, second and nano were specified
+     * @param hour
+     * @param minute
+     * @param second
+     * @param nano
+     * @param hasOffset
+     *            whether an offset from UTC was specified
+     * @param offsetSeconds
+     *            the offset from UTC in seconds
+     * @param zoneId
+     *            the region based zone identifier, if specified (can be null).
+     */
+    public IsoTemporal(boolean hasDate, int year, int month, int day, boolean hasTime, int hour, int minute,
+            int second, int nano, boolean hasOffset, int offsetSeconds, String zoneId) {
+        this.hasDate = hasDate;
+        this.year = year;
+        this.month = month;
+        this.day = day;
+        this.hasTime = hasTime;
+        this.hour = hour;
+        this.minute = minute;
+        this.second = second;
+        this.nano = nano;
+        this.hasOffset = hasOffset;
+        this.offsetSeconds = offsetSeconds;
+        this.zoneId = zoneId;
+    }
+
+    /**
+     * Capture the fields of a calendar, including the offset in effect for its time zone at that instant.
+     *
+     * @param calendar
+     *            the calendar to read
+     * @return the temporal fields
+     */
+    public static IsoTemporal fromCalendar(Calendar calendar) {
+        return new IsoTemporal(true, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1,
+                calendar.get(Calendar.DAY_OF_MONTH), true, calendar.get(Calendar.HOUR_OF_DAY),
+                calendar.get(Calendar.MINUTE), calendar.get(Calendar.SECOND),
+                calendar.get(Calendar.MILLISECOND) * 1000000, true,
+                (calendar.get(Calendar.ZONE_OFFSET) + calendar.get(Calendar.DST_OFFSET)) / 1000, null);
+    }
+
+    /**
+     * Convert to a calendar in the specified time zone. Where no offset was specified, the fields are interpreted in
+     * that zone. Where no date was specified, 1970-01-01 is assumed.
+     *
+     * @param timeZone
+     *            the zone of the calendar returned.
+     * @return the new calendar
+     */
+    public Calendar toCalendar(TimeZone timeZone) {
+        GregorianCalendar calendar = new GregorianCalendar(timeZone);
+        if (hasOffset) {
+            long epochSeconds = localEpochSecond() - offsetSeconds;
+            calendar.setTimeInMillis(epochSeconds * 1000L + nano / 1000000);
+        } else {
+            calendar.clear();
+            if (hasDate) {
+                calendar.set(year, month - 1, day);
+            } else {
+                calendar.set(1970, Calendar.JANUARY, 1);
+            }
+            calendar.set(Calendar.HOUR_OF_DAY, hour);
+            calendar.set(Calendar.MINUTE, minute);
+            calendar.set(Calendar.SECOND, second);
+            calendar.set(Calendar.MILLISECOND, nano / 1000000);
+        }
+        return calendar;
+    }
+
+    /**
+     * @return the seconds since 1970-01-01T00:00:00 of the local date/time, ignoring any offset.
+     */
+    public long localEpochSecond() {
+        long days = (hasDate ? epochDay(year, month, day) : 0L);
+        return days * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+    }
+
+    public boolean hasDate() {
+        return hasDate;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public boolean hasTime() {
+        return hasTime;
+    }
+
+    public int getHour() {
+        return hour;
+    }
+
+    public int getMinute() {
+        return minute;
+    }
+
+    public int getSecond() {
+        return second;
+    }
+
+    public int getNano() {
+        return nano;
+    }
+
+    public boolean hasOffset() {
+        return hasOffset;
+    }
+
+    public int getOffsetSeconds() {
+        return offsetSeconds;
+    }
+
+    /**
+     * @return the region based zone identifier (eg 'Europe/London'), or null if none was specified.
+     */
+    public String getZoneId() {
+        return zoneId;
+    }
+
+    /**
+     * Days since 1970-01-01 in the proleptic Gregorian calendar.
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = year;
+        long m = month;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367 * m - 362) / 12;
+        total += day - 1;
+        if (m > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        // Days from year zero to 1970
+        return total - 719528L;
+    }
+
+    static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+}
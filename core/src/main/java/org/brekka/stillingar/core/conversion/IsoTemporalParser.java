@@ -0,0 +1,200 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import static java.lang.String.format;
+
+/**
+ * Scans ISO-8601 (and XML Schema) date, time and date/time strings directly into an {@link IsoTemporal}, without the
+ * intermediate formatter objects of a general purpose parser. Accepted forms are:
+ * 
+ * <pre>
+ * date             yyyy-MM-dd[offset]
+ * time             HH:mm[:ss[.fffffffff]][offset]
+ * date/time        yyyy-MM-dd('T'|' ')HH:mm[:ss[.fffffffff]][offset]['['zone']']
+ * offset           'Z' | ('+'|'-')HH[[':']mm]
+ * </pre>
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public final class IsoTemporalParser {
+
+    private IsoTemporalParser() {
+    }
+
+    /**
+     * Parse the text.
+     * 
+     * @param text
+     *            the text to parse
+     * @return the fields parsed
+     * @throws IllegalArgumentException
+     *             if the text is not a valid ISO-8601 date, time or date/time.
+     */
+    public static IsoTemporal parse(CharSequence text) {
+        if (text == null) {
+            throw new IllegalArgumentException("No date/time text specified");
+        }
+        Cursor c = new Cursor(text);
+        boolean hasDate = false;
+        int year = 1970, month = 1, day = 1;
+        boolean hasTime = false;
+        int hour = 0, minute = 0, second = 0, nano = 0;
+        if (c.length > 2 && text.charAt(2) == ':') {
+            hasTime = true;
+        } else {
+            hasDate = true;
+            boolean negative = c.accept('-');
+            year = c.digits(4, 9);
+            if (negative) {
+                year = -year;
+            }
+            c.expect('-');
+            month = c.digits(2, 2);
+            c.expect('-');
+            day = c.digits(2, 2);
+            if (month < 1 || month > 12 
+                    || day < 1 || day > daysInMonth(year, month)) {
+                throw c.invalid();
+            }
+            if (c.accept('T') || c.accept(' ')) {
+                hasTime = true;
+            }
+        }
+        if (hasTime) {
+            hour = c.digits(2, 2);
+            c.expect(':');
+            minute = c.digits(2, 2);
+            if (c.accept(':')) {
+                second = c.digits(2, 2);
+                if (c.accept('.') || c.accept(',')) {
+                    int start = c.pos;
+                    int fraction = c.digits(1, 9);
+                    for (int i = c.pos - start; i < 9; i++) {
+                        fraction *= 10;
+                    }
+                    nano = fraction;
+                    // Precision beyond nanoseconds is discarded
+                    while (c.pos < c.length && Character.isDigit(text.charAt(c.pos))) {
+                        c.pos++;
+                    }
+                }
+            }
+            if (hour > 23 || minute > 59 || second > 59) {
+                throw c.invalid();
+            }
+        }
+        boolean hasOffset = false;
+        int offsetSeconds = 0;
+        if (c.accept('Z')) {
+            hasOffset = true;
+        } else if (c.pos < c.length && (text.charAt(c.pos) == '+' || text.charAt(c.pos) == '-')) {
+            hasOffset = true;
+            int sign = (text.charAt(c.pos++) == '-' ? -1 : 1);
+            int offsetHours = c.digits(2, 2);
+            int offsetMinutes = 0;
+            if (c.accept(':') || c.pos < c.length && Character.isDigit(text.charAt(c.pos))) {
+                offsetMinutes = c.digits(2, 2);
+            }
+            if (offsetMinutes > 59 || offsetHours * 60 + offsetMinutes > 18 * 60) {
+                throw c.invalid();
+            }
+            offsetSeconds = sign * (offsetHours * 3600 + offsetMinutes * 60);
+        }
+        String zoneId = null;
+        if (hasDate && hasTime && c.accept('[')) {
+            int start = c.pos;
+            while (c.pos < c.length && text.charAt(c.pos) != ']') {
+                c.pos++;
+            }
+            if (c.pos == start || c.pos == c.length) {
+                throw c.invalid();
+            }
+            zoneId = text.subSequence(start, c.pos).toString();
+            c.pos++;
+        }
+        if (c.pos != c.length) {
+            throw c.invalid();
+        }
+        return new IsoTemporal(hasDate, year, month, day, hasTime, hour, minute, second, nano, hasOffset,
+                offsetSeconds, zoneId);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (IsoTemporal.isLeapYear(year) ? 29 : 28);
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Position within the text being parsed
+     */
+    private static final class Cursor {
+        private final CharSequence text;
+        private final int length;
+        private int pos;
+
+        Cursor(CharSequence text) {
+            this.text = text;
+            this.length = text.length();
+        }
+
+        boolean accept(char ch) {
+            if (pos < length && text.charAt(pos) == ch) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char ch) {
+            if (!accept(ch)) {
+                throw invalid();
+            }
+        }
+
+        int digits(int min, int max) {
+            int value = 0;
+            int count = 0;
+            while (count < max && pos < length) {
+                char ch = text.charAt(pos);
+                if (ch < '0' || ch > '9') {
+                    break;
+                }
+                value = value * 10 + (ch - '0');
+                pos++;
+                count++;
+            }
+            if (count < min) {
+                throw invalid();
+            }
+            return value;
+        }
+
+        IllegalArgumentException invalid() {
+            return new IllegalArgumentException(format("Invalid ISO-8601 date/time '%s' at position %d", text, pos));
+        }
+    }
+}
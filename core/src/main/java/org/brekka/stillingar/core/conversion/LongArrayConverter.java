@@ -0,0 +1,64 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+/**
+ * Converts comma-delimited text, or a collection of elements, to <code>long[]</code>.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class LongArrayConverter extends AbstractArrayConverter<long[]> {
+
+    private static final long[] EMPTY = new long[0];
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Class<long[]> targetType() {
+        return (Class<long[]>) EMPTY.getClass();
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.AbstractArrayConverter#newArray(int)
+     */
+    @Override
+    protected long[] newArray(int length) {
+        return (length == 0 ? EMPTY : new long[length]);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.AbstractArrayConverter#set(java.lang.Object, int, java.lang.CharSequence, int, int)
+     */
+    @Override
+    protected void set(long[] array, int index, CharSequence text, int start, int end) {
+        array[index] = parseLong(text, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.AbstractArrayConverter#setValue(java.lang.Object, int, java.lang.Object)
+     */
+    @Override
+    protected void setValue(long[] array, int index, Object value) {
+        if (value instanceof Long
+                || value instanceof Integer
+                || value instanceof Short
+                || value instanceof Byte) {
+            array[index] = ((Number) value).longValue();
+        } else {
+            super.setValue(array, index, value);
+        }
+    }
+}
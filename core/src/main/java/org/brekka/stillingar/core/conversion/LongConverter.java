@@ -20,7 +20,7 @@ package org.brekka.stillingar.core.conversion;
 /**
  * @author Andrew Taylor
  */
-public class LongConverter extends AbstractTypeConverter<Long> {
+public class LongConverter extends AbstractTypeConverter<Long> implements LongValueConverter {
 
     @Override
     public final Class<Long> targetType() {
@@ -48,4 +48,20 @@ public class LongConverter extends AbstractTypeConverter<Long> {
         }
         return value;
     }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.LongValueConverter#toLong(java.lang.Object)
+     */
+    @Override
+    public long toLong(Object obj) {
+        long value;
+        if (obj instanceof String) {
+            value = Long.parseLong((String) obj);
+        } else if (obj instanceof Number) {
+            value = ((Number) obj).longValue();
+        } else {
+            value = convert(obj).longValue();
+        }
+        return value;
+    }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+/**
+ * Converts comma-delimited text, or a collection of elements, to <code>String[]</code>. Whitespace around each
+ * element is removed.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class StringArrayConverter extends AbstractArrayConverter<String[]> {
+
+    private static final String[] EMPTY = new String[0];
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Class<String[]> targetType() {
+        return (Class<String[]>) EMPTY.getClass();
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.AbstractArrayConverter#newArray(int)
+     */
+    @Override
+    protected String[] newArray(int length) {
+        return (length == 0 ? EMPTY : new String[length]);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.AbstractArrayConverter#set(java.lang.Object, int, java.lang.CharSequence, int, int)
+     */
+    @Override
+    protected void set(String[] array, int index, CharSequence text, int start, int end) {
+        array[index] = text.subSequence(start, end).toString();
+    }
+}
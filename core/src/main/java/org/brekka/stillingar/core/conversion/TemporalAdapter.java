@@ -20,14 +20,24 @@ import static java.lang.String.format;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.TimeZone;
 
 /**
- * TODO Description of TemporalAdapter
+ * Adapts the temporal values of a configuration source to {@link Calendar} and {@link IsoTemporal}, from which the
+ * temporal converters build their target types. Strings are parsed using {@link IsoTemporalParser}. Should it reject
+ * the text, and JodaTime is available, the text is parsed by JodaTime instead, which supports the remaining ISO-8601
+ * forms such as reduced precision (<code>2012-12</code>), ordinal and week dates. Subclasses add support for the native
+ * temporal types of particular configuration engines.
  *
  * @author Andrew Taylor (andrew@brekka.org)
  */
 public class TemporalAdapter {
 
+    /**
+     * Whether JodaTime is visible to this class, determined once.
+     */
+    private static final boolean JODA_TIME_PRESENT = isJodaTimePresent();
+
     /**
      * Cache whether JodaTime is available.
      */
@@ -37,16 +47,9 @@ public class TemporalAdapter {
      * Determines whether JodaTime is available, caching the fact
      */
     public TemporalAdapter() {
-        boolean jodaTimeAvailableLocal = false;
-        try {
-            Thread.currentThread().getContextClassLoader().loadClass("org.joda.time.format.ISODateTimeFormat");
-            jodaTimeAvailableLocal = true;
-        } catch (ClassNotFoundException e) {
-        }
-        this.jodaTimeAvailable = jodaTimeAvailableLocal;
+        this.jodaTimeAvailable = JODA_TIME_PRESENT;
     }
 
-
     public Calendar toCalendar(final Object obj, final boolean supportsDate, final boolean supportsTime, final Class<?> expectedType) {
         Calendar value;
         if (obj instanceof Calendar) {
@@ -56,23 +59,14 @@ public class TemporalAdapter {
             value.setTime((Date) obj);
         } else if (obj instanceof String) {
             String dateTimeStr = (String) obj;
-            if (!jodaTimeAvailable) {
-                throw new IllegalArgumentException(format(
-                        "Date/time conversion unavailable for value '%s' to '%s'." +
-                                " Add JodaTime library to enable default ISO conversion.",
-                                dateTimeStr, expectedType.getName()));
+            try {
+                value = IsoTemporalParser.parse(dateTimeStr).toCalendar(TimeZone.getDefault());
+            } catch (IllegalArgumentException e) {
+                if (!jodaTimeAvailable) {
+                    throw e;
+                }
+                value = parseWithJodaTime(dateTimeStr);
             }
-            org.joda.time.format.DateTimeFormatter dateTimeParser;
-            if (dateTimeStr.charAt(2) == ':') {
-                dateTimeParser = org.joda.time.format.ISODateTimeFormat.timeParser();
-            } else if (dateTimeStr.length() > 10 && dateTimeStr.charAt(10) != 'T') {
-                dateTimeStr = dateTimeStr.substring(0, 10) + "T" + dateTimeStr.substring(10);
-                dateTimeParser = org.joda.time.format.ISODateTimeFormat.dateParser();
-            } else {
-                dateTimeParser = org.joda.time.format.ISODateTimeFormat.dateTimeParser();
-            }
-            org.joda.time.DateTime dateTime = dateTimeParser.parseDateTime(dateTimeStr);
-            value = dateTime.toCalendar(null);
             if (!supportsDate) {
                 value.clear(Calendar.YEAR);
                 value.clear(Calendar.MONTH);
@@ -85,10 +79,100 @@ public class TemporalAdapter {
                 value.clear(Calendar.MILLISECOND);
             }
         } else {
-            throw new IllegalArgumentException(format(
-                    "No temporal conversion available for value of type '%s' to '%s'.",
-                    obj.getClass().getName(), expectedType.getName()));
+            throw noConversion(obj, expectedType);
+        }
+        return value;
+    }
+
+    /**
+     * Obtain the ISO-8601 fields of a temporal value, which is used to build java.time values.
+     * 
+     * @param obj
+     *            the value to adapt
+     * @param expectedType
+     *            the type being converted to, for error reporting.
+     * @return the temporal fields
+     * @throws IllegalArgumentException
+     *             if the value is not a recognised temporal type or string.
+     */
+    public IsoTemporal toIsoTemporal(Object obj, Class<?> expectedType) {
+        IsoTemporal value;
+        if (obj instanceof CharSequence) {
+            try {
+                value = IsoTemporalParser.parse((CharSequence) obj);
+            } catch (IllegalArgumentException e) {
+                if (!jodaTimeAvailable) {
+                    throw e;
+                }
+                value = IsoTemporal.fromCalendar(parseWithJodaTime(obj.toString()));
+            }
+        } else if (obj instanceof Calendar) {
+            value = IsoTemporal.fromCalendar((Calendar) obj);
+        } else if (obj instanceof Date) {
+            Calendar cal = Calendar.getInstance();
+            cal.setTime((Date) obj);
+            value = IsoTemporal.fromCalendar(cal);
+        } else {
+            throw noConversion(obj, expectedType);
         }
         return value;
     }
+
+    /**
+     * Obtain the lexical (string) form of a temporal value such as a duration.
+     * 
+     * @param obj
+     *            the value to adapt
+     * @param expectedType
+     *            the type being converted to, for error reporting.
+     * @return the text
+     * @throws IllegalArgumentException
+     *             if the value has no lexical form known to this adapter.
+     */
+    public String toText(Object obj, Class<?> expectedType) {
+        if (obj instanceof CharSequence) {
+            return obj.toString();
+        }
+        throw noConversion(obj, expectedType);
+    }
+
+    /**
+     * Parse the text using JodaTime, which must be available.
+     * 
+     * @param dateTimeStr
+     *            the ISO-8601 date, time or date/time.
+     * @return the calendar
+     * @throws IllegalArgumentException
+     *             if JodaTime is also unable to parse the text.
+     */
+    protected Calendar parseWithJodaTime(String dateTimeStr) {
+        org.joda.time.format.DateTimeFormatter dateTimeParser;
+        if (dateTimeStr.length() > 2 && dateTimeStr.charAt(2) == ':') {
+            dateTimeParser = org.joda.time.format.ISODateTimeFormat.timeParser();
+        } else if (dateTimeStr.length() > 10 && dateTimeStr.charAt(10) != 'T') {
+            dateTimeStr = dateTimeStr.substring(0, 10) + "T" + dateTimeStr.substring(10);
+            dateTimeParser = org.joda.time.format.ISODateTimeFormat.dateParser();
+        } else {
+            dateTimeParser = org.joda.time.format.ISODateTimeFormat.dateTimeParser();
+        }
+        org.joda.time.DateTime dateTime = dateTimeParser.parseDateTime(dateTimeStr);
+        return dateTime.toCalendar(null);
+    }
+
+    private static boolean isJodaTimePresent() {
+        try {
+            Class.forName("org.joda.time.format.ISODateTimeFormat", false, TemporalAdapter.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    protected static IllegalArgumentException noConversion(Object obj, Class<?> expectedType) {
+        return new IllegalArgumentException(format(
+                "No temporal conversion available for value of type '%s' to '%s'.",
+                obj.getClass().getName(), expectedType.getName()));
+    }
 }
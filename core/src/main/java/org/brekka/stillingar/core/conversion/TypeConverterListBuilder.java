@@ -21,6 +21,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 
 /**
  * Builds a list of converters.
@@ -78,6 +80,43 @@ public class TypeConverterListBuilder {
         return this;
     }
 
+    /**
+     * Add the type converters registered as services (in <code>META-INF/services/org.brekka.stillingar.core.conversion.TypeConverter</code>)
+     * that are visible to the thread context class loader. Converters added this way come after (and so take precedence
+     * over) those already added.
+     * 
+     * @return this for chaining
+     * @throws IllegalStateException
+     *             if a registered converter cannot be loaded or instantiated.
+     */
+    public TypeConverterListBuilder addDiscovered() {
+        return addDiscovered(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * Add the type converters registered as services that are visible to the specified class loader. Converters whose
+     * target type is unavailable (ie return null from {@link TypeConverter#targetType()}) are skipped.
+     * 
+     * @param classLoader
+     *            the class loader to search.
+     * @return this for chaining
+     * @throws IllegalStateException
+     *             if a registered converter cannot be loaded or instantiated.
+     */
+    @SuppressWarnings("rawtypes")
+    public TypeConverterListBuilder addDiscovered(ClassLoader classLoader) {
+        try {
+            for (TypeConverter typeConverter : ServiceLoader.load(TypeConverter.class, classLoader)) {
+                if (typeConverter.targetType() != null) {
+                    list.add(typeConverter);
+                }
+            }
+        } catch (ServiceConfigurationError e) {
+            throw new IllegalStateException("Failed to discover type converters", e);
+        }
+        return this;
+    }
+
     /**
      * Establish a new package context in which classes can be added without having to specify their package name. Once
      * all classes have been added for the package, call {@link Package#done()}.
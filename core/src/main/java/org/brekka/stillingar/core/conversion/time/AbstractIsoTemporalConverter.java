@@ -0,0 +1,150 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion.time;
+
+import static java.lang.String.format;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import org.brekka.stillingar.core.conversion.IsoTemporal;
+import org.brekka.stillingar.core.conversion.TemporalAdapter;
+
+/**
+ * Base for the java.time converters whose values are built from the {@link IsoTemporal} fields provided by the
+ * {@link TemporalAdapter}. A value resolved against the system default zone is not cached, as it would become stale
+ * should the default zone change. A {@link DateTimeException} thrown by java.time, for example for an unknown zone
+ * identifier, is reported as an {@link IllegalArgumentException}.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public abstract class AbstractIsoTemporalConverter<T> extends AbstractJavaTimeConverter<T> {
+
+    /**
+     * @param temporalAdapter
+     */
+    protected AbstractIsoTemporalConverter(TemporalAdapter temporalAdapter) {
+        super(temporalAdapter);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.time.AbstractJavaTimeConverter#create(java.lang.Object)
+     */
+    @Override
+    protected final T create(Object obj) {
+        return buildChecked(getTemporalAdapter().toIsoTemporal(obj, targetType()));
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.time.AbstractJavaTimeConverter#parse(java.lang.String)
+     */
+    @Override
+    protected final T parse(String text) {
+        IsoTemporal temporal = getTemporalAdapter().toIsoTemporal(text, targetType());
+        T value = buildChecked(temporal);
+        if (!usesDefaultZone() || temporal.hasOffset() || temporal.getZoneId() != null) {
+            remember(text, value);
+        }
+        return value;
+    }
+
+    /**
+     * Build the value, reporting fields that java.time rejects (such as an unknown zone identifier) as an
+     * {@link IllegalArgumentException}, in common with the other converters.
+     */
+    private T buildChecked(IsoTemporal temporal) {
+        try {
+            return build(temporal);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(format("Unable to convert the temporal value to '%s'", 
+                    targetType().getName()), e);
+        }
+    }
+
+    /**
+     * Build the value from the temporal fields.
+     * 
+     * @param temporal
+     *            the fields
+     * @return the value
+     */
+    protected abstract T build(IsoTemporal temporal);
+
+    /**
+     * Determine whether a value with neither an offset nor a zone identifier is resolved against the system default
+     * zone.
+     * 
+     * @return true if the default zone is used, by default false.
+     */
+    protected boolean usesDefaultZone() {
+        return false;
+    }
+
+    /**
+     * @param temporal
+     *            the fields, which must include a date.
+     * @return the local date/time, midnight if no time was specified.
+     */
+    protected LocalDateTime toLocalDateTime(IsoTemporal temporal) {
+        requireDate(temporal);
+        return LocalDateTime.of(temporal.getYear(), temporal.getMonth(), temporal.getDay(), temporal.getHour(),
+                temporal.getMinute(), temporal.getSecond(), temporal.getNano());
+    }
+
+    /**
+     * Resolve the zoned date/time, using the zone identifier if specified, otherwise the offset, otherwise the system
+     * default zone.
+     * 
+     * @param temporal
+     *            the fields, which must include a date.
+     * @return the zoned date/time
+     * @throws IllegalArgumentException
+     *             if the zone identifier is unknown or the offset is out of range.
+     */
+    protected ZonedDateTime toZonedDateTime(IsoTemporal temporal) {
+        LocalDateTime localDateTime = toLocalDateTime(temporal);
+        try {
+            ZoneOffset offset = (temporal.hasOffset() ? ZoneOffset.ofTotalSeconds(temporal.getOffsetSeconds()) : null);
+            ZonedDateTime value;
+            if (temporal.getZoneId() != null) {
+                value = ZonedDateTime.ofLocal(localDateTime, ZoneId.of(temporal.getZoneId()), offset);
+            } else if (offset != null) {
+                value = ZonedDateTime.of(localDateTime, offset);
+            } else {
+                value = localDateTime.atZone(ZoneId.systemDefault());
+            }
+            return value;
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(format("Unable to resolve the zone of '%s'", localDateTime), e);
+        }
+    }
+
+    protected void requireDate(IsoTemporal temporal) {
+        if (!temporal.hasDate()) {
+            throw new IllegalArgumentException(format("A date is required to convert to '%s'", targetType().getName()));
+        }
+    }
+
+    protected void requireTime(IsoTemporal temporal) {
+        if (!temporal.hasTime()) {
+            throw new IllegalArgumentException(format("A time is required to convert to '%s'", targetType().getName()));
+        }
+    }
+}
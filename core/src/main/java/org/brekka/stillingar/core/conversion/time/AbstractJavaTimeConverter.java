@@ -0,0 +1,111 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion.time;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.brekka.stillingar.core.conversion.AbstractTypeConverter;
+import org.brekka.stillingar.core.conversion.TemporalAdapter;
+
+/**
+ * Base for the java.time converters. As the java.time types are immutable, the values converted from strings are
+ * cached, up to a limit, so that the same text appearing in each new snapshot is only parsed once.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public abstract class AbstractJavaTimeConverter<T> extends AbstractTypeConverter<T> {
+
+    /**
+     * The maximum number of values cached per converter.
+     */
+    private static final int MAX_CACHED = 256;
+
+    /**
+     * Adapter that will perform the conversion
+     */
+    private final TemporalAdapter temporalAdapter;
+
+    /**
+     * Values previously converted from strings.
+     */
+    private final ConcurrentMap<String, T> cache = new ConcurrentHashMap<String, T>();
+
+    /**
+     * @param temporalAdapter
+     */
+    protected AbstractJavaTimeConverter(TemporalAdapter temporalAdapter) {
+        this.temporalAdapter = temporalAdapter;
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.AbstractTypeConverter#convert(java.lang.Object)
+     */
+    @Override
+    public T convert(Object obj) {
+        Class<T> targetType = targetType();
+        if (targetType.isInstance(obj)) {
+            return targetType.cast(obj);
+        }
+        if (!(obj instanceof String)) {
+            return create(obj);
+        }
+        String str = (String) obj;
+        T value = cache.get(str);
+        if (value == null) {
+            value = parse(str);
+        }
+        return value;
+    }
+
+    /**
+     * Create the value from an object that is neither of the target type nor a string.
+     * 
+     * @param obj
+     *            the object to convert
+     * @return the new value
+     */
+    protected abstract T create(Object obj);
+
+    /**
+     * Parse the value from a string that has not been cached. Implementations should {@link #remember(String, Object)}
+     * the value if it depends on nothing but the text.
+     * 
+     * @param text
+     *            the string to convert
+     * @return the new value
+     */
+    protected abstract T parse(String text);
+
+    /**
+     * Cache the value converted from the text, unless the cache is full.
+     * 
+     * @param text
+     *            the string that was converted
+     * @param value
+     *            the value it was converted to
+     */
+    protected final void remember(String text, T value) {
+        if (cache.size() < MAX_CACHED) {
+            cache.putIfAbsent(text, value);
+        }
+    }
+
+    protected final TemporalAdapter getTemporalAdapter() {
+        return temporalAdapter;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion.time;
+
+import static java.lang.String.format;
+
+import java.time.Duration;
+
+import org.brekka.stillingar.core.conversion.TemporalAdapter;
+
+/**
+ * Converts ISO-8601 durations in the form <code>PnDTnHnMn.nS</code> to {@link Duration}. The text is scanned directly,
+ * accepting the same forms as {@link Duration#parse(CharSequence)} without the intermediate strings of its regular
+ * expression.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class DurationConverter extends AbstractJavaTimeConverter<Duration> {
+
+    private static final int SECONDS_PER_MINUTE = 60;
+
+    private static final int SECONDS_PER_HOUR = 60 * SECONDS_PER_MINUTE;
+
+    private static final int SECONDS_PER_DAY = 24 * SECONDS_PER_HOUR;
+
+    /**
+     * The number of fractional second digits supported (nanoseconds).
+     */
+    private static final int FRACTION_DIGITS = 9;
+
+    /**
+     * 
+     */
+    public DurationConverter() {
+        this(new TemporalAdapter());
+    }
+
+    /**
+     * @param temporalAdapter
+     */
+    public DurationConverter(TemporalAdapter temporalAdapter) {
+        super(temporalAdapter);
+    }
+
+    /**
+     * Target type
+     */
+    @Override
+    public final Class<Duration> targetType() {
+        return Duration.class;
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.time.AbstractJavaTimeConverter#create(java.lang.Object)
+     */
+    @Override
+    protected Duration create(Object obj) {
+        return parseDuration(getTemporalAdapter().toText(obj, targetType()));
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.time.AbstractJavaTimeConverter#parse(java.lang.String)
+     */
+    @Override
+    protected Duration parse(String text) {
+        Duration value = parseDuration(text);
+        remember(text, value);
+        return value;
+    }
+
+    /**
+     * Parse a duration of the form <code>[-+]PnDTnHnMn.nS</code>, where each number may itself be signed and the
+     * letters may be in either case.
+     * 
+     * @param text
+     *            the text to parse
+     * @return the duration
+     * @throws IllegalArgumentException
+     *             if the text is not a valid duration, or is too large.
+     */
+    static Duration parseDuration(CharSequence text) {
+        int len = text.length();
+        int pos = 0;
+        boolean negate = false;
+        if (pos < len && (text.charAt(pos) == '-' || text.charAt(pos) == '+')) {
+            negate = (text.charAt(pos) == '-');
+            pos++;
+        }
+        if (pos == len || Character.toUpperCase(text.charAt(pos)) != 'P') {
+            throw invalid(text, null);
+        }
+        pos++;
+        boolean time = false;
+        boolean any = false;
+        // The next unit allowed, in the order D, H, M, S.
+        int nextUnit = 0;
+        long seconds = 0;
+        int nanos = 0;
+        try {
+            while (pos < len) {
+                char c = text.charAt(pos);
+                if (Character.toUpperCase(c) == 'T') {
+                    if (time || pos + 1 == len) {
+                        throw invalid(text, null);
+                    }
+                    time = true;
+                    pos++;
+                    continue;
+                }
+                boolean negative = false;
+                if (c == '-' || c == '+') {
+                    negative = (c == '-');
+                    pos++;
+                }
+                int start = pos;
+                long number = 0;
+                while (pos < len && isDigit(text.charAt(pos))) {
+                    number = Math.addExact(Math.multiplyExact(number, 10), text.charAt(pos) - '0');
+                    pos++;
+                }
+                if (pos == start) {
+                    throw invalid(text, null);
+                }
+                int fraction = -1;
+                if (pos < len && (text.charAt(pos) == '.' || text.charAt(pos) == ',')) {
+                    pos++;
+                    fraction = 0;
+                    int digits = 0;
+                    while (pos < len && digits < FRACTION_DIGITS && isDigit(text.charAt(pos))) {
+                        fraction = fraction * 10 + (text.charAt(pos) - '0');
+                        digits++;
+                        pos++;
+                    }
+                    for (; digits < FRACTION_DIGITS; digits++) {
+                        fraction *= 10;
+                    }
+                }
+                if (pos == len) {
+                    throw invalid(text, null);
+                }
+                int unit = unitIndex(Character.toUpperCase(text.charAt(pos++)));
+                if (unit < nextUnit || time != (unit > 0) || (fraction >= 0 && unit != 3)) {
+                    throw invalid(text, null);
+                }
+                nextUnit = unit + 1;
+                long amount = Math.multiplyExact(number, unitSeconds(unit));
+                seconds = Math.addExact(seconds, negative ? -amount : amount);
+                if (fraction > 0) {
+                    nanos = (negative ? -fraction : fraction);
+                }
+                any = true;
+            }
+            if (!any) {
+                throw invalid(text, null);
+            }
+            if (negate) {
+                seconds = Math.negateExact(seconds);
+                nanos = -nanos;
+            }
+            return Duration.ofSeconds(seconds, nanos);
+        } catch (ArithmeticException e) {
+            throw invalid(text, e);
+        }
+    }
+
+    /**
+     * @param unit
+     *            the upper case unit letter
+     * @return the index of the unit in the order D, H, M, S, or -1 if not a unit.
+     */
+    private static int unitIndex(char unit) {
+        switch (unit) {
+            case 'D':
+                return 0;
+            case 'H':
+                return 1;
+            case 'M':
+                return 2;
+            case 'S':
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    private static long unitSeconds(int unit) {
+        switch (unit) {
+            case 0:
+                return SECONDS_PER_DAY;
+            case 1:
+                return SECONDS_PER_HOUR;
+            case 2:
+                return SECONDS_PER_MINUTE;
+            default:
+                return 1;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static IllegalArgumentException invalid(CharSequence text, Throwable cause) {
+        return new IllegalArgumentException(format("Failed to parse duration '%s'", text), cause);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion.time;
+
+import java.time.Instant;
+
+import org.brekka.stillingar.core.conversion.IsoTemporal;
+import org.brekka.stillingar.core.conversion.TemporalAdapter;
+
+/**
+ * Converts to {@link Instant}. A date/time without an offset is interpreted in the system default zone, a date
+ * without a time is taken as midnight.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class InstantConverter extends AbstractIsoTemporalConverter<Instant> {
+
+    /**
+     * 
+     */
+    public InstantConverter() {
+        this(new TemporalAdapter());
+    }
+
+    /**
+     * @param temporalAdapter
+     */
+    public InstantConverter(TemporalAdapter temporalAdapter) {
+        super(temporalAdapter);
+    }
+
+    /**
+     * Target type
+     */
+    @Override
+    public final Class<Instant> targetType() {
+        return Instant.class;
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.time.AbstractIsoTemporalConverter#build(org.brekka.stillingar.core.conversion.IsoTemporal)
+     */
+    @Override
+    protected Instant build(IsoTemporal temporal) {
+        requireDate(temporal);
+        if (temporal.hasOffset() && temporal.getZoneId() == null) {
+            return Instant.ofEpochSecond(temporal.localEpochSecond() - temporal.getOffsetSeconds(), temporal.getNano());
+        }
+        return toZonedDateTime(temporal).toInstant();
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.time.AbstractIsoTemporalConverter#usesDefaultZone()
+     */
+    @Override
+    protected boolean usesDefaultZone() {
+        return true;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion.time;
+
+import java.time.LocalDate;
+
+import org.brekka.stillingar.core.conversion.IsoTemporal;
+import org.brekka.stillingar.core.conversion.TemporalAdapter;
+
+/**
+ * Converts to {@link LocalDate}. Any time or offset is ignored.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class LocalDateConverter extends AbstractIsoTemporalConverter<LocalDate> {
+
+    /**
+     * 
+     */
+    public LocalDateConverter() {
+        this(new TemporalAdapter());
+    }
+
+    /**
+     * @param temporalAdapter
+     */
+    public LocalDateConverter(TemporalAdapter temporalAdapter) {
+        super(temporalAdapter);
+    }
+
+    /**
+     * Target type
+     */
+    @Override
+    public final Class<LocalDate> targetType() {
+        return LocalDate.class;
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.time.AbstractIsoTemporalConverter#build(org.brekka.stillingar.core.conversion.IsoTemporal)
+     */
+    @Override
+    protected LocalDate build(IsoTemporal temporal) {
+        requireDate(temporal);
+        return LocalDate.of(temporal.getYear(), temporal.getMonth(), temporal.getDay());
+    }
+}
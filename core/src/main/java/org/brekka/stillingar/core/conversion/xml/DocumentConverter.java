@@ -1,5 +1,9 @@
 package org.brekka.stillingar.core.conversion.xml;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -13,17 +17,29 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
 public class DocumentConverter extends AbstractTypeConverter<Document> {
-
+    
+    /**
+     * Maximum number of idle transformers retained for reuse.
+     */
+    private static final int MAX_IDLE_TRANSFORMERS = 4;
+    
     private final TransformerFactory factory;
     
     private final ElementConverter elementConverter;
+    
+    /**
+     * Identity transformers created by {@link #factory}, reset after each use.
+     */
+    private final Queue<Transformer> idleTransformers = new ConcurrentLinkedQueue<Transformer>();
+    
+    private final AtomicInteger idleCount = new AtomicInteger();
 
     public DocumentConverter() {
         this(new ElementConverter());
     }
     
     public DocumentConverter(ElementConverter elementConverter) {
-        this(elementConverter, TransformerFactory.newInstance());
+        this(elementConverter, DefaultTransformerFactory.INSTANCE);
     }
     
     public DocumentConverter(ElementConverter elementConverter, TransformerFactory factory) {
@@ -44,8 +60,19 @@ public class DocumentConverter extends AbstractTypeConverter<Document> {
     }
 
     protected Document elementToDocument(Element element, TransformerFactory transformerFactory) {
+        // Only transformers from our own factory are pooled
+        boolean pooled = (transformerFactory == factory);
+        Transformer transformer = null;
         try {
-            Transformer transformer = transformerFactory.newTransformer();
+            if (pooled) {
+                transformer = idleTransformers.poll();
+                if (transformer != null) {
+                    idleCount.decrementAndGet();
+                }
+            }
+            if (transformer == null) {
+                transformer = newTransformer(transformerFactory);
+            }
             DOMSource source = new DOMSource(element);
             DOMResult result = new DOMResult();
             transformer.transform(source, result);
@@ -55,6 +82,34 @@ public class DocumentConverter extends AbstractTypeConverter<Document> {
             throw new IllegalArgumentException("Element to document transform configuration problem", e);
         } catch (TransformerException e) {
             throw new IllegalArgumentException("Failed to transform element to document", e);
+        } finally {
+            if (pooled && transformer != null) {
+                release(transformer);
+            }
+        }
+    }
+    
+    private static Transformer newTransformer(TransformerFactory transformerFactory) 
+            throws TransformerConfigurationException {
+        // Factories are not thread-safe
+        synchronized (transformerFactory) {
+            return transformerFactory.newTransformer();
         }
     }
+    
+    private void release(Transformer transformer) {
+        transformer.reset();
+        if (idleCount.incrementAndGet() <= MAX_IDLE_TRANSFORMERS) {
+            idleTransformers.offer(transformer);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+    
+    /**
+     * The factory shared by converters that are not given one, looked up on first use.
+     */
+    private static final class DefaultTransformerFactory {
+        private static final TransformerFactory INSTANCE = TransformerFactory.newInstance();
+    }
 }
@@ -15,26 +15,45 @@
  */
 package org.brekka.stillingar.core.delta;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ConfigurationSource;
+import org.brekka.stillingar.api.ValueAccessor;
+import org.brekka.stillingar.api.ValueLookup;
 import org.brekka.stillingar.core.ChangeConfigurationException;
 import org.brekka.stillingar.core.ConfigurationService;
 import org.brekka.stillingar.core.DelegatingConfigurationSource;
+import org.brekka.stillingar.core.DiffableConfigurationSource;
 import org.brekka.stillingar.core.Expirable;
+import org.brekka.stillingar.core.ExpirableReferent;
 import org.brekka.stillingar.core.FallbackConfigurationSource;
+import org.brekka.stillingar.core.MemoizingConfigurationSource;
+import org.brekka.stillingar.core.SourceChanges;
 import org.brekka.stillingar.core.ValueDefinition;
 import org.brekka.stillingar.core.ValueDefinitionGroup;
+import org.brekka.stillingar.core.ValueListDefinition;
 
 /**
  * A configuration source that is 'change aware' supporting the registration of value definitions and value definition
@@ -44,6 +63,17 @@ import org.brekka.stillingar.core.ValueDefinitionGroup;
  */
 public class DeltaConfigurationService extends DelegatingConfigurationSource<FallbackConfigurationSource> implements ConfigurationService {
 
+    /**
+     * Key used in the expression index for definitions that are resolved by type (and so have no expression). Value
+     * definitions never have an empty expression.
+     */
+    private static final String TYPE_BASED = "";
+
+    /**
+     * Logger
+     */
+    private static final Logger log = Logger.getLogger(DeltaConfigurationService.class.getName());
+
     /**
      * The group that will contain all of the {@link ValueDefinition}s that were registered via
      * {@link #register(ValueDefinition, boolean)}.
@@ -51,9 +81,49 @@ public class DeltaConfigurationService extends DelegatingConfigurationSource<Fal
     private final ValueDefinitionGroup standaloneGroup;
 
     /**
-     * The list of all value groups including the standalone group above.
+     * The list of all value groups including the standalone group above. Copy-on-write so that it can be iterated by
+     * a refresh while groups are unregistered.
+     */
+    private final Set<ValueDefinitionGroup> valueGroups = new CopyOnWriteArraySet<ValueDefinitionGroup>();
+
+    /**
+     * Registrations that have been resolved and applied, but not yet added to the registry. Keyed on the registered
+     * definition/group.
+     */
+    private final ConcurrentMap<Object, PendingRegistration> pendingRegistrations = new ConcurrentHashMap<Object, PendingRegistration>();
+
+    /**
+     * Definitions/groups that have been unregistered, but not yet removed from the registry.
+     */
+    private final Set<Object> pendingUnregistrations = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+    /**
+     * Queue to which the {@link ExpiryReference}s of collected listener referents are added.
+     */
+    private final ReferenceQueue<Object> expiryQueue = new ReferenceQueue<Object>();
+
+    /**
+     * The {@link ExpiryReference} for each registered definition/group whose listener is an {@link ExpirableReferent}.
+     * Holds the references strongly so that they remain eligible for enqueuing.
+     */
+    private final ConcurrentMap<Object, ExpiryReference> expiryReferences = new ConcurrentHashMap<Object, ExpiryReference>();
+
+    /**
+     * Registered definitions/groups whose listeners are {@link Expirable} but do not expose their referent, and so
+     * must be checked individually.
+     */
+    private final Set<Object> polledExpirables = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+    /**
+     * Number of definitions/groups removed because their listeners expired.
      */
-    private final Set<ValueDefinitionGroup> valueGroups = new LinkedHashSet<ValueDefinitionGroup>();
+    private final AtomicLong reclaimedCount = new AtomicLong();
+
+    /**
+     * Held while refreshing, and while applying pending registrations and unregistrations to the registry.
+     * Registration and unregistration never wait for it.
+     */
+    private final ReentrantLock refreshLock = new ReentrantLock();
 
     /**
      * Operations for changing value definitions/groups
@@ -63,104 +133,262 @@ public class DeltaConfigurationService extends DelegatingConfigurationSource<Fal
     /**
      * A map of all values that are currently applied to the various value definitions.
      */
-    private Map<ValueDefinition<?, ?>, WeakReference<?>> lastValueMap;
+    private final Map<ValueDefinition<?, ?>, WeakReference<?>> lastValueMap = new ConcurrentHashMap<ValueDefinition<?, ?>, WeakReference<?>>();
 
     /**
      * Interceptor for value changes.
      */
     private DeltaValueInterceptor deltaValueInterceptor;
 
+    /**
+     * Executor used to resolve groups in parallel during refresh (can be null).
+     */
+    private ExecutorService phaseOneExecutor;
+
+    /**
+     * When true, refresh will only enact changes on groups where at least one value has changed.
+     */
+    private boolean changedValuesOnly;
+
+    /**
+     * Comparators used to determine whether values of a given type have changed. Types without a comparator are
+     * compared using {@link Object#equals(Object)}.
+     */
+    private final Map<Class<?>, Comparator<?>> valueComparators = new ConcurrentHashMap<Class<?>, Comparator<?>>();
+
+    /**
+     * Reverse index from expression ({@link #TYPE_BASED} for definitions resolved by type) to the registered
+     * definitions that use it. Used along with {@link #definitionGroups} to identify the groups affected by a change to
+     * the source.
+     */
+    private final Map<String, Set<ValueDefinition<?, ?>>> expressionIndex = new ConcurrentHashMap<String, Set<ValueDefinition<?, ?>>>();
+
+    /**
+     * The group that each registered definition belongs to.
+     */
+    private final Map<ValueDefinition<?, ?>, ValueDefinitionGroup> definitionGroups = new ConcurrentHashMap<ValueDefinition<?, ?>, ValueDefinitionGroup>();
+
+    /**
+     * Memoizes lookups against the most recently used snapshot, so that registrations made against the same snapshot
+     * (and the refresh that published it) only evaluate each distinct lookup once.
+     */
+    private volatile MemoizingConfigurationSource snapshotMemo;
+
 
     public DeltaConfigurationService(final ConfigurationSource defaultConfigurationSource) {
         super(new FallbackConfigurationSource(null, defaultConfigurationSource));
-        // Use a LinkedHashSet to quick add/removal and iteration in order of addition.
-        this.standaloneGroup = new ValueDefinitionGroup("_standalone", new LinkedHashSet<ValueDefinition<?, ?>>(),
-                null, null);
+        // Concurrent set so values can be unregistered while a refresh iterates them.
+        this.standaloneGroup = new ValueDefinitionGroup("_standalone",
+                Collections.newSetFromMap(new ConcurrentHashMap<ValueDefinition<?, ?>, Boolean>()), null, null);
         this.valueGroups.add(standaloneGroup);
-        this.lastValueMap = new HashMap<ValueDefinition<?,?>, WeakReference<?>>();
     }
 
     /**
-     * Register a value definition
+     * Register a value definition. The value is resolved against the currently published configuration without
+     * waiting for any refresh that is in progress. The definition is then handed to the registry, which will bring it
+     * up to date should a refresh have been published in the meantime (in which case the listener will be called even
+     * if <code>fireImmediately</code> is false).
      */
     @Override
-    public synchronized void register(final ValueDefinition<?, ?> valueDefinition, final boolean fireImmediately) {
-        ValueChangeAction valueChangeAction = deltaOperations.prepareValueChange(valueDefinition, this);
+    public void register(final ValueDefinition<?, ?> valueDefinition, final boolean fireImmediately) {
+        FallbackConfigurationSource snapshot = pin();
+        ValueChangeAction valueChangeAction = deltaOperations.prepareValueChange(valueDefinition, memoFor(snapshot));
         Object newValue = interceptCreatedValue(valueChangeAction.getNewValue());
         if (fireImmediately) {
             deltaOperations.enactValueChange(new ValueChangeAction(valueChangeAction.getValueDefinition(), newValue));
         }
         lastValueMap.put(valueDefinition, new WeakReference<Object>(valueChangeAction.getNewValue()));
-        standaloneGroup.getValues().add(valueDefinition);
+        pendingUnregistrations.remove(valueDefinition);
+        pendingRegistrations.put(valueDefinition, new PendingRegistration(valueDefinition, null, snapshot));
+        processPendingRegistrations();
     }
 
     /**
-     * Register a value group definition
+     * Register a value group definition. As with {@link #register(ValueDefinition, boolean)}, this does not wait for
+     * any refresh that is in progress.
      */
     @Override
-    public synchronized void register(final ValueDefinitionGroup valueDefinitionGroup, final boolean fireImmediately) {
-        GroupChangeAction groupUpdateAction = deltaOperations.prepareGroupChange(valueDefinitionGroup, this);
+    public void register(final ValueDefinitionGroup valueDefinitionGroup, final boolean fireImmediately) {
+        FallbackConfigurationSource snapshot = pin();
+        GroupChangeAction groupUpdateAction = deltaOperations.prepareGroupChange(valueDefinitionGroup,
+                memoFor(snapshot));
         groupUpdateAction = interceptGroupRefresh(groupUpdateAction, lastValueMap);
         if (fireImmediately) {
             deltaOperations.enactGroupChange(groupUpdateAction, this);
         }
-        valueGroups.add(valueDefinitionGroup);
+        pendingUnregistrations.remove(valueDefinitionGroup);
+        pendingRegistrations.put(valueDefinitionGroup, new PendingRegistration(null, valueDefinitionGroup, snapshot));
+        processPendingRegistrations();
     }
 
+    /**
+     * Unregister a value definition. As with registration, this does not wait for any refresh that is in progress.
+     * The definition is removed from the registry and its value released once that refresh completes, so it may
+     * still be updated by it.
+     */
     @Override
-    public synchronized void unregister(final ValueDefinition<?, ?> valueDefinition) {
-        Collection<ValueDefinition<?, ?>> values = standaloneGroup.getValues();
-        values.remove(valueDefinition);
-        releaseValue(valueDefinition);
+    public void unregister(final ValueDefinition<?, ?> valueDefinition) {
+        pendingRegistrations.remove(valueDefinition);
+        pendingUnregistrations.add(valueDefinition);
+        processPendingRegistrations();
     }
 
+    /**
+     * Unregister a value group definition. As with {@link #unregister(ValueDefinition)}, this does not wait for any
+     * refresh that is in progress.
+     */
     @Override
-    public synchronized void unregister(final ValueDefinitionGroup valueGroup) {
+    public void unregister(final ValueDefinitionGroup valueGroup) {
         if (valueGroup == standaloneGroup) {
             throw new IllegalStateException("May not remove the standalone group");
         }
-        valueGroups.remove(valueGroup);
-        for (ValueDefinition<?,?> valueDefinition : valueGroup.getValues()) {
+        pendingRegistrations.remove(valueGroup);
+        pendingUnregistrations.add(valueGroup);
+        processPendingRegistrations();
+    }
+
+    /**
+     * Apply any pending unregistrations and registrations to the registry, unless a refresh is in progress in which
+     * case that refresh will apply them once it completes.
+     */
+    protected void processPendingRegistrations() {
+        while ((!pendingRegistrations.isEmpty() || !pendingUnregistrations.isEmpty())
+                && refreshLock.tryLock()) {
+            try {
+                checkAndRemoveExpired();
+                for (Object key : pendingUnregistrations) {
+                    if (pendingUnregistrations.remove(key)) {
+                        applyUnregistration(key);
+                    }
+                }
+                for (PendingRegistration pendingRegistration : pendingRegistrations.values()) {
+                    pendingRegistration.addToRegistry();
+                }
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Remove an unregistered value definition or group from the registry, releasing its values. Must be called with
+     * the refresh lock held.
+     */
+    private void applyUnregistration(final Object key) {
+        untrackExpiry(key);
+        if (key instanceof ValueDefinitionGroup) {
+            ValueDefinitionGroup valueGroup = (ValueDefinitionGroup) key;
+            valueGroups.remove(valueGroup);
+            for (ValueDefinition<?, ?> valueDefinition : valueGroup.getValues()) {
+                unindex(valueDefinition);
+                releaseValue(valueDefinition);
+            }
+        } else {
+            ValueDefinition<?, ?> valueDefinition = (ValueDefinition<?, ?>) key;
+            standaloneGroup.getValues().remove(valueDefinition);
+            unindex(valueDefinition);
             releaseValue(valueDefinition);
         }
     }
 
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.ConfigurationService#compile(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public <T> ValueAccessor<T> compile(final String expression, final Class<T> valueType) {
+        if (expression == null) {
+            throw new IllegalArgumentException("An expression must be specified");
+        }
+        if (valueType == null) {
+            throw new IllegalArgumentException("A value type must be specified");
+        }
+        return new SnapshotValueAccessor<T>(expression, valueType);
+    }
+
     /**
      * Shutdown this {@link ConfigurationSource}, releasing all values.
      */
-    public synchronized void shutdown() {
-        Collection<WeakReference<?>> values = lastValueMap.values();
-        for (WeakReference<?> weakReference : values) {
-            Object object = weakReference.get();
-            if (object != null) {
-                interceptReleasedValue(object);
+    public void shutdown() {
+        refreshLock.lock();
+        try {
+            this.pendingRegistrations.clear();
+            this.pendingUnregistrations.clear();
+            Collection<WeakReference<?>> values = lastValueMap.values();
+            for (WeakReference<?> weakReference : values) {
+                Object object = weakReference.get();
+                if (object != null) {
+                    interceptReleasedValue(object);
+                }
             }
+            this.lastValueMap.clear();
+            this.valueGroups.clear();
+            this.standaloneGroup.getValues().clear();
+            this.expressionIndex.clear();
+            this.definitionGroups.clear();
+            this.expiryReferences.clear();
+            this.polledExpirables.clear();
+            this.snapshotMemo = null;
+        } finally {
+            refreshLock.unlock();
         }
-        this.lastValueMap = Collections.emptyMap();
-        this.valueGroups.clear();
-        this.standaloneGroup.getValues().clear();
     }
 
 
     /**
      * Updates the primary configuration source and notify all registered listeners of the change. Must be called at
-     * least once prior to any of the {@link #register} methods being called.
+     * least once prior to any of the {@link #register} methods being called. Registrations made while the refresh is
+     * in progress are added to the registry (and updated to the new configuration) once it completes, whether or not
+     * it succeeds. Likewise for unregistrations, which are removed from the registry.
      *
      * @throws ChangeConfigurationException
      *             if problems are encountered during the first or second phases.
      */
-    protected synchronized void refresh(final ConfigurationSource latest) throws ChangeConfigurationException {
+    protected void refresh(final ConfigurationSource latest) throws ChangeConfigurationException {
+        refreshLock.lock();
+        try {
+            // Include everything registered since the last refresh
+            processPendingRegistrations();
+            doRefresh(latest);
+        } finally {
+            refreshLock.unlock();
+            processPendingRegistrations();
+        }
+    }
+
+    /**
+     * Perform the refresh, with the refresh lock held.
+     */
+    private void doRefresh(final ConfigurationSource latest) throws ChangeConfigurationException {
         Map<ValueDefinition<?, ?>, WeakReference<?>> newValueMap = new LinkedHashMap<ValueDefinition<?, ?>, WeakReference<?>>();
         FallbackConfigurationSource newSource = new FallbackConfigurationSource(latest, getDelegate()
                 .getSecondarySource());
 
         checkAndRemoveExpired();
 
-        TwoPhasedGroupsUpdater updater = new TwoPhasedGroupsUpdater(valueGroups, newSource, deltaOperations);
+        Collection<ValueDefinitionGroup> groups = valueGroups;
+        ValueDefinitionGroup standalone = standaloneGroup;
+        if (changedValuesOnly) {
+            SourceChanges changes = diff(latest);
+            if (changes != null) {
+                // Only those standalone values affected by the changes
+                standalone = new ValueDefinitionGroup(standaloneGroup.getName(),
+                        new ArrayList<ValueDefinition<?, ?>>(), null, null);
+                groups = selectAffected(affectedDefinitions(changes), standalone, newValueMap);
+            }
+        }
+
+        // Each distinct lookup is only evaluated once for the new snapshot
+        MemoizingConfigurationSource memo = new MemoizingConfigurationSource(newSource);
+        TwoPhasedGroupsUpdater updater = new TwoPhasedGroupsUpdater(groups, memo, deltaOperations,
+                phaseOneExecutor);
 
         // Phase One
         List<GroupChangeAction> updateActionList = updater.phaseOneUpdate();
 
+        if (changedValuesOnly) {
+            updateActionList = removeUnchanged(updateActionList, standalone, newValueMap);
+        }
+
         updateActionList = interceptRefresh(updateActionList, newValueMap);
 
         // Phase Two
@@ -168,9 +396,255 @@ public class DeltaConfigurationService extends DelegatingConfigurationSource<Fal
 
         // No exception, means success
         setDelegate(newSource);
-        this.lastValueMap = newValueMap;
+        snapshotMemo = memo;
+        // Unregistrations are deferred until the refresh completes, so every definition is still registered.
+        lastValueMap.putAll(newValueMap);
+    }
+
+
+    /**
+     * Obtain the memoizing wrapper for <code>snapshot</code>, replacing the current one if it belongs to a different
+     * snapshot.
+     */
+    private MemoizingConfigurationSource memoFor(final FallbackConfigurationSource snapshot) {
+        MemoizingConfigurationSource memo = snapshotMemo;
+        if (memo == null
+                || memo.getTargetSource() != snapshot) {
+            memo = new MemoizingConfigurationSource(snapshot);
+            snapshotMemo = memo;
+        }
+        return memo;
+    }
+
+    /**
+     * Determine what has changed between the current primary source and <code>latest</code>.
+     *
+     * @param latest
+     *            the source that will become the new primary source.
+     * @return the changes, or null if they cannot be determined.
+     */
+    protected SourceChanges diff(final ConfigurationSource latest) {
+        ConfigurationSource previous = getDelegate().getPrimarySource();
+        if (latest instanceof DiffableConfigurationSource
+                && previous != FallbackConfigurationSource.NONE) {
+            return ((DiffableConfigurationSource) latest).diff(previous);
+        }
+        return null;
+    }
+
+    /**
+     * Use the expression index to identify the registered definitions whose values may be affected by the changes.
+     */
+    private Set<ValueDefinition<?, ?>> affectedDefinitions(final SourceChanges changes) {
+        Set<ValueDefinition<?, ?>> affected = new HashSet<ValueDefinition<?, ?>>();
+        if (changes.isEmpty()) {
+            return affected;
+        }
+        for (Map.Entry<String, Set<ValueDefinition<?, ?>>> entry : expressionIndex.entrySet()) {
+            String expression = entry.getKey();
+            if (changes.affects(expression == TYPE_BASED ? null : expression)) {
+                affected.addAll(entry.getValue());
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Select the groups that contain at least one affected definition, carrying forward the last applied values of
+     * all others into the new value map. Affected standalone values are added to <code>standalone</code>.
+     */
+    private List<ValueDefinitionGroup> selectAffected(final Set<ValueDefinition<?, ?>> affected,
+            final ValueDefinitionGroup standalone, final Map<ValueDefinition<?, ?>, WeakReference<?>> newValueMap) {
+        Set<ValueDefinitionGroup> affectedGroups = new HashSet<ValueDefinitionGroup>();
+        for (ValueDefinition<?, ?> valueDefinition : affected) {
+            affectedGroups.add(definitionGroups.get(valueDefinition));
+        }
+        List<ValueDefinitionGroup> groups = new ArrayList<ValueDefinitionGroup>();
+        for (ValueDefinitionGroup group : valueGroups) {
+            if (group == standaloneGroup) {
+                for (ValueDefinition<?, ?> valueDefinition : group.getValues()) {
+                    if (affected.contains(valueDefinition)) {
+                        standalone.getValues().add(valueDefinition);
+                    } else {
+                        carryForward(valueDefinition, newValueMap);
+                    }
+                }
+                if (!standalone.getValues().isEmpty()) {
+                    groups.add(standalone);
+                }
+                continue;
+            }
+            if (affectedGroups.contains(group)) {
+                groups.add(group);
+            } else {
+                for (ValueDefinition<?, ?> valueDefinition : group.getValues()) {
+                    carryForward(valueDefinition, newValueMap);
+                }
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Filter out the group actions where none of the values have changed since they were last applied. The last
+     * applied values of those groups are carried forward into the new value map. Values of the standalone group are
+     * independent of each other, so are filtered individually.
+     *
+     * @param updateActionList
+     *            the actions identified by phase one
+     * @param standalone
+     *            the group containing the standalone values that were resolved.
+     * @param newValueMap
+     *            the map that will replace the last value map once the refresh completes.
+     * @return the actions that still need to be enacted.
+     */
+    protected List<GroupChangeAction> removeUnchanged(final List<GroupChangeAction> updateActionList,
+            final ValueDefinitionGroup standalone, final Map<ValueDefinition<?, ?>, WeakReference<?>> newValueMap) {
+        List<GroupChangeAction> changedActions = new ArrayList<GroupChangeAction>(updateActionList.size());
+        for (GroupChangeAction groupChangeAction : updateActionList) {
+            List<ValueChangeAction> actionList = groupChangeAction.getActionList();
+            List<ValueChangeAction> changedValueActions = new ArrayList<ValueChangeAction>(actionList.size());
+            List<ValueChangeAction> unchangedValueActions = new ArrayList<ValueChangeAction>(actionList.size());
+            for (ValueChangeAction valueChangeAction : actionList) {
+                if (isUnchanged(valueChangeAction)) {
+                    unchangedValueActions.add(valueChangeAction);
+                } else {
+                    changedValueActions.add(valueChangeAction);
+                }
+            }
+            if (changedValueActions.isEmpty()) {
+                // Nothing to do for this group
+                carryForward(unchangedValueActions, newValueMap);
+            } else if (groupChangeAction.getGroup() == standalone) {
+                carryForward(unchangedValueActions, newValueMap);
+                changedActions.add(new GroupChangeAction(standalone, changedValueActions));
+            } else {
+                changedActions.add(groupChangeAction);
+            }
+        }
+        return changedActions;
+    }
+
+    /**
+     * Determine whether the value resolved for the action is the same as the value last applied to its definition.
+     *
+     * @param valueChangeAction
+     *            the action containing the newly resolved value
+     * @return true if the value has not changed.
+     */
+    protected boolean isUnchanged(final ValueChangeAction valueChangeAction) {
+        ValueDefinition<?, ?> valueDefinition = valueChangeAction.getValueDefinition();
+        WeakReference<?> lastValueRef = lastValueMap.get(valueDefinition);
+        if (lastValueRef == null) {
+            // Never applied
+            return false;
+        }
+        Object lastValue = lastValueRef.get();
+        Object newValue = valueChangeAction.getNewValue();
+        if (lastValue == newValue) {
+            return true;
+        }
+        if (lastValue == null
+                || newValue == null) {
+            return false;
+        }
+        Class<?> type = valueDefinition.getType();
+        if (valueDefinition instanceof ValueListDefinition) {
+            if (!(lastValue instanceof List)
+                    || !(newValue instanceof List)) {
+                return false;
+            }
+            List<?> lastList = (List<?>) lastValue;
+            List<?> newList = (List<?>) newValue;
+            if (lastList.size() != newList.size()) {
+                return false;
+            }
+            Iterator<?> lastIterator = lastList.iterator();
+            Iterator<?> newIterator = newList.iterator();
+            while (lastIterator.hasNext()) {
+                if (!isEqual(type, lastIterator.next(), newIterator.next())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return isEqual(type, lastValue, newValue);
+    }
+
+    /**
+     * Compare two values of the given type, using the comparator registered for the type if there is one.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected boolean isEqual(final Class<?> type, final Object lastValue, final Object newValue) {
+        if (lastValue == newValue) {
+            return true;
+        }
+        if (lastValue == null
+                || newValue == null) {
+            return false;
+        }
+        Comparator comparator = valueComparators.get(type);
+        if (comparator != null) {
+            return comparator.compare(lastValue, newValue) == 0;
+        }
+        if (lastValue.getClass().isArray()) {
+            return Arrays.deepEquals(new Object[] { lastValue }, new Object[] { newValue });
+        }
+        return lastValue.equals(newValue);
+    }
+
+    /**
+     * Retain the last applied values for actions that will not be enacted.
+     */
+    private void carryForward(final List<ValueChangeAction> unchangedValueActions,
+            final Map<ValueDefinition<?, ?>, WeakReference<?>> newValueMap) {
+        for (ValueChangeAction valueChangeAction : unchangedValueActions) {
+            carryForward(valueChangeAction.getValueDefinition(), newValueMap);
+        }
+    }
+
+    private void carryForward(final ValueDefinition<?, ?> valueDefinition,
+            final Map<ValueDefinition<?, ?>, WeakReference<?>> newValueMap) {
+        WeakReference<?> lastValueRef = lastValueMap.get(valueDefinition);
+        if (lastValueRef != null) {
+            newValueMap.put(valueDefinition, lastValueRef);
+        }
+    }
+
+    /**
+     * Add the definition to the expression index
+     */
+    private void index(final ValueDefinition<?, ?> valueDefinition, final ValueDefinitionGroup group) {
+        String expression = indexKey(valueDefinition);
+        Set<ValueDefinition<?, ?>> definitions = expressionIndex.get(expression);
+        if (definitions == null) {
+            definitions = Collections.newSetFromMap(new ConcurrentHashMap<ValueDefinition<?, ?>, Boolean>());
+            expressionIndex.put(expression, definitions);
+        }
+        definitions.add(valueDefinition);
+        definitionGroups.put(valueDefinition, group);
+    }
+
+    /**
+     * Remove the definition from the expression index. Like {@link #index(ValueDefinition, ValueDefinitionGroup)},
+     * must be called with the refresh lock held.
+     */
+    private void unindex(final ValueDefinition<?, ?> valueDefinition) {
+        String expression = indexKey(valueDefinition);
+        Set<ValueDefinition<?, ?>> definitions = expressionIndex.get(expression);
+        if (definitions != null) {
+            definitions.remove(valueDefinition);
+            if (definitions.isEmpty()) {
+                expressionIndex.remove(expression);
+            }
+        }
+        definitionGroups.remove(valueDefinition);
     }
 
+    private static String indexKey(final ValueDefinition<?, ?> valueDefinition) {
+        String expression = valueDefinition.getExpression();
+        return (expression != null ? expression : TYPE_BASED);
+    }
 
     /**
      * @param updateActionList
@@ -217,25 +691,85 @@ public class DeltaConfigurationService extends DelegatingConfigurationSource<Fal
     }
 
     /**
-     * Check whether any of the value/group definitions have expired and remove them.
+     * Remove the value/group definitions whose listeners have expired. Listeners implementing
+     * {@link ExpirableReferent} are discovered via the reference queue, so only those that have actually been collected
+     * are visited. Any other {@link Expirable} listeners are checked individually.
      */
     protected void checkAndRemoveExpired() {
-        Iterator<ValueDefinitionGroup> valueGroupIterator = valueGroups.iterator();
-        while (valueGroupIterator.hasNext()) {
-            ValueDefinitionGroup valueDefinitionGroup = valueGroupIterator.next();
-            if (isExpired(valueDefinitionGroup.getChangeListener())) {
-                valueGroupIterator.remove();
+        Reference<?> reference;
+        while ((reference = expiryQueue.poll()) != null) {
+            Object key = ((ExpiryReference) reference).key;
+            if (expiryReferences.remove(key, reference)) {
+                expire(key);
+            }
+        }
+        for (Object key : polledExpirables) {
+            Object listener = (key instanceof ValueDefinitionGroup
+                    ? ((ValueDefinitionGroup) key).getChangeListener()
+                    : ((ValueDefinition<?, ?>) key).getChangeListener());
+            if (isExpired(listener)
+                    && polledExpirables.remove(key)) {
+                expire(key);
+            }
+        }
+    }
+
+    /**
+     * @return the number of value/group definitions that have been removed because their listeners expired.
+     */
+    public long getReclaimedCount() {
+        return reclaimedCount.get();
+    }
+
+    /**
+     * Start tracking the expiry of a registered value definition or group.
+     *
+     * @param key
+     *            the value definition or group
+     * @param listener
+     *            its listener
+     */
+    private void trackExpiry(final Object key, final Object listener) {
+        if (listener instanceof ExpirableReferent) {
+            Object referent = ((ExpirableReferent) listener).getReferent();
+            if (referent != null) {
+                expiryReferences.put(key, new ExpiryReference(referent, key, expiryQueue));
+                return;
             }
         }
+        if (listener instanceof Expirable) {
+            polledExpirables.add(key);
+        }
+    }
+
+    private void untrackExpiry(final Object key) {
+        expiryReferences.remove(key);
+        polledExpirables.remove(key);
+    }
 
-        Collection<ValueDefinition<?, ?>> standaloneValues = standaloneGroup.getValues();
-        Iterator<ValueDefinition<?, ?>> standaloneValueIterator = standaloneValues.iterator();
-        while (standaloneValueIterator.hasNext()) {
-            ValueDefinition<?, ?> valueDefinition = standaloneValueIterator.next();
-            if (isExpired(valueDefinition.getChangeListener())) {
-                standaloneValueIterator.remove();
+    /**
+     * Remove an expired value definition or group from the registry.
+     */
+    private void expire(final Object key) {
+        Collection<ValueDefinition<?, ?>> values;
+        if (key instanceof ValueDefinitionGroup) {
+            ValueDefinitionGroup valueDefinitionGroup = (ValueDefinitionGroup) key;
+            if (!valueGroups.remove(valueDefinitionGroup)) {
+                return;
             }
+            values = valueDefinitionGroup.getValues();
+        } else {
+            ValueDefinition<?, ?> valueDefinition = (ValueDefinition<?, ?>) key;
+            if (!standaloneGroup.getValues().remove(valueDefinition)) {
+                return;
+            }
+            values = Collections.<ValueDefinition<?, ?>>singletonList(valueDefinition);
+        }
+        for (ValueDefinition<?, ?> valueDefinition : values) {
+            unindex(valueDefinition);
+            lastValueMap.remove(valueDefinition);
         }
+        reclaimedCount.incrementAndGet();
     }
 
     /**
@@ -282,6 +816,55 @@ public class DeltaConfigurationService extends DelegatingConfigurationSource<Fal
         this.deltaOperations = deltaOperations;
     }
 
+    /**
+     * Set the executor that will be used to resolve value groups in parallel when refreshing. Parallel resolution is
+     * only used when the configuration sources declare that they support concurrent reads. Of the bundled engines, the
+     * XMLBeans, Jackson and properties sources do, while the DOM and JAXB sources do not (DOM implementations are not
+     * safe for concurrent readers), so with those two groups continue to be resolved sequentially. The executor is
+     * not managed by this service, so must be shut down by the caller.
+     * 
+     * @param phaseOneExecutor
+     *            the executor (such as a {@link java.util.concurrent.ForkJoinPool}) or null to resolve values
+     *            sequentially on the refreshing thread.
+     */
+    public void setPhaseOneExecutor(final ExecutorService phaseOneExecutor) {
+        this.phaseOneExecutor = phaseOneExecutor;
+    }
+
+    /**
+     * Determine whether refresh should only enact changes for groups where at least one value differs from the value
+     * last applied. Values are compared using {@link Object#equals(Object)} or the comparator registered for the value
+     * type via {@link #addValueComparator(Class, Comparator)}. Groups where all values are unchanged will have neither
+     * their value listeners or group listener invoked, and the {@link DeltaValueInterceptor} will not be notified.
+     * When the new source is a {@link DiffableConfigurationSource}, only those values whose expressions are affected
+     * by the changes will be resolved at all.
+     *
+     * @param changedValuesOnly
+     *            true to only enact changed groups, false (the default) to enact all groups on every refresh.
+     */
+    public void setChangedValuesOnly(final boolean changedValuesOnly) {
+        this.changedValuesOnly = changedValuesOnly;
+    }
+
+    /**
+     * Register a comparator that will be used to determine whether a value of the given type has changed, with zero
+     * meaning unchanged. Only used when {@link #setChangedValuesOnly(boolean)} is enabled.
+     *
+     * @param type
+     *            the value type (as specified by the {@link ValueDefinition}).
+     * @param comparator
+     *            the comparator
+     */
+    public <T> void addValueComparator(final Class<T> type, final Comparator<? super T> comparator) {
+        if (type == null) {
+            throw new IllegalArgumentException("A value type must be specified");
+        }
+        if (comparator == null) {
+            throw new IllegalArgumentException("A comparator must be specified");
+        }
+        this.valueComparators.put(type, comparator);
+    }
+
     /**
      * @param deltaValueInterceptor the deltaValueInterceptor to set
      */
@@ -304,4 +887,192 @@ public class DeltaConfigurationService extends DelegatingConfigurationSource<Fal
         }
         return false;
     }
+
+    /**
+     * {@link ValueAccessor} that memoizes the value resolved from the current delegate, only evaluating the
+     * expression again once the delegate has been replaced by {@link DeltaConfigurationService#refresh}.
+     */
+    private final class SnapshotValueAccessor<T> implements ValueAccessor<T> {
+
+        /**
+         * The expression that identifies the value.
+         */
+        private final String expression;
+
+        /**
+         * The type of the value.
+         */
+        private final Class<T> valueType;
+
+        /**
+         * The value resolved from the most recently seen delegate.
+         */
+        private volatile ResolvedValue resolved;
+
+        private SnapshotValueAccessor(final String expression, final Class<T> valueType) {
+            this.expression = expression;
+            this.valueType = valueType;
+        }
+
+        /* (non-Javadoc)
+         * @see org.brekka.stillingar.api.ValueAccessor#get()
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get() {
+            FallbackConfigurationSource source = getDelegate();
+            ResolvedValue current = resolved;
+            if (current == null
+                    || current.source != source) {
+                current = new ResolvedValue(source, source.lookup(expression, valueType));
+                resolved = current;
+            }
+            if (current.value == ValueLookup.NOT_FOUND) {
+                throw new ConfigurationException(String.format("Expression '%s' did not evaluate to a value "
+                        + "in any of the available configuration sources. Expected return type '%s'.", 
+                        expression, valueType.getName()));
+            }
+            return (T) current.value;
+        }
+
+        /* (non-Javadoc)
+         * @see org.brekka.stillingar.api.ValueAccessor#getExpression()
+         */
+        @Override
+        public String getExpression() {
+            return expression;
+        }
+
+        /* (non-Javadoc)
+         * @see org.brekka.stillingar.api.ValueAccessor#getValueType()
+         */
+        @Override
+        public Class<T> getValueType() {
+            return valueType;
+        }
+    }
+
+    /**
+     * A value paired with the source it was resolved from.
+     */
+    private static final class ResolvedValue {
+        private final FallbackConfigurationSource source;
+        private final Object value;
+
+        private ResolvedValue(final FallbackConfigurationSource source, final Object value) {
+            this.source = source;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A registration that has been resolved against a published snapshot, but is yet to be added to the registry.
+     */
+    private class PendingRegistration {
+
+        /**
+         * The standalone value definition (null when this is a group)
+         */
+        private final ValueDefinition<?, ?> valueDefinition;
+
+        /**
+         * The group (null when this is a standalone value)
+         */
+        private final ValueDefinitionGroup valueDefinitionGroup;
+
+        /**
+         * The snapshot the registration was resolved against
+         */
+        private final FallbackConfigurationSource snapshot;
+
+        PendingRegistration(final ValueDefinition<?, ?> valueDefinition,
+                final ValueDefinitionGroup valueDefinitionGroup, final FallbackConfigurationSource snapshot) {
+            this.valueDefinition = valueDefinition;
+            this.valueDefinitionGroup = valueDefinitionGroup;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Add to the registry, with the refresh lock held. If a refresh was published since the registration was
+         * resolved then it is brought up to date with it.
+         */
+        void addToRegistry() {
+            if (valueDefinitionGroup == null) {
+                standaloneGroup.getValues().add(valueDefinition);
+                index(valueDefinition, standaloneGroup);
+                trackExpiry(valueDefinition, valueDefinition.getChangeListener());
+            } else {
+                valueGroups.add(valueDefinitionGroup);
+                for (ValueDefinition<?, ?> groupValue : valueDefinitionGroup.getValues()) {
+                    index(groupValue, valueDefinitionGroup);
+                }
+                trackExpiry(valueDefinitionGroup, valueDefinitionGroup.getChangeListener());
+            }
+            if (!pendingRegistrations.remove(key(), this)) {
+                // Unregistered concurrently, undo.
+                removeFromRegistry();
+                return;
+            }
+            FallbackConfigurationSource current = getDelegate();
+            if (snapshot == current) {
+                return;
+            }
+            ValueDefinitionGroup group = valueDefinitionGroup;
+            if (group == null) {
+                group = new ValueDefinitionGroup(standaloneGroup.getName(),
+                        Collections.<ValueDefinition<?, ?>>singletonList(valueDefinition), null, null);
+            }
+            try {
+                GroupChangeAction groupChangeAction = deltaOperations.prepareGroupChange(group, memoFor(current));
+                groupChangeAction = interceptGroupRefresh(groupChangeAction, lastValueMap);
+                deltaOperations.enactGroupChange(groupChangeAction, DeltaConfigurationService.this);
+            } catch (ConfigurationException e) {
+                // Retains the values it was registered with, the next refresh will try again.
+                log.log(Level.WARNING, String.format("Failed to update the registration of %s to the latest "
+                        + "configuration, it will retain its current values until the next refresh", describe()), e);
+            }
+        }
+
+        private void removeFromRegistry() {
+            untrackExpiry(key());
+            if (valueDefinitionGroup == null) {
+                standaloneGroup.getValues().remove(valueDefinition);
+                unindex(valueDefinition);
+            } else {
+                valueGroups.remove(valueDefinitionGroup);
+                for (ValueDefinition<?, ?> groupValue : valueDefinitionGroup.getValues()) {
+                    unindex(groupValue);
+                }
+            }
+        }
+
+        private String describe() {
+            if (valueDefinitionGroup != null) {
+                return String.format("group '%s'", valueDefinitionGroup.getName());
+            }
+            String expression = valueDefinition.getExpression();
+            return String.format("value '%s'", (expression != null ? expression : valueDefinition.getType().getName()));
+        }
+
+        private Object key() {
+            return (valueDefinitionGroup != null ? valueDefinitionGroup : valueDefinition);
+        }
+    }
+
+    /**
+     * Weak reference to the referent of an {@link ExpirableReferent} listener, identifying the registration to remove
+     * once it has been collected.
+     */
+    private static final class ExpiryReference extends WeakReference<Object> {
+
+        /**
+         * The value definition or group that the listener belongs to
+         */
+        private final Object key;
+
+        ExpiryReference(final Object referent, final Object key, final ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.key = key;
+        }
+    }
 }
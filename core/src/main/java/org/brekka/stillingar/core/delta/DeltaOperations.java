@@ -23,6 +23,7 @@ import java.util.List;
 import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ConfigurationSource;
 import org.brekka.stillingar.api.ValueConfigurationException;
+import org.brekka.stillingar.api.ValueLookup;
 import org.brekka.stillingar.core.GroupChangeListener;
 import org.brekka.stillingar.core.GroupConfigurationException;
 import org.brekka.stillingar.core.ValueChangeListener;
@@ -30,6 +31,7 @@ import org.brekka.stillingar.core.ValueDefinition;
 import org.brekka.stillingar.core.ValueDefinitionGroup;
 import org.brekka.stillingar.core.ValueListDefinition;
 import org.brekka.stillingar.core.GroupConfigurationException.Phase;
+import org.brekka.stillingar.core.support.ValueLookupSupport;
 
 /**
  * Operations that prepare/change the state of {@link ValueDefinition} and {@link ValueDefinitionGroup}s.
@@ -55,29 +57,26 @@ public class DeltaOperations {
         String expression = valueDefinition.getExpression();
         Class<?> type = valueDefinition.getType();
         Object result;
-        boolean available;
         if (expression != null) {
-            available = configurationSource.isAvailable(expression);
-        } else {
-            available = configurationSource.isAvailable(type);
-        }
-        if (available) {
+            // Single evaluation where the source supports it
             if (valueDefinition instanceof ValueListDefinition) {
-                if (expression != null) {
-                    result = configurationSource.retrieveList(expression, type);
-                } else {
-                    result = configurationSource.retrieveList(type);
-                }
+                result = ValueLookupSupport.lookupList(configurationSource, expression, type);
             } else {
-                if (expression != null) {
-                    result = configurationSource.retrieve(expression, type);
-                } else {
-                    result = configurationSource.retrieve(type);
-                }
+                result = ValueLookupSupport.lookup(configurationSource, expression, type);
+            }
+        } else if (configurationSource.isAvailable(type)) {
+            if (valueDefinition instanceof ValueListDefinition) {
+                result = configurationSource.retrieveList(type);
+            } else {
+                result = configurationSource.retrieve(type);
             }
-        } else if (valueDefinition.isRequired()) {
-            throw new ValueConfigurationException("No value could be found for", type, expression);
         } else {
+            result = ValueLookup.NOT_FOUND;
+        }
+        if (result == ValueLookup.NOT_FOUND) {
+            if (valueDefinition.isRequired()) {
+                throw new ValueConfigurationException("No value could be found for", type, expression);
+            }
             // Not required and not available, set to null. How this is handled is assignment specific.
             result = null;
         }
@@ -19,7 +19,13 @@ package org.brekka.stillingar.core.delta;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.brekka.stillingar.api.ConcurrentReadCapable;
+import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ConfigurationSource;
 import org.brekka.stillingar.core.ChangeConfigurationException;
 import org.brekka.stillingar.core.GroupConfigurationException;
@@ -49,6 +55,11 @@ public class TwoPhasedGroupsUpdater {
      */
     private final DeltaOperations deltaOperations;
 
+    /**
+     * Executor used to resolve groups in parallel during phase one (can be null).
+     */
+    private final ExecutorService phaseOneExecutor;
+
     /**
      * @param valueGroups
      *            The list of all value groups including the standalone group above.
@@ -57,9 +68,25 @@ public class TwoPhasedGroupsUpdater {
      */
     public TwoPhasedGroupsUpdater(Collection<ValueDefinitionGroup> valueGroups, ConfigurationSource configurationSource,
             DeltaOperations deltaOperations) {
+        this(valueGroups, configurationSource, deltaOperations, null);
+    }
+
+    /**
+     * @param valueGroups
+     *            The list of all value groups including the standalone group above.
+     * @param configurationSource
+     *            The configuration source to update from
+     * @param phaseOneExecutor
+     *            Executor used to resolve groups in parallel during phase one. Only used if the configuration source
+     *            declares that it supports concurrent reads via {@link ConcurrentReadCapable}. Can be null in which
+     *            case groups will always be resolved sequentially on the calling thread.
+     */
+    public TwoPhasedGroupsUpdater(Collection<ValueDefinitionGroup> valueGroups, ConfigurationSource configurationSource,
+            DeltaOperations deltaOperations, ExecutorService phaseOneExecutor) {
         this.valueGroups = valueGroups;
         this.configurationSource = configurationSource;
         this.deltaOperations = deltaOperations;
+        this.phaseOneExecutor = phaseOneExecutor;
     }
 
     /**
@@ -84,13 +111,17 @@ public class TwoPhasedGroupsUpdater {
         List<GroupChangeAction> updateActionList = new ArrayList<GroupChangeAction>(valueDefGroups.size());
         List<GroupConfigurationException> groupErrors = new ArrayList<GroupConfigurationException>();
 
-        for (ValueDefinitionGroup valueDefinitionGroup : valueDefGroups) {
-            try {
-                GroupChangeAction groupUpdateAction = deltaOperations.prepareGroupChange(valueDefinitionGroup,
-                        configurationSource);
-                updateActionList.add(groupUpdateAction);
-            } catch (GroupConfigurationException e) {
-                groupErrors.add(e);
+        if (isParallel()) {
+            prepareInParallel(valueDefGroups, updateActionList, groupErrors);
+        } else {
+            for (ValueDefinitionGroup valueDefinitionGroup : valueDefGroups) {
+                try {
+                    GroupChangeAction groupUpdateAction = deltaOperations.prepareGroupChange(valueDefinitionGroup,
+                            configurationSource);
+                    updateActionList.add(groupUpdateAction);
+                } catch (GroupConfigurationException e) {
+                    groupErrors.add(e);
+                }
             }
         }
         if (!groupErrors.isEmpty()) {
@@ -101,6 +132,60 @@ public class TwoPhasedGroupsUpdater {
         return updateActionList;
     }
 
+    /**
+     * Determine whether phase one should resolve groups in parallel. Requires both an executor and a configuration
+     * source that supports concurrent reads.
+     * 
+     * @return true if the groups should be resolved in parallel.
+     */
+    protected boolean isParallel() {
+        return phaseOneExecutor != null
+            && configurationSource instanceof ConcurrentReadCapable
+            && ((ConcurrentReadCapable) configurationSource).supportsConcurrentReads();
+    }
+
+    /**
+     * Submit each group to the executor to be prepared, collecting the results in the original group order.
+     */
+    private void prepareInParallel(Collection<ValueDefinitionGroup> valueDefGroups,
+            List<GroupChangeAction> updateActionList, List<GroupConfigurationException> groupErrors) {
+        List<Callable<GroupChangeAction>> tasks = new ArrayList<Callable<GroupChangeAction>>(valueDefGroups.size());
+        for (final ValueDefinitionGroup valueDefinitionGroup : valueDefGroups) {
+            tasks.add(new Callable<GroupChangeAction>() {
+                @Override
+                public GroupChangeAction call() {
+                    return deltaOperations.prepareGroupChange(valueDefinitionGroup, configurationSource);
+                }
+            });
+        }
+        List<Future<GroupChangeAction>> futures;
+        try {
+            futures = phaseOneExecutor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfigurationException("Interrupted while resolving values in parallel", e);
+        }
+        for (Future<GroupChangeAction> future : futures) {
+            try {
+                updateActionList.add(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof GroupConfigurationException) {
+                    groupErrors.add((GroupConfigurationException) cause);
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else {
+                    throw new ConfigurationException("Failed to resolve values in parallel", cause);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConfigurationException("Interrupted while resolving values in parallel", e);
+            }
+        }
+    }
+
     /**
      * In phase two, the actual task of writing the new values to the {@link ValueDefinition}s will take place. This is
      * the more sensitive part of the operation as an error here will potentially leave a part of the system partially
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.brekka.stillingar.core.dom;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+
+import org.brekka.stillingar.core.SourceChanges;
+import org.brekka.stillingar.core.support.PathChanges;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * The {@link SourceChanges} between two DOM trees. Elements are compared by namespace and local name, with siblings of
+ * the same name compared in document order. Where the number of siblings with a given name differs, all of them are
+ * considered changed. Expressions are matched using {@link SimplePath}, anything more complex is always considered
+ * affected. That includes steps with predicates other than a position, as the nodes a predicate tests are not part of
+ * the path being matched.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class DOMChanges extends PathChanges {
+
+    /**
+     * Used to resolve the prefixes of expressions
+     */
+    private final NamespaceContext namespaceContext;
+
+    /**
+     * @param namespaceContext
+     *            used to resolve the prefixes of expressions
+     */
+    protected DOMChanges(NamespaceContext namespaceContext) {
+        this.namespaceContext = namespaceContext;
+    }
+
+    /**
+     * Determine the changes between two DOM trees.
+     *
+     * @param previous
+     *            the previous document (or root element)
+     * @param current
+     *            the current document (or root element)
+     * @param namespaceContext
+     *            used to resolve the prefixes of the expressions that will be checked against the changes.
+     * @return the changes
+     */
+    public static DOMChanges diff(Node previous, Node current, NamespaceContext namespaceContext) {
+        DOMChanges changes = new DOMChanges(namespaceContext);
+        List<Element> previousRoot = new ArrayList<Element>(1);
+        List<Element> currentRoot = new ArrayList<Element>(1);
+        addRoot(previous, previousRoot);
+        addRoot(current, currentRoot);
+        changes.compareChildren(previousRoot, currentRoot, new ArrayList<String>());
+        return changes;
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.support.PathChanges#toSteps(java.lang.String)
+     */
+    @Override
+    protected List<Step> toSteps(String expression) {
+        SimplePath path = SimplePath.parse(expression, namespaceContext);
+        if (path == null) {
+            return null;
+        }
+        List<Step> steps = new ArrayList<Step>(path.getSteps().size());
+        for (SimplePath.Step pathStep : path.getSteps()) {
+            if (!positionalOnly(pathStep.getPredicates())) {
+                return null;
+            }
+            String marker = (pathStep.isAttribute() ? "@" : "");
+            String namespaceURI = pathStep.getNamespaceURI();
+            String localName = pathStep.getLocalName();
+            Step step;
+            if (namespaceURI == null) {
+                step = new Step(marker + "{", true, pathStep.isDescendant(), false);
+            } else if (localName == null) {
+                step = new Step(marker + "{" + namespaceURI + "}", true, pathStep.isDescendant(), false);
+            } else {
+                step = new Step(marker + "{" + namespaceURI + "}" + localName, false, pathStep.isDescendant(), false);
+            }
+            steps.add(step);
+        }
+        return steps;
+    }
+
+    /**
+     * Position predicates are safe to ignore, as siblings are compared in order and any change in their number marks
+     * every one of them changed.
+     */
+    private static boolean positionalOnly(List<String> predicates) {
+        for (String predicate : predicates) {
+            for (int i = 0; i < predicate.length(); i++) {
+                if (!Character.isDigit(predicate.charAt(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void compareElements(Element previous, Element current, List<String> path) {
+        // Attributes
+        Map<String, String> previousAttributes = attributes(previous);
+        Map<String, String> currentAttributes = attributes(current);
+        if (!previousAttributes.equals(currentAttributes)) {
+            Set<String> attributeKeys = new HashSet<String>(previousAttributes.keySet());
+            attributeKeys.addAll(currentAttributes.keySet());
+            for (String attributeKey : attributeKeys) {
+                String previousValue = previousAttributes.get(attributeKey);
+                String currentValue = currentAttributes.get(attributeKey);
+                if (previousValue == null ? currentValue != null : !previousValue.equals(currentValue)) {
+                    addChange(child(path, attributeKey), null);
+                }
+            }
+        }
+
+        // Own text
+        if (!text(previous).equals(text(current))) {
+            addChange(path, null);
+        }
+
+        compareChildren(childElements(previous), childElements(current), path);
+    }
+
+    private void compareChildren(List<Element> previous, List<Element> current, List<String> path) {
+        List<String> previousKeys = keys(previous);
+        List<String> currentKeys = keys(current);
+        if (previousKeys.equals(currentKeys)) {
+            for (int i = 0; i < previous.size(); i++) {
+                compareElements(previous.get(i), current.get(i), child(path, previousKeys.get(i)));
+            }
+            return;
+        }
+
+        // The sequence of children differs, so positional selection beneath the parent may be affected.
+        Set<String> childKeys = new HashSet<String>(previousKeys);
+        childKeys.addAll(currentKeys);
+        addChange(path, childKeys);
+
+        Map<String, List<Element>> previousByKey = byKey(previous);
+        Map<String, List<Element>> currentByKey = byKey(current);
+        Set<String> allKeys = new LinkedHashSet<String>(previousByKey.keySet());
+        allKeys.addAll(currentByKey.keySet());
+        for (String key : allKeys) {
+            List<Element> previousElements = previousByKey.get(key);
+            List<Element> currentElements = currentByKey.get(key);
+            if (previousElements != null
+                    && currentElements != null
+                    && previousElements.size() == currentElements.size()) {
+                for (int i = 0; i < previousElements.size(); i++) {
+                    compareElements(previousElements.get(i), currentElements.get(i), child(path, key));
+                }
+            } else {
+                Set<String> descendantKeys = new HashSet<String>();
+                collectDescendantKeys(previousElements, descendantKeys);
+                collectDescendantKeys(currentElements, descendantKeys);
+                addChange(child(path, key), descendantKeys);
+            }
+        }
+    }
+
+    private static void addRoot(Node node, List<Element> roots) {
+        Element root = null;
+        if (node instanceof Document) {
+            root = ((Document) node).getDocumentElement();
+        } else if (node instanceof Element) {
+            root = (Element) node;
+        }
+        if (root != null) {
+            roots.add(root);
+        }
+    }
+
+    private static void collectDescendantKeys(List<Element> elements, Set<String> descendantKeys) {
+        if (elements == null) {
+            return;
+        }
+        for (Element element : elements) {
+            descendantKeys.addAll(attributes(element).keySet());
+            List<Element> children = childElements(element);
+            for (Element child : children) {
+                descendantKeys.add(key(child));
+            }
+            collectDescendantKeys(children, descendantKeys);
+        }
+    }
+
+    private static List<String> child(List<String> path, String key) {
+        List<String> childPath = new ArrayList<String>(path.size() + 1);
+        childPath.addAll(path);
+        childPath.add(key);
+        return childPath;
+    }
+
+    private static Map<String, String> attributes(Element element) {
+        NamedNodeMap attributes = element.getAttributes();
+        Map<String, String> values = new HashMap<String, String>();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attr = (Attr) attributes.item(i);
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI())
+                    || XMLConstants.XMLNS_ATTRIBUTE.equals(attr.getName())
+                    || attr.getName().startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":")) {
+                // Namespace declarations are not values
+                continue;
+            }
+            values.put("@" + key(attr), attr.getValue());
+        }
+        return values;
+    }
+
+    private static String text(Element element) {
+        StringBuilder sb = new StringBuilder();
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() == Node.TEXT_NODE
+                    || node.getNodeType() == Node.CDATA_SECTION_NODE) {
+                sb.append(node.getNodeValue());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Navigates siblings rather than using {@link Element#getChildNodes()}, as some DOM implementations maintain a
+     * shared cache behind {@link NodeList} that is not safe to use while the previous document may still be read.
+     */
+    private static List<Element> childElements(Element element) {
+        List<Element> elements = new ArrayList<Element>();
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                elements.add((Element) node);
+            }
+        }
+        return elements;
+    }
+
+    private static List<String> keys(List<Element> elements) {
+        List<String> keys = new ArrayList<String>(elements.size());
+        for (Element element : elements) {
+            keys.add(key(element));
+        }
+        return keys;
+    }
+
+    private static Map<String, List<Element>> byKey(List<Element> elements) {
+        Map<String, List<Element>> byKey = new LinkedHashMap<String, List<Element>>();
+        for (Element element : elements) {
+            String key = key(element);
+            List<Element> list = byKey.get(key);
+            if (list == null) {
+                list = new ArrayList<Element>();
+                byKey.put(key, list);
+            }
+            list.add(element);
+        }
+        return byKey;
+    }
+
+    private static String key(Node node) {
+        String namespaceURI = node.getNamespaceURI();
+        String localName = node.getLocalName();
+        if (localName == null) {
+            localName = node.getNodeName();
+        }
+        return "{" + (namespaceURI != null ? namespaceURI : XMLConstants.NULL_NS_URI) + "}" + localName;
+    }
+}
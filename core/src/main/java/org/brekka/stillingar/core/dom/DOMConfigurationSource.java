@@ -20,18 +20,23 @@ import static java.lang.String.format;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
+import org.brekka.stillingar.api.ConcurrentReadCapable;
 import org.brekka.stillingar.api.ConfigurationSource;
 import org.brekka.stillingar.api.ValueConfigurationException;
+import org.brekka.stillingar.api.ValueLookup;
+import org.brekka.stillingar.core.DiffableConfigurationSource;
+import org.brekka.stillingar.core.PrimitiveValueLocator;
+import org.brekka.stillingar.core.SourceChanges;
 import org.brekka.stillingar.core.conversion.ConversionManager;
+import org.brekka.stillingar.core.support.ConvertedValueCache;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -41,7 +46,13 @@ import org.w3c.dom.NodeList;
  * 
  * @author Andrew Taylor (andrew@brekka.org)
  */
-public class DOMConfigurationSource implements ConfigurationSource {
+public class DOMConfigurationSource implements DiffableConfigurationSource, ValueLookup, PrimitiveValueLocator,
+        ConcurrentReadCapable {
+
+    /**
+     * The maximum number of expressions for which the text located for a primitive is remembered.
+     */
+    private static final int MAX_PRIMITIVE_EXPRESSIONS = 1024;
 
     /**
      * The document from which configuration values will be resolved.
@@ -58,14 +69,73 @@ public class DOMConfigurationSource implements ConfigurationSource {
      */
     private final NamespaceContext xPathNamespaceContext;
     
+    /**
+     * Compiled XPath expressions, normally shared with other sources from the same loader.
+     */
+    private final XPathExpressionCache xPathExpressionCache;
+    
+    /**
+     * Values already converted from this document, which never changes.
+     */
+    private final ConvertedValueCache convertedValueCache = new ConvertedValueCache();
+    
+    /**
+     * Index of the text selected by simple paths (can be null).
+     */
+    private final SimplePathIndex simplePathIndex;
+    
+    /**
+     * The text located for each expression converted to a primitive, or {@link #NOT_FOUND}.
+     */
+    private final ConcurrentMap<String, Object> primitiveTexts = new ConcurrentHashMap<String, Object>();
+    
     /**
      * @param document
      *            The document from which configuration values will be resolved.
      */
     public DOMConfigurationSource(Document document, NamespaceContext xPathNamespaceContext, ConversionManager conversionManager) {
+        this(document, xPathNamespaceContext, conversionManager, new XPathExpressionCache());
+    }
+    
+    /**
+     * @param document
+     *            The document from which configuration values will be resolved.
+     * @param xPathNamespaceContext
+     *            Namespace context to use in XPath operations (can be null).
+     * @param conversionManager
+     *            The conversion manager
+     * @param xPathExpressionCache
+     *            Cache of compiled XPath expressions.
+     */
+    public DOMConfigurationSource(Document document, NamespaceContext xPathNamespaceContext, 
+            ConversionManager conversionManager, XPathExpressionCache xPathExpressionCache) {
+        this(document, xPathNamespaceContext, conversionManager, xPathExpressionCache, null);
+    }
+    
+    /**
+     * @param document
+     *            The document from which configuration values will be resolved.
+     * @param xPathNamespaceContext
+     *            Namespace context to use in XPath operations (can be null).
+     * @param conversionManager
+     *            The conversion manager
+     * @param xPathExpressionCache
+     *            Cache of compiled XPath expressions.
+     * @param simplePathIndex
+     *            Index of the text selected by simple paths within the document, used in preference to XPath where
+     *            possible (can be null).
+     */
+    public DOMConfigurationSource(Document document, NamespaceContext xPathNamespaceContext, 
+            ConversionManager conversionManager, XPathExpressionCache xPathExpressionCache, 
+            SimplePathIndex simplePathIndex) {
         this.document = document;
+        this.simplePathIndex = simplePathIndex;
         this.conversionManager = conversionManager;
         this.xPathNamespaceContext = xPathNamespaceContext;
+        this.xPathExpressionCache = xPathExpressionCache;
+        if (xPathExpressionCache == null) {
+            throw new IllegalArgumentException("null passed for xPathExpressionCache");
+        }
     }
 
     /*
@@ -75,6 +145,10 @@ public class DOMConfigurationSource implements ConfigurationSource {
      */
     @Override
     public boolean isAvailable(String expression) {
+        List<String> texts = indexedText(expression, String.class);
+        if (texts != null) {
+            return !texts.isEmpty();
+        }
         NodeList nodeList = doXPathList(expression, null);
         return nodeList.getLength() > 0;
     }
@@ -85,21 +159,30 @@ public class DOMConfigurationSource implements ConfigurationSource {
      * @see org.brekka.stillingar.core.ConfigurationSource#retrieve(java.lang.String, java.lang.Class)
      */
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T retrieve(String expression, Class<T> valueType) {
-        T retVal;
-        NodeList results = doXPathList(expression, valueType);
-        if (results.getLength() == 1) {
-            Node node = results.item(0);
-            retVal = toObject(node, valueType, expression);
-        } else if (results.getLength() == 0) {
-            throw new ValueConfigurationException(
-                    "No value found matching expression", valueType, expression);
+        Object cached = convertedValueCache.get(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return (T) cached;
+        }
+        T value;
+        List<String> texts = indexedText(expression, valueType);
+        if (texts != null) {
+            if (texts.isEmpty()) {
+                throw new ValueConfigurationException(
+                        "No value found matching expression", valueType, expression);
+            }
+            value = resolveSingleText(texts, valueType, expression);
         } else {
-            throw new ValueConfigurationException(format(
-                    "Expected single result for this expression, found %d", results.getLength()), 
-                    valueType, expression);
+            NodeList results = doXPathList(expression, valueType);
+            if (results.getLength() == 0) {
+                throw new ValueConfigurationException(
+                        "No value found matching expression", valueType, expression);
+            }
+            value = resolveSingle(results, valueType, expression);
         }
-        return retVal;
+        convertedValueCache.put(expression, valueType, value);
+        return value;
     }
 
     /*
@@ -108,15 +191,176 @@ public class DOMConfigurationSource implements ConfigurationSource {
      * @see org.brekka.stillingar.core.ConfigurationSource#retrieveList(java.lang.String, java.lang.Class)
      */
     @Override
+    @SuppressWarnings("unchecked")
     public <T> List<T> retrieveList(String expression, Class<T> valueType) {
-        NodeList nodeList = doXPathList(expression, valueType);
-        List<T> retVal = new ArrayList<T>(nodeList.getLength());
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Node node = nodeList.item(i);
-            T value = toObject(node, valueType, expression);
-            retVal.add(value);
+        Object cached = convertedValueCache.getList(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return (List<T>) cached;
+        }
+        List<T> values;
+        List<String> texts = indexedText(expression, valueType);
+        if (texts != null) {
+            values = resolveTextList(texts, valueType, expression);
+        } else {
+            NodeList nodeList = doXPathList(expression, valueType);
+            values = resolveList(nodeList, valueType, expression);
+        }
+        convertedValueCache.putList(expression, valueType, values);
+        return values;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.ValueLookup#lookup(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookup(String expression, Class<?> valueType) {
+        Object cached = convertedValueCache.get(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return cached;
+        }
+        Object value;
+        List<String> texts = indexedText(expression, valueType);
+        if (texts != null) {
+            if (texts.isEmpty()) {
+                return NOT_FOUND;
+            }
+            value = resolveSingleText(texts, valueType, expression);
+        } else {
+            NodeList results = doXPathList(expression, valueType);
+            if (results.getLength() == 0) {
+                return NOT_FOUND;
+            }
+            value = resolveSingle(results, valueType, expression);
+        }
+        convertedValueCache.put(expression, valueType, value);
+        return value;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.ValueLookup#lookupList(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookupList(String expression, Class<?> valueType) {
+        Object cached = convertedValueCache.getList(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return cached;
+        }
+        List<?> values;
+        List<String> texts = indexedText(expression, valueType);
+        if (texts != null) {
+            if (texts.isEmpty()) {
+                return NOT_FOUND;
+            }
+            values = resolveTextList(texts, valueType, expression);
+        } else {
+            NodeList results = doXPathList(expression, valueType);
+            if (results.getLength() == 0) {
+                return NOT_FOUND;
+            }
+            values = resolveList(results, valueType, expression);
+        }
+        convertedValueCache.putList(expression, valueType, values);
+        return values;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveInt(java.lang.String)
+     */
+    @Override
+    public int retrieveInt(String expression) {
+        return toInt(requirePrimitive(expression, Integer.TYPE), expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toInt(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public int toInt(Object value, String expression) {
+        try {
+            return conversionManager.convertToInt(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Type conversion", Integer.TYPE, expression, e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveLong(java.lang.String)
+     */
+    @Override
+    public long retrieveLong(String expression) {
+        return toLong(requirePrimitive(expression, Long.TYPE), expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toLong(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public long toLong(Object value, String expression) {
+        try {
+            return conversionManager.convertToLong(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Type conversion", Long.TYPE, expression, e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveDouble(java.lang.String)
+     */
+    @Override
+    public double retrieveDouble(String expression) {
+        return toDouble(requirePrimitive(expression, Double.TYPE), expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toDouble(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public double toDouble(Object value, String expression) {
+        try {
+            return conversionManager.convertToDouble(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Type conversion", Double.TYPE, expression, e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveBoolean(java.lang.String)
+     */
+    @Override
+    public boolean retrieveBoolean(String expression) {
+        return toBoolean(requirePrimitive(expression, Boolean.TYPE), expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toBoolean(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public boolean toBoolean(Object value, String expression) {
+        try {
+            return conversionManager.convertToBoolean(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Type conversion", Boolean.TYPE, expression, e);
         }
-        return retVal;
     }
 
     /*
@@ -154,6 +398,37 @@ public class DOMConfigurationSource implements ConfigurationSource {
                 "An expression must be specified when using DOM", null, null);
     }
     
+    /**
+     * DOM implementations are not required to be thread-safe, even for read operations (Xerces for example caches
+     * node list positions and defers node expansion), so concurrent reads are not supported. This also applies to
+     * subclasses such as the JAXB source, which resolve their values via the document. As a result the parallel
+     * phase one of a refresh (see {@link org.brekka.stillingar.core.delta.TwoPhasedGroupsUpdater}) is not used for
+     * these sources, their groups being resolved sequentially on the refreshing thread instead.
+     */
+    @Override
+    public boolean supportsConcurrentReads() {
+        return false;
+    }
+    
+    /**
+     * Compares the documents of the two sources, provided <code>previous</code> is also DOM based.
+     */
+    @Override
+    public SourceChanges diff(ConfigurationSource previous) {
+        if (!(previous instanceof DOMConfigurationSource)) {
+            return null;
+        }
+        DOMConfigurationSource previousSource = (DOMConfigurationSource) previous;
+        return DOMChanges.diff(previousSource.getComparisonDocument(), getComparisonDocument(), xPathNamespaceContext);
+    }
+    
+    /**
+     * @return the cache of values converted from this source, for inspecting hit and miss counts.
+     */
+    public ConvertedValueCache getConvertedValueCache() {
+        return convertedValueCache;
+    }
+
     protected NodeList doXPathList(String expression, Class<?> returnType) {
         NodeList retVal;
         Object result = doXPath(expression, XPathConstants.NODESET, returnType);
@@ -169,14 +444,12 @@ public class DOMConfigurationSource implements ConfigurationSource {
 
     protected Object doXPath(String expression, QName returnQName, Class<?> returnType) {
         Object retVal;
-        XPathFactory xFactory = XPathFactory.newInstance();
-        XPath xpath = xFactory.newXPath();
+        NamespaceContext namespaceContext = null;
         if (useNamespacesForXPath(xPathNamespaceContext)) {
-            xpath.setNamespaceContext(xPathNamespaceContext);
+            namespaceContext = xPathNamespaceContext;
         }
         try {
-            XPathExpression expr = xpath.compile(expression);
-            retVal = expr.evaluate(document, returnQName);
+            retVal = xPathExpressionCache.evaluate(expression, namespaceContext, getDocument(), returnQName);
         } catch (XPathExpressionException e) {
             throw new ValueConfigurationException(
                     "Not a vaild XPath expression",  returnType, expression, e);
@@ -184,6 +457,219 @@ public class DOMConfigurationSource implements ConfigurationSource {
         return retVal;
     }
     
+    /**
+     * Convert the result of an expression that should identify a single value.
+     * 
+     * @param results
+     *            the nodes resolved by the expression (at least one)
+     * @param valueType
+     *            the type to convert to
+     * @param expression
+     *            the expression that produced the results
+     * @return the converted value
+     */
+    protected <T> T resolveSingle(NodeList results, Class<T> valueType, String expression) {
+        if (valueType.isArray()
+                && results.getLength() > 1) {
+            return resolveArray(results, valueType, expression);
+        }
+        checkSingle(results.getLength(), valueType, expression);
+        Node node = results.item(0);
+        return toObject(node, valueType, expression);
+    }
+    
+    /**
+     * Convert the text of each of the nodes resolved by an expression into the elements of an array.
+     * 
+     * @param results
+     *            the nodes resolved by the expression
+     * @param arrayType
+     *            the array type to convert to
+     * @param expression
+     *            the expression that produced the results
+     * @return the array
+     */
+    protected <T> T resolveArray(NodeList results, Class<T> arrayType, String expression) {
+        List<String> texts = new ArrayList<String>(results.getLength());
+        for (int i = 0; i < results.getLength(); i++) {
+            texts.add(results.item(i).getTextContent());
+        }
+        return resolveArray(texts, arrayType, expression);
+    }
+    
+    /**
+     * Convert the texts selected by an expression into the elements of an array.
+     * 
+     * @param texts
+     *            the text of each node resolved by the expression
+     * @param arrayType
+     *            the array type to convert to
+     * @param expression
+     *            the expression that produced the results
+     * @return the array
+     */
+    protected <T> T resolveArray(List<String> texts, Class<T> arrayType, String expression) {
+        if (!conversionManager.hasConverter(arrayType)) {
+            throw new ValueConfigurationException("No conversion available for repeated nodes", arrayType, expression);
+        }
+        try {
+            return conversionManager.convert(texts, arrayType);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Type conversion", arrayType, expression, e);
+        }
+    }
+    
+    /**
+     * Locate the text content of the single node identified by <code>expression</code>, which is to be converted to a
+     * primitive. As the document never changes, the text found for each expression is remembered so that repeated
+     * reads neither evaluate the expression nor build a node list.
+     * 
+     * @param expression
+     *            the expression identifying the node
+     * @param primitiveType
+     *            the primitive type the value will be converted to
+     * @return the text content of the node, or {@link #NOT_FOUND}.
+     */
+    @Override
+    public Object locatePrimitive(String expression, Class<?> primitiveType) {
+        Object text = primitiveTexts.get(expression);
+        if (text == null) {
+            text = findPrimitiveText(expression, primitiveType);
+            if (primitiveTexts.size() < MAX_PRIMITIVE_EXPRESSIONS) {
+                primitiveTexts.putIfAbsent(expression, text);
+            }
+        }
+        return text;
+    }
+    
+    /**
+     * Locate the text content of the single node identified by <code>expression</code>, which must exist.
+     */
+    private Object requirePrimitive(String expression, Class<?> primitiveType) {
+        Object text = locatePrimitive(expression, primitiveType);
+        if (text == NOT_FOUND) {
+            throw new ValueConfigurationException(
+                    "No value found matching expression", primitiveType, expression);
+        }
+        return text;
+    }
+    
+    private Object findPrimitiveText(String expression, Class<?> primitiveType) {
+        List<String> texts = indexedText(expression, primitiveType);
+        if (texts != null) {
+            if (texts.isEmpty()) {
+                return NOT_FOUND;
+            }
+            checkSingle(texts.size(), primitiveType, expression);
+            return texts.get(0);
+        }
+        NodeList results = doXPathList(expression, primitiveType);
+        if (results.getLength() == 0) {
+            return NOT_FOUND;
+        }
+        checkSingle(results.getLength(), primitiveType, expression);
+        return results.item(0).getTextContent();
+    }
+    
+    private static void checkSingle(int count, Class<?> valueType, String expression) {
+        if (count != 1) {
+            throw new ValueConfigurationException(format(
+                    "Expected single result for this expression, found %d", count), 
+                    valueType, expression);
+        }
+    }
+    
+    /**
+     * Convert the texts selected by an expression that should identify a single value.
+     * 
+     * @param texts
+     *            the text of each node resolved by the expression (at least one)
+     * @param valueType
+     *            the type to convert to
+     * @param expression
+     *            the expression that produced the results
+     * @return the converted value
+     */
+    protected <T> T resolveSingleText(List<String> texts, Class<T> valueType, String expression) {
+        if (valueType.isArray()
+                && texts.size() > 1) {
+            return resolveArray(texts, valueType, expression);
+        }
+        checkSingle(texts.size(), valueType, expression);
+        return textToObject(texts.get(0), valueType, expression);
+    }
+    
+    /**
+     * Convert each of the texts selected by an expression.
+     * 
+     * @param texts
+     *            the text of each node resolved by the expression
+     * @param valueType
+     *            the type to convert each text to
+     * @param expression
+     *            the expression that produced the results
+     * @return the list of converted values
+     */
+    protected <T> List<T> resolveTextList(List<String> texts, Class<T> valueType, String expression) {
+        List<T> retVal = new ArrayList<T>(texts.size());
+        for (String text : texts) {
+            retVal.add(textToObject(text, valueType, expression));
+        }
+        return retVal;
+    }
+    
+    /**
+     * Determine whether values of the specified type can be resolved from the text held by the
+     * {@link SimplePathIndex}, rather than requiring the nodes themselves.
+     * 
+     * @param valueType
+     *            the type being resolved
+     * @return true if the text of the node is all that is needed.
+     */
+    protected boolean isIndexable(Class<?> valueType) {
+        return valueType != Object.class
+                && !Node.class.isAssignableFrom(valueType);
+    }
+    
+    /**
+     * Resolve the texts selected by <code>expression</code> from the index, where possible. Subclasses holding another
+     * representation of the document may answer from that instead.
+     * 
+     * @param expression
+     *            the expression
+     * @param valueType
+     *            the type the texts will be converted to
+     * @return the texts or null if the expression must be evaluated against the document.
+     */
+    protected List<String> indexedText(String expression, Class<?> valueType) {
+        if (simplePathIndex == null
+                || !isIndexable(valueType)) {
+            return null;
+        }
+        return simplePathIndex.lookup(expression);
+    }
+    
+    /**
+     * Convert each of the nodes resolved by an expression.
+     * 
+     * @param nodeList
+     *            the nodes resolved by the expression
+     * @param valueType
+     *            the type to convert each node to
+     * @param expression
+     *            the expression that produced the results
+     * @return the list of converted values
+     */
+    protected <T> List<T> resolveList(NodeList nodeList, Class<T> valueType, String expression) {
+        List<T> retVal = new ArrayList<T>(nodeList.getLength());
+        for (int i = 0; i < nodeList.getLength(); i++) {
+            Node node = nodeList.item(i);
+            T value = toObject(node, valueType, expression);
+            retVal.add(value);
+        }
+        return retVal;
+    }
+    
     /**
      * Determine whether the xPathNamespaceContext should be assigned to the xpath.
      * 
@@ -207,12 +693,22 @@ public class DOMConfigurationSource implements ConfigurationSource {
             // Not expecting anything in particular
             return (T) node;
         } 
-        T retVal;
-        Object value = node;
         if (!Node.class.isAssignableFrom(valueType)) {
             // Non-node, extract text content
-            value = node.getTextContent();
+            return textToObject(node.getTextContent(), valueType, expression);
         }
+        return convertValue(node, valueType, expression);
+    }
+    
+    /**
+     * Convert the text content of a node to the specified type.
+     */
+    private <T> T textToObject(String text, Class<T> valueType, String expression) {
+        return convertValue(text, valueType, expression);
+    }
+    
+    private <T> T convertValue(Object value, Class<T> valueType, String expression) {
+        T retVal;
         if (conversionManager.hasConverter(valueType)) {
             retVal = conversionManager.convert(value, valueType);
         } else {
@@ -229,4 +725,32 @@ public class DOMConfigurationSource implements ConfigurationSource {
     protected final ConversionManager getConversionManager() {
         return conversionManager;
     }
+    
+    /**
+     * @return the xPathExpressionCache
+     */
+    protected final XPathExpressionCache getXPathExpressionCache() {
+        return xPathExpressionCache;
+    }
+    
+    /**
+     * @return the context used to resolve the prefixes used within expressions.
+     */
+    protected final NamespaceContext getXPathNamespaceContext() {
+        return xPathNamespaceContext;
+    }
+    
+    /**
+     * @return the document from which configuration values will be resolved.
+     */
+    protected Document getDocument() {
+        return document;
+    }
+    
+    /**
+     * @return the document to compare when determining the changes between two sources (see {@link #diff}).
+     */
+    protected Document getComparisonDocument() {
+        return getDocument();
+    }
 }
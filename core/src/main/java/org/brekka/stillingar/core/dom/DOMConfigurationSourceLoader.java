@@ -8,8 +8,6 @@ import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.brekka.stillingar.api.ConfigurationException;
@@ -18,17 +16,23 @@ import org.brekka.stillingar.api.ConfigurationSourceLoader;
 import org.brekka.stillingar.core.conversion.BigDecimalConverter;
 import org.brekka.stillingar.core.conversion.BigIntegerConverter;
 import org.brekka.stillingar.core.conversion.BooleanConverter;
+import org.brekka.stillingar.core.conversion.ByteBufferConverter;
 import org.brekka.stillingar.core.conversion.ByteConverter;
 import org.brekka.stillingar.core.conversion.CalendarConverter;
 import org.brekka.stillingar.core.conversion.ConversionManager;
 import org.brekka.stillingar.core.conversion.DateConverter;
+import org.brekka.stillingar.core.conversion.DefaultConverters;
+import org.brekka.stillingar.core.conversion.DoubleArrayConverter;
 import org.brekka.stillingar.core.conversion.DoubleConverter;
 import org.brekka.stillingar.core.conversion.EnumConverter;
 import org.brekka.stillingar.core.conversion.FloatConverter;
+import org.brekka.stillingar.core.conversion.IntArrayConverter;
 import org.brekka.stillingar.core.conversion.IntegerConverter;
 import org.brekka.stillingar.core.conversion.LocaleConverter;
+import org.brekka.stillingar.core.conversion.LongArrayConverter;
 import org.brekka.stillingar.core.conversion.LongConverter;
 import org.brekka.stillingar.core.conversion.ShortConverter;
+import org.brekka.stillingar.core.conversion.StringArrayConverter;
 import org.brekka.stillingar.core.conversion.StringConverter;
 import org.brekka.stillingar.core.conversion.TemporalAdapter;
 import org.brekka.stillingar.core.conversion.TypeConverter;
@@ -46,6 +50,16 @@ import org.xml.sax.SAXException;
  * @author Andrew Taylor (andrew@brekka.org)
  */
 public class DOMConfigurationSourceLoader implements ConfigurationSourceLoader {
+    
+    /**
+     * The default converters, prepared (and discovered) on first use.
+     */
+    private static final DefaultConverters DEFAULT_CONVERTERS = new DefaultConverters() {
+        @Override
+        protected List<TypeConverter<?>> prepare() {
+            return prepareConverters(new TemporalAdapter());
+        }
+    };
 
     /**
      * The conversion manager
@@ -57,6 +71,26 @@ public class DOMConfigurationSourceLoader implements ConfigurationSourceLoader {
      */
     private final DefaultNamespaceContext xPathNamespaceContext;
     
+    /**
+     * Compiled XPath expressions, shared by all sources produced by this loader.
+     */
+    private final XPathExpressionCache xPathExpressionCache = new XPathExpressionCache();
+    
+    /**
+     * Builders used when namespaces have been registered with the namespace context.
+     */
+    private final DocumentBuilderPool namespaceAwareBuilders = new DocumentBuilderPool(true);
+    
+    /**
+     * Builders used when no namespaces have been registered.
+     */
+    private final DocumentBuilderPool plainBuilders = new DocumentBuilderPool(false);
+    
+    /**
+     * Whether each document should be indexed by simple path when loaded (see {@link SimplePathIndex}).
+     */
+    private boolean indexSimplePaths = false;
+    
     /**
      * 
      */
@@ -68,7 +102,7 @@ public class DOMConfigurationSourceLoader implements ConfigurationSourceLoader {
      * @param xPathNamespaceContext
      */
     public DOMConfigurationSourceLoader(DefaultNamespaceContext xPathNamespaceContext) {
-        this(new ConversionManager(prepareConverters(new TemporalAdapter())), xPathNamespaceContext);
+        this(DEFAULT_CONVERTERS.newConversionManager(), xPathNamespaceContext);
     }
     
     /**
@@ -92,20 +126,44 @@ public class DOMConfigurationSourceLoader implements ConfigurationSourceLoader {
     @Override
     public ConfigurationSource parse(InputStream sourceStream, Charset encoding) throws ConfigurationException,
             IOException {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        DocumentBuilderPool documentBuilders = plainBuilders;
         if (xPathNamespaceContext.hasNamespaces()) {
-            documentBuilderFactory.setNamespaceAware(true);
+            documentBuilders = namespaceAwareBuilders;
         }
         Document document;
         try {
-            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-            document = documentBuilder.parse(sourceStream);
+            document = documentBuilders.parse(sourceStream);
         } catch (ParserConfigurationException e) {
             throw new ConfigurationException("Parsing DOM XML", e);
         } catch (SAXException e) {
             throw new ConfigurationException("DOM XML", e);
         }
-        return new DOMConfigurationSource(document, xPathNamespaceContext, conversionManager);
+        SimplePathIndex simplePathIndex = null;
+        if (indexSimplePaths) {
+            simplePathIndex = SimplePathIndex.build(document, xPathNamespaceContext);
+        }
+        return new DOMConfigurationSource(document, xPathNamespaceContext, conversionManager, xPathExpressionCache, 
+                simplePathIndex);
+    }
+    
+    /**
+     * Index the text of each loaded document by simple path, so that expressions consisting only of child steps are
+     * resolved without XPath. Off by default.
+     * 
+     * @param indexSimplePaths
+     *            true to index each document when it is loaded.
+     */
+    public void setIndexSimplePaths(boolean indexSimplePaths) {
+        this.indexSimplePaths = indexSimplePaths;
+    }
+    
+    /**
+     * The default converters, prepared (and discovered) once on first use and shared by all loaders relying on them.
+     * 
+     * @return the unmodifiable list of default converters.
+     */
+    public static List<TypeConverter<?>> defaultConverters() {
+        return DEFAULT_CONVERTERS.getConverters();
     }
     
     public static List<TypeConverter<?>> prepareConverters(TemporalAdapter temporalAdapter) {
@@ -116,12 +174,21 @@ public class DOMConfigurationSourceLoader implements ConfigurationSourceLoader {
                 new ShortConverter(), new StringConverter(), new URIConverter(), new ElementConverter(), 
                 new DocumentConverter(), new LocaleConverter(), new UUIDConverter(), new EnumConverter(),
                 new ElementConverter(), new DocumentConverter(), 
+                new IntArrayConverter(), new LongArrayConverter(), new DoubleArrayConverter(), new StringArrayConverter(),
+                new ByteBufferConverter(),
                 new CalendarConverter(temporalAdapter), new DateConverter(temporalAdapter))
             .inPackage("org.brekka.stillingar.core.conversion")
                 .addOptionalClass("DateTimeConverter", temporalAdapter)
                 .addOptionalClass("LocalTimeConverter", temporalAdapter)
                 .addOptionalClass("LocalDateConverter", temporalAdapter)
                 .addOptionalClass("PeriodConverter")
+                .addOptionalClass("time.InstantConverter", temporalAdapter)
+                .addOptionalClass("time.DurationConverter", temporalAdapter)
+                .addOptionalClass("time.LocalDateConverter", temporalAdapter)
+                .addOptionalClass("time.LocalTimeConverter", temporalAdapter)
+                .addOptionalClass("time.LocalDateTimeConverter", temporalAdapter)
+                .addOptionalClass("time.OffsetDateTimeConverter", temporalAdapter)
+                .addOptionalClass("time.ZonedDateTimeConverter", temporalAdapter)
             .done()
             .toList();
     }
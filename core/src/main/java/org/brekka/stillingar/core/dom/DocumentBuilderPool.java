@@ -0,0 +1,171 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.dom;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Retains a configured {@link DocumentBuilderFactory} along with a small pool of {@link DocumentBuilder} instances, so
+ * that neither the factory lookup (which scans the classpath) nor the builder creation need to be repeated for every
+ * document parsed. As builders are not thread-safe, each is borrowed for the duration of a single parse and reset
+ * before being returned to the pool.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class DocumentBuilderPool {
+
+    /**
+     * The default maximum number of idle builders retained.
+     */
+    public static final int DEFAULT_MAX_IDLE = 4;
+
+    /**
+     * Whether the builders should be namespace aware.
+     */
+    private final boolean namespaceAware;
+
+    /**
+     * Once this many builders are idle, further builders will be discarded after use.
+     */
+    private final int maxIdle;
+
+    /**
+     * The idle builders
+     */
+    private final Queue<DocumentBuilder> idle = new ConcurrentLinkedQueue<DocumentBuilder>();
+
+    /**
+     * The number of idle builders (the queue size is not constant time).
+     */
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * Created on first use. Factories are not thread-safe so access is synchronized on this pool.
+     */
+    private DocumentBuilderFactory factory;
+
+    /**
+     * @param namespaceAware
+     *            whether the builders should be namespace aware.
+     */
+    public DocumentBuilderPool(boolean namespaceAware) {
+        this(namespaceAware, DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * @param namespaceAware
+     *            whether the builders should be namespace aware.
+     * @param maxIdle
+     *            the maximum number of idle builders to retain.
+     */
+    public DocumentBuilderPool(boolean namespaceAware, int maxIdle) {
+        this.namespaceAware = namespaceAware;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Parse the stream using a pooled builder.
+     * 
+     * @param sourceStream
+     *            the stream containing the XML document
+     * @return the document
+     * @throws ParserConfigurationException
+     *             if a builder could not be created
+     * @throws SAXException
+     *             if the document is not well formed
+     * @throws IOException
+     *             if the stream cannot be read
+     */
+    public Document parse(InputStream sourceStream) throws ParserConfigurationException, SAXException, IOException {
+        DocumentBuilder documentBuilder = idle.poll();
+        if (documentBuilder == null) {
+            documentBuilder = newDocumentBuilder();
+        } else {
+            idleCount.decrementAndGet();
+        }
+        try {
+            return documentBuilder.parse(sourceStream);
+        } finally {
+            release(documentBuilder);
+        }
+    }
+
+    /**
+     * Create a new, empty document using a pooled builder.
+     * 
+     * @return the document
+     * @throws ParserConfigurationException
+     *             if a builder could not be created
+     */
+    public Document newDocument() throws ParserConfigurationException {
+        DocumentBuilder documentBuilder = idle.poll();
+        if (documentBuilder == null) {
+            documentBuilder = newDocumentBuilder();
+        } else {
+            idleCount.decrementAndGet();
+        }
+        try {
+            return documentBuilder.newDocument();
+        } finally {
+            release(documentBuilder);
+        }
+    }
+
+    /**
+     * @return whether the builders are namespace aware.
+     */
+    public boolean isNamespaceAware() {
+        return namespaceAware;
+    }
+
+    /**
+     * Create a new builder, creating the factory first if necessary.
+     */
+    protected synchronized DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        if (factory == null) {
+            DocumentBuilderFactory newFactory = DocumentBuilderFactory.newInstance();
+            newFactory.setNamespaceAware(namespaceAware);
+            factory = newFactory;
+        }
+        return factory.newDocumentBuilder();
+    }
+
+    private void release(DocumentBuilder documentBuilder) {
+        try {
+            documentBuilder.reset();
+        } catch (UnsupportedOperationException e) {
+            // Cannot be reused
+            return;
+        }
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(documentBuilder);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.brekka.stillingar.core.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+
+/**
+ * A parsed form of the subset of XPath that consists only of child and descendant steps over named elements and
+ * attributes, optionally ending in <code>text()</code>. Predicates are retained as text, but only those that refer to
+ * the node selected by their own step (attributes, children, text or position) are accepted. Anything more complex
+ * (functions, unions, other axes, variables) is rejected by {@link #parse(String, NamespaceContext)}, in which case the
+ * expression should be evaluated by a full XPath engine.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public final class SimplePath {
+
+    /**
+     * The steps that make up the path, in document order.
+     */
+    private final List<Step> steps;
+
+    /**
+     * Whether the path ends with <code>text()</code>.
+     */
+    private final boolean text;
+
+    private SimplePath(List<Step> steps, boolean text) {
+        this.steps = Collections.unmodifiableList(steps);
+        this.text = text;
+    }
+
+    /**
+     * @return the steps that make up the path, in document order.
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return true if the path ends with <code>text()</code>.
+     */
+    public boolean isText() {
+        return text;
+    }
+
+    /**
+     * Parse the expression. Relative expressions are treated as relative to the document node.
+     *
+     * @param expression
+     *            the XPath expression
+     * @param namespaceContext
+     *            used to resolve the prefixes used within the expression.
+     * @return the path or null if the expression is not a simple path.
+     */
+    public static SimplePath parse(String expression, NamespaceContext namespaceContext) {
+        if (expression == null) {
+            return null;
+        }
+        String path = expression.trim();
+        if (path.isEmpty()) {
+            return null;
+        }
+        List<Step> steps = new ArrayList<Step>();
+        boolean text = false;
+        int len = path.length();
+        int pos = 0;
+        if (path.charAt(0) == '/') {
+            pos = 1;
+        }
+        boolean descendant = false;
+        if (pos == 1 && len > 1 && path.charAt(1) == '/') {
+            descendant = true;
+            pos = 2;
+        }
+        while (pos < len) {
+            if (text) {
+                // text() must be the last step
+                return null;
+            }
+            int end = endOfStep(path, pos);
+            if (end < 0) {
+                return null;
+            }
+            String stepText = path.substring(pos, end);
+            int predicateStart = stepText.indexOf('[');
+            String nodeTest = (predicateStart < 0 ? stepText : stepText.substring(0, predicateStart));
+            List<String> predicates = Collections.emptyList();
+            if (predicateStart >= 0) {
+                predicates = parsePredicates(stepText.substring(predicateStart));
+                if (predicates == null) {
+                    return null;
+                }
+            }
+            if (nodeTest.equals("text()")) {
+                if (descendant || !predicates.isEmpty()) {
+                    return null;
+                }
+                text = true;
+            } else if (nodeTest.equals(".")) {
+                if (descendant || !predicates.isEmpty()) {
+                    return null;
+                }
+            } else {
+                Step step = parseStep(nodeTest, descendant, predicates, namespaceContext);
+                if (step == null) {
+                    return null;
+                }
+                steps.add(step);
+            }
+            descendant = false;
+            pos = end;
+            if (pos < len) {
+                // Must be a separator
+                pos++;
+                if (pos < len && path.charAt(pos) == '/') {
+                    descendant = true;
+                    pos++;
+                }
+                if (pos == len) {
+                    // Trailing separator
+                    return null;
+                }
+            }
+        }
+        if (steps.isEmpty()) {
+            return null;
+        }
+        return new SimplePath(steps, text);
+    }
+
+    /**
+     * Find the end of the step starting at <code>start</code>, skipping over predicates.
+     *
+     * @return the index of the next separator (or the end of the path), or -1 if the brackets/quotes do not balance.
+     */
+    private static int endOfStep(String path, int start) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = start; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+                if (depth < 0) {
+                    return -1;
+                }
+            } else if (c == '/' && depth == 0) {
+                return i;
+            }
+        }
+        if (depth != 0 || quote != 0) {
+            return -1;
+        }
+        return path.length();
+    }
+
+    /**
+     * Split the predicates, rejecting any that may refer to nodes outside the subtree of the step they apply to.
+     */
+    private static List<String> parsePredicates(String text) {
+        List<String> predicates = new ArrayList<String>();
+        int pos = 0;
+        while (pos < text.length()) {
+            if (text.charAt(pos) != '[') {
+                return null;
+            }
+            int depth = 0;
+            char quote = 0;
+            int end = -1;
+            for (int i = pos; i < text.length() && end < 0; i++) {
+                char c = text.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == '[') {
+                    depth++;
+                } else if (c == ']') {
+                    depth--;
+                    if (depth == 0) {
+                        end = i;
+                    }
+                }
+            }
+            if (end < 0) {
+                return null;
+            }
+            String predicate = text.substring(pos + 1, end).trim();
+            if (predicate.isEmpty()
+                    || predicate.indexOf('/') >= 0
+                    || predicate.indexOf('$') >= 0
+                    || predicate.contains("::")
+                    || predicate.contains("..")) {
+                return null;
+            }
+            predicates.add(predicate);
+            pos = end + 1;
+        }
+        return predicates;
+    }
+
+    private static Step parseStep(String nodeTest, boolean descendant, List<String> predicates,
+            NamespaceContext namespaceContext) {
+        boolean attribute = false;
+        String name = nodeTest;
+        if (name.startsWith("@")) {
+            attribute = true;
+            name = name.substring(1);
+        }
+        if (name.equals("*")) {
+            return new Step(descendant, attribute, null, null, predicates);
+        }
+        String namespaceURI = XMLConstants.NULL_NS_URI;
+        String localName = name;
+        int colon = name.indexOf(':');
+        if (colon >= 0) {
+            String prefix = name.substring(0, colon);
+            localName = name.substring(colon + 1);
+            if (!isName(prefix)) {
+                return null;
+            }
+            namespaceURI = (namespaceContext != null ? namespaceContext.getNamespaceURI(prefix) : null);
+            if (namespaceURI == null
+                    || namespaceURI.equals(XMLConstants.NULL_NS_URI)) {
+                // Unbound prefix
+                return null;
+            }
+            if (localName.equals("*")) {
+                return new Step(descendant, attribute, namespaceURI, null, predicates);
+            }
+        }
+        if (!isName(localName)) {
+            return null;
+        }
+        return new Step(descendant, attribute, namespaceURI, localName, predicates);
+    }
+
+    private static boolean isName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = Character.isLetter(c) || c == '_'
+                    || (i > 0 && (Character.isDigit(c) || c == '-' || c == '.'));
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A single step of the path.
+     */
+    public static final class Step {
+
+        /**
+         * Whether the step selects descendants (<code>//</code>) rather than children.
+         */
+        private final boolean descendant;
+
+        /**
+         * Whether the step selects attributes rather than elements.
+         */
+        private final boolean attribute;
+
+        /**
+         * The namespace of the node, or null for any namespace. Nodes without a namespace are identified by the
+         * empty string.
+         */
+        private final String namespaceURI;
+
+        /**
+         * The local name of the node, or null for any name.
+         */
+        private final String localName;
+
+        /**
+         * The text of any predicates (without the enclosing brackets).
+         */
+        private final List<String> predicates;
+
+        Step(boolean descendant, boolean attribute, String namespaceURI, String localName, List<String> predicates) {
+            this.descendant = descendant;
+            this.attribute = attribute;
+            this.namespaceURI = namespaceURI;
+            this.localName = localName;
+            this.predicates = Collections.unmodifiableList(predicates);
+        }
+
+        /**
+         * @return whether the step selects descendants (<code>//</code>) rather than children.
+         */
+        public boolean isDescendant() {
+            return descendant;
+        }
+
+        /**
+         * @return whether the step selects attributes rather than elements.
+         */
+        public boolean isAttribute() {
+            return attribute;
+        }
+
+        /**
+         * @return the namespace of the node, or null for any namespace.
+         */
+        public String getNamespaceURI() {
+            return namespaceURI;
+        }
+
+        /**
+         * @return the local name of the node, or null for any name.
+         */
+        public String getLocalName() {
+            return localName;
+        }
+
+        /**
+         * @return the text of any predicates (without the enclosing brackets).
+         */
+        public List<String> getPredicates() {
+            return predicates;
+        }
+    }
+}
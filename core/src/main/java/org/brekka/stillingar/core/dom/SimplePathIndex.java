@@ -0,0 +1,377 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * An immutable index of every leaf element and attribute of a document (along with its text), keyed on the canonical
+ * form of the simple absolute path that selects them. Built once when a snapshot is loaded, it allows expressions that consist
+ * only of child steps over named nodes (for example <code>/c:Configuration/c:Pool/c:Size</code>) to be resolved with
+ * a single hash lookup rather than an XPath evaluation.
+ * 
+ * Expressions that use predicates, wildcards, other axes or functions, or that select elements with element content,
+ * cannot be answered by the index; {@link #lookup(String)} and {@link #lookupNodes(String)} return null for these and
+ * the caller should evaluate the expression against the document instead.
+ * 
+ * The table uses open addressing with linear probing over parallel arrays of interned keys and values.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public final class SimplePathIndex {
+
+    /**
+     * The maximum number of expressions whose keys will be remembered.
+     */
+    private static final int MAX_EXPRESSIONS = 4096;
+
+    /**
+     * Value for paths that select at least one element with element content.
+     */
+    private static final Object COMPLEX = new Object();
+
+    /**
+     * Remembered for expressions that are not simple paths.
+     */
+    private static final String UNSUPPORTED = "";
+
+    /**
+     * The canonical paths, or null for empty slots.
+     */
+    private final String[] keys;
+
+    /**
+     * The {@link Leaves} selected by the path at the same position in {@link #keys}, or {@link #COMPLEX}.
+     */
+    private final Object[] values;
+
+    /**
+     * The number of paths in the index
+     */
+    private final int size;
+
+    /**
+     * Used to resolve the prefixes used within expressions.
+     */
+    private final NamespaceContext namespaceContext;
+
+    /**
+     * The canonical path for each expression seen so far.
+     */
+    private final ConcurrentMap<String, String> expressionKeys = new ConcurrentHashMap<String, String>();
+
+    private SimplePathIndex(Map<String, Object> entries, NamespaceContext namespaceContext) {
+        int capacity = 2;
+        while (capacity < entries.size() * 2) {
+            capacity <<= 1;
+        }
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        for (Entry<String, Object> entry : entries.entrySet()) {
+            int slot = slot(entry.getKey());
+            keys[slot] = entry.getKey().intern();
+            values[slot] = entry.getValue();
+        }
+        this.size = entries.size();
+        this.namespaceContext = namespaceContext;
+    }
+
+    /**
+     * Index the elements and attributes below <code>root</code>, which will normally be the document node.
+     * 
+     * @param root
+     *            the node from which absolute paths will be resolved.
+     * @param namespaceContext
+     *            used to resolve the prefixes used within expressions (can be null).
+     * @return the index
+     */
+    public static SimplePathIndex build(Node root, NamespaceContext namespaceContext) {
+        Map<String, Object> entries = new LinkedHashMap<String, Object>();
+        StringBuilder path = new StringBuilder();
+        for (Node child = root.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                index((Element) child, path, entries);
+            }
+        }
+        for (Entry<String, Object> entry : entries.entrySet()) {
+            Object value = entry.getValue();
+            if (value != COMPLEX) {
+                ((Leaves) value).seal();
+            }
+        }
+        return new SimplePathIndex(entries, namespaceContext);
+    }
+
+    /**
+     * Resolve the text of the nodes selected by <code>expression</code>.
+     * 
+     * @param expression
+     *            the expression
+     * @return the text of each node selected in document order (empty when nothing matches), or null if the
+     *         expression cannot be answered by the index.
+     */
+    public List<String> lookup(String expression) {
+        Object value = find(expression);
+        if (value == null
+                || value == COMPLEX) {
+            return null;
+        }
+        if (value == Leaves.NONE) {
+            return Collections.emptyList();
+        }
+        return ((Leaves) value).texts;
+    }
+
+    /**
+     * Resolve the nodes selected by <code>expression</code>, for callers that must convert the nodes themselves
+     * rather than their text.
+     * 
+     * @param expression
+     *            the expression
+     * @return the nodes selected in document order (empty when nothing matches), or null if the expression cannot be
+     *         answered by the index.
+     */
+    public List<Node> lookupNodes(String expression) {
+        Object value = find(expression);
+        if (value == null
+                || value == COMPLEX) {
+            return null;
+        }
+        if (value == Leaves.NONE) {
+            return Collections.emptyList();
+        }
+        return ((Leaves) value).nodes;
+    }
+
+    /**
+     * @return the number of distinct paths in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the value for the expression.
+     * 
+     * @return the {@link Leaves}, {@link Leaves#NONE} if nothing matches, {@link #COMPLEX} or null if the expression
+     *         is not a simple path.
+     */
+    private Object find(String expression) {
+        String key = keyFor(expression);
+        if (key == UNSUPPORTED) {
+            return null;
+        }
+        int slot = slot(key);
+        if (keys[slot] == null) {
+            // Every element and attribute path is indexed, so nothing matches.
+            return Leaves.NONE;
+        }
+        return values[slot];
+    }
+
+    /**
+     * Find the slot for the key, either the one containing it or the empty slot where it would be.
+     */
+    private int slot(String key) {
+        int mask = keys.length - 1;
+        int h = key.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        String existing;
+        while ((existing = keys[slot]) != null
+                && existing != key
+                && !existing.equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private String keyFor(String expression) {
+        String key = expressionKeys.get(expression);
+        if (key == null) {
+            key = toKey(SimplePath.parse(expression, namespaceContext));
+            if (expressionKeys.size() < MAX_EXPRESSIONS) {
+                expressionKeys.putIfAbsent(expression, key);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Determine the canonical path for the parsed expression, provided it consists only of child steps over named
+     * nodes with attributes only appearing as the last step.
+     */
+    private static String toKey(SimplePath path) {
+        if (path == null 
+                || path.isText()) {
+            return UNSUPPORTED;
+        }
+        StringBuilder sb = new StringBuilder();
+        List<SimplePath.Step> steps = path.getSteps();
+        for (int i = 0; i < steps.size(); i++) {
+            SimplePath.Step step = steps.get(i);
+            if (step.isDescendant()
+                    || step.getLocalName() == null
+                    || step.getNamespaceURI() == null
+                    || !step.getPredicates().isEmpty()
+                    || (step.isAttribute() && i < steps.size() - 1)) {
+                return UNSUPPORTED;
+            }
+            appendStep(sb, step.isAttribute(), step.getNamespaceURI(), step.getLocalName());
+        }
+        return sb.toString();
+    }
+
+    private static void index(Element element, StringBuilder path, Map<String, Object> entries) {
+        int length = path.length();
+        appendStep(path, false, namespaceOf(element), localNameOf(element));
+        String key = path.toString();
+        
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attr = (Attr) attributes.item(i);
+            if (isNamespaceDeclaration(attr)) {
+                continue;
+            }
+            int elementLength = path.length();
+            appendStep(path, true, namespaceOf(attr), localNameOf(attr));
+            add(entries, path.toString(), attr, attr.getValue());
+            path.setLength(elementLength);
+        }
+        
+        boolean leaf = true;
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                leaf = false;
+                index((Element) child, path, entries);
+            }
+        }
+        if (leaf) {
+            add(entries, key, element, textOf(element));
+        } else {
+            entries.put(key, COMPLEX);
+        }
+        path.setLength(length);
+    }
+
+    private static void add(Map<String, Object> entries, String key, Node node, String text) {
+        Object existing = entries.get(key);
+        if (existing == COMPLEX) {
+            return;
+        }
+        Leaves leaves = (Leaves) existing;
+        if (leaves == null) {
+            leaves = new Leaves();
+            entries.put(key, leaves);
+        }
+        leaves.texts.add(text);
+        leaves.nodes.add(node);
+    }
+
+    /**
+     * The text content of an element without element children. Equivalent to {@link Node#getTextContent()}, which
+     * some DOM implementations (such as the XmlBeans view) do not support.
+     */
+    private static String textOf(Element element) {
+        Node first = element.getFirstChild();
+        if (first != null
+                && first.getNextSibling() == null
+                && isText(first)) {
+            return first.getNodeValue();
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Node child = first; child != null; child = child.getNextSibling()) {
+            if (isText(child)) {
+                sb.append(child.getNodeValue());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isText(Node node) {
+        short type = node.getNodeType();
+        return type == Node.TEXT_NODE 
+                || type == Node.CDATA_SECTION_NODE;
+    }
+
+    private static void appendStep(StringBuilder sb, boolean attribute, String namespaceURI, String localName) {
+        sb.append('/');
+        if (attribute) {
+            sb.append('@');
+        }
+        sb.append('{').append(namespaceURI).append('}').append(localName);
+    }
+
+    private static String namespaceOf(Node node) {
+        String namespaceURI = node.getNamespaceURI();
+        return (namespaceURI == null ? XMLConstants.NULL_NS_URI : namespaceURI);
+    }
+
+    private static String localNameOf(Node node) {
+        String localName = node.getLocalName();
+        // Documents parsed without namespace awareness only have node names
+        return (localName == null ? node.getNodeName() : localName);
+    }
+
+    private static boolean isNamespaceDeclaration(Attr attr) {
+        if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI())) {
+            return true;
+        }
+        String name = attr.getNodeName();
+        return name.equals(XMLConstants.XMLNS_ATTRIBUTE) 
+                || name.startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":");
+    }
+
+    /**
+     * The leaf nodes selected by a path, along with their text.
+     */
+    private static final class Leaves {
+
+        /**
+         * Stands in for paths that select nothing.
+         */
+        private static final Leaves NONE = new Leaves();
+
+        private List<String> texts = new ArrayList<String>(1);
+
+        private List<Node> nodes = new ArrayList<Node>(1);
+
+        /**
+         * Make the lists unmodifiable once the index has been built.
+         */
+        void seal() {
+            texts = (texts.size() == 1 
+                    ? Collections.singletonList(texts.get(0)) : Collections.unmodifiableList(texts));
+            nodes = (nodes.size() == 1 
+                    ? Collections.singletonList(nodes.get(0)) : Collections.unmodifiableList(nodes));
+        }
+    }
+}
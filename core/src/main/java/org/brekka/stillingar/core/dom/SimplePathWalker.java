@@ -0,0 +1,254 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Selects nodes by walking the DOM directly for expressions that consist only of child steps, each optionally
+ * qualified by a positional predicate (<code>[n]</code>), with an optional attribute as the last step. For example
+ * <code>/c:Configuration/c:Services/c:Mail[2]/c:Port</code> or <code>c:Mail/@host</code>. Such expressions make up
+ * the bulk of those used for configuration, and walking the children of each node is considerably cheaper than a
+ * full XPath evaluation.
+ * 
+ * Instances are immutable and can be shared between threads.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public final class SimplePathWalker {
+
+    /**
+     * The steps of the path
+     */
+    private final Step[] steps;
+
+    /**
+     * Whether the path starts from the document, rather than the context node.
+     */
+    private final boolean absolute;
+
+    private SimplePathWalker(Step[] steps, boolean absolute) {
+        this.steps = steps;
+        this.absolute = absolute;
+    }
+
+    /**
+     * Compile the expression, provided it is simple enough to be walked directly.
+     * 
+     * @param expression
+     *            the XPath expression
+     * @param namespaceContext
+     *            used to resolve the prefixes used within the expression (can be null).
+     * @return the walker or null if the expression must be evaluated by an XPath engine.
+     */
+    public static SimplePathWalker compile(String expression, NamespaceContext namespaceContext) {
+        SimplePath path = SimplePath.parse(expression, namespaceContext);
+        if (path == null 
+                || path.isText()) {
+            return null;
+        }
+        List<SimplePath.Step> pathSteps = path.getSteps();
+        Step[] steps = new Step[pathSteps.size()];
+        for (int i = 0; i < steps.length; i++) {
+            SimplePath.Step pathStep = pathSteps.get(i);
+            if (pathStep.isDescendant()
+                    || (pathStep.isAttribute() && i < steps.length - 1)) {
+                return null;
+            }
+            int position = 0;
+            List<String> predicates = pathStep.getPredicates();
+            if (!predicates.isEmpty()) {
+                if (predicates.size() > 1
+                        || pathStep.isAttribute()) {
+                    return null;
+                }
+                position = parsePosition(predicates.get(0));
+                if (position < 1) {
+                    return null;
+                }
+            }
+            steps[i] = new Step(pathStep.isAttribute(), pathStep.getNamespaceURI(), pathStep.getLocalName(), position);
+        }
+        return new SimplePathWalker(steps, expression.trim().startsWith("/"));
+    }
+
+    /**
+     * Select the nodes identified by the path.
+     * 
+     * @param context
+     *            the node relative paths are resolved against. Absolute paths are resolved against its document.
+     * @return the nodes in document order.
+     */
+    public List<Node> select(Node context) {
+        Node start = context;
+        if (absolute 
+                && start.getNodeType() != Node.DOCUMENT_NODE) {
+            start = start.getOwnerDocument();
+        }
+        List<Node> current = Collections.singletonList(start);
+        for (Step step : steps) {
+            List<Node> next = new ArrayList<Node>(current.size());
+            for (Node node : current) {
+                step.select(node, next);
+            }
+            if (next.isEmpty()) {
+                return next;
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * Select the nodes identified by the path, as a {@link NodeList}.
+     * 
+     * @param context
+     *            the node relative paths are resolved against. Absolute paths are resolved against its document.
+     * @return the nodes in document order.
+     */
+    public NodeList selectNodeList(Node context) {
+        return new ListNodeList(select(context));
+    }
+
+    private static int parsePosition(String predicate) {
+        if (predicate.length() > 9) {
+            return -1;
+        }
+        int position = 0;
+        for (int i = 0; i < predicate.length(); i++) {
+            char c = predicate.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            position = position * 10 + (c - '0');
+        }
+        return position;
+    }
+
+    /**
+     * A single step of the path
+     */
+    private static final class Step {
+        private final boolean attribute;
+        private final String namespaceURI;
+        private final String localName;
+        /**
+         * One-based position amongst the matching siblings, zero for all.
+         */
+        private final int position;
+
+        Step(boolean attribute, String namespaceURI, String localName, int position) {
+            this.attribute = attribute;
+            this.namespaceURI = namespaceURI;
+            this.localName = localName;
+            this.position = position;
+        }
+
+        void select(Node parent, List<Node> results) {
+            if (attribute) {
+                selectAttributes(parent, results);
+                return;
+            }
+            int count = 0;
+            for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getNodeType() == Node.ELEMENT_NODE 
+                        && matches(child)) {
+                    count++;
+                    if (position == 0) {
+                        results.add(child);
+                    } else if (count == position) {
+                        results.add(child);
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void selectAttributes(Node parent, List<Node> results) {
+            NamedNodeMap attributes = parent.getAttributes();
+            if (attributes == null
+                    || parent instanceof Document) {
+                return;
+            }
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Attr attr = (Attr) attributes.item(i);
+                if (!isNamespaceDeclaration(attr)
+                        && matches(attr)) {
+                    results.add(attr);
+                }
+            }
+        }
+
+        private boolean matches(Node node) {
+            String nodeLocalName = node.getLocalName();
+            String nodeNamespaceURI = node.getNamespaceURI();
+            if (nodeLocalName == null) {
+                // Documents parsed without namespace awareness only have node names
+                nodeLocalName = node.getNodeName();
+            }
+            if (nodeNamespaceURI == null) {
+                nodeNamespaceURI = XMLConstants.NULL_NS_URI;
+            }
+            return (localName == null || localName.equals(nodeLocalName))
+                    && (namespaceURI == null || namespaceURI.equals(nodeNamespaceURI));
+        }
+
+        private static boolean isNamespaceDeclaration(Attr attr) {
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI())) {
+                return true;
+            }
+            String name = attr.getNodeName();
+            return name.equals(XMLConstants.XMLNS_ATTRIBUTE) 
+                    || name.startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":");
+        }
+    }
+
+    /**
+     * Exposes the selected nodes as a {@link NodeList}.
+     */
+    private static final class ListNodeList implements NodeList {
+        private final List<Node> nodes;
+
+        ListNodeList(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public Node item(int index) {
+            if (index < 0 || index >= nodes.size()) {
+                return null;
+            }
+            return nodes.get(index);
+        }
+
+        @Override
+        public int getLength() {
+            return nodes.size();
+        }
+    }
+}
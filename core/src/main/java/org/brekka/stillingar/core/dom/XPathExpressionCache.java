@@ -0,0 +1,284 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.dom;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.w3c.dom.Node;
+
+/**
+ * Retains compiled {@link XPathExpression} instances so that an expression only needs to be compiled once, rather
+ * than on every evaluation. As compiled expressions are neither thread-safe nor reentrant, each expression/namespace
+ * context combination is backed by a small pool of compiled instances. A thread borrows an instance for the duration
+ * of a single evaluation, compiling a new one only when all existing instances are in use.
+ *
+ * A single cache will normally be shared by all of the sources produced by a loader, so the compiled expressions
+ * survive snapshot changes.
+ *
+ * Expressions that select a node set from a DOM node using only simple child steps (see {@link SimplePathWalker}) are
+ * resolved by walking the DOM directly, bypassing the XPath engine altogether.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class XPathExpressionCache {
+
+    /**
+     * The default maximum number of distinct expressions that will be retained.
+     */
+    public static final int DEFAULT_MAX_EXPRESSIONS = 4096;
+
+    /**
+     * Factory used to create new {@link XPath} instances. Factories are not thread-safe so access is synchronized.
+     */
+    private final XPathFactory xPathFactory;
+
+    /**
+     * Pools of compiled expressions, keyed on the expression and namespace context.
+     */
+    private final ConcurrentMap<Key, Queue<XPathExpression>> pools = new ConcurrentHashMap<Key, Queue<XPathExpression>>();
+
+    /**
+     * The walker for each expression/namespace context combination, or {@link #NOT_SIMPLE}.
+     */
+    private final ConcurrentMap<Key, Object> walkers = new ConcurrentHashMap<Key, Object>();
+
+    /**
+     * Marks expressions that cannot be walked directly.
+     */
+    private static final Object NOT_SIMPLE = new Object();
+
+    /**
+     * Once this many distinct expressions are retained, further expressions will be compiled for each use.
+     */
+    private final int maxExpressions;
+
+    public XPathExpressionCache() {
+        this(DEFAULT_MAX_EXPRESSIONS);
+    }
+
+    /**
+     * @param maxExpressions
+     *            the maximum number of distinct expressions to retain.
+     */
+    public XPathExpressionCache(int maxExpressions) {
+        this(XPathFactory.newInstance(), maxExpressions);
+    }
+
+    /**
+     * @param xPathFactory
+     *            the factory to use to compile expressions
+     * @param maxExpressions
+     *            the maximum number of distinct expressions to retain.
+     */
+    public XPathExpressionCache(XPathFactory xPathFactory, int maxExpressions) {
+        if (xPathFactory == null) {
+            throw new IllegalArgumentException("null passed for xPathFactory");
+        }
+        this.xPathFactory = xPathFactory;
+        this.maxExpressions = maxExpressions;
+    }
+
+    /**
+     * Evaluate the expression against the specified item, using a cached compiled expression where possible.
+     *
+     * @param expression
+     *            the XPath expression to evaluate
+     * @param namespaceContext
+     *            the namespace context used to resolve prefixes (can be null).
+     * @param item
+     *            the item (normally a DOM node) to evaluate the expression against.
+     * @param returnType
+     *            the desired return type.
+     * @return the result of the evaluation.
+     * @throws XPathExpressionException
+     *             if the expression cannot be compiled or evaluated.
+     */
+    public Object evaluate(String expression, NamespaceContext namespaceContext, Object item, QName returnType)
+            throws XPathExpressionException {
+        Key key = new Key(expression, namespaceContext);
+        if (XPathConstants.NODESET.equals(returnType)
+                && item instanceof Node) {
+            SimplePathWalker walker = walkerFor(key);
+            if (walker != null) {
+                return walker.selectNodeList((Node) item);
+            }
+        }
+        Queue<XPathExpression> pool = pools.get(key);
+        XPathExpression compiled = null;
+        if (pool != null) {
+            compiled = pool.poll();
+        }
+        if (compiled == null) {
+            compiled = compile(expression, namespaceContext);
+            if (pool == null) {
+                pool = poolFor(key);
+            }
+        }
+        try {
+            return compiled.evaluate(item, returnType);
+        } finally {
+            if (pool != null) {
+                pool.offer(compiled);
+            }
+        }
+    }
+
+    /**
+     * Ensure that the expression is valid, retaining the compiled form for later use.
+     *
+     * @param expression
+     *            the XPath expression to compile
+     * @param namespaceContext
+     *            the namespace context used to resolve prefixes (can be null).
+     * @throws XPathExpressionException
+     *             if the expression cannot be compiled.
+     */
+    public void prepare(String expression, NamespaceContext namespaceContext) throws XPathExpressionException {
+        Key key = new Key(expression, namespaceContext);
+        if (pools.containsKey(key)) {
+            return;
+        }
+        XPathExpression compiled = compile(expression, namespaceContext);
+        Queue<XPathExpression> pool = poolFor(key);
+        if (pool != null) {
+            pool.offer(compiled);
+        }
+    }
+
+    /**
+     * The number of distinct expressions currently retained by this cache.
+     *
+     * @return the expression count
+     */
+    public int size() {
+        return pools.size();
+    }
+
+    /**
+     * Discard all compiled expressions.
+     */
+    public void clear() {
+        pools.clear();
+        walkers.clear();
+    }
+
+    /**
+     * Obtain the walker for the expression, compiling it on first use.
+     *
+     * @return the walker or null if the expression must be evaluated by the XPath engine.
+     */
+    private SimplePathWalker walkerFor(Key key) {
+        Object walker = walkers.get(key);
+        if (walker == null) {
+            walker = SimplePathWalker.compile(key.expression, key.namespaceContext);
+            if (walker == null) {
+                walker = NOT_SIMPLE;
+            }
+            if (walkers.size() < maxExpressions) {
+                walkers.putIfAbsent(key, walker);
+            }
+        }
+        return (walker == NOT_SIMPLE ? null : (SimplePathWalker) walker);
+    }
+
+    /**
+     * Compile the expression using a new {@link XPath} instance.
+     */
+    protected XPathExpression compile(String expression, NamespaceContext namespaceContext)
+            throws XPathExpressionException {
+        XPath xpath;
+        synchronized (xPathFactory) {
+            xpath = xPathFactory.newXPath();
+        }
+        if (namespaceContext != null) {
+            xpath.setNamespaceContext(namespaceContext);
+        }
+        return xpath.compile(expression);
+    }
+
+    /**
+     * Obtain the pool for the key, creating it if the limit has not yet been reached.
+     *
+     * @return the pool or null if the expression should not be retained.
+     */
+    private Queue<XPathExpression> poolFor(Key key) {
+        Queue<XPathExpression> pool = pools.get(key);
+        if (pool == null
+                && pools.size() < maxExpressions) {
+            Queue<XPathExpression> newPool = new ConcurrentLinkedQueue<XPathExpression>();
+            pool = pools.putIfAbsent(key, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Identifies an expression compiled against a specific namespace context.
+     */
+    private static final class Key {
+        private final String expression;
+        private final NamespaceContext namespaceContext;
+        private final int hashCode;
+
+        public Key(String expression, NamespaceContext namespaceContext) {
+            this.expression = expression;
+            this.namespaceContext = namespaceContext;
+            this.hashCode = 31 * expression.hashCode() + System.identityHashCode(namespaceContext);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return namespaceContext == other.namespaceContext
+                    && expression.equals(other.expression);
+        }
+    }
+}
@@ -20,12 +20,19 @@ import static java.lang.String.format;
 
 import java.beans.PropertyEditorManager;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
+import org.brekka.stillingar.api.ConcurrentReadCapable;
 import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ConfigurationSource;
 import org.brekka.stillingar.api.ValueConfigurationException;
+import org.brekka.stillingar.api.ValueLookup;
+import org.brekka.stillingar.core.DiffableConfigurationSource;
+import org.brekka.stillingar.core.PrimitiveValueLocator;
+import org.brekka.stillingar.core.SourceChanges;
 import org.brekka.stillingar.core.conversion.ConversionManager;
 
 /**
@@ -38,7 +45,8 @@ import org.brekka.stillingar.core.conversion.ConversionManager;
  * 
  * @author Andrew Taylor (andrew@brekka.org)
  */
-public class PropertiesConfigurationSource implements ConfigurationSource {
+public class PropertiesConfigurationSource implements DiffableConfigurationSource, ValueLookup, PrimitiveValueLocator,
+        ConcurrentReadCapable {
 
     /**
      * The properties from which configuration values will be resolved.
@@ -56,7 +64,7 @@ public class PropertiesConfigurationSource implements ConfigurationSource {
      * @param properties
      */
     public PropertiesConfigurationSource(Properties properties) {
-        this(properties, new ConversionManager(PropertiesConfigurationSourceLoader.CONVERTERS));
+        this(properties, new ConversionManager(PropertiesConfigurationSourceLoader.defaultConverters()));
     }
 
     /**
@@ -106,6 +114,11 @@ public class PropertiesConfigurationSource implements ConfigurationSource {
     @Override
     public <T> T retrieve(String key, Class<T> valueType) {
         String value = properties.getProperty(key);
+        if (value == null
+                && valueType.isArray()
+                && properties.containsKey(key + ".0")) {
+            return resolveIndexed(valueType, key);
+        }
         return resolve(valueType, value, key);
     }
 
@@ -142,6 +155,159 @@ public class PropertiesConfigurationSource implements ConfigurationSource {
         return valueList;
     }
 
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.ValueLookup#lookup(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookup(String key, Class<?> valueType) {
+        if (!properties.containsKey(key)
+                && !(valueType.isArray() && properties.containsKey(key + ".0"))) {
+            return NOT_FOUND;
+        }
+        return retrieve(key, valueType);
+    }
+    
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.ValueLookup#lookupList(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookupList(String key, Class<?> valueType) {
+        if (!properties.containsKey(key)) {
+            return NOT_FOUND;
+        }
+        return retrieveList(key, valueType);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveInt(java.lang.String)
+     */
+    @Override
+    public int retrieveInt(String key) {
+        return toInt(requirePrimitive(key, Integer.TYPE), key);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toInt(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public int toInt(Object value, String key) {
+        try {
+            return conversionManager.convertToInt(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Type conversion", Integer.TYPE, key, e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveLong(java.lang.String)
+     */
+    @Override
+    public long retrieveLong(String key) {
+        return toLong(requirePrimitive(key, Long.TYPE), key);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toLong(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public long toLong(Object value, String key) {
+        try {
+            return conversionManager.convertToLong(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Type conversion", Long.TYPE, key, e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveDouble(java.lang.String)
+     */
+    @Override
+    public double retrieveDouble(String key) {
+        return toDouble(requirePrimitive(key, Double.TYPE), key);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toDouble(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public double toDouble(Object value, String key) {
+        try {
+            return conversionManager.convertToDouble(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Type conversion", Double.TYPE, key, e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveBoolean(java.lang.String)
+     */
+    @Override
+    public boolean retrieveBoolean(String key) {
+        return toBoolean(requirePrimitive(key, Boolean.TYPE), key);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toBoolean(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public boolean toBoolean(Object value, String key) {
+        try {
+            return conversionManager.convertToBoolean(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Type conversion", Boolean.TYPE, key, e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#locatePrimitive(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object locatePrimitive(String key, Class<?> primitiveType) {
+        String value = properties.getProperty(key);
+        return (value != null ? value : NOT_FOUND);
+    }
+
+    /**
+     * Locate the value identified by <code>key</code> that is to be converted to a primitive, which must exist.
+     */
+    private Object requirePrimitive(String key, Class<?> primitiveType) {
+        Object value = locatePrimitive(key, primitiveType);
+        if (value == NOT_FOUND) {
+            throw new ValueConfigurationException("No value found for key", primitiveType, key);
+        }
+        return value;
+    }
+
+    /**
+     * {@link Properties} is synchronized, so concurrent reads are supported.
+     */
+    @Override
+    public boolean supportsConcurrentReads() {
+        return true;
+    }
+
+    /**
+     * Compares the keys of the two sources, provided <code>previous</code> is also backed by properties.
+     */
+    @Override
+    public SourceChanges diff(ConfigurationSource previous) {
+        if (!(previous instanceof PropertiesConfigurationSource)) {
+            return null;
+        }
+        Properties previousProperties = ((PropertiesConfigurationSource) previous).properties;
+        Set<String> keys = new HashSet<String>(properties.stringPropertyNames());
+        keys.addAll(previousProperties.stringPropertyNames());
+        Set<String> changedKeys = new HashSet<String>();
+        for (String key : keys) {
+            String value = properties.getProperty(key);
+            String previousValue = previousProperties.getProperty(key);
+            if (value == null ? previousValue != null : !value.equals(previousValue)) {
+                changedKeys.add(key);
+            }
+        }
+        return new PropertiesChanges(changedKeys);
+    }
+
     /**
      * Perform type conversion.
      * 
@@ -164,4 +330,76 @@ public class PropertiesConfigurationSource implements ConfigurationSource {
         }
         return retVal;
     }
+
+    /**
+     * Convert the values of the indexed keys (<code>key.0</code>, <code>key.1</code>...) into the elements of an
+     * array.
+     * 
+     * @param arrayType
+     *            the array type
+     * @param key
+     *            the base key
+     * @return the array
+     */
+    protected <T> T resolveIndexed(Class<T> arrayType, String key) {
+        List<String> values = new ArrayList<String>();
+        String value = properties.getProperty(key + ".0");
+        int index = 1;
+        while (value != null) {
+            values.add(value);
+            value = properties.getProperty(key + "." + (index++));
+        }
+        try {
+            return conversionManager.convert(values, arrayType);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Type conversion", arrayType, key, e);
+        }
+    }
+
+    /**
+     * The keys that differ between two properties sources. Indexed keys (<code>key.0</code>, <code>key.1</code>...)
+     * also affect the base key, as that is how lists are resolved.
+     */
+    private static class PropertiesChanges implements SourceChanges {
+
+        private final Set<String> changedKeys;
+
+        private PropertiesChanges(Set<String> changedKeys) {
+            this.changedKeys = changedKeys;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return changedKeys.isEmpty();
+        }
+
+        @Override
+        public boolean affects(String key) {
+            if (changedKeys.isEmpty()) {
+                return false;
+            }
+            if (key == null
+                    || changedKeys.contains(key)) {
+                return true;
+            }
+            for (String changedKey : changedKeys) {
+                if (changedKey.length() > key.length() + 1
+                        && changedKey.startsWith(key)
+                        && changedKey.charAt(key.length()) == '.'
+                        && isIndex(changedKey.substring(key.length() + 1))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isIndex(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (!Character.isDigit(value.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
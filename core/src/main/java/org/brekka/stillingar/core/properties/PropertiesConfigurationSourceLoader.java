@@ -17,15 +17,21 @@ import org.brekka.stillingar.api.ConfigurationSourceLoader;
 import org.brekka.stillingar.core.conversion.BigDecimalConverter;
 import org.brekka.stillingar.core.conversion.BigIntegerConverter;
 import org.brekka.stillingar.core.conversion.BooleanConverter;
+import org.brekka.stillingar.core.conversion.ByteBufferConverter;
 import org.brekka.stillingar.core.conversion.ByteConverter;
 import org.brekka.stillingar.core.conversion.ConversionManager;
+import org.brekka.stillingar.core.conversion.DefaultConverters;
+import org.brekka.stillingar.core.conversion.DoubleArrayConverter;
 import org.brekka.stillingar.core.conversion.DoubleConverter;
 import org.brekka.stillingar.core.conversion.EnumConverter;
 import org.brekka.stillingar.core.conversion.FloatConverter;
+import org.brekka.stillingar.core.conversion.IntArrayConverter;
 import org.brekka.stillingar.core.conversion.IntegerConverter;
 import org.brekka.stillingar.core.conversion.LocaleConverter;
+import org.brekka.stillingar.core.conversion.LongArrayConverter;
 import org.brekka.stillingar.core.conversion.LongConverter;
 import org.brekka.stillingar.core.conversion.ShortConverter;
+import org.brekka.stillingar.core.conversion.StringArrayConverter;
 import org.brekka.stillingar.core.conversion.StringConverter;
 import org.brekka.stillingar.core.conversion.TypeConverter;
 import org.brekka.stillingar.core.conversion.URIConverter;
@@ -39,12 +45,24 @@ import org.brekka.stillingar.core.conversion.xml.ElementConverter;
  * @author Andrew Taylor (andrew@brekka.org)
  */
 public class PropertiesConfigurationSourceLoader implements ConfigurationSourceLoader {
+    
+    /**
+     * The default converters, prepared (and discovered) on first use.
+     */
+    private static final DefaultConverters DEFAULT_CONVERTERS = new DefaultConverters() {
+        @Override
+        protected List<TypeConverter<?>> prepare() {
+            return CONVERTERS;
+        }
+    };
 
     static final List<TypeConverter<?>> CONVERTERS = Arrays.<TypeConverter<?>> asList(
             new BigDecimalConverter(), new BigIntegerConverter(), new BooleanConverter(), new ByteConverter(),
             new DoubleConverter(), new FloatConverter(), new IntegerConverter(), new LongConverter(), 
             new ShortConverter(), new StringConverter(), new URIConverter(), new ElementConverter(), 
-            new DocumentConverter(), new LocaleConverter(), new UUIDConverter(), new EnumConverter());
+            new DocumentConverter(), new LocaleConverter(), new UUIDConverter(), new EnumConverter(),
+            new IntArrayConverter(), new LongArrayConverter(), new DoubleArrayConverter(), new StringArrayConverter(),
+            new ByteBufferConverter());
     
     /**
      * The conversion manager
@@ -56,7 +74,7 @@ public class PropertiesConfigurationSourceLoader implements ConfigurationSourceL
      * 
      */
     public PropertiesConfigurationSourceLoader() {
-        this(new ConversionManager(CONVERTERS));
+        this(DEFAULT_CONVERTERS.newConversionManager());
     }
     
     /**
@@ -66,6 +84,15 @@ public class PropertiesConfigurationSourceLoader implements ConfigurationSourceL
         this.conversionManager = conversionManager;
     }
     
+    /**
+     * The default converters, discovered once on first use and shared by all loaders relying on them.
+     * 
+     * @return the unmodifiable list of default converters.
+     */
+    public static List<TypeConverter<?>> defaultConverters() {
+        return DEFAULT_CONVERTERS.getConverters();
+    }
+    
 
     /* (non-Javadoc)
      * @see org.brekka.stillingar.core.ConfigurationSourceLoader#parse(java.io.InputStream, java.nio.charset.Charset)
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.brekka.stillingar.api.ValueLookup;
+
+/**
+ * Remembers the converted results of expressions evaluated against a configuration source, keyed on the expression
+ * (null for values resolved by type), the requested type and whether a list was requested. As the snapshot behind a
+ * source never changes, the same request always produces the same result, so only the first needs to evaluate the
+ * expression and convert the value.
+ * 
+ * Only values that are immutable (see {@link ImmutableTypes}) are cached, so that no two callers ever share a value
+ * that could be modified. Lists are copied for each caller. Empty lists are not cached, as sources differ in whether
+ * they report an empty result as an empty list or as {@link ValueLookup#NOT_FOUND} depending on how it was requested.
+ * The number of entries is capped, once reached no further results are cached. Hit and miss counts are kept for
+ * monitoring.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class ConvertedValueCache {
+
+    /**
+     * The default maximum number of entries
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /**
+     * Returned when the cache holds no value for the request.
+     */
+    public static final Object MISS = new Object();
+
+    /**
+     * Stands in for a null result
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * The maximum number of entries
+     */
+    private final int maxEntries;
+
+    /**
+     * The cached values
+     */
+    private final ConcurrentMap<Key, Object> values = new ConcurrentHashMap<Key, Object>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public ConvertedValueCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries
+     *            the maximum number of entries to cache.
+     */
+    public ConvertedValueCache(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("The maximum number of entries cannot be negative");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Obtain the value previously cached for a single value request.
+     * 
+     * @param expression
+     *            the expression, or null for a value resolved by type
+     * @param valueType
+     *            the requested type
+     * @return the value (which may be null or {@link ValueLookup#NOT_FOUND}) or {@link #MISS}.
+     */
+    public Object get(String expression, Class<?> valueType) {
+        return unmask(lookup(new Key(expression, valueType, false)));
+    }
+
+    /**
+     * Cache the result of a single value request, if it is immutable.
+     * 
+     * @param expression
+     *            the expression, or null for a value resolved by type
+     * @param valueType
+     *            the requested type
+     * @param value
+     *            the converted value, or {@link ValueLookup#NOT_FOUND}.
+     */
+    public void put(String expression, Class<?> valueType, Object value) {
+        if (value == ValueLookup.NOT_FOUND
+                || ImmutableTypes.isImmutable(value)) {
+            store(new Key(expression, valueType, false), (value == null ? NULL : value));
+        }
+    }
+
+    /**
+     * Obtain a copy of the list previously cached for a list request.
+     * 
+     * @param expression
+     *            the expression, or null for a list resolved by type
+     * @param valueType
+     *            the requested element type
+     * @return a copy of the list, {@link ValueLookup#NOT_FOUND} or {@link #MISS}.
+     */
+    public Object getList(String expression, Class<?> valueType) {
+        return unmask(lookup(new Key(expression, valueType, true)));
+    }
+
+    /**
+     * Cache the result of a list request, if it is not empty and all of its elements are immutable.
+     * 
+     * @param expression
+     *            the expression, or null for a list resolved by type
+     * @param valueType
+     *            the requested element type
+     * @param result
+     *            the list of converted values, or {@link ValueLookup#NOT_FOUND}.
+     */
+    public void putList(String expression, Class<?> valueType, Object result) {
+        Key key = new Key(expression, valueType, true);
+        if (result == ValueLookup.NOT_FOUND) {
+            store(key, result);
+        } else if (result instanceof List) {
+            List<?> list = (List<?>) result;
+            if (!list.isEmpty()
+                    && ImmutableTypes.isAllImmutable(list)) {
+                store(key, new ArrayList<Object>(list));
+            }
+        }
+    }
+
+    /**
+     * @return the number of requests answered from the cache.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of requests that could not be answered from the cache.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entries currently cached.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    private Object lookup(Key key) {
+        Object result = values.get(key);
+        if (result == null) {
+            misses.incrementAndGet();
+            return MISS;
+        }
+        hits.incrementAndGet();
+        return result;
+    }
+
+    private void store(Key key, Object value) {
+        if (values.size() < maxEntries) {
+            values.putIfAbsent(key, value);
+        }
+    }
+
+    /**
+     * Converts a stored result back to the value returned to callers. Lists are copied so that no two callers hold
+     * the same list.
+     */
+    private static Object unmask(Object result) {
+        if (result == NULL) {
+            return null;
+        }
+        if (result instanceof List) {
+            return new ArrayList<Object>((List<?>) result);
+        }
+        return result;
+    }
+
+    /**
+     * Identifies a distinct request. The expression is null for requests by type.
+     */
+    private static final class Key {
+        private final String expression;
+        private final Class<?> valueType;
+        private final boolean list;
+
+        Key(String expression, Class<?> valueType, boolean list) {
+            if (valueType == null) {
+                throw new IllegalArgumentException("A value type must be specified");
+            }
+            this.expression = expression;
+            this.valueType = valueType;
+            this.list = list;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (expression == null ? 0 : expression.hashCode());
+            result = 31 * result + valueType.hashCode();
+            return 31 * result + (list ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return list == other.list
+                    && valueType == other.valueType
+                    && (expression == null ? other.expression == null : expression.equals(other.expression));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.support;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies values whose state cannot change once created, and so can safely be shared between several value
+ * definitions rather than each being given its own instance.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public final class ImmutableTypes {
+
+    /**
+     * Final classes known to be immutable.
+     */
+    private static final Set<Class<?>> TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigDecimal.class, BigInteger.class, Class.class, URI.class, File.class,
+            Locale.class, UUID.class, Currency.class, Pattern.class));
+
+    private ImmutableTypes() {
+    }
+
+    /**
+     * Determine whether the specified value is immutable. Null is considered immutable.
+     *
+     * @param value
+     *            the value to check
+     * @return true if the value can be shared safely.
+     */
+    public static boolean isImmutable(Object value) {
+        if (value == null) {
+            return true;
+        }
+        if (value instanceof Enum) {
+            return true;
+        }
+        Class<?> type = value.getClass();
+        if (TYPES.contains(type)) {
+            return true;
+        }
+        String name = type.getName();
+        if (name.startsWith("java.time.")) {
+            return true;
+        }
+        if (name.startsWith("org.joda.time.")) {
+            return !type.getSimpleName().startsWith("Mutable");
+        }
+        return false;
+    }
+
+    /**
+     * Determine whether all of the elements of the collection are immutable (see {@link #isImmutable(Object)}).
+     *
+     * @param values
+     *            the values to check
+     * @return true if every element can be shared safely.
+     */
+    public static boolean isAllImmutable(Collection<?> values) {
+        for (Object value : values) {
+            if (!isImmutable(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
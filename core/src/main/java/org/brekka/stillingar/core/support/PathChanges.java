@@ -0,0 +1,215 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.brekka.stillingar.core.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.brekka.stillingar.core.SourceChanges;
+
+/**
+ * Base for {@link SourceChanges} implementations over hierarchical sources, where each change is recorded as the path
+ * of keys leading to the node that changed. Subclasses translate expressions into a list of {@link Step}s, which is
+ * then matched against the recorded paths. An expression is affected when it selects the changed node, one of its
+ * ancestors, or (for deep changes) something that could exist within the changed subtree.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public abstract class PathChanges implements SourceChanges {
+
+    /**
+     * The changes recorded so far
+     */
+    private final List<Change> changes = new ArrayList<Change>();
+
+    /**
+     * Record a change to the node identified by <code>path</code>.
+     *
+     * @param path
+     *            the keys leading from the root to the changed node. An empty path means the whole source changed.
+     * @param descendantKeys
+     *            for a deep change (where the structure below the node changed), every key that appears below the node
+     *            in either version. Null for a shallow change, where only the node's own value changed.
+     */
+    public void addChange(List<String> path, Set<String> descendantKeys) {
+        changes.add(new Change(path.toArray(new String[path.size()]), descendantKeys));
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.SourceChanges#isEmpty()
+     */
+    @Override
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.SourceChanges#affects(java.lang.String)
+     */
+    @Override
+    public boolean affects(String expression) {
+        if (changes.isEmpty()) {
+            return false;
+        }
+        if (expression == null) {
+            // Type based values cannot be traced to a path
+            return true;
+        }
+        List<Step> steps = toSteps(expression);
+        if (steps == null) {
+            return true;
+        }
+        for (Change change : changes) {
+            if (matches(steps, 0, change, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Translate the expression into the steps that it navigates.
+     *
+     * @param expression
+     *            the expression to translate
+     * @return the steps or null if the expression is too complex to be translated, in which case it will always be
+     *         considered affected.
+     */
+    protected abstract List<Step> toSteps(String expression);
+
+    private static boolean matches(List<Step> steps, int stepIdx, Change change, int keyIdx) {
+        if (stepIdx == steps.size()) {
+            // Expression selects the changed node or one of its ancestors
+            return true;
+        }
+        String[] keys = change.keys;
+        Step step = steps.get(stepIdx);
+        if (step.optional
+                && matches(steps, stepIdx + 1, change, keyIdx)) {
+            return true;
+        }
+        if (keyIdx == keys.length) {
+            return withinSubtree(steps, stepIdx, change);
+        }
+        if (step.descendant) {
+            for (int i = keyIdx; i < keys.length; i++) {
+                if (step.matches(keys[i])
+                        && matches(steps, stepIdx + 1, change, i + 1)) {
+                    return true;
+                }
+            }
+            return withinSubtree(steps, stepIdx, change);
+        }
+        return step.matches(keys[keyIdx])
+            && matches(steps, stepIdx + 1, change, keyIdx + 1);
+    }
+
+    /**
+     * The expression continues below the changed node, so can only be affected if the change is deep and every
+     * remaining step can be found somewhere within the subtree.
+     */
+    private static boolean withinSubtree(List<Step> steps, int stepIdx, Change change) {
+        if (change.descendantKeys == null) {
+            return false;
+        }
+        for (int i = stepIdx; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            if (step.optional) {
+                continue;
+            }
+            boolean found = false;
+            for (String key : change.descendantKeys) {
+                if (step.matches(key)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A single change
+     */
+    private static final class Change {
+        private final String[] keys;
+        private final Set<String> descendantKeys;
+
+        private Change(String[] keys, Set<String> descendantKeys) {
+            this.keys = keys;
+            this.descendantKeys = descendantKeys;
+        }
+    }
+
+    /**
+     * A single step of an expression, matching either one key exactly or any key that starts with a given prefix.
+     */
+    public static final class Step {
+
+        /**
+         * The key or key prefix to match
+         */
+        private final String key;
+
+        /**
+         * Whether the key is a prefix
+         */
+        private final boolean wildcard;
+
+        /**
+         * Whether the step may match at any depth below the previous step (rather than just the next key).
+         */
+        private final boolean descendant;
+
+        /**
+         * Whether the step may also match nothing, for example an index into an array which has no key of its own.
+         */
+        private final boolean optional;
+
+        /**
+         * @param key
+         *            the key or key prefix to match
+         * @param wildcard
+         *            whether the key is a prefix
+         * @param descendant
+         *            whether the step may match at any depth below the previous step.
+         * @param optional
+         *            whether the step may also match nothing.
+         */
+        public Step(String key, boolean wildcard, boolean descendant, boolean optional) {
+            this.key = key;
+            this.wildcard = wildcard;
+            this.descendant = descendant;
+            this.optional = optional;
+        }
+
+        /**
+         * @param candidate
+         *            the key to check
+         * @return true if this step matches the key
+         */
+        public boolean matches(String candidate) {
+            if (wildcard) {
+                return candidate.startsWith(key);
+            }
+            return candidate.equals(key);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.support;
+
+import org.brekka.stillingar.api.ConfigurationSource;
+import org.brekka.stillingar.api.PrimitiveValueLookup;
+import org.brekka.stillingar.api.ValueConfigurationException;
+import org.brekka.stillingar.api.ValueLookup;
+import org.brekka.stillingar.core.PrimitiveValueLocator;
+
+/**
+ * Performs {@link PrimitiveValueLookup} style retrievals against any {@link ConfigurationSource}. Sources that
+ * implement {@link PrimitiveValueLookup} resolve the value without boxing, others fall back to
+ * {@link ConfigurationSource#retrieve(String, Class)} with the corresponding wrapper type.
+ * 
+ * The <code>locate</code> and <code>toXxx</code> pairs allow a value to be sought in one source after another,
+ * finding it with a single evaluation per source. Sources that implement {@link PrimitiveValueLocator} do so without
+ * boxing.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public final class PrimitiveLookupSupport {
+
+    private PrimitiveLookupSupport() {
+    }
+
+    /**
+     * Retrieve the value identified by <code>expression</code> as an int.
+     *
+     * @param configurationSource
+     *            the source to resolve the value from
+     * @param expression
+     *            the expression used to identify the value to return.
+     * @return the value
+     */
+    public static int retrieveInt(ConfigurationSource configurationSource, String expression) {
+        if (configurationSource instanceof PrimitiveValueLookup) {
+            return ((PrimitiveValueLookup) configurationSource).retrieveInt(expression);
+        }
+        return nonNull(configurationSource.retrieve(expression, Integer.class), Integer.TYPE, expression).intValue();
+    }
+
+    /**
+     * Retrieve the value identified by <code>expression</code> as a long.
+     *
+     * @param configurationSource
+     *            the source to resolve the value from
+     * @param expression
+     *            the expression used to identify the value to return.
+     * @return the value
+     */
+    public static long retrieveLong(ConfigurationSource configurationSource, String expression) {
+        if (configurationSource instanceof PrimitiveValueLookup) {
+            return ((PrimitiveValueLookup) configurationSource).retrieveLong(expression);
+        }
+        return nonNull(configurationSource.retrieve(expression, Long.class), Long.TYPE, expression).longValue();
+    }
+
+    /**
+     * Retrieve the value identified by <code>expression</code> as a double.
+     *
+     * @param configurationSource
+     *            the source to resolve the value from
+     * @param expression
+     *            the expression used to identify the value to return.
+     * @return the value
+     */
+    public static double retrieveDouble(ConfigurationSource configurationSource, String expression) {
+        if (configurationSource instanceof PrimitiveValueLookup) {
+            return ((PrimitiveValueLookup) configurationSource).retrieveDouble(expression);
+        }
+        return nonNull(configurationSource.retrieve(expression, Double.class), Double.TYPE, expression).doubleValue();
+    }
+
+    /**
+     * Retrieve the value identified by <code>expression</code> as a boolean.
+     *
+     * @param configurationSource
+     *            the source to resolve the value from
+     * @param expression
+     *            the expression used to identify the value to return.
+     * @return the value
+     */
+    public static boolean retrieveBoolean(ConfigurationSource configurationSource, String expression) {
+        if (configurationSource instanceof PrimitiveValueLookup) {
+            return ((PrimitiveValueLookup) configurationSource).retrieveBoolean(expression);
+        }
+        return nonNull(configurationSource.retrieve(expression, Boolean.class), Boolean.TYPE, expression)
+                .booleanValue();
+    }
+
+    /**
+     * Locate the value identified by <code>expression</code> that is to be converted to a primitive. The value should
+     * be passed to the <code>toXxx</code> method of this class along with the same source.
+     *
+     * @param configurationSource
+     *            the source to locate the value in
+     * @param expression
+     *            the expression used to identify the value.
+     * @param primitiveType
+     *            the primitive type the value will be converted to.
+     * @return the value or {@link ValueLookup#NOT_FOUND}.
+     */
+    public static Object locate(ConfigurationSource configurationSource, String expression, Class<?> primitiveType) {
+        if (configurationSource instanceof PrimitiveValueLocator) {
+            return ((PrimitiveValueLocator) configurationSource).locatePrimitive(expression, primitiveType);
+        }
+        return ValueLookupSupport.lookup(configurationSource, expression, wrapperType(primitiveType));
+    }
+
+    /**
+     * Convert a value returned by {@link #locate(ConfigurationSource, String, Class)} to an int.
+     *
+     * @param configurationSource
+     *            the source that located the value
+     * @param value
+     *            the located value
+     * @param expression
+     *            the expression that located the value.
+     * @return the value
+     */
+    public static int toInt(ConfigurationSource configurationSource, Object value, String expression) {
+        if (configurationSource instanceof PrimitiveValueLocator) {
+            return ((PrimitiveValueLocator) configurationSource).toInt(value, expression);
+        }
+        return nonNull((Integer) value, Integer.TYPE, expression).intValue();
+    }
+
+    /**
+     * Convert a value returned by {@link #locate(ConfigurationSource, String, Class)} to a long.
+     *
+     * @param configurationSource
+     *            the source that located the value
+     * @param value
+     *            the located value
+     * @param expression
+     *            the expression that located the value.
+     * @return the value
+     */
+    public static long toLong(ConfigurationSource configurationSource, Object value, String expression) {
+        if (configurationSource instanceof PrimitiveValueLocator) {
+            return ((PrimitiveValueLocator) configurationSource).toLong(value, expression);
+        }
+        return nonNull((Long) value, Long.TYPE, expression).longValue();
+    }
+
+    /**
+     * Convert a value returned by {@link #locate(ConfigurationSource, String, Class)} to a double.
+     *
+     * @param configurationSource
+     *            the source that located the value
+     * @param value
+     *            the located value
+     * @param expression
+     *            the expression that located the value.
+     * @return the value
+     */
+    public static double toDouble(ConfigurationSource configurationSource, Object value, String expression) {
+        if (configurationSource instanceof PrimitiveValueLocator) {
+            return ((PrimitiveValueLocator) configurationSource).toDouble(value, expression);
+        }
+        return nonNull((Double) value, Double.TYPE, expression).doubleValue();
+    }
+
+    /**
+     * Convert a value returned by {@link #locate(ConfigurationSource, String, Class)} to a boolean.
+     *
+     * @param configurationSource
+     *            the source that located the value
+     * @param value
+     *            the located value
+     * @param expression
+     *            the expression that located the value.
+     * @return the value
+     */
+    public static boolean toBoolean(ConfigurationSource configurationSource, Object value, String expression) {
+        if (configurationSource instanceof PrimitiveValueLocator) {
+            return ((PrimitiveValueLocator) configurationSource).toBoolean(value, expression);
+        }
+        return nonNull((Boolean) value, Boolean.TYPE, expression).booleanValue();
+    }
+
+    private static Class<?> wrapperType(Class<?> primitiveType) {
+        if (primitiveType == Integer.TYPE) {
+            return Integer.class;
+        } else if (primitiveType == Long.TYPE) {
+            return Long.class;
+        } else if (primitiveType == Double.TYPE) {
+            return Double.class;
+        } else if (primitiveType == Boolean.TYPE) {
+            return Boolean.class;
+        }
+        throw new IllegalArgumentException(String.format("Unsupported primitive type '%s'", primitiveType));
+    }
+
+    private static <T> T nonNull(T value, Class<?> primitiveType, String expression) {
+        if (value == null) {
+            throw new ValueConfigurationException("Expression resolved to null", primitiveType, expression);
+        }
+        return value;
+    }
+}
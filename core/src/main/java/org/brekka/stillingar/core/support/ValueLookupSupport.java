@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.support;
+
+import org.brekka.stillingar.api.ConfigurationSource;
+import org.brekka.stillingar.api.ValueLookup;
+
+/**
+ * Performs {@link ValueLookup} style lookups against any {@link ConfigurationSource}. Sources that implement
+ * {@link ValueLookup} resolve the value with a single evaluation, others fall back to
+ * {@link ConfigurationSource#isAvailable(String)} followed by the corresponding retrieve.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public final class ValueLookupSupport {
+
+    private ValueLookupSupport() {
+    }
+
+    /**
+     * Lookup the single value identified by <code>expression</code>.
+     *
+     * @param configurationSource
+     *            the source to resolve the value from
+     * @param expression
+     *            the expression used to identify the value to return.
+     * @param valueType
+     *            the expected value type to be returned.
+     * @return the value (which may be null) or {@link ValueLookup#NOT_FOUND}.
+     */
+    public static Object lookup(ConfigurationSource configurationSource, String expression, Class<?> valueType) {
+        if (configurationSource instanceof ValueLookup) {
+            return ((ValueLookup) configurationSource).lookup(expression, valueType);
+        }
+        if (configurationSource.isAvailable(expression)) {
+            return configurationSource.retrieve(expression, valueType);
+        }
+        return ValueLookup.NOT_FOUND;
+    }
+
+    /**
+     * Lookup the list of values identified by <code>expression</code>.
+     *
+     * @param configurationSource
+     *            the source to resolve the values from
+     * @param expression
+     *            the expression used to identify the values to return.
+     * @param valueType
+     *            the expected value type for each element of the list.
+     * @return the list of values or {@link ValueLookup#NOT_FOUND}.
+     */
+    public static Object lookupList(ConfigurationSource configurationSource, String expression, Class<?> valueType) {
+        if (configurationSource instanceof ValueLookup) {
+            return ((ValueLookup) configurationSource).lookupList(expression, valueType);
+        }
+        if (configurationSource.isAvailable(expression)) {
+            return configurationSource.retrieveList(expression, valueType);
+        }
+        return ValueLookup.NOT_FOUND;
+    }
+}
@@ -25,6 +25,7 @@ import java.util.List;
 
 import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ConfigurationSource;
+import org.brekka.stillingar.api.ValueLookup;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -401,4 +402,52 @@ public class FallbackConfigurationSourceTest {
         assertSame(value, source.retrieveList(expression, type));
     }
 
+
+    @Test
+    public void testLookupSingleEvaluation() {
+        ConfigurationSource lookupPrimary = mock(ConfigurationSource.class, withSettings().extraInterfaces(ValueLookup.class));
+        when(((ValueLookup) lookupPrimary).lookup("expr", String.class)).thenReturn(ValueLookup.NOT_FOUND);
+        when(secondary.isAvailable("expr")).thenReturn(true);
+        when(secondary.retrieve("expr", String.class)).thenReturn("default");
+        source = new FallbackConfigurationSource(lookupPrimary, secondary);
+        assertEquals("default", source.retrieve("expr", String.class));
+        verify((ValueLookup) lookupPrimary).lookup("expr", String.class);
+        verify(lookupPrimary, never()).isAvailable("expr");
+        verify(lookupPrimary, never()).retrieve("expr", String.class);
+    }
+    
+    @Test
+    public void testLookupNotFound() {
+        assertSame(ValueLookup.NOT_FOUND, source.lookup("expr", String.class));
+        assertSame(ValueLookup.NOT_FOUND, source.lookupList("expr", String.class));
+    }
+    
+    @Test
+    public void testPrimitiveSingleEvaluation() {
+        PrimitiveValueLocator locatorPrimary = mock(PrimitiveValueLocator.class, withSettings().extraInterfaces(ConfigurationSource.class));
+        when(locatorPrimary.locatePrimitive("expr", Integer.TYPE)).thenReturn("5");
+        when(locatorPrimary.toInt("5", "expr")).thenReturn(5);
+        source = new FallbackConfigurationSource((ConfigurationSource) locatorPrimary, secondary);
+        assertEquals(5, source.retrieveInt("expr"));
+        verify((ConfigurationSource) locatorPrimary, never()).isAvailable("expr");
+        verifyZeroInteractions(secondary);
+    }
+    
+    @Test
+    public void testPrimitiveFallback() {
+        PrimitiveValueLocator locatorPrimary = mock(PrimitiveValueLocator.class, withSettings().extraInterfaces(ConfigurationSource.class));
+        when(locatorPrimary.locatePrimitive("expr", Long.TYPE)).thenReturn(ValueLookup.NOT_FOUND);
+        when(secondary.isAvailable("expr")).thenReturn(true);
+        when(secondary.retrieve("expr", Long.class)).thenReturn(7L);
+        source = new FallbackConfigurationSource((ConfigurationSource) locatorPrimary, secondary);
+        assertEquals(7L, source.retrieveLong("expr"));
+        verify(locatorPrimary, never()).toLong(any(), anyString());
+    }
+    
+    @Test(expected=ConfigurationException.class)
+    public void testPrimitiveNotFound() {
+        when(primary.isAvailable("expr")).thenReturn(false);
+        when(secondary.isAvailable("expr")).thenReturn(false);
+        source.retrieveBoolean("expr");
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.brekka.stillingar.api.ConfigurationException;
+import org.brekka.stillingar.api.ConfigurationSource;
+import org.brekka.stillingar.api.ValueLookup;
+import org.brekka.stillingar.core.support.ConfigBean;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * MemoizingConfigurationSource Test
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MemoizingConfigurationSourceTest {
+
+    private MemoizingConfigurationSource source;
+
+    @Mock
+    private ConfigurationSource target;
+
+    @Before
+    public void setup() {
+        source = new MemoizingConfigurationSource(target);
+    }
+
+    @Test
+    public void testImmutableEvaluatedOnce() {
+        when(target.isAvailable("a")).thenReturn(Boolean.TRUE);
+        when(target.retrieve("a", Integer.class)).thenReturn(Integer.valueOf(1000));
+        Object first = source.lookup("a", Integer.class);
+        assertSame(first, source.retrieve("a", Integer.class));
+        assertEquals(Integer.valueOf(1000), first);
+        verify(target, times(1)).retrieve("a", Integer.class);
+    }
+
+    @Test
+    public void testNotFoundEvaluatedOnce() {
+        when(target.isAvailable("a")).thenReturn(Boolean.FALSE);
+        assertSame(ValueLookup.NOT_FOUND, source.lookup("a", String.class));
+        assertSame(ValueLookup.NOT_FOUND, source.lookupList("a", String.class));
+        assertSame(ValueLookup.NOT_FOUND, source.lookup("a", String.class));
+        verify(target, times(2)).isAvailable("a");
+    }
+
+    @Test
+    public void testMutableNotShared() {
+        when(target.isAvailable(ConfigBean.class)).thenReturn(Boolean.TRUE);
+        when(target.retrieve(ConfigBean.class)).thenReturn(new ConfigBean(), new ConfigBean());
+        assertTrue(source.isAvailable(ConfigBean.class));
+        assertTrue(source.isAvailable(ConfigBean.class));
+        assertNotSame(source.retrieve(ConfigBean.class), source.retrieve(ConfigBean.class));
+        verify(target, times(1)).isAvailable(ConfigBean.class);
+    }
+
+    @Test
+    public void testListCopiedForEachCaller() {
+        when(target.isAvailable("a")).thenReturn(Boolean.TRUE);
+        when(target.retrieveList("a", String.class)).thenReturn(Arrays.asList("x", "y"));
+        List<String> first = source.retrieveList("a", String.class);
+        List<String> second = source.retrieveList("a", String.class);
+        assertEquals(Arrays.asList("x", "y"), second);
+        assertNotSame(first, second);
+        assertSame(first.get(0), second.get(0));
+        verify(target, times(1)).retrieveList("a", String.class);
+    }
+
+    @Test
+    public void testFailureNotRemembered() {
+        when(target.isAvailable("a")).thenReturn(Boolean.TRUE);
+        when(target.retrieve("a", String.class)).thenThrow(new ConfigurationException("fail")).thenReturn("ok");
+        try {
+            source.retrieve("a", String.class);
+            fail();
+        } catch (ConfigurationException e) {
+            // Expected
+        }
+        assertEquals("ok", source.retrieve("a", String.class));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests of the array converters
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class ArrayConverterTest {
+
+    @Test
+    public void testIntDelimited() {
+        assertArrayEquals(new int[] { 1, -2, Integer.MAX_VALUE, Integer.MIN_VALUE }, 
+                new IntArrayConverter().convert(" 1 ,-2,2147483647, -2147483648"));
+        assertEquals(0, new IntArrayConverter().convert("  ").length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntOverflow() {
+        new IntArrayConverter().convert("1,2147483648");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntMissingElement() {
+        new IntArrayConverter().convert("1,,2");
+    }
+
+    @Test
+    public void testLongCollection() {
+        assertArrayEquals(new long[] { Long.MIN_VALUE, 42L, 7L }, 
+                new LongArrayConverter().convert(Arrays.asList("-9223372036854775808", Integer.valueOf(42), " 7")));
+    }
+
+    @Test
+    public void testDouble() {
+        assertArrayEquals(new double[] { 1.5d, -0.25d, 3d }, 
+                new DoubleArrayConverter().convert("1.5, -0.25, 3"), 0d);
+    }
+
+    @Test
+    public void testDoubleMatchesParseDouble() {
+        String[] values = { "0", "-0", "0.1", "123.456", ".5", "7.", "+2.5", "9007199254740993", "0.30000000000000004",
+                "1e3", "-1.5E-7", "12345678901234567890", "1.0000000000000000000000001", "NaN", "Infinity" };
+        for (String value : values) {
+            assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)), 
+                    Double.doubleToLongBits(DoubleArrayConverter.parseDouble(value, 0, value.length())));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDoubleInvalid() {
+        new DoubleArrayConverter().convert("1.5, x");
+    }
+
+    @Test
+    public void testString() {
+        assertArrayEquals(new String[] { "a", "b c", "" }, new StringArrayConverter().convert("a, b c,"));
+    }
+
+    @Test
+    public void testByteCollection() {
+        assertArrayEquals(new byte[] { 1, -128, 127 }, new ByteArrayConverter().convert(Arrays.asList("1", "-128", 127)));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+/**
+ * ByteBufferConverter Test
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class ByteBufferConverterTest {
+
+    private final ByteBufferConverter converter = new ByteBufferConverter();
+
+    @Test
+    public void testDecode() {
+        ByteBuffer buffer = converter.convert(" U3RpbGxp\n bmdhcg== ");
+        assertTrue(buffer.isDirect());
+        assertTrue(buffer.isReadOnly());
+        assertEquals("Stillingar", toString(buffer));
+    }
+
+    @Test
+    public void testReuseIsIndependent() {
+        ByteBuffer first = converter.convert("U3RpbGxpbmdhcg");
+        first.get();
+        ByteBuffer second = converter.convert("U3RpbGxpbmdhcg==");
+        assertEquals(0, second.position());
+        assertEquals("Stillingar", toString(second));
+    }
+
+    @Test
+    public void testSameLengthDifferentContent() {
+        assertEquals("abc", toString(converter.convert("YWJj")));
+        assertEquals("xyz", toString(converter.convert("eHl6")));
+        assertEquals("abc", toString(converter.convert("YWJj")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalid() {
+        converter.convert("U3R*");
+    }
+
+    private static String toString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, Charset.forName("UTF-8"));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * ConversionManager Test
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class ConversionManagerTest {
+
+    private ConversionManager conversionManager;
+
+    @Before
+    public void setup() {
+        conversionManager = new ConversionManager(Arrays.<TypeConverter<?>>asList(
+                new StringConverter(), new IntegerConverter(), new LongConverter(), new EnumConverter()));
+    }
+
+    @Test
+    public void testExact() {
+        assertEquals(Integer.valueOf(42), conversionManager.convert("42", Integer.class));
+        assertEquals(Integer.valueOf(42), conversionManager.convert("42", Integer.TYPE));
+    }
+
+    @Test
+    public void testEnum() {
+        assertTrue(conversionManager.hasConverter(TimeUnit.class));
+        assertSame(TimeUnit.DAYS, conversionManager.convert("DAYS", TimeUnit.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEnumUnknownConstant() {
+        conversionManager.convert("FORTNIGHTS", TimeUnit.class);
+    }
+
+    @Test
+    public void testSupertype() {
+        assertTrue(conversionManager.hasConverter(CharSequence.class));
+        // Both Integer and Long are numbers, so there is no single converter
+        assertFalse(conversionManager.hasConverter(Number.class));
+    }
+
+    @Test
+    public void testAddConverter() {
+        conversionManager.setFactoryMethodFallback(false);
+        assertFalse(conversionManager.hasConverter(URI.class));
+        conversionManager.addConverter(new URIConverter());
+        assertTrue(conversionManager.hasConverter(URI.class));
+        assertEquals(URI.create("http://brekka.org/"), conversionManager.convert("http://brekka.org/", URI.class));
+    }
+
+    @Test
+    public void testFactoryMethodFallback() {
+        assertEquals(URI.create("http://brekka.org/"), conversionManager.convert("http://brekka.org/", URI.class));
+        assertEquals(new BigDecimal("1.50"), conversionManager.convert("1.50", BigDecimal.class));
+        assertEquals(Value.parse("abc"), conversionManager.convert("abc", Value.class));
+        assertEquals(Value.parse("42"), conversionManager.convert(Integer.valueOf(42), Value.class));
+        assertFalse(conversionManager.hasConverter(Object.class));
+        
+        conversionManager.setFactoryMethodFallback(false);
+        assertFalse(conversionManager.hasConverter(Value.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFactoryMethodFallbackFailure() {
+        conversionManager.convert("not a number", BigDecimal.class);
+    }
+
+    public static class Value {
+        private final String value;
+
+        public Value(String value) {
+            this.value = value;
+        }
+
+        public static Value parse(CharSequence value) {
+            return new Value("parsed:" + value);
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Value && value.equals(((Value) obj).value);
+        }
+    }
+}
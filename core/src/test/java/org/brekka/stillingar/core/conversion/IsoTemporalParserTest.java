@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * IsoTemporalParser Test
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class IsoTemporalParserTest {
+
+    @Test
+    public void testDateTimeWithOffset() {
+        IsoTemporal temporal = IsoTemporalParser.parse("2012-12-31T12:30:15.25+01:30");
+        assertTrue(temporal.hasDate());
+        assertTrue(temporal.hasTime());
+        assertTrue(temporal.hasOffset());
+        assertEquals(2012, temporal.getYear());
+        assertEquals(12, temporal.getMonth());
+        assertEquals(31, temporal.getDay());
+        assertEquals(12, temporal.getHour());
+        assertEquals(30, temporal.getMinute());
+        assertEquals(15, temporal.getSecond());
+        assertEquals(250000000, temporal.getNano());
+        assertEquals(5400, temporal.getOffsetSeconds());
+        
+        Calendar cal = temporal.toCalendar(TimeZone.getTimeZone("UTC"));
+        assertEquals(11, cal.get(Calendar.HOUR_OF_DAY));
+        assertEquals(0, cal.get(Calendar.MINUTE));
+        assertEquals(250, cal.get(Calendar.MILLISECOND));
+    }
+
+    @Test
+    public void testDateOnly() {
+        IsoTemporal temporal = IsoTemporalParser.parse("2012-02-29Z");
+        assertTrue(temporal.hasDate());
+        assertFalse(temporal.hasTime());
+        assertTrue(temporal.hasOffset());
+        assertEquals(15399L * 86400L, temporal.localEpochSecond());
+    }
+
+    @Test
+    public void testTimeOnly() {
+        IsoTemporal temporal = IsoTemporalParser.parse("08:15");
+        assertFalse(temporal.hasDate());
+        assertFalse(temporal.hasOffset());
+        assertEquals(8, temporal.getHour());
+        assertEquals(15, temporal.getMinute());
+    }
+
+    @Test
+    public void testZoneId() {
+        IsoTemporal temporal = IsoTemporalParser.parse("2012-06-01 09:00:00+01:00[Europe/London]");
+        assertEquals("Europe/London", temporal.getZoneId());
+        assertEquals(3600, temporal.getOffsetSeconds());
+    }
+
+    @Test
+    public void testEpochDay() {
+        assertEquals(0L, IsoTemporal.epochDay(1970, 1, 1));
+        assertEquals(-1L, IsoTemporal.epochDay(1969, 12, 31));
+        assertEquals(11016L, IsoTemporal.epochDay(2000, 2, 29));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDay() {
+        IsoTemporalParser.parse("2013-02-29");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTrailingText() {
+        IsoTemporalParser.parse("2012-12-31T12:00:00 later");
+    }
+
+    @Test
+    public void testMaximumOffset() {
+        assertEquals(-18 * 3600, IsoTemporalParser.parse("2012-12-31T12:00-18:00").getOffsetSeconds());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffsetOutOfRange() {
+        IsoTemporalParser.parse("2012-12-31T12:00+18:30");
+    }
+}
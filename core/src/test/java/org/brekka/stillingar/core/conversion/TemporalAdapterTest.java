@@ -0,0 +1,88 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+
+import org.junit.Test;
+
+/**
+ * TemporalAdapter Test, for the forms that are only supported via JodaTime.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class TemporalAdapterTest {
+
+    private final TemporalAdapter adapter = new TemporalAdapter();
+
+    @Test
+    public void testJodaTimeAvailable() {
+        assertTrue(adapter.jodaTimeAvailable);
+    }
+
+    @Test
+    public void testYearOnly() {
+        assertDate(2012, Calendar.JANUARY, 1, 0, toCalendar("2012"));
+    }
+
+    @Test
+    public void testYearMonth() {
+        assertDate(2012, Calendar.DECEMBER, 1, 0, toCalendar("2012-12"));
+    }
+
+    @Test
+    public void testHourOnly() {
+        assertDate(2012, Calendar.DECEMBER, 31, 12, toCalendar("2012-12-31T12"));
+    }
+
+    @Test
+    public void testOrdinalDate() {
+        assertDate(2012, Calendar.DECEMBER, 31, 0, toCalendar("2012-366"));
+    }
+
+    @Test
+    public void testWeekDate() {
+        assertDate(2012, Calendar.JANUARY, 2, 0, toCalendar("2012-W01-1"));
+    }
+
+    @Test
+    public void testIsoTemporalFallback() {
+        IsoTemporal temporal = adapter.toIsoTemporal("2012-12", Object.class);
+        assertEquals(2012, temporal.getYear());
+        assertEquals(12, temporal.getMonth());
+        assertEquals(1, temporal.getDay());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalid() {
+        adapter.toCalendar("not a date", true, true, Calendar.class);
+    }
+
+    private Calendar toCalendar(String text) {
+        return adapter.toCalendar(text, true, true, Calendar.class);
+    }
+
+    private static void assertDate(int year, int month, int day, int hour, Calendar calendar) {
+        assertEquals(year, calendar.get(Calendar.YEAR));
+        assertEquals(month, calendar.get(Calendar.MONTH));
+        assertEquals(day, calendar.get(Calendar.DAY_OF_MONTH));
+        assertEquals(hour, calendar.get(Calendar.HOUR_OF_DAY));
+        assertEquals(0, calendar.get(Calendar.MINUTE));
+    }
+}
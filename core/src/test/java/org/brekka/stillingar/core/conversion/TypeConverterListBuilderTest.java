@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion;
+
+import static org.junit.Assert.*;
+
+import java.awt.Dimension;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.brekka.stillingar.core.dom.DOMConfigurationSourceLoader;
+import org.junit.Test;
+
+/**
+ * TypeConverterListBuilder Test
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class TypeConverterListBuilderTest {
+
+    @Test
+    public void testAddDiscovered() {
+        List<TypeConverter<?>> list = new TypeConverterListBuilder()
+            .add(new StringConverter())
+            .addDiscovered()
+            .toList();
+        assertEquals(2, list.size());
+        assertTrue(list.get(1) instanceof DimensionConverter);
+    }
+
+    @Test
+    public void testDefaultConvertersShared() {
+        List<TypeConverter<?>> converters = DOMConfigurationSourceLoader.defaultConverters();
+        assertSame(converters, DOMConfigurationSourceLoader.defaultConverters());
+        ConversionManager conversionManager = new ConversionManager(converters);
+        assertEquals(new Dimension(3, 4), conversionManager.convert("3x4", Dimension.class));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDefaultConvertersUnmodifiable() {
+        DOMConfigurationSourceLoader.defaultConverters().clear();
+    }
+
+    @Test
+    public void testDefaultConvertersPreparedOnce() {
+        final AtomicInteger prepared = new AtomicInteger();
+        DefaultConverters defaults = new DefaultConverters() {
+            @Override
+            protected List<TypeConverter<?>> prepare() {
+                prepared.incrementAndGet();
+                return Arrays.<TypeConverter<?>>asList(new StringConverter());
+            }
+        };
+        List<TypeConverter<?>> converters = defaults.getConverters();
+        assertSame(converters, defaults.getConverters());
+        assertEquals(1, prepared.get());
+        assertEquals(2, converters.size());
+        assertTrue(converters.get(1) instanceof DimensionConverter);
+        // Each loader gets its own manager, as converters can be added to it
+        assertNotSame(defaults.newConversionManager(), defaults.newConversionManager());
+    }
+
+    /**
+     * Registered in META-INF/services
+     */
+    public static class DimensionConverter extends AbstractTypeConverter<Dimension> {
+        @Override
+        public Class<Dimension> targetType() {
+            return Dimension.class;
+        }
+
+        @Override
+        public Dimension convert(Object obj) {
+            String[] parts = obj.toString().split("x");
+            return new Dimension(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        }
+    }
+}
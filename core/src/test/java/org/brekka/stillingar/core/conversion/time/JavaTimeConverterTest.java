@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.conversion.time;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * Java time converter Test
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class JavaTimeConverterTest {
+
+    private static final String[] VALID_DURATIONS = { "PT0S", "P2D", "PT20.345S", "PT15M", "PT10H", "P2DT3H4M",
+            "PT-6H3M", "-PT6H3M", "-PT-6H+3M", "pt1.S", "-PT-1.5S", "PT1,000000001S", "+P1DT-24H",
+            "PT" + Long.MAX_VALUE + "S" };
+
+    private static final String[] INVALID_DURATIONS = { "", "P", "PT", "P1DT", "1D", "P1H", "PT1D", "PT1M1H",
+            "P1.5D", "PT1.5M", "PT1.0000000001S", "PT--1S", "P1Y", "PT1S1S", "P" + Long.MAX_VALUE + "D" };
+
+    @Test
+    public void testDurationMatchesParse() {
+        for (String text : VALID_DURATIONS) {
+            assertEquals(text, Duration.parse(text), DurationConverter.parseDuration(text));
+        }
+    }
+
+    @Test
+    public void testDurationNegativeFraction() {
+        // Java 8's Duration.parse drops the sign of a negative fraction when the whole seconds are zero
+        assertEquals(Duration.ofMillis(-500), DurationConverter.parseDuration("PT-0.5S"));
+        assertEquals(Duration.ofMillis(500), DurationConverter.parseDuration("-PT-0.5S"));
+    }
+
+    @Test
+    public void testDurationInvalid() {
+        for (String text : INVALID_DURATIONS) {
+            try {
+                Duration.parse(text);
+                fail("Expected parse to reject " + text);
+            } catch (DateTimeParseException e) {
+                // Expected
+            }
+            try {
+                DurationConverter.parseDuration(text);
+                fail("Expected converter to reject " + text);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultZoneNotCached() {
+        ZonedDateTimeConverter zoned = new ZonedDateTimeConverter();
+        InstantConverter instant = new InstantConverter();
+        TimeZone original = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            assertEquals("UTC", zoned.convert("2012-06-01T12:00:00").getZone().getId());
+            assertEquals(Instant.parse("2012-06-01T12:00:00Z"), instant.convert("2012-06-01T12:00:00"));
+            ZonedDateTime withOffset = zoned.convert("2012-06-01T12:00:00+01:00");
+
+            TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris"));
+            assertEquals("Europe/Paris", zoned.convert("2012-06-01T12:00:00").getZone().getId());
+            assertEquals(Instant.parse("2012-06-01T10:00:00Z"), instant.convert("2012-06-01T12:00:00"));
+            assertSame(withOffset, zoned.convert("2012-06-01T12:00:00+01:00"));
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    @Test
+    public void testReducedPrecisionDate() {
+        assertEquals(LocalDate.of(2012, 12, 1), new LocalDateConverter().convert("2012-12"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownZone() {
+        new ZonedDateTimeConverter().convert("2012-06-01T12:00:00[Nowhere/Special]");
+    }
+}
@@ -19,12 +19,19 @@ package org.brekka.stillingar.core.delta;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import org.brekka.stillingar.api.ConfigurationSource;
+import org.brekka.stillingar.api.ValueAccessor;
+import org.brekka.stillingar.core.ChangeConfigurationException;
+import org.brekka.stillingar.core.DiffableConfigurationSource;
+import org.brekka.stillingar.core.ExpirableReferent;
 import org.brekka.stillingar.core.GroupChangeListener;
 import org.brekka.stillingar.core.SingleValueDefinition;
+import org.brekka.stillingar.core.SourceChanges;
 import org.brekka.stillingar.core.ValueChangeListener;
 import org.brekka.stillingar.core.ValueDefinition;
 import org.brekka.stillingar.core.ValueDefinitionGroup;
@@ -33,7 +40,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 /**
  * DeltaConfigurationSource Test
@@ -257,9 +266,407 @@ public class DeltaConfigurationServiceTest {
         verify(deltaValueInterceptor).released(eq(THE_VALUE));
     }
     
+    /**
+     * Test method for {@link org.brekka.stillingar.core.delta.DeltaConfigurationService#compile(String, Class)}.
+     */
+    @Test
+    public void testCompile() throws Exception {
+        when(defaultConfigurationSource.isAvailable(eq("expr"))).thenReturn(Boolean.TRUE);
+        when(defaultConfigurationSource.retrieve(eq("expr"), eq(String.class))).thenReturn("first");
+        
+        ValueAccessor<String> accessor = configurationSource.compile("expr", String.class);
+        assertEquals("first", accessor.get());
+        assertEquals("first", accessor.get());
+        verify(defaultConfigurationSource, times(1)).retrieve(eq("expr"), eq(String.class));
+        
+        when(defaultConfigurationSource.retrieve(eq("expr"), eq(String.class))).thenReturn("second");
+        configurationSource.refresh(defaultConfigurationSource);
+        assertEquals("second", accessor.get());
+        assertEquals("second", accessor.get());
+        verify(defaultConfigurationSource, times(2)).retrieve(eq("expr"), eq(String.class));
+    }
+    
+    /**
+     * Test method for {@link org.brekka.stillingar.core.delta.DeltaConfigurationService#pin()}.
+     */
+    @Test
+    public void testPin() throws Exception {
+        ConfigurationSource latest = mock(ConfigurationSource.class);
+        when(latest.isAvailable(eq("expr"))).thenReturn(Boolean.TRUE);
+        when(latest.retrieve(eq("expr"), eq(String.class))).thenReturn("latest");
+        when(defaultConfigurationSource.isAvailable(eq("expr"))).thenReturn(Boolean.TRUE);
+        when(defaultConfigurationSource.retrieve(eq("expr"), eq(String.class))).thenReturn("default");
+        
+        ConfigurationSource pinned = configurationSource.pin();
+        configurationSource.refresh(latest);
+        assertEquals("default", pinned.retrieve("expr", String.class));
+        assertEquals("latest", configurationSource.retrieve("expr", String.class));
+        assertEquals("latest", configurationSource.pin().retrieve("expr", String.class));
+    }
+    
+    /**
+     * Test method for {@link org.brekka.stillingar.core.delta.DeltaConfigurationService#setChangedValuesOnly(boolean)}.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRefreshChangedValuesOnly() throws Exception {
+        configurationSource.setChangedValuesOnly(true);
+        ValueChangeListener<ConfigBean> valueChangeListener = mock(ValueChangeListener.class);
+        SingleValueDefinition<ConfigBean> valueDefinition = new SingleValueDefinition<ConfigBean>(ConfigBean.class, valueChangeListener);
+        
+        GroupChangeListener groupChangeListener = mock(GroupChangeListener.class);
+        
+        List<ValueDefinition<?, ?>> valueList = Arrays.<ValueDefinition<?, ?>>asList(valueDefinition);
+        
+        ValueDefinitionGroup valueDefinitionGroup = new ValueDefinitionGroup("TestGroup", valueList, groupChangeListener);
+        
+        when(deltaValueInterceptor.created(eq(THE_VALUE))).thenReturn(THE_VALUE);
+        configurationSource.register(valueDefinitionGroup, true);
+        
+        // Same value, nothing should be enacted
+        configurationSource.refresh(defaultConfigurationSource);
+        
+        verify(deltaValueInterceptor).created(eq(THE_VALUE));
+        verify(valueChangeListener).onChange(eq(THE_VALUE), isNull(ConfigBean.class));
+        verify(groupChangeListener).onChange(isA(ConfigurationSource.class));
+        verifyNoMoreInteractions(deltaValueInterceptor, groupChangeListener, valueChangeListener);
+        
+        // Now change it
+        when(defaultConfigurationSource.retrieve(eq(ConfigBean.class))).thenReturn(CHANGED_VALUE);
+        when(deltaValueInterceptor.created(eq(CHANGED_VALUE))).thenReturn(CHANGED_VALUE);
+        configurationSource.refresh(defaultConfigurationSource);
+        
+        verify(deltaValueInterceptor).released(eq(THE_VALUE));
+        verify(deltaValueInterceptor).created(eq(CHANGED_VALUE));
+        verify(valueChangeListener).onChange(eq(CHANGED_VALUE), eq(THE_VALUE));
+        verify(groupChangeListener, times(2)).onChange(isA(ConfigurationSource.class));
+        verifyNoMoreInteractions(deltaValueInterceptor, groupChangeListener, valueChangeListener);
+    }
+    
+    /**
+     * Test method for {@link org.brekka.stillingar.core.delta.DeltaConfigurationService#refresh(ConfigurationSource)}
+     * with a source that supports diff.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRefreshOnlyResolvesAffected() throws Exception {
+        configurationSource.setChangedValuesOnly(true);
+        DiffableConfigurationSource first = mock(DiffableConfigurationSource.class);
+        when(first.isAvailable(anyString())).thenReturn(Boolean.TRUE);
+        when(first.retrieve(eq("a"), eq(String.class))).thenReturn("a1");
+        when(first.retrieve(eq("b"), eq(String.class))).thenReturn("b1");
+        configurationSource.refresh(first);
+        
+        ValueChangeListener<String> listenerA = mock(ValueChangeListener.class);
+        ValueChangeListener<String> listenerB = mock(ValueChangeListener.class);
+        configurationSource.register(new SingleValueDefinition<String>(String.class, "a", listenerA), false);
+        configurationSource.register(new SingleValueDefinition<String>(String.class, "b", listenerB), false);
+        
+        DiffableConfigurationSource second = mock(DiffableConfigurationSource.class);
+        SourceChanges changes = mock(SourceChanges.class);
+        when(changes.affects(eq("a"))).thenReturn(Boolean.TRUE);
+        when(second.diff(first)).thenReturn(changes);
+        when(second.isAvailable(anyString())).thenReturn(Boolean.TRUE);
+        when(second.retrieve(eq("a"), eq(String.class))).thenReturn("a2");
+        when(deltaValueInterceptor.created(any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return invocation.getArguments()[0];
+            }
+        });
+        configurationSource.refresh(second);
+        
+        verify(listenerA).onChange(eq("a2"), eq("a1"));
+        verify(second, never()).retrieve(eq("b"), eq(String.class));
+        verify(second, never()).isAvailable(eq("b"));
+        verifyNoMoreInteractions(listenerB);
+        assertEquals("a2", configurationSource.retrieve("a", String.class));
+    }
+    
+    /**
+     * Test method for {@link org.brekka.stillingar.core.delta.DeltaConfigurationService#refresh(ConfigurationSource)}
+     * where several definitions share an expression.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRefreshEvaluatesSharedExpressionOnce() throws Exception {
+        when(defaultConfigurationSource.isAvailable(anyString())).thenReturn(Boolean.TRUE);
+        when(defaultConfigurationSource.retrieve(eq("a"), eq(String.class))).thenReturn("a1");
+        configurationSource.register(new SingleValueDefinition<String>(String.class, "a",
+                mock(ValueChangeListener.class)), true);
+        configurationSource.register(new SingleValueDefinition<String>(String.class, "a",
+                mock(ValueChangeListener.class)), true);
+        ValueDefinition<?, ?> grouped = new SingleValueDefinition<String>(String.class, "a",
+                mock(ValueChangeListener.class));
+        configurationSource.register(new ValueDefinitionGroup("group",
+                Arrays.<ValueDefinition<?, ?>>asList(grouped), null, null), true);
+        verify(defaultConfigurationSource, times(1)).retrieve(eq("a"), eq(String.class));
+        
+        ConfigurationSource latest = mock(ConfigurationSource.class);
+        when(latest.isAvailable(anyString())).thenReturn(Boolean.TRUE);
+        when(latest.retrieve(eq("a"), eq(String.class))).thenReturn("a2");
+        configurationSource.refresh(latest);
+        verify(latest, times(1)).retrieve(eq("a"), eq(String.class));
+    }
+    
+    /**
+     * Test method for {@link org.brekka.stillingar.core.delta.DeltaConfigurationService#register(ValueDefinition, boolean)}
+     * while a refresh is in progress.
+     */
+    @Test(timeout = 10000)
+    @SuppressWarnings("unchecked")
+    public void testRegisterDuringRefresh() throws Exception {
+        when(deltaValueInterceptor.created(any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return invocation.getArguments()[0];
+            }
+        });
+        when(defaultConfigurationSource.isAvailable(anyString())).thenReturn(Boolean.TRUE);
+        when(defaultConfigurationSource.retrieve(eq("a"), eq(String.class))).thenReturn("a1");
+        when(defaultConfigurationSource.retrieve(eq("g"), eq(String.class))).thenReturn("g1");
+        final ConfigurationSource latest = mock(ConfigurationSource.class);
+        when(latest.isAvailable(anyString())).thenReturn(Boolean.TRUE);
+        when(latest.retrieve(eq("a"), eq(String.class))).thenReturn("a2");
+        when(latest.retrieve(eq("g"), eq(String.class))).thenReturn("g2");
+        
+        final CountDownLatch refreshing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        GroupChangeListener blockingListener = new GroupChangeListener() {
+            @Override
+            public void onChange(ConfigurationSource configurationSource) {
+                refreshing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        ValueChangeListener<String> groupValueListener = mock(ValueChangeListener.class);
+        List<ValueDefinition<?, ?>> valueList = Arrays.<ValueDefinition<?, ?>>asList(
+                new SingleValueDefinition<String>(String.class, "g", groupValueListener));
+        configurationSource.register(new ValueDefinitionGroup("Blocking", valueList, blockingListener), false);
+        
+        Thread refreshThread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    configurationSource.refresh(latest);
+                } catch (ChangeConfigurationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        refreshThread.start();
+        refreshing.await();
+        
+        // Must not wait for the refresh
+        ValueChangeListener<String> listenerA = mock(ValueChangeListener.class);
+        configurationSource.register(new SingleValueDefinition<String>(String.class, "a", listenerA), true);
+        verify(listenerA).onChange(eq("a1"), isNull(String.class));
+        
+        release.countDown();
+        refreshThread.join();
+        
+        // Brought up to date once the refresh completed
+        verify(listenerA).onChange(eq("a2"), eq("a1"));
+        verify(groupValueListener).onChange(eq("g2"), eq("g1"));
+    }
+    
+    /**
+     * Test method for {@link org.brekka.stillingar.core.delta.DeltaConfigurationService#checkAndRemoveExpired()}.
+     */
+    @Test(timeout = 10000)
+    @SuppressWarnings("unchecked")
+    public void testExpiredListenerReclaimed() throws Exception {
+        when(deltaValueInterceptor.created(eq(THE_VALUE))).thenReturn(THE_VALUE);
+        ValueChangeListener<ConfigBean> valueChangeListener = mock(ValueChangeListener.class);
+        List<ValueDefinition<?, ?>> valueList = Arrays.<ValueDefinition<?, ?>>asList(
+                new SingleValueDefinition<ConfigBean>(ConfigBean.class, valueChangeListener));
+        Object target = new Object();
+        ReferentListener groupListener = new ReferentListener(target);
+        configurationSource.register(new ValueDefinitionGroup("Expiring", valueList, groupListener), false);
+        
+        configurationSource.refresh(defaultConfigurationSource);
+        assertEquals(0, configurationSource.getReclaimedCount());
+        assertEquals(1, groupListener.changeCount);
+        
+        target = null;
+        while (configurationSource.getReclaimedCount() == 0) {
+            System.gc();
+            Thread.sleep(10);
+            configurationSource.refresh(defaultConfigurationSource);
+        }
+        assertEquals(1, configurationSource.getReclaimedCount());
+    }
+    
+    /**
+     * Test method for {@link org.brekka.stillingar.core.delta.DeltaConfigurationService#unregister(ValueDefinition)}
+     * while a refresh is in progress. The value is only released once, after the refresh completes.
+     */
+    @Test(timeout = 10000)
+    @SuppressWarnings("unchecked")
+    public void testUnregisterDuringRefresh() throws Exception {
+        when(deltaValueInterceptor.created(any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return invocation.getArguments()[0];
+            }
+        });
+        when(defaultConfigurationSource.isAvailable(anyString())).thenReturn(Boolean.TRUE);
+        when(defaultConfigurationSource.retrieve(eq("a"), eq(String.class))).thenReturn("a1");
+        when(defaultConfigurationSource.retrieve(eq("g"), eq(String.class))).thenReturn("g1");
+        final ConfigurationSource latest = mock(ConfigurationSource.class);
+        when(latest.isAvailable(anyString())).thenReturn(Boolean.TRUE);
+        when(latest.retrieve(eq("a"), eq(String.class))).thenReturn("a2");
+        when(latest.retrieve(eq("g"), eq(String.class))).thenReturn("g2");
+        
+        ValueChangeListener<String> listenerA = mock(ValueChangeListener.class);
+        SingleValueDefinition<String> valueDefinition = new SingleValueDefinition<String>(String.class, "a", listenerA);
+        configurationSource.register(valueDefinition, false);
+        
+        final CountDownLatch refreshing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread refreshThread = startBlockedRefresh(latest, refreshing, release, false);
+        refreshing.await();
+        
+        // Must not wait for the refresh
+        configurationSource.unregister(valueDefinition);
+        verify(deltaValueInterceptor, never()).released(eq("a2"));
+        
+        release.countDown();
+        refreshThread.join();
+        
+        verify(deltaValueInterceptor, times(1)).released(eq("a1"));
+        verify(deltaValueInterceptor, times(1)).released(eq("a2"));
+        
+        // No longer updated
+        when(latest.retrieve(eq("a"), eq(String.class))).thenReturn("a3");
+        configurationSource.refresh(latest);
+        verify(listenerA, never()).onChange(eq("a3"), anyString());
+    }
+    
+    /**
+     * Registrations made during a refresh that fails are still added to the registry.
+     */
+    @Test(timeout = 10000)
+    @SuppressWarnings("unchecked")
+    public void testRegisterDuringFailedRefresh() throws Exception {
+        when(deltaValueInterceptor.created(any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return invocation.getArguments()[0];
+            }
+        });
+        when(defaultConfigurationSource.isAvailable(anyString())).thenReturn(Boolean.TRUE);
+        when(defaultConfigurationSource.retrieve(eq("a"), eq(String.class))).thenReturn("a1");
+        when(defaultConfigurationSource.retrieve(eq("g"), eq(String.class))).thenReturn("g1");
+        final ConfigurationSource latest = mock(ConfigurationSource.class);
+        when(latest.isAvailable(anyString())).thenReturn(Boolean.TRUE);
+        when(latest.retrieve(eq("a"), eq(String.class))).thenReturn("a2");
+        when(latest.retrieve(eq("g"), eq(String.class))).thenReturn("g2");
+        
+        final CountDownLatch refreshing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread refreshThread = startBlockedRefresh(latest, refreshing, release, true);
+        refreshing.await();
+        
+        ValueChangeListener<String> listenerA = mock(ValueChangeListener.class);
+        configurationSource.register(new SingleValueDefinition<String>(String.class, "a", listenerA), true);
+        verify(listenerA).onChange(eq("a1"), isNull(String.class));
+        
+        release.countDown();
+        refreshThread.join();
+        
+        // Registered despite the failure, so updated by the next refresh
+        configurationSource.refresh(latest);
+        verify(listenerA).onChange(eq("a2"), eq("a1"));
+    }
+    
+    /**
+     * Register a group whose listener blocks the first refresh until <code>release</code> is counted down, then start
+     * that refresh on a new thread.
+     */
+    @SuppressWarnings("unchecked")
+    private Thread startBlockedRefresh(final ConfigurationSource latest, final CountDownLatch refreshing,
+            final CountDownLatch release, final boolean fail) {
+        GroupChangeListener blockingListener = new GroupChangeListener() {
+            private boolean blocked;
+            @Override
+            public void onChange(ConfigurationSource configurationSource) {
+                if (blocked) {
+                    return;
+                }
+                blocked = true;
+                refreshing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (fail) {
+                    throw new IllegalStateException("Refresh failure");
+                }
+            }
+        };
+        ValueChangeListener<String> groupValueListener = mock(ValueChangeListener.class);
+        List<ValueDefinition<?, ?>> valueList = Arrays.<ValueDefinition<?, ?>>asList(
+                new SingleValueDefinition<String>(String.class, "g", groupValueListener));
+        configurationSource.register(new ValueDefinitionGroup("Blocking", valueList, blockingListener), false);
+        
+        Thread refreshThread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    configurationSource.refresh(latest);
+                } catch (ChangeConfigurationException e) {
+                    if (!fail) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        };
+        refreshThread.start();
+        return refreshThread;
+    }
+    
+    @Test
+    public void testIsEqualUsesComparator() {
+        configurationSource.addValueComparator(String.class, String.CASE_INSENSITIVE_ORDER);
+        assertTrue(configurationSource.isEqual(String.class, "Value", "VALUE"));
+        assertFalse(configurationSource.isEqual(String.class, "Value", "Other"));
+        assertTrue(configurationSource.isEqual(byte[].class, new byte[] { 1, 2 }, new byte[] { 1, 2 }));
+        assertFalse(configurationSource.isEqual(Integer.class, 1, null));
+    }
+    
     @Test(expected=IllegalArgumentException.class)
     public void testSetDeltaOperationsNull() {
         configurationSource.setDeltaOperations(null);
     }
 
+    
+    private static class ReferentListener implements GroupChangeListener, ExpirableReferent {
+        private final WeakReference<Object> targetRef;
+        private int changeCount;
+        
+        ReferentListener(Object target) {
+            this.targetRef = new WeakReference<Object>(target);
+        }
+        
+        @Override
+        public void onChange(ConfigurationSource configurationSource) {
+            changeCount++;
+        }
+        
+        @Override
+        public boolean isExpired() {
+            return targetRef.get() == null;
+        }
+        
+        @Override
+        public Object getReferent() {
+            return targetRef.get();
+        }
+    }
 }
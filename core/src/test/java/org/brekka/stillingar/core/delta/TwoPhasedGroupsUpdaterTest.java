@@ -23,7 +23,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.brekka.stillingar.api.ConcurrentReadCapable;
 import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ConfigurationSource;
 import org.brekka.stillingar.api.ValueConfigurationException;
@@ -198,6 +201,57 @@ public class TwoPhasedGroupsUpdaterTest {
         }
         
     }
-
-
+    
+    /**
+     * Test method for {@link org.brekka.stillingar.core.delta.TwoPhasedGroupsUpdater#phaseOneUpdate()}.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPhaseOneUpdateParallel() throws Exception {
+        ConfigurationSource concurrentSource = mock(ConfigurationSource.class, 
+                withSettings().extraInterfaces(ConcurrentReadCapable.class));
+        when(((ConcurrentReadCapable) concurrentSource).supportsConcurrentReads()).thenReturn(Boolean.TRUE);
+        when(concurrentSource.isAvailable(anyString())).thenReturn(Boolean.TRUE);
+        when(concurrentSource.retrieve(anyString(), eq(String.class))).thenReturn("Value");
+        when(concurrentSource.retrieve(eq("/broken"), eq(String.class))).thenThrow(
+                new ValueConfigurationException("Reason", String.class, "/broken"));
+        
+        for (int i = 0; i < 20; i++) {
+            String expression = (i == 7 || i == 13 ? "/broken" : "/value" + i);
+            SingleValueDefinition<String> valueDefinition = new SingleValueDefinition<String>(
+                    String.class, expression, mock(ValueChangeListener.class));
+            valueGroups.add(new ValueDefinitionGroup("Group" + i, 
+                    Arrays.<ValueDefinition<?, ?>>asList(valueDefinition), null));
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            TwoPhasedGroupsUpdater updater = new TwoPhasedGroupsUpdater(valueGroups, concurrentSource, 
+                    new DeltaOperations(), executor);
+            try {
+                updater.phaseOneUpdate();
+                fail("Expected ChangeConfigurationException");
+            } catch (ChangeConfigurationException e) {
+                List<GroupConfigurationException> groupErrors = e.getGroupErrors();
+                assertEquals(2, groupErrors.size());
+                assertEquals("Group7", groupErrors.get(0).getGroupName());
+                assertEquals("Group13", groupErrors.get(1).getGroupName());
+            }
+            
+            valueGroups.clear();
+            for (int i = 0; i < 20; i++) {
+                SingleValueDefinition<String> valueDefinition = new SingleValueDefinition<String>(
+                        String.class, "/value" + i, mock(ValueChangeListener.class));
+                valueGroups.add(new ValueDefinitionGroup("Group" + i, 
+                        Arrays.<ValueDefinition<?, ?>>asList(valueDefinition), null));
+            }
+            List<GroupChangeAction> actions = updater.phaseOneUpdate();
+            assertEquals(20, actions.size());
+            for (int i = 0; i < 20; i++) {
+                assertEquals("Group" + i, actions.get(i).getGroup().getName());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.brekka.stillingar.core.dom;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Test of DOMChanges
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class DOMChangesTest {
+
+    private static final String NS = "http://brekka.org/xml/stillingar/test/v1";
+
+    private final DefaultNamespaceContext namespaceContext = new DefaultNamespaceContext("c", NS);
+
+    @Test
+    public void testIdentical() throws Exception {
+        DOMChanges changes = diff(
+                "<c:A><c:B>1</c:B></c:A>",
+                "<c:A><c:B>1</c:B></c:A>");
+        assertTrue(changes.isEmpty());
+        assertFalse(changes.affects("/c:A/c:B"));
+        assertFalse(changes.affects(null));
+    }
+
+    @Test
+    public void testTextChange() throws Exception {
+        DOMChanges changes = diff(
+                "<c:A><c:B>1</c:B><c:C>2</c:C></c:A>",
+                "<c:A><c:B>1</c:B><c:C>3</c:C></c:A>");
+        assertFalse(changes.isEmpty());
+        assertTrue(changes.affects("/c:A/c:C"));
+        assertTrue(changes.affects("/c:A/c:C/text()"));
+        assertTrue(changes.affects("/c:A"));
+        assertTrue(changes.affects("//c:C"));
+        assertFalse(changes.affects("/c:A/c:B"));
+        assertFalse(changes.affects("//c:B"));
+        assertTrue(changes.affects(null));
+    }
+
+    @Test
+    public void testAttributeChange() throws Exception {
+        DOMChanges changes = diff(
+                "<c:A><c:B name=\"x\" value=\"1\"/></c:A>",
+                "<c:A><c:B name=\"x\" value=\"2\"/></c:A>");
+        assertTrue(changes.affects("/c:A/c:B/@value"));
+        assertTrue(changes.affects("/c:A/c:B[@name='x']/@value"));
+        assertTrue(changes.affects("/c:A/c:B"));
+        assertFalse(changes.affects("/c:A/c:B/@name"));
+    }
+
+    @Test
+    public void testElementAdded() throws Exception {
+        DOMChanges changes = diff(
+                "<c:A><c:B><c:X>1</c:X></c:B></c:A>",
+                "<c:A><c:B><c:X>1</c:X></c:B><c:B><c:X>2</c:X></c:B></c:A>");
+        assertTrue(changes.affects("/c:A/c:B/c:X"));
+        assertTrue(changes.affects("/c:A/c:B[2]/c:X"));
+        assertTrue(changes.affects("//c:X"));
+        assertFalse(changes.affects("/c:A/c:B/c:Y"));
+        assertFalse(changes.affects("/c:A/c:Other"));
+    }
+
+    @Test
+    public void testPredicateTargetChange() throws Exception {
+        DOMChanges changes = diff(
+                "<c:A><c:B id=\"x\"><c:C>x</c:C><c:D>1</c:D></c:B></c:A>",
+                "<c:A><c:B id=\"y\"><c:C>y</c:C><c:D>1</c:D></c:B></c:A>");
+        assertTrue(changes.affects("/c:A/c:B[c:C='x']/c:D"));
+        assertTrue(changes.affects("/c:A/c:B[@id='x']/c:D"));
+        assertTrue(changes.affects("//c:B[@id='y']/c:D"));
+        assertFalse(changes.affects("/c:A/c:B[1]/c:D"));
+        assertFalse(changes.affects("/c:A/c:B/c:D"));
+    }
+
+    @Test
+    public void testComplexExpressionAlwaysAffected() throws Exception {
+        DOMChanges changes = diff(
+                "<c:A><c:B>1</c:B><c:C>2</c:C></c:A>",
+                "<c:A><c:B>1</c:B><c:C>3</c:C></c:A>");
+        assertTrue(changes.affects("count(/c:A/c:B)"));
+        assertTrue(changes.affects("/c:A/c:B[../c:C='3']"));
+        assertTrue(changes.affects("/c:A/c:B | /c:A/c:D"));
+        assertTrue(changes.affects("/x:A/x:B"));
+    }
+
+    private DOMChanges diff(String previous, String current) throws Exception {
+        return DOMChanges.diff(parse(previous), parse(current), namespaceContext);
+    }
+
+    private static Document parse(String xml) throws Exception {
+        String withNamespace = xml.replaceFirst("^<c:A", "<c:A xmlns:c=\"" + NS + "\"");
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(withNamespace.getBytes("UTF-8")));
+    }
+}
@@ -16,26 +16,46 @@
 
 package org.brekka.stillingar.core.dom;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 
+import org.brekka.stillingar.api.ValueConfigurationException;
+import org.brekka.stillingar.api.ValueLookup;
+import org.brekka.stillingar.core.SingleValueDefinition;
+import org.brekka.stillingar.core.ValueDefinition;
+import org.brekka.stillingar.core.ValueDefinitionGroup;
 import org.brekka.stillingar.core.conversion.ConversionManager;
 import org.brekka.stillingar.core.conversion.TemporalAdapter;
+import org.brekka.stillingar.core.delta.DeltaOperations;
+import org.brekka.stillingar.core.delta.GroupChangeAction;
+import org.brekka.stillingar.core.delta.TwoPhasedGroupsUpdater;
+import org.brekka.stillingar.core.support.ConvertedValueCache;
 import org.junit.Before;
 import org.junit.Test;
 import org.w3c.dom.Document;
@@ -200,4 +220,135 @@ public class DOMConfigurationSourceTest {
         Document document = configurationSource.retrieve("//c:ApplicationContext/b:beans", Document.class);
         assertEquals("beans", document.getDocumentElement().getLocalName());
     }
+    
+    @Test
+    public void testLookup() throws Exception {
+        assertEquals(Integer.valueOf(42), configurationSource.lookup("//c:MaxQuantity", Integer.class));
+        assertSame(ValueLookup.NOT_FOUND, configurationSource.lookup("//c:CompanyX", String.class));
+    }
+    
+    @Test
+    public void testLookupList() throws Exception {
+        assertEquals(Arrays.asList("KeywordA", "KeywordB", "KeywordC"), 
+                configurationSource.lookupList("//c:Keyword", String.class));
+        assertSame(ValueLookup.NOT_FOUND, configurationSource.lookupList("//c:CompanyX", String.class));
+    }
+    
+    @Test
+    public void testRetrievePrimitives() throws Exception {
+        assertEquals(42, configurationSource.retrieveInt("//c:MaxQuantity"));
+        assertEquals(85697458963323L, configurationSource.retrieveLong("//c:Length"));
+        assertEquals(42d, configurationSource.retrieveDouble("//c:MaxQuantity"), 0d);
+        assertTrue(configurationSource.retrieveBoolean("//c:Fraud//c:Enabled"));
+    }
+    
+    @Test(expected = ValueConfigurationException.class)
+    public void testRetrievePrimitiveNotFound() throws Exception {
+        configurationSource.retrieveInt("//c:CompanyX");
+    }
+    
+    @Test
+    public void testLocatePrimitiveRemembered() throws Exception {
+        Object text = configurationSource.locatePrimitive("//c:MaxQuantity", Integer.TYPE);
+        assertEquals("42", text);
+        assertSame(text, configurationSource.locatePrimitive("//c:MaxQuantity", Integer.TYPE));
+        assertSame(ValueLookup.NOT_FOUND, configurationSource.locatePrimitive("//c:CompanyX", Integer.TYPE));
+    }
+    
+    @Test
+    public void testRetrieveJavaTime() throws Exception {
+        LocalDateTime expected = LocalDateTime.of(2012, 12, 31, 12, 0);
+        assertEquals(expected, configurationSource.retrieve("//c:Expires", LocalDateTime.class));
+        assertEquals(LocalDate.of(2012, 12, 31), configurationSource.retrieve("//c:Expires", LocalDate.class));
+        assertEquals(expected.atZone(ZoneId.systemDefault()).toInstant(), 
+                configurationSource.retrieve("//c:Expires", Instant.class));
+    }
+    
+    @Test
+    public void testRetrieveArray() throws Exception {
+        assertArrayEquals(new String[] { "KeywordA", "KeywordB", "KeywordC" }, 
+                configurationSource.retrieve("//c:Keyword", String[].class));
+        assertArrayEquals(new int[] { 42 }, configurationSource.retrieve("//c:MaxQuantity", int[].class));
+    }
+    
+    @Test
+    public void testRetrieveByteBuffer() throws Exception {
+        ByteBuffer buffer = configurationSource.retrieve("//c:PublicKey", ByteBuffer.class);
+        assertTrue(buffer.isDirect());
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertEquals("Stillingar", new String(bytes, "UTF-8"));
+    }
+
+    @Test
+    public void testConvertedValueCache() {
+        ConvertedValueCache cache = configurationSource.getConvertedValueCache();
+        UUID id = configurationSource.retrieve("//c:MOTD/c:ID", UUID.class);
+        assertSame(id, configurationSource.retrieve("//c:MOTD/c:ID", UUID.class));
+        assertSame(id, configurationSource.lookup("//c:MOTD/c:ID", UUID.class));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        
+        // Mutable values are not cached, lists are copied
+        configurationSource.retrieve("//c:Rules", Element.class);
+        List<String> list = configurationSource.retrieveList("//c:Fraud/c:Keyword", String.class);
+        list.clear();
+        assertEquals(3, configurationSource.retrieveList("//c:Fraud/c:Keyword", String.class).size());
+        assertEquals(2, cache.size());
+        
+        // An empty list must not hide the absence of a value from a later lookup
+        assertTrue(configurationSource.retrieveList("//c:Missing", String.class).isEmpty());
+        assertSame(ValueLookup.NOT_FOUND, configurationSource.lookupList("//c:Missing", String.class));
+    }
+
+    @Test
+    public void testSimplePathIndex() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder().parse(getClass().getResourceAsStream("config.xml"));
+        DefaultNamespaceContext namespaceContext = new DefaultNamespaceContext(
+            "c", "http://brekka.org/xml/stillingar/test/v1");
+        DOMConfigurationSource indexed = new DOMConfigurationSource(document, namespaceContext, 
+                new ConversionManager(DOMConfigurationSourceLoader.prepareConverters(new TemporalAdapter())),
+                new XPathExpressionCache(), SimplePathIndex.build(document, namespaceContext));
+        assertEquals(Integer.valueOf(42), 
+                indexed.retrieve("/c:Configuration/c:Services/c:Rules/c:Transaction/c:MaxQuantity", Integer.class));
+        assertEquals(42, indexed.retrieveInt("/c:Configuration/c:Services/c:Rules/c:Transaction/c:MaxQuantity"));
+        assertEquals(Arrays.asList("KeywordA", "KeywordB", "KeywordC"), 
+                indexed.retrieveList("/c:Configuration/c:Services/c:Rules/c:Fraud/c:Keyword", String.class));
+        assertArrayEquals(new String[] { "alpha", "beta" }, 
+                indexed.retrieve("/c:Configuration/c:FeatureFlag/@key", String[].class));
+        assertSame(ValueLookup.NOT_FOUND, indexed.lookup("/c:Configuration/c:Missing", String.class));
+        assertFalse(indexed.isAvailable("/c:Configuration/c:Missing"));
+        // Nodes come from the document
+        assertEquals("Rules", indexed.retrieve("/c:Configuration/c:Services/c:Rules", Element.class).getLocalName());
+    }
+    
+    /**
+     * The DOM is not safe for concurrent readers, so phase one must ignore the executor and resolve the groups
+     * sequentially on the calling thread.
+     */
+    @Test
+    public void testPhaseOneUpdateSequential() throws Exception {
+        assertFalse(configurationSource.supportsConcurrentReads());
+        List<ValueDefinitionGroup> valueGroups = new ArrayList<ValueDefinitionGroup>();
+        for (int i = 0; i < 20; i++) {
+            List<ValueDefinition<?, ?>> values = new ArrayList<ValueDefinition<?, ?>>();
+            values.add(new SingleValueDefinition<Integer>(Integer.class, "//c:MaxQuantity", null));
+            values.add(new SingleValueDefinition<String>(String.class, "//c:Keyword[" + (i % 3 + 1) + "]", null));
+            valueGroups.add(new ValueDefinitionGroup("Group" + i, values, null));
+        }
+        ExecutorService executor = mock(ExecutorService.class);
+        TwoPhasedGroupsUpdater updater = new TwoPhasedGroupsUpdater(valueGroups, configurationSource, 
+                new DeltaOperations(), executor);
+        List<GroupChangeAction> actions = updater.phaseOneUpdate();
+        verifyZeroInteractions(executor);
+        assertEquals(20, actions.size());
+        for (int i = 0; i < 20; i++) {
+            GroupChangeAction action = actions.get(i);
+            assertEquals("Group" + i, action.getGroup().getName());
+            assertEquals(Integer.valueOf(42), action.getActionList().get(0).getNewValue());
+            assertEquals("Keyword" + (char) ('A' + i % 3), action.getActionList().get(1).getNewValue());
+        }
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.dom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Test of DocumentBuilderPool
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class DocumentBuilderPoolTest {
+
+    private static final String XML = "<a:Root xmlns:a=\"urn:a\"><a:Value>1</a:Value></a:Root>";
+
+    @Test
+    public void testNamespaceAware() throws Exception {
+        DocumentBuilderPool pool = new DocumentBuilderPool(true);
+        Document document = pool.parse(new ByteArrayInputStream(XML.getBytes("UTF-8")));
+        assertEquals("urn:a", document.getDocumentElement().getNamespaceURI());
+        assertEquals("Root", document.getDocumentElement().getLocalName());
+    }
+
+    @Test
+    public void testNotNamespaceAware() throws Exception {
+        DocumentBuilderPool pool = new DocumentBuilderPool(false);
+        Document document = pool.parse(new ByteArrayInputStream(XML.getBytes("UTF-8")));
+        assertNull(document.getDocumentElement().getNamespaceURI());
+        assertEquals("a:Root", document.getDocumentElement().getNodeName());
+    }
+
+    @Test
+    public void testReuseAfterFailure() throws Exception {
+        DocumentBuilderPool pool = new DocumentBuilderPool(true, 1);
+        try {
+            pool.parse(new ByteArrayInputStream("<Broken>".getBytes("UTF-8")));
+        } catch (SAXException e) {
+            // Expected
+        }
+        for (int i = 0; i < 3; i++) {
+            Document document = pool.parse(new ByteArrayInputStream(XML.getBytes("UTF-8")));
+            assertEquals("1", document.getDocumentElement().getTextContent());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.dom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Test of SimplePathIndex
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class SimplePathIndexTest {
+
+    private SimplePathIndex index;
+
+    @Before
+    public void setup() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        DocumentBuilder documentBuilder = factory.newDocumentBuilder();
+        Document document = documentBuilder.parse(getClass().getResourceAsStream("config.xml"));
+        index = SimplePathIndex.build(document, new DefaultNamespaceContext(
+                "c", "http://brekka.org/xml/stillingar/test/v1"));
+    }
+
+    @Test
+    public void testLeaf() {
+        assertEquals(Collections.singletonList("Test message"), index.lookup("/c:Configuration/c:MOTD/c:Message"));
+        assertEquals(Collections.singletonList("Test message"), index.lookup("c:Configuration/c:MOTD/c:Message"));
+    }
+
+    @Test
+    public void testRepeated() {
+        assertEquals(Arrays.asList("KeywordA", "KeywordB", "KeywordC"), 
+                index.lookup("/c:Configuration/c:Services/c:Rules/c:Fraud/c:Keyword"));
+    }
+
+    @Test
+    public void testAttribute() {
+        assertEquals(Arrays.asList("alpha", "beta"), index.lookup("/c:Configuration/c:FeatureFlag/@key"));
+    }
+
+    @Test
+    public void testMissing() {
+        assertTrue(index.lookup("/c:Configuration/c:MOTD/c:Missing").isEmpty());
+        assertTrue(index.lookup("/c:Configuration/c:FeatureFlag/@missing").isEmpty());
+        // No namespace
+        assertTrue(index.lookup("/Configuration/MOTD/Message").isEmpty());
+    }
+
+    @Test
+    public void testNotSimple() {
+        // Element content
+        assertNull(index.lookup("/c:Configuration/c:MOTD"));
+        assertNull(index.lookup("//c:Message"));
+        assertNull(index.lookup("/c:Configuration/c:FeatureFlag[1]"));
+        assertNull(index.lookup("/c:Configuration/c:MOTD/c:Message/text()"));
+        assertNull(index.lookup("/c:Configuration/*"));
+        assertNull(index.lookup("/x:Configuration"));
+        assertNull(index.lookup("count(/c:Configuration)"));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.dom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Test of SimplePathWalker
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class SimplePathWalkerTest {
+
+    private Document document;
+
+    private NamespaceContext namespaceContext;
+
+    @Before
+    public void setup() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        document = factory.newDocumentBuilder().parse(getClass().getResourceAsStream("config.xml"));
+        namespaceContext = new DefaultNamespaceContext("c", "http://brekka.org/xml/stillingar/test/v1");
+    }
+
+    @Test
+    public void testChildSteps() {
+        List<Node> nodes = select("/c:Configuration/c:Services/c:Rules/c:Transaction/c:MaxQuantity", document);
+        assertEquals(1, nodes.size());
+        assertEquals("42", nodes.get(0).getTextContent());
+    }
+
+    @Test
+    public void testRepeated() {
+        List<Node> nodes = select("/c:Configuration/c:Services/c:Rules/c:Fraud/c:Keyword", document);
+        assertEquals(3, nodes.size());
+        assertEquals("KeywordA", nodes.get(0).getTextContent());
+        assertEquals("KeywordC", nodes.get(2).getTextContent());
+    }
+
+    @Test
+    public void testPosition() {
+        List<Node> nodes = select("/c:Configuration/c:Services/c:Rules/c:Fraud/c:Keyword[2]", document);
+        assertEquals(1, nodes.size());
+        assertEquals("KeywordB", nodes.get(0).getTextContent());
+        assertTrue(select("/c:Configuration/c:Services/c:Rules/c:Fraud/c:Keyword[4]", document).isEmpty());
+    }
+
+    @Test
+    public void testAttribute() {
+        List<Node> nodes = select("/c:Configuration/c:FeatureFlag[2]/@key", document);
+        assertEquals(1, nodes.size());
+        assertEquals("beta", nodes.get(0).getNodeValue());
+        assertEquals(2, select("/c:Configuration/c:FeatureFlag/@*", document).size());
+    }
+
+    @Test
+    public void testRelative() {
+        Node services = select("/c:Configuration/c:Services", document).get(0);
+        assertEquals(1, select("c:Rules/c:Transaction", services).size());
+        assertEquals(1, select("./c:Rules/c:Transaction", services).size());
+        // Absolute paths start from the document
+        assertEquals(1, select("/c:Configuration/c:Services", services).size());
+    }
+
+    @Test
+    public void testNotSimple() {
+        assertNull(SimplePathWalker.compile("//c:Keyword", namespaceContext));
+        assertNull(SimplePathWalker.compile("/c:Configuration/c:FeatureFlag[@key='beta']", namespaceContext));
+        assertNull(SimplePathWalker.compile("/c:Configuration/c:FeatureFlag[last()]", namespaceContext));
+        assertNull(SimplePathWalker.compile("/c:Configuration/c:MOTD/c:Message/text()", namespaceContext));
+        assertNull(SimplePathWalker.compile("/c:Configuration/@id/c:MOTD", namespaceContext));
+        assertNull(SimplePathWalker.compile("count(/c:Configuration)", namespaceContext));
+        assertNull(SimplePathWalker.compile("/x:Configuration", namespaceContext));
+    }
+
+    @Test
+    public void testExpressionCacheWalks() throws Exception {
+        XPathExpressionCache cache = new XPathExpressionCache();
+        String expression = "/c:Configuration/c:MOTD/c:References[3]";
+        NodeList walked = (NodeList) cache.evaluate(expression, namespaceContext, document, XPathConstants.NODESET);
+        assertEquals(1, walked.getLength());
+        assertEquals("bda39475-732f-46d5-88b7-593be1436e8d", walked.item(0).getTextContent());
+        // Not compiled by the XPath engine
+        assertEquals(0, cache.size());
+    }
+
+    private List<Node> select(String expression, Node context) {
+        SimplePathWalker walker = SimplePathWalker.compile(expression, namespaceContext);
+        assertNotNull(walker);
+        return walker.select(context);
+    }
+}
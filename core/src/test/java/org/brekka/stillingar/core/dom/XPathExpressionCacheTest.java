@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.dom;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Test of XPathExpressionCache
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class XPathExpressionCacheTest {
+
+    private Document document;
+
+    private NamespaceContext namespaceContext;
+
+    @Before
+    public void setup() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        document = factory.newDocumentBuilder().parse(getClass().getResourceAsStream("config.xml"));
+        namespaceContext = new DefaultNamespaceContext("c", "http://brekka.org/xml/stillingar/test/v1");
+    }
+
+    @Test
+    public void testEvaluateRetainsExpression() throws Exception {
+        XPathExpressionCache cache = new XPathExpressionCache();
+        assertEquals("42", cache.evaluate("//c:MaxQuantity", namespaceContext, document, XPathConstants.STRING));
+        assertEquals("42", cache.evaluate("//c:MaxQuantity", namespaceContext, document, XPathConstants.STRING));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testKeyedOnNamespaceContext() throws Exception {
+        XPathExpressionCache cache = new XPathExpressionCache();
+        NamespaceContext other = new DefaultNamespaceContext("c", "http://brekka.org/xml/stillingar/test/v1");
+        cache.evaluate("//c:MaxQuantity", namespaceContext, document, XPathConstants.STRING);
+        cache.evaluate("//c:MaxQuantity", other, document, XPathConstants.STRING);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        XPathExpressionCache cache = new XPathExpressionCache(1);
+        cache.evaluate("//c:MaxQuantity", namespaceContext, document, XPathConstants.STRING);
+        assertEquals("0.89", cache.evaluate("//c:TriggerFactor", namespaceContext, document, XPathConstants.STRING));
+        assertEquals(1, cache.size());
+    }
+
+    @Test(expected = XPathExpressionException.class)
+    public void testInvalidNotRetained() throws Exception {
+        XPathExpressionCache cache = new XPathExpressionCache();
+        try {
+            cache.evaluate("//c:MaxQuantity[", namespaceContext, document, XPathConstants.STRING);
+        } finally {
+            assertEquals(0, cache.size());
+        }
+    }
+}
@@ -57,6 +57,7 @@ public class PropertiesConfigurationSourceTest {
         p.setProperty("uriKey", "http://example.org/example");
         p.setProperty("localeKey", "en");
         p.setProperty("enumKey", "DAYS");
+        p.setProperty("intsKey", "1, -2,3 ");
         configurationSource = new PropertiesConfigurationSource(p);
     }
     
@@ -228,5 +229,24 @@ public class PropertiesConfigurationSourceTest {
     public void testRetrieveListNotFound() {
         assertEquals(Collections.emptyList(), configurationSource.retrieveList("nolistKey", String.class));
     }
-
+    
+    @Test
+    public void testRetrievePrimitives() {
+        assertEquals(256, configurationSource.retrieveInt("intKey"));
+        assertEquals(45678912312L, configurationSource.retrieveLong("longKey"));
+        assertEquals(85.69d, configurationSource.retrieveDouble("floatKey"), 0d);
+        assertTrue(configurationSource.retrieveBoolean("booleanKey"));
+    }
+    
+    @Test(expected = ConfigurationException.class)
+    public void testRetrievePrimitiveNotConvertible() {
+        configurationSource.retrieveInt("key1");
+    }
+    
+    @Test
+    public void testRetrieveArrays() {
+        assertArrayEquals(new int[] { 1, -2, 3 }, configurationSource.retrieve("intsKey", int[].class));
+        assertArrayEquals(new long[] { 45678912312L }, configurationSource.retrieve("longKey", long[].class));
+        assertArrayEquals(new String[] { "testA", "testB", "testC" }, configurationSource.retrieve("key2", String[].class));
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.brekka.stillingar.api.ValueLookup;
+import org.junit.Test;
+
+/**
+ * Test of ConvertedValueCache
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class ConvertedValueCacheTest {
+
+    @Test
+    public void testPutAndGet() {
+        ConvertedValueCache cache = new ConvertedValueCache();
+        assertSame(ConvertedValueCache.MISS, cache.get("/a", String.class));
+        cache.put("/a", String.class, "value");
+        cache.put("/b", String.class, null);
+        assertEquals("value", cache.get("/a", String.class));
+        assertNull(cache.get("/b", String.class));
+        assertSame(ConvertedValueCache.MISS, cache.get("/a", Integer.class));
+        assertSame(ConvertedValueCache.MISS, cache.getList("/a", String.class));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testMutableNotCached() {
+        ConvertedValueCache cache = new ConvertedValueCache();
+        cache.put("/a", Date.class, new Date());
+        cache.putList("/b", Object.class, Arrays.<Object>asList("a", new Date()));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testListCopied() {
+        ConvertedValueCache cache = new ConvertedValueCache();
+        cache.putList("/a", String.class, Arrays.asList("a", "b"));
+        @SuppressWarnings("unchecked")
+        List<String> list = (List<String>) cache.getList("/a", String.class);
+        list.clear();
+        assertEquals(Arrays.asList("a", "b"), cache.getList("/a", String.class));
+    }
+
+    @Test
+    public void testEmptyListNotCached() {
+        ConvertedValueCache cache = new ConvertedValueCache();
+        cache.putList("/a", String.class, Collections.emptyList());
+        assertSame(ConvertedValueCache.MISS, cache.getList("/a", String.class));
+        cache.putList("/a", String.class, ValueLookup.NOT_FOUND);
+        assertSame(ValueLookup.NOT_FOUND, cache.getList("/a", String.class));
+    }
+
+    @Test
+    public void testByType() {
+        ConvertedValueCache cache = new ConvertedValueCache();
+        cache.put(null, String.class, "value");
+        assertEquals("value", cache.get(null, String.class));
+        assertSame(ConvertedValueCache.MISS, cache.get("/a", String.class));
+    }
+
+    @Test
+    public void testMaxEntries() {
+        ConvertedValueCache cache = new ConvertedValueCache(1);
+        cache.put("/a", String.class, "a");
+        cache.put("/b", String.class, "b");
+        assertEquals(1, cache.size());
+        assertSame(ConvertedValueCache.MISS, cache.get("/b", String.class));
+    }
+}
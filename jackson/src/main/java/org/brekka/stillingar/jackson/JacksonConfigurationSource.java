@@ -25,10 +25,16 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import org.brekka.stillingar.api.ConcurrentReadCapable;
 import org.brekka.stillingar.api.ConfigurationSource;
 import org.brekka.stillingar.api.ValueConfigurationException;
+import org.brekka.stillingar.api.ValueLookup;
+import org.brekka.stillingar.core.DiffableConfigurationSource;
+import org.brekka.stillingar.core.PrimitiveValueLocator;
+import org.brekka.stillingar.core.SourceChanges;
 import org.brekka.stillingar.core.conversion.ConversionManager;
 import org.brekka.stillingar.core.support.BeanReflectionHelper;
+import org.brekka.stillingar.core.support.ConvertedValueCache;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -43,12 +49,15 @@ import com.jayway.jsonpath.ReadContext;
  *
  * @author Andrew Taylor
  */
-public class JacksonConfigurationSource implements ConfigurationSource {
+public class JacksonConfigurationSource implements DiffableConfigurationSource, ValueLookup, PrimitiveValueLocator,
+        ConcurrentReadCapable {
 
     private final ConversionManager conversionManager;
     private final ObjectMapper objectMapper;
     private final ReadContext jsonPathContext;
+    private final Object pathModel;
     private final BeanReflectionHelper reflectionHelper;
+    private final ConvertedValueCache convertedValueCache = new ConvertedValueCache();
     
     /**
      * @param value
@@ -59,6 +68,7 @@ public class JacksonConfigurationSource implements ConfigurationSource {
         this.objectMapper = objectMapper;
         Object pathNode = objectMapper.treeToValue(objectNode, Map.class);
         this.jsonPathContext = JsonPath.parse(pathNode);
+        this.pathModel = pathNode;
         
         BeanReflectionHelper helper = null;
         if (rootNodeClass != null) {
@@ -92,26 +102,36 @@ public class JacksonConfigurationSource implements ConfigurationSource {
      * @see org.brekka.stillingar.api.ConfigurationSource#retrieve(java.lang.String, java.lang.Class)
      */
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T retrieve(String expression, Class<T> valueType) {
-        Object retVal;
+        Object cached = convertedValueCache.get(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return (T) cached;
+        }
+        Object result = jsonPathContext.read(expression);
+        T value = resolveSingle(result, valueType, expression);
+        if (result != null) {
+            convertedValueCache.put(expression, valueType, value);
+        }
+        return value;
+    }
+    
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.ValueLookup#lookup(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookup(String expression, Class<?> valueType) {
+        Object cached = convertedValueCache.get(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return cached;
+        }
         Object result = jsonPathContext.read(expression);
         if (result == null) {
-            retVal = null;
-        } else if (result instanceof Collection<?>) {
-            Collection<?> coll = (Collection<?>) result;
-            if (coll.isEmpty()) {
-                retVal = null;
-            } else if (coll.size() == 1) {
-                retVal = coll.iterator().next();
-            } else {
-                throw new ValueConfigurationException(format(
-                        "Expected 1 value, found %d", coll.size()), valueType, expression);
-            }
-        } else {
-            retVal = result;
+            return NOT_FOUND;
         }
-        retVal = toObject(retVal, valueType);
-        return convert(valueType, retVal, expression);
+        Object value = resolveSingle(result, valueType, expression);
+        convertedValueCache.put(expression, valueType, value);
+        return value;
     }
 
     /* (non-Javadoc)
@@ -130,23 +150,36 @@ public class JacksonConfigurationSource implements ConfigurationSource {
      * @see org.brekka.stillingar.api.ConfigurationSource#retrieveList(java.lang.String, java.lang.Class)
      */
     @Override
+    @SuppressWarnings("unchecked")
     public <T> List<T> retrieveList(String expression, Class<T> valueType) {
+        Object cached = convertedValueCache.getList(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return (List<T>) cached;
+        }
         Object result = jsonPathContext.read(expression);
-        Collection<?> vals;
-        if (result instanceof Collection<?>) {
-            vals = (Collection<?>) result;
-        } else {
-            vals = Arrays.asList(result);
+        List<T> values = resolveList(result, valueType, expression);
+        if (result != null) {
+            convertedValueCache.putList(expression, valueType, values);
         }
-        List<T> results = new ArrayList<T>(vals.size());
-        for (Object object : vals) {
-            object = toObject(object, valueType);
-            T value = convert(valueType, object, expression);
-            if (value != null) {
-                results.add(value);
-            }
+        return values;
+    }
+    
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.ValueLookup#lookupList(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookupList(String expression, Class<?> valueType) {
+        Object cached = convertedValueCache.getList(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return cached;
         }
-        return results;
+        Object result = jsonPathContext.read(expression);
+        if (result == null) {
+            return NOT_FOUND;
+        }
+        List<?> values = resolveList(result, valueType, expression);
+        convertedValueCache.putList(expression, valueType, values);
+        return values;
     }
 
     /* (non-Javadoc)
@@ -162,6 +195,203 @@ public class JacksonConfigurationSource implements ConfigurationSource {
     }
     
 
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveInt(java.lang.String)
+     */
+    @Override
+    public int retrieveInt(String expression) {
+        return toInt(requirePrimitive(expression, Integer.TYPE), expression);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toInt(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public int toInt(Object value, String expression) {
+        try {
+            return conversionManager.convertToInt(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Conversion failure", Integer.TYPE, expression, e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveLong(java.lang.String)
+     */
+    @Override
+    public long retrieveLong(String expression) {
+        return toLong(requirePrimitive(expression, Long.TYPE), expression);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toLong(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public long toLong(Object value, String expression) {
+        try {
+            return conversionManager.convertToLong(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Conversion failure", Long.TYPE, expression, e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveDouble(java.lang.String)
+     */
+    @Override
+    public double retrieveDouble(String expression) {
+        return toDouble(requirePrimitive(expression, Double.TYPE), expression);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toDouble(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public double toDouble(Object value, String expression) {
+        try {
+            return conversionManager.convertToDouble(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Conversion failure", Double.TYPE, expression, e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveBoolean(java.lang.String)
+     */
+    @Override
+    public boolean retrieveBoolean(String expression) {
+        return toBoolean(requirePrimitive(expression, Boolean.TYPE), expression);
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toBoolean(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public boolean toBoolean(Object value, String expression) {
+        try {
+            return conversionManager.convertToBoolean(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Conversion failure", Boolean.TYPE, expression, e);
+        }
+    }
+
+    /**
+     * The json-path model is never modified after construction and the {@link ObjectMapper} is thread-safe, so
+     * concurrent reads are supported.
+     */
+    @Override
+    public boolean supportsConcurrentReads() {
+        return true;
+    }
+    
+    /**
+     * Compares the json-path models of the two sources, provided <code>previous</code> is also Jackson based.
+     */
+    @Override
+    public SourceChanges diff(ConfigurationSource previous) {
+        if (!(previous instanceof JacksonConfigurationSource)) {
+            return null;
+        }
+        return JsonPathChanges.diff(((JacksonConfigurationSource) previous).pathModel, pathModel);
+    }
+    
+    /**
+     * @return the cache of values converted from this source, for inspecting hit and miss counts.
+     */
+    public ConvertedValueCache getConvertedValueCache() {
+        return convertedValueCache;
+    }
+    
+    /**
+     * Convert the result of a json-path read that should identify a single value.
+     */
+    protected <T> T resolveSingle(Object result, Class<T> valueType, String expression) {
+        if (valueType.isArray()
+                && result instanceof Collection<?>
+                && !((Collection<?>) result).isEmpty()) {
+            // Convert the elements of a JSON array (or of multiple matches) straight into the array
+            Collection<?> coll = (Collection<?>) result;
+            Object only = (coll.size() == 1 ? coll.iterator().next() : null);
+            if (JsonPath.isPathDefinite(expression)) {
+                // The result is the JSON array itself, whatever its length
+                return convert(valueType, coll, expression);
+            } else if (only instanceof Collection<?>) {
+                // The single match is a JSON array
+                return convert(valueType, only, expression);
+            } else if (!(only instanceof CharSequence)) {
+                // Each match becomes an element, a single text match is converted as a whole below
+                return convert(valueType, coll, expression);
+            }
+        }
+        Object retVal = single(result, valueType, expression);
+        retVal = toObject(retVal, valueType);
+        return convert(valueType, retVal, expression);
+    }
+    
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#locatePrimitive(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object locatePrimitive(String expression, Class<?> primitiveType) {
+        Object value = single(jsonPathContext.read(expression), primitiveType, expression);
+        return (value != null ? value : NOT_FOUND);
+    }
+
+    /**
+     * Locate the value identified by <code>expression</code> that is to be converted to a primitive, which must exist.
+     */
+    protected Object requirePrimitive(String expression, Class<?> primitiveType) {
+        Object value = locatePrimitive(expression, primitiveType);
+        if (value == NOT_FOUND) {
+            throw new ValueConfigurationException("No value found matching expression", primitiveType, expression);
+        }
+        return value;
+    }
+    
+    /**
+     * Extract the single value from the result of a json-path read, which may be a collection of one.
+     */
+    private static Object single(Object result, Class<?> valueType, String expression) {
+        Object retVal;
+        if (result == null) {
+            retVal = null;
+        } else if (result instanceof Collection<?>) {
+            Collection<?> coll = (Collection<?>) result;
+            if (coll.isEmpty()) {
+                retVal = null;
+            } else if (coll.size() == 1) {
+                retVal = coll.iterator().next();
+            } else {
+                throw new ValueConfigurationException(format(
+                        "Expected 1 value, found %d", coll.size()), valueType, expression);
+            }
+        } else {
+            retVal = result;
+        }
+        return retVal;
+    }
+    
+    /**
+     * Convert each of the values returned by a json-path read.
+     */
+    protected <T> List<T> resolveList(Object result, Class<T> valueType, String expression) {
+        Collection<?> vals;
+        if (result instanceof Collection<?>) {
+            vals = (Collection<?>) result;
+        } else {
+            vals = Arrays.asList(result);
+        }
+        List<T> results = new ArrayList<T>(vals.size());
+        for (Object object : vals) {
+            object = toObject(object, valueType);
+            T value = convert(valueType, object, expression);
+            if (value != null) {
+                results.add(value);
+            }
+        }
+        return results;
+    }
+
     /**
      * @param retVal
      * @return
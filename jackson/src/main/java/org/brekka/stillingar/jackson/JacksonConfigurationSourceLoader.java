@@ -26,6 +26,7 @@ import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ConfigurationSource;
 import org.brekka.stillingar.api.ConfigurationSourceLoader;
 import org.brekka.stillingar.core.conversion.ConversionManager;
+import org.brekka.stillingar.core.conversion.DefaultConverters;
 import org.brekka.stillingar.core.conversion.TemporalAdapter;
 import org.brekka.stillingar.core.conversion.TypeConverter;
 import org.brekka.stillingar.core.conversion.TypeConverterListBuilder;
@@ -41,6 +42,16 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
  * @author Andrew Taylor
  */
 public class JacksonConfigurationSourceLoader implements ConfigurationSourceLoader {
+    
+    /**
+     * The default converters, prepared (and discovered) on first use.
+     */
+    private static final DefaultConverters DEFAULT_CONVERTERS = new DefaultConverters() {
+        @Override
+        protected List<TypeConverter<?>> prepare() {
+            return prepareConverters();
+        }
+    };
 
     private final ObjectMapper objectMapper;
     
@@ -60,8 +71,8 @@ public class JacksonConfigurationSourceLoader implements ConfigurationSourceLoad
         Objects.requireNonNull(objectMapper, "An object mapper is required");
         this.objectMapper = objectMapper;
         this.rootNodeClass = rootNodeClass;
-        this.conversionManager = conversionManager != null ? conversionManager : new ConversionManager(
-                prepareConverters());
+        this.conversionManager = conversionManager != null ? conversionManager 
+                : DEFAULT_CONVERTERS.newConversionManager();
     }
 
 
@@ -85,6 +96,15 @@ public class JacksonConfigurationSourceLoader implements ConfigurationSourceLoad
     }
     
     
+    /**
+     * The default converters, prepared (and discovered) once on first use and shared by all loaders relying on them.
+     * 
+     * @return the unmodifiable list of default converters.
+     */
+    public static List<TypeConverter<?>> defaultConverters() {
+        return DEFAULT_CONVERTERS.getConverters();
+    }
+    
     public static List<TypeConverter<?>> prepareConverters() {
         TemporalAdapter temporalAdapter = new TemporalAdapter();
         return new TypeConverterListBuilder(DOMConfigurationSourceLoader.prepareConverters(temporalAdapter))
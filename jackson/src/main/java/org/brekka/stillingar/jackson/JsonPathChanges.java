@@ -0,0 +1,201 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.brekka.stillingar.jackson;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.brekka.stillingar.core.SourceChanges;
+import org.brekka.stillingar.core.support.PathChanges;
+
+/**
+ * The {@link SourceChanges} between two JSON models (as nested {@link Map}s and {@link List}s). Changes are recorded
+ * against object properties only. Any difference within an array marks the whole array as changed, so array indexes
+ * and wildcards within expressions can safely be treated as optional steps. Expressions containing filters are always
+ * considered affected, as the properties a filter tests are not part of the path being matched.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+class JsonPathChanges extends PathChanges {
+
+    /**
+     * Determine the changes between two JSON models.
+     *
+     * @param previous
+     *            the previous model
+     * @param current
+     *            the current model
+     * @return the changes
+     */
+    static JsonPathChanges diff(Object previous, Object current) {
+        JsonPathChanges changes = new JsonPathChanges();
+        changes.compare(previous, current, new ArrayList<String>());
+        return changes;
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.support.PathChanges#toSteps(java.lang.String)
+     */
+    @Override
+    protected List<Step> toSteps(String expression) {
+        String path = expression.trim();
+        if (!path.startsWith("$")) {
+            return null;
+        }
+        List<Step> steps = new ArrayList<Step>();
+        int pos = 1;
+        int len = path.length();
+        while (pos < len) {
+            char c = path.charAt(pos);
+            if (c == '.') {
+                boolean descendant = path.startsWith("..", pos);
+                pos += (descendant ? 2 : 1);
+                int end = pos;
+                while (end < len && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                String name = path.substring(pos, end);
+                if (name.isEmpty()) {
+                    return null;
+                }
+                if (name.equals("*")) {
+                    if (descendant) {
+                        return null;
+                    }
+                    steps.add(new Step("", true, false, false));
+                } else {
+                    steps.add(new Step(name, false, descendant, false));
+                }
+                pos = end;
+            } else if (c == '[') {
+                int end = closingBracket(path, pos);
+                if (end < 0) {
+                    return null;
+                }
+                Step step = bracketStep(path.substring(pos + 1, end).trim());
+                if (step == null) {
+                    return null;
+                }
+                steps.add(step);
+                pos = end + 1;
+            } else {
+                return null;
+            }
+        }
+        return steps;
+    }
+
+    private void compare(Object previous, Object current, List<String> path) {
+        if (previous instanceof Map
+                && current instanceof Map) {
+            Map<?, ?> previousMap = (Map<?, ?>) previous;
+            Map<?, ?> currentMap = (Map<?, ?>) current;
+            Set<Object> keys = new LinkedHashSet<Object>(previousMap.keySet());
+            keys.addAll(currentMap.keySet());
+            for (Object key : keys) {
+                Object previousValue = previousMap.get(key);
+                Object currentValue = currentMap.get(key);
+                List<String> childPath = new ArrayList<String>(path);
+                childPath.add(String.valueOf(key));
+                if (previousMap.containsKey(key) != currentMap.containsKey(key)) {
+                    addDeepChange(childPath, previousValue, currentValue);
+                } else if (previousValue == null ? currentValue != null : !previousValue.equals(currentValue)) {
+                    compare(previousValue, currentValue, childPath);
+                }
+            }
+        } else if (previous == null ? current != null : !previous.equals(current)) {
+            addDeepChange(path, previous, current);
+        }
+    }
+
+    private void addDeepChange(List<String> path, Object previous, Object current) {
+        Set<String> descendantKeys = new HashSet<String>();
+        collectKeys(previous, descendantKeys);
+        collectKeys(current, descendantKeys);
+        addChange(path, descendantKeys);
+    }
+
+    private static void collectKeys(Object value, Set<String> keys) {
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                keys.add(String.valueOf(entry.getKey()));
+                collectKeys(entry.getValue(), keys);
+            }
+        } else if (value instanceof List) {
+            for (Object object : (List<?>) value) {
+                collectKeys(object, keys);
+            }
+        }
+    }
+
+    /**
+     * Interpret the contents of a bracket step.
+     */
+    private static Step bracketStep(String content) {
+        if (content.length() >= 2
+                && (content.charAt(0) == '\'' || content.charAt(0) == '"')
+                && content.charAt(content.length() - 1) == content.charAt(0)) {
+            String name = content.substring(1, content.length() - 1);
+            if (name.indexOf('\'') >= 0 || name.indexOf('"') >= 0) {
+                // Multiple names
+                return null;
+            }
+            return new Step(name, false, false, false);
+        }
+        if (content.equals("*")) {
+            // Either all array elements or all object properties
+            return new Step("", true, false, true);
+        }
+        if (content.startsWith("?")) {
+            return null;
+        }
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (!Character.isDigit(c) && c != '-' && c != ':' && c != ',' && c != ' ') {
+                return null;
+            }
+        }
+        // Array index or slice
+        return new Step("", true, false, true);
+    }
+
+    private static int closingBracket(String path, int start) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = start; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[' || c == '(') {
+                depth++;
+            } else if (c == ']' || c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return (c == ']' ? i : -1);
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -16,11 +16,13 @@
 
 package org.brekka.stillingar.jackson;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
@@ -209,7 +211,11 @@ public class JacksonConfigurationSourceTest {
     @Test
     public void testRetrieveCalendar() throws Exception {
         DateTime expected = new DateTime(2012, 12, 31, 12, 0, 0, 0);
-        assertEquals(expected.toCalendar(null), configurationSource.retrieve("$..expires", Calendar.class));
+        Calendar expectedCal = expected.toCalendar(null);
+        Calendar actual = configurationSource.retrieve("$..expires", Calendar.class);
+        // Compare instant and zone, the TimeZone implementation may differ from the one JodaTime produces
+        assertEquals(expectedCal.getTimeInMillis(), actual.getTimeInMillis());
+        assertEquals(expectedCal.getTimeZone().getID(), actual.getTimeZone().getID());
     }
     
     @Test
@@ -237,4 +243,28 @@ public class JacksonConfigurationSourceTest {
         configurationSource.retrieve("$..maxQuantity", URL.class);
     }
     
+    @Test
+    public void testRetrievePrimitives() throws Exception {
+        assertEquals(42, configurationSource.retrieveInt("$..maxQuantity"));
+        assertEquals(85697458963323L, configurationSource.retrieveLong("$..length"));
+        assertEquals(42d, configurationSource.retrieveDouble("$..maxQuantity"), 0d);
+        assertTrue(configurationSource.retrieveBoolean("$..fraud.enabled"));
+    }
+    
+    @Test
+    public void testRetrieveArray() throws Exception {
+        assertArrayEquals(new String[] { "KeywordA", "KeywordB", "KeywordC" }, 
+                configurationSource.retrieve("$..fraud.keyword", String[].class));
+    }
+    
+    @Test
+    public void testRetrieveSingleElementArray() throws Exception {
+        JacksonConfigurationSourceLoader loader = new JacksonConfigurationSourceLoader(new ObjectMapper(), null);
+        JacksonConfigurationSource source = (JacksonConfigurationSource) loader.parse(new ByteArrayInputStream(
+                "{\"one\": [8080], \"two\": [1, 2], \"nested\": {\"one\": [\"a\"]}}".getBytes("UTF-8")), null);
+        assertArrayEquals(new int[] { 8080 }, source.retrieve("$.one", int[].class));
+        assertArrayEquals(new int[] { 1, 2 }, source.retrieve("$.two", int[].class));
+        assertArrayEquals(new String[] { "a" }, source.retrieve("$..nested.one", String[].class));
+        assertArrayEquals(new String[] { "a" }, source.retrieve("$.nested.one", String[].class));
+    }
 }
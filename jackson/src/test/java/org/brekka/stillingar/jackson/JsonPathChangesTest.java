@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.jackson;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test of JsonPathChanges
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class JsonPathChangesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testIdentical() throws Exception {
+        JsonPathChanges changes = diff("{'a': {'b': 1}}", "{'a': {'b': 1}}");
+        assertTrue(changes.isEmpty());
+        assertFalse(changes.affects("$.a.b"));
+    }
+
+    @Test
+    public void testPropertyChange() throws Exception {
+        JsonPathChanges changes = diff(
+                "{'a': {'b': 1, 'c': 2}, 'd': 'x'}",
+                "{'a': {'b': 1, 'c': 3}, 'd': 'x'}");
+        assertTrue(changes.affects("$.a.c"));
+        assertTrue(changes.affects("$['a']['c']"));
+        assertTrue(changes.affects("$.a"));
+        assertTrue(changes.affects("$..c"));
+        assertTrue(changes.affects("$.a.*"));
+        assertFalse(changes.affects("$.a.b"));
+        assertFalse(changes.affects("$.d"));
+        assertFalse(changes.affects("$..b"));
+    }
+
+    @Test
+    public void testArrayChange() throws Exception {
+        JsonPathChanges changes = diff(
+                "{'list': [{'name': 'x'}, {'name': 'y'}], 'other': [1]}",
+                "{'list': [{'name': 'x'}, {'name': 'z'}], 'other': [1]}");
+        assertTrue(changes.affects("$.list[1].name"));
+        assertTrue(changes.affects("$.list[0].name"));
+        assertTrue(changes.affects("$.list[*].name"));
+        assertTrue(changes.affects("$.list[?(@.name == 'z')].name"));
+        assertFalse(changes.affects("$.list[*].value"));
+        assertFalse(changes.affects("$.other[0]"));
+        assertTrue(changes.affects("$.other[?(@ == $.list[0])]"));
+    }
+
+    @Test
+    public void testFilterTargetChange() throws Exception {
+        JsonPathChanges changes = diff(
+                "{'map': {'a': {'key': 'x', 'value': 1}}}",
+                "{'map': {'a': {'key': 'y', 'value': 1}}}");
+        assertTrue(changes.affects("$.map[?(@.key == 'x')].value"));
+        assertFalse(changes.affects("$.map.a.value"));
+    }
+
+    private JsonPathChanges diff(String previous, String current) throws Exception {
+        return JsonPathChanges.diff(toModel(previous), toModel(current));
+    }
+
+    private Object toModel(String json) throws Exception {
+        return objectMapper.readValue(json.replace('\'', '"'), Map.class);
+    }
+}
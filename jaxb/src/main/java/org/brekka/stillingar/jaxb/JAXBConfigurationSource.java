@@ -21,16 +21,28 @@ import static java.lang.String.format;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
+import javax.xml.bind.Binder;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlType;
 import javax.xml.namespace.NamespaceContext;
-import javax.xml.xpath.XPathConstants;
+import javax.xml.parsers.ParserConfigurationException;
 
+import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ValueConfigurationException;
 import org.brekka.stillingar.core.conversion.ConversionManager;
 import org.brekka.stillingar.core.dom.DOMConfigurationSource;
+import org.brekka.stillingar.core.dom.DocumentBuilderPool;
+import org.brekka.stillingar.core.dom.SimplePathIndex;
+import org.brekka.stillingar.core.dom.XPathExpressionCache;
 import org.brekka.stillingar.core.support.BeanReflectionHelper;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -51,6 +63,27 @@ public class JAXBConfigurationSource extends DOMConfigurationSource {
      */
     private final Object object;
     private final BeanReflectionHelper reflectionHelper;
+    
+    /**
+     * Associates the element nodes of the document with the JAXB objects unmarshalled from them (can be null). Copied
+     * from the binder when the source is created, as a binder is not safe for use by more than one thread.
+     */
+    private final Map<Node, Object> boundObjects;
+    
+    /**
+     * Used to marshal the object graph when the document is created on demand (null when the document was supplied).
+     */
+    private final JAXBContext jaxbContext;
+    
+    /**
+     * Provides the empty document into which the object graph is marshalled.
+     */
+    private final DocumentBuilderPool documentBuilders;
+    
+    /**
+     * The document created on demand from the object graph.
+     */
+    private volatile Document lazyDocument;
 
     /**
      * @param document
@@ -59,9 +92,170 @@ public class JAXBConfigurationSource extends DOMConfigurationSource {
      * @param conversionManager
      */
     public JAXBConfigurationSource(Document document, Object object, NamespaceContext xPathNamespaceContext, ConversionManager conversionManager) {
-        super(document, xPathNamespaceContext, conversionManager);
+        this(document, object, xPathNamespaceContext, conversionManager, new XPathExpressionCache());
+    }
+    
+    /**
+     * @param document
+     * @param object
+     * @param xPathNamespaceContext
+     * @param conversionManager
+     * @param xPathExpressionCache
+     */
+    public JAXBConfigurationSource(Document document, Object object, NamespaceContext xPathNamespaceContext, 
+            ConversionManager conversionManager, XPathExpressionCache xPathExpressionCache) {
+        this(document, object, xPathNamespaceContext, conversionManager, xPathExpressionCache, null);
+    }
+    
+    /**
+     * @param document
+     * @param object
+     * @param xPathNamespaceContext
+     * @param conversionManager
+     * @param xPathExpressionCache
+     * @param simplePathIndex
+     */
+    public JAXBConfigurationSource(Document document, Object object, NamespaceContext xPathNamespaceContext, 
+            ConversionManager conversionManager, XPathExpressionCache xPathExpressionCache, 
+            SimplePathIndex simplePathIndex) {
+        this(document, object, xPathNamespaceContext, conversionManager, xPathExpressionCache, simplePathIndex, null);
+    }
+    
+    /**
+     * @param document
+     * @param object
+     * @param xPathNamespaceContext
+     * @param conversionManager
+     * @param xPathExpressionCache
+     * @param simplePathIndex
+     * @param binder
+     *            the binder that unmarshalled <code>object</code> from <code>document</code>, used to find the object
+     *            for a node directly (can be null). The associations are copied from it, so it is not retained.
+     */
+    public JAXBConfigurationSource(Document document, Object object, NamespaceContext xPathNamespaceContext, 
+            ConversionManager conversionManager, XPathExpressionCache xPathExpressionCache, 
+            SimplePathIndex simplePathIndex, Binder<Node> binder) {
+        super(document, xPathNamespaceContext, conversionManager, xPathExpressionCache, simplePathIndex);
+        this.boundObjects = bindings(document, binder);
+        this.object = object;
+        this.reflectionHelper = new JAXBBeanReflectionHelper(object);
+        this.jaxbContext = null;
+        this.documentBuilders = null;
+    }
+    
+    /**
+     * Create a source that holds only the object graph. Simple paths to simple values are resolved directly from the
+     * object graph (see {@link JAXBObjectGraphPaths}). A document is only created, by marshalling the object graph,
+     * when some other expression is first evaluated, or a value of a JAXB type is requested by expression. It is
+     * marshalled without a binder, so JAXB objects are then found from the nodes by reflection.
+     * 
+     * @param object
+     *            the unmarshalled object graph
+     * @param jaxbContext
+     *            the context the object graph was unmarshalled with
+     * @param documentBuilders
+     *            provides the empty document into which the object graph is marshalled
+     * @param xPathNamespaceContext
+     * @param conversionManager
+     * @param xPathExpressionCache
+     */
+    public JAXBConfigurationSource(Object object, JAXBContext jaxbContext, DocumentBuilderPool documentBuilders,
+            NamespaceContext xPathNamespaceContext, ConversionManager conversionManager, 
+            XPathExpressionCache xPathExpressionCache) {
+        super(null, xPathNamespaceContext, conversionManager, xPathExpressionCache, null);
+        this.boundObjects = null;
         this.object = object;
         this.reflectionHelper = new JAXBBeanReflectionHelper(object);
+        this.jaxbContext = jaxbContext;
+        if (jaxbContext == null) {
+            throw new IllegalArgumentException("null passed for jaxbContext");
+        }
+        this.documentBuilders = documentBuilders;
+        if (documentBuilders == null) {
+            throw new IllegalArgumentException("null passed for documentBuilders");
+        }
+    }
+    
+    /**
+     * The document supplied on construction or, failing that, the document marshalled from the object graph on first
+     * use.
+     */
+    @Override
+    protected Document getDocument() {
+        Document document = super.getDocument();
+        if (document == null) {
+            document = lazyDocument;
+            if (document == null) {
+                document = marshalDocument();
+            }
+        }
+        return document;
+    }
+    
+    /**
+     * Where the document has not been created, a transient one is marshalled for the comparison rather than retaining
+     * it, so that the changes can still be determined (for changed-values-only refreshes) without every snapshot
+     * ending up holding a document.
+     */
+    @Override
+    protected Document getComparisonDocument() {
+        Document document = super.getDocument();
+        if (document == null) {
+            document = lazyDocument;
+            if (document == null) {
+                document = marshal();
+            }
+        }
+        return document;
+    }
+    
+    /**
+     * Until a document is created, simple paths are resolved directly from the object graph where possible.
+     */
+    @Override
+    protected List<String> indexedText(String expression, Class<?> valueType) {
+        if (jaxbContext != null
+                && isIndexable(valueType)) {
+            List<String> texts = JAXBObjectGraphPaths.lookup(object, expression, getXPathNamespaceContext());
+            if (texts != null) {
+                return texts;
+            }
+        }
+        return super.indexedText(expression, valueType);
+    }
+    
+    /**
+     * @return true if the source holds a document, either supplied on construction or created from the object graph.
+     */
+    boolean isDocumentAvailable() {
+        return super.getDocument() != null
+                || lazyDocument != null;
+    }
+    
+    /**
+     * Marshal the object graph into the document that will be retained by this source.
+     */
+    private synchronized Document marshalDocument() {
+        if (lazyDocument == null) {
+            lazyDocument = marshal();
+        }
+        return lazyDocument;
+    }
+    
+    /**
+     * Marshal the object graph into a new document.
+     */
+    private Document marshal() {
+        try {
+            Document document = documentBuilders.newDocument();
+            Marshaller marshaller = jaxbContext.createMarshaller();
+            marshaller.marshal(object, document);
+            return document;
+        } catch (JAXBException e) {
+            throw new ConfigurationException("Failed to create document from JAXB objects", e);
+        } catch (ParserConfigurationException e) {
+            throw new ConfigurationException("Failed to obtain XML parser", e);
+        }
     }
     
 
@@ -76,77 +270,70 @@ public class JAXBConfigurationSource extends DOMConfigurationSource {
     }
     
     /* (non-Javadoc)
-     * @see org.brekka.stillingar.core.dom.DOMConfigurationSource#retrieve(java.lang.String, java.lang.Class)
+     * @see org.brekka.stillingar.core.dom.DOMConfigurationSource#resolveSingle(org.w3c.dom.NodeList, java.lang.Class, java.lang.String)
      */
     @SuppressWarnings("unchecked")
     @Override
-    public <T> T retrieve(String expression, Class<T> valueType) {
+    protected <T> T resolveSingle(NodeList results, Class<T> valueType, String expression) {
         T retVal;
         if (isJaxb(valueType)) {
-            Object obj = doXPath(expression, XPathConstants.NODE, valueType);
-            if (obj instanceof Node) {
-                Node node = (Node) obj;
-                Object resolvedObject = toJaxbObject(node, valueType);
-                if (resolvedObject == null) {
-                    retVal = null;
-                } else if (valueType.isAssignableFrom(resolvedObject.getClass())) {
-                    retVal = (T) resolvedObject;
-                } else if (List.class.isAssignableFrom(resolvedObject.getClass())) {
-                    try {
-                        retVal = resolveValueFromList(node, (List<T>) resolvedObject);
-                    } catch (IllegalStateException e) {
-                        throw new ValueConfigurationException(format(
-                                "Failed identify correct element from list", resolvedObject.getClass().getName()
-                                ), valueType, expression, e);
-                    }
-                } else if (valueType.isPrimitive()
-                        && !resolvedObject.getClass().isPrimitive()) {
-                    retVal = (T) resolvedObject;
-                } else {
+            Node node = results.item(0);
+            Object resolvedObject = toJaxbObject(node, valueType);
+            if (resolvedObject == null) {
+                retVal = null;
+            } else if (valueType.isAssignableFrom(resolvedObject.getClass())) {
+                retVal = (T) resolvedObject;
+            } else if (List.class.isAssignableFrom(resolvedObject.getClass())) {
+                try {
+                    retVal = resolveValueFromList(node, (List<T>) resolvedObject);
+                } catch (IllegalStateException e) {
                     throw new ValueConfigurationException(format(
-                            "Unable to handle result type '%s'", resolvedObject.getClass().getName()
-                            ), valueType, expression);
+                            "Failed identify correct element from list", resolvedObject.getClass().getName()
+                            ), valueType, expression, e);
                 }
+            } else if (valueType.isPrimitive()
+                    && !resolvedObject.getClass().isPrimitive()) {
+                retVal = (T) resolvedObject;
             } else {
                 throw new ValueConfigurationException(format(
-                        "Result is not a single node, it is instead: '%s'", 
-                        obj.getClass().getName()), valueType, expression);
+                        "Unable to handle result type '%s'", resolvedObject.getClass().getName()
+                        ), valueType, expression);
             }
         } else {
-            retVal = super.retrieve(expression, valueType);
+            retVal = super.resolveSingle(results, valueType, expression);
         }
         return retVal;
     }
 
     /* (non-Javadoc)
-     * @see org.brekka.stillingar.core.dom.DOMConfigurationSource#retrieveList(java.lang.String, java.lang.Class)
+     * @see org.brekka.stillingar.core.dom.DOMConfigurationSource#resolveList(org.w3c.dom.NodeList, java.lang.Class, java.lang.String)
      */
     @SuppressWarnings("unchecked")
     @Override
-    public <T> List<T> retrieveList(String expression, Class<T> valueType) {
+    protected <T> List<T> resolveList(NodeList nodeList, Class<T> valueType, String expression) {
         List<T> valueList;
         if (isJaxb(valueType)) {
-            Object obj = doXPath(expression, XPathConstants.NODE, valueType);
-            if (obj instanceof Node) {
-                Node node = (Node) obj;
-                Object resolvedObject = toJaxbObject(node, valueType);
-                if (resolvedObject == null) {
-                    valueList = null;
-                } else if (List.class.isAssignableFrom(resolvedObject.getClass())) {
-                    valueList = (List<T>) resolvedObject;
-                } else {
-                    throw new ValueConfigurationException(format(
-                            "Unable to handle non-list based result type '%s'", 
-                            resolvedObject.getClass().getName()
-                            ), valueType, expression);
-                }
+            if (nodeList.getLength() == 0) {
+                return new ArrayList<T>(0);
+            }
+            List<T> boundList = boundList(nodeList, valueType);
+            if (boundList != null) {
+                return boundList;
+            }
+            Node node = nodeList.item(0);
+            Object resolvedObject = toJaxbObject(node, valueType);
+            if (resolvedObject == null) {
+                valueList = null;
+            } else if (List.class.isAssignableFrom(resolvedObject.getClass())) {
+                valueList = (List<T>) resolvedObject;
             } else {
                 throw new ValueConfigurationException(format(
-                        "Result is not a single node, it is instead: '%s'", 
-                        obj.getClass().getName()), valueType, expression);
+                        "Unable to handle non-list based result type '%s'", 
+                        resolvedObject.getClass().getName()
+                        ), valueType, expression);
             }
         } else {
-            valueList = super.retrieveList(expression, valueType);
+            valueList = super.resolveList(nodeList, valueType, expression);
         }
         return valueList;
     }
@@ -171,6 +358,15 @@ public class JAXBConfigurationSource extends DOMConfigurationSource {
         return reflectionHelper.findListOf(valueType);
     }
     
+    /**
+     * JAXB types are always resolved from the nodes.
+     */
+    @Override
+    protected boolean isIndexable(Class<?> valueType) {
+        return !isJaxb(valueType) 
+                && super.isIndexable(valueType);
+    }
+    
     protected boolean isJaxb(Class<?> valueType) {
         return valueType == byte[].class      // Force JAXB to handle byte arrays (limited support in DOM)
                 || valueType == Calendar.class // Force JAXB to handle Calendar (limited support in DOM)
@@ -208,6 +404,10 @@ public class JAXBConfigurationSource extends DOMConfigurationSource {
      * @return
      */
     protected Object resolveObject(Node node) {
+        Object bound = boundObject(node);
+        if (bound != null) {
+            return bound;
+        }
         Node parentNode = node.getParentNode();
         Object parentObj;
         if (parentNode instanceof Document) {
@@ -228,6 +428,71 @@ public class JAXBConfigurationSource extends DOMConfigurationSource {
         return value;
     }
     
+    /**
+     * Find the JAXB object unmarshalled from the node via the binder. Only nodes mapped to JAXB objects (rather than
+     * simple values) are associated.
+     * 
+     * @param node
+     *            the node
+     * @return the object or null if there is no binder, or the node has no associated object.
+     */
+    protected Object boundObject(Node node) {
+        if (boundObjects == null) {
+            return null;
+        }
+        return boundObjects.get(node);
+    }
+    
+    /**
+     * Find the JAXB objects for each of the nodes via the binder.
+     * 
+     * @return the objects or null if any node does not have an associated object of the expected type.
+     */
+    private <T> List<T> boundList(NodeList nodeList, Class<T> valueType) {
+        if (boundObjects == null) {
+            return null;
+        }
+        List<T> list = new ArrayList<T>(nodeList.getLength());
+        for (int i = 0; i < nodeList.getLength(); i++) {
+            Object bound = boundObject(nodeList.item(i));
+            if (!valueType.isInstance(bound)) {
+                return null;
+            }
+            list.add(valueType.cast(bound));
+        }
+        return list;
+    }
+    
+    /**
+     * Copy the associations held by the binder for each element of the document into an immutable map, which unlike
+     * the binder itself can be read by several threads at once.
+     * 
+     * @return the map of element to JAXB object, or null if there is no binder.
+     */
+    private static Map<Node, Object> bindings(Document document, Binder<Node> binder) {
+        if (binder == null) {
+            return null;
+        }
+        Map<Node, Object> bindings = new IdentityHashMap<Node, Object>();
+        bind(document.getDocumentElement(), binder, bindings);
+        return Collections.unmodifiableMap(bindings);
+    }
+    
+    private static void bind(Node node, Binder<Node> binder, Map<Node, Object> bindings) {
+        Object bound = binder.getJAXBNode(node);
+        if (bound instanceof JAXBElement) {
+            bound = ((JAXBElement<?>) bound).getValue();
+        }
+        if (bound != null) {
+            bindings.put(node, bound);
+        }
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                bind(child, binder, bindings);
+            }
+        }
+    }
+    
     /**
      * @param node
      * @param resolvedObject
@@ -23,12 +23,14 @@ import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.xml.bind.Binder;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
@@ -39,13 +41,18 @@ import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ConfigurationSource;
 import org.brekka.stillingar.api.ConfigurationSourceLoader;
 import org.brekka.stillingar.core.conversion.ConversionManager;
+import org.brekka.stillingar.core.conversion.DefaultConverters;
 import org.brekka.stillingar.core.conversion.TemporalAdapter;
 import org.brekka.stillingar.core.conversion.TypeConverter;
 import org.brekka.stillingar.core.conversion.TypeConverterListBuilder;
 import org.brekka.stillingar.core.dom.DOMConfigurationSourceLoader;
 import org.brekka.stillingar.core.dom.DefaultNamespaceContext;
+import org.brekka.stillingar.core.dom.DocumentBuilderPool;
+import org.brekka.stillingar.core.dom.SimplePathIndex;
+import org.brekka.stillingar.core.dom.XPathExpressionCache;
 import org.brekka.stillingar.jaxb.conversion.JAXBTemporalAdapter;
 import org.w3c.dom.Document;
+import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
 /**
@@ -55,6 +62,21 @@ import org.xml.sax.SAXException;
  */
 public class JAXBConfigurationSourceLoader implements ConfigurationSourceLoader {
     
+    /**
+     * The default converters, prepared (and discovered) on first use.
+     */
+    private static final DefaultConverters DEFAULT_CONVERTERS = new DefaultConverters() {
+        @Override
+        protected List<TypeConverter<?>> prepare() {
+            return prepareConverters();
+        }
+    };
+    
+    /**
+     * Maximum number of idle unmarshallers retained for reuse.
+     */
+    private static final int MAX_IDLE_UNMARSHALLERS = 4;
+    
     /**
      * The context path in which to look for the JAXB beans.
      */
@@ -75,12 +97,50 @@ public class JAXBConfigurationSourceLoader implements ConfigurationSourceLoader
      */
     private final ConversionManager conversionManager;
     
+    /**
+     * Compiled XPath expressions, shared by all sources produced by this loader.
+     */
+    private final XPathExpressionCache xPathExpressionCache = new XPathExpressionCache();
+    
+    /**
+     * Builders used to parse each document.
+     */
+    private final DocumentBuilderPool documentBuilders = new DocumentBuilderPool(true);
+    
+    /**
+     * Unmarshallers that are not currently in use, each already configured with the schema. Unmarshallers are not
+     * thread-safe, so each is borrowed for the duration of a single parse.
+     */
+    private final Queue<Unmarshaller> idleUnmarshallers = new ConcurrentLinkedQueue<Unmarshaller>();
+    
+    private final AtomicInteger idleUnmarshallerCount = new AtomicInteger();
+    
+    /**
+     * The JAXB context for {@link #contextPath}, created on first use.
+     */
+    private volatile JAXBContext jaxbContext;
+    
+    /**
+     * Whether to unmarshal via a {@link Binder}, so each node can be mapped directly to its JAXB object.
+     */
+    private boolean useBinder = true;
+    
+    /**
+     * Whether to unmarshal straight from the stream, only creating a document when an expression is evaluated.
+     */
+    private boolean lazyDocument = false;
+    
+    /**
+     * Whether each document should be indexed by simple path when loaded (see {@link SimplePathIndex}).
+     */
+    private boolean indexSimplePaths = false;
+    
     public JAXBConfigurationSourceLoader(String contextPath, List<URL> schemas) {
         this(contextPath, schemas, new DefaultNamespaceContext());
     }
     
     public JAXBConfigurationSourceLoader(String contextPath, List<URL> schemas, DefaultNamespaceContext namespaceContext) {
-        this(contextPath, schemas, namespaceContext, new ConversionManager(prepareConverters()));
+        this(contextPath, schemas, namespaceContext, DEFAULT_CONVERTERS.newConversionManager());
     }
     
     /**
@@ -128,21 +188,39 @@ public class JAXBConfigurationSourceLoader implements ConfigurationSourceLoader
      * @see org.brekka.stillingar.core.ConfigurationSourceLoader#parse(java.io.InputStream, java.nio.charset.Charset)
      */
     @Override
-    public synchronized ConfigurationSource parse(InputStream sourceStream, Charset encoding) throws ConfigurationException,
+    public ConfigurationSource parse(InputStream sourceStream, Charset encoding) throws ConfigurationException,
             IOException {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(xPathNamespaceContext != null);
-            DocumentBuilder documentBuilder = factory.newDocumentBuilder();
-            Document document = documentBuilder.parse(sourceStream);
-            JAXBContext jc = JAXBContext.newInstance(this.contextPath);
-            Unmarshaller u = jc.createUnmarshaller();
-            u.setSchema( this.schema );
-            Object object = u.unmarshal(document);
-            return new JAXBConfigurationSource(document, object, xPathNamespaceContext, conversionManager);
+            if (lazyDocument) {
+                Unmarshaller u = borrowUnmarshaller();
+                Object object = u.unmarshal(sourceStream);
+                releaseUnmarshaller(u);
+                return new JAXBConfigurationSource(object, context(), documentBuilders, xPathNamespaceContext, 
+                        conversionManager, xPathExpressionCache);
+            }
+            Document document = documentBuilders.parse(sourceStream);
+            Binder<Node> binder = null;
+            Object object;
+            if (useBinder) {
+                // Each binder holds the associations for a single document, so cannot be pooled
+                binder = context().createBinder();
+                binder.setSchema(this.schema);
+                object = binder.unmarshal(document);
+            } else {
+                Unmarshaller u = borrowUnmarshaller();
+                object = u.unmarshal(document);
+                // Only returned to the pool when the unmarshal succeeded
+                releaseUnmarshaller(u);
+            }
+            SimplePathIndex simplePathIndex = null;
+            if (indexSimplePaths) {
+                simplePathIndex = SimplePathIndex.build(document, xPathNamespaceContext);
+            }
+            return new JAXBConfigurationSource(document, object, xPathNamespaceContext, conversionManager, 
+                    xPathExpressionCache, simplePathIndex, binder);
         } catch (JAXBException e) {
             throw new ConfigurationException(String.format(
-                    "Failed to establish new JAXB context for path '%s'", this.contextPath), e);
+                    "Failed to unmarshal configuration for path '%s'", this.contextPath), e);
         } catch (SAXException e) {
             throw new ConfigurationException(String.format(
                     "Failed to obtain XML from resource"), e);
@@ -152,6 +230,90 @@ public class JAXBConfigurationSourceLoader implements ConfigurationSourceLoader
         }
     }
 
+    /**
+     * Index the text of each loaded document by simple path, so that expressions consisting only of child steps are
+     * resolved without XPath. Values of JAXB types are always resolved via the document. Off by default.
+     * 
+     * @param indexSimplePaths
+     *            true to index each document when it is loaded.
+     */
+    public void setIndexSimplePaths(boolean indexSimplePaths) {
+        this.indexSimplePaths = indexSimplePaths;
+    }
+
+    /**
+     * Unmarshal via a {@link Binder} so that each node of the document can be mapped directly to the JAXB object
+     * unmarshalled from it, regardless of its depth or position within a list. The associations are copied from the
+     * binder into an immutable map once the document is loaded, so they can be read safely by several threads, and
+     * add to the memory used by each snapshot. On by default.
+     * 
+     * @param useBinder
+     *            false to unmarshal using a plain (pooled) unmarshaller.
+     */
+    public void setUseBinder(boolean useBinder) {
+        this.useBinder = useBinder;
+    }
+    
+    /**
+     * Unmarshal straight from the stream (validating against the schemas in the same pass) rather than parsing a
+     * document first. Only the object graph is retained. Absolute paths of child steps to simple values are resolved
+     * directly from the object graph; a document is only marshalled from it (without a binder) and retained once
+     * some other expression, or an expression for a JAXB type, is evaluated against the source. When changes are
+     * determined for a changed-values-only refresh, a transient document is marshalled for each source that does not
+     * hold one, so refreshes cost an extra marshal but do not cause documents to be retained. Comments and whitespace
+     * from the original are not retained, and simple path indexing does not apply. Off by default.
+     * 
+     * @param lazyDocument
+     *            true to unmarshal straight from the stream.
+     */
+    public void setLazyDocument(boolean lazyDocument) {
+        this.lazyDocument = lazyDocument;
+    }
+    
+    /**
+     * Obtain an idle unmarshaller, or create a new one from the context.
+     */
+    private Unmarshaller borrowUnmarshaller() throws JAXBException {
+        Unmarshaller unmarshaller = idleUnmarshallers.poll();
+        if (unmarshaller != null) {
+            idleUnmarshallerCount.decrementAndGet();
+            return unmarshaller;
+        }
+        unmarshaller = context().createUnmarshaller();
+        unmarshaller.setSchema(this.schema);
+        return unmarshaller;
+    }
+    
+    private void releaseUnmarshaller(Unmarshaller unmarshaller) {
+        if (idleUnmarshallerCount.incrementAndGet() <= MAX_IDLE_UNMARSHALLERS) {
+            idleUnmarshallers.offer(unmarshaller);
+        } else {
+            idleUnmarshallerCount.decrementAndGet();
+        }
+    }
+    
+    /**
+     * The JAXB context is expensive to create, but thread-safe, so it is created once and shared by all parses.
+     */
+    private JAXBContext context() {
+        JAXBContext context = jaxbContext;
+        if (context == null) {
+            synchronized (this) {
+                context = jaxbContext;
+                if (context == null) {
+                    try {
+                        context = JAXBContext.newInstance(this.contextPath);
+                    } catch (JAXBException e) {
+                        throw new ConfigurationException(String.format(
+                                "Failed to establish new JAXB context for path '%s'", this.contextPath), e);
+                    }
+                    jaxbContext = context;
+                }
+            }
+        }
+        return context;
+    }
+
     private static void closeQuietly(Closeable closeable) {
         try {
             if (closeable != null) {
@@ -160,6 +322,15 @@ public class JAXBConfigurationSourceLoader implements ConfigurationSourceLoader
         } catch (IOException e) { }
     }
     
+    /**
+     * The default converters, prepared (and discovered) once on first use and shared by all loaders relying on them.
+     * 
+     * @return the unmodifiable list of default converters.
+     */
+    public static List<TypeConverter<?>> defaultConverters() {
+        return DEFAULT_CONVERTERS.getConverters();
+    }
+    
     public static List<TypeConverter<?>> prepareConverters() {
         TemporalAdapter temporalAdapter = new JAXBTemporalAdapter();
         return new TypeConverterListBuilder(DOMConfigurationSourceLoader.prepareConverters(temporalAdapter))
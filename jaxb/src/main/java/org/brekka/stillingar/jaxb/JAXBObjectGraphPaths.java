@@ -0,0 +1,354 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.jaxb;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlList;
+import javax.xml.bind.annotation.XmlNsForm;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSchema;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.bind.annotation.XmlValue;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.datatype.Duration;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+
+import org.brekka.stillingar.core.dom.SimplePath;
+import org.brekka.stillingar.core.support.BeanReflectionHelper;
+
+/**
+ * Resolves simple paths directly against a JAXB object graph, giving the text that the selected nodes would have were
+ * the graph marshalled to a document. Used by {@link JAXBConfigurationSource} to answer expressions without
+ * creating a document.
+ *
+ * Only absolute paths consisting of child steps over named elements are supported, optionally ending with an
+ * attribute. Each step must map to a field annotated with an explicitly named {@link XmlElement} or
+ * {@link XmlAttribute}, and the values selected must have a fixed lexical form (strings, numbers, booleans and XML
+ * dates/durations, or types holding one of these as their {@link XmlValue}). Anything else cannot be answered, in
+ * which case null is returned and the expression should be evaluated against the document instead.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+final class JAXBObjectGraphPaths {
+
+    /**
+     * Stands in for the name of a field whose name cannot be reliably determined.
+     */
+    private static final QName UNKNOWN = new QName("##unknown");
+
+    private static final String DEFAULT = "##default";
+
+    private JAXBObjectGraphPaths() {
+    }
+
+    /**
+     * Resolve the text of the values selected by <code>expression</code>.
+     *
+     * @param root
+     *            the root of the object graph (either a root element type, or a {@link JAXBElement}).
+     * @param expression
+     *            the expression
+     * @param namespaceContext
+     *            used to resolve the prefixes used within the expression
+     * @return the text of each value selected in document order (empty when nothing matches), or null if the
+     *         expression cannot be answered from the object graph.
+     */
+    static List<String> lookup(Object root, String expression, NamespaceContext namespaceContext) {
+        SimplePath path = SimplePath.parse(expression, namespaceContext);
+        if (path == null
+                || path.isText()
+                || !isSupported(path.getSteps())) {
+            return null;
+        }
+        List<SimplePath.Step> steps = path.getSteps();
+        Object rootValue = root;
+        QName rootName;
+        if (root instanceof JAXBElement) {
+            rootName = ((JAXBElement<?>) root).getName();
+            rootValue = ((JAXBElement<?>) root).getValue();
+        } else {
+            rootName = rootName(root.getClass());
+        }
+        if (rootName == UNKNOWN) {
+            return null;
+        }
+        List<Object> current = new ArrayList<Object>(1);
+        if (matches(steps.get(0), rootName)) {
+            current.add(rootValue);
+        }
+        for (int i = 1; i < steps.size() && !current.isEmpty(); i++) {
+            List<Object> next = new ArrayList<Object>();
+            for (Object value : current) {
+                if (!select(value, steps.get(i), next)) {
+                    return null;
+                }
+            }
+            current = next;
+        }
+        List<String> texts = new ArrayList<String>(current.size());
+        for (Object value : current) {
+            String text = textOf(value);
+            if (text == null) {
+                return null;
+            }
+            texts.add(text);
+        }
+        return texts;
+    }
+
+    private static boolean isSupported(List<SimplePath.Step> steps) {
+        if (steps.isEmpty()
+                || steps.get(0).isAttribute()) {
+            return false;
+        }
+        for (int i = 0; i < steps.size(); i++) {
+            SimplePath.Step step = steps.get(i);
+            if (step.isDescendant()
+                    || step.getLocalName() == null
+                    || !step.getPredicates().isEmpty()
+                    || (step.isAttribute() && i < steps.size() - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add the values of the children of <code>value</code> selected by <code>step</code> to <code>selected</code>.
+     *
+     * @return false if the children cannot be reliably identified.
+     */
+    private static boolean select(Object value, SimplePath.Step step, List<Object> selected) {
+        Class<?> type = value.getClass();
+        if (type.getAnnotation(XmlType.class) == null) {
+            // Simple values have neither child elements nor attributes
+            return print(value) != null;
+        }
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (isIgnored(field)) {
+                    continue;
+                }
+                QName name = (step.isAttribute() ? attributeName(field) : elementName(field));
+                if (name == UNKNOWN) {
+                    return false;
+                }
+                if (name == null
+                        || !matches(step, name)) {
+                    continue;
+                }
+                if (field.getAnnotation(XmlJavaTypeAdapter.class) != null
+                        || field.getAnnotation(XmlList.class) != null) {
+                    return false;
+                }
+                Object fieldValue = BeanReflectionHelper.extractFieldValue(value, field);
+                if (fieldValue instanceof List) {
+                    for (Object item : (List<?>) fieldValue) {
+                        if (!add(item, selected)) {
+                            return false;
+                        }
+                    }
+                } else if (!add(fieldValue, selected)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean add(Object value, List<Object> selected) {
+        if (value instanceof JAXBElement) {
+            // Could be nil, or of a different name to the field
+            return false;
+        }
+        if (value != null) {
+            selected.add(value);
+        }
+        return true;
+    }
+
+    private static boolean isIgnored(Field field) {
+        int modifiers = field.getModifiers();
+        return Modifier.isStatic(modifiers)
+                || Modifier.isTransient(modifiers)
+                || field.getAnnotation(XmlTransient.class) != null;
+    }
+
+    /**
+     * @return the name of the element the field maps to, null if it maps to an attribute or text, or
+     *         {@link #UNKNOWN}.
+     */
+    private static QName elementName(Field field) {
+        XmlElement element = field.getAnnotation(XmlElement.class);
+        if (element == null) {
+            return (isAttributeOrValue(field) ? null : UNKNOWN);
+        }
+        if (DEFAULT.equals(element.name())
+                || field.getAnnotation(XmlElementWrapper.class) != null) {
+            return UNKNOWN;
+        }
+        String namespaceURI = element.namespace();
+        if (DEFAULT.equals(namespaceURI)) {
+            XmlSchema schema = schemaOf(field.getDeclaringClass());
+            namespaceURI = (schema != null && schema.elementFormDefault() == XmlNsForm.QUALIFIED
+                    ? namespaceOf(field.getDeclaringClass()) : XMLConstants.NULL_NS_URI);
+        }
+        return new QName(namespaceURI, element.name());
+    }
+
+    /**
+     * @return the name of the attribute the field maps to, null if it maps to an element or text, or
+     *         {@link #UNKNOWN}.
+     */
+    private static QName attributeName(Field field) {
+        XmlAttribute attribute = field.getAnnotation(XmlAttribute.class);
+        if (attribute == null) {
+            return (field.getAnnotation(XmlElement.class) != null
+                    || field.getAnnotation(XmlValue.class) != null ? null : UNKNOWN);
+        }
+        if (DEFAULT.equals(attribute.name())) {
+            return UNKNOWN;
+        }
+        String namespaceURI = attribute.namespace();
+        if (DEFAULT.equals(namespaceURI)) {
+            XmlSchema schema = schemaOf(field.getDeclaringClass());
+            namespaceURI = (schema != null && schema.attributeFormDefault() == XmlNsForm.QUALIFIED
+                    ? schema.namespace() : XMLConstants.NULL_NS_URI);
+        }
+        return new QName(namespaceURI, attribute.name());
+    }
+
+    private static boolean isAttributeOrValue(Field field) {
+        return field.getAnnotation(XmlAttribute.class) != null
+                || field.getAnnotation(XmlValue.class) != null;
+    }
+
+    private static QName rootName(Class<?> type) {
+        XmlRootElement rootElement = type.getAnnotation(XmlRootElement.class);
+        if (rootElement == null
+                || DEFAULT.equals(rootElement.name())) {
+            return UNKNOWN;
+        }
+        String namespaceURI = rootElement.namespace();
+        if (DEFAULT.equals(namespaceURI)) {
+            XmlSchema schema = schemaOf(type);
+            namespaceURI = (schema != null ? schema.namespace() : XMLConstants.NULL_NS_URI);
+        }
+        return new QName(namespaceURI, rootElement.name());
+    }
+
+    /**
+     * The namespace of the type declaring a field, which qualified elements inherit.
+     */
+    private static String namespaceOf(Class<?> type) {
+        XmlType xmlType = type.getAnnotation(XmlType.class);
+        if (xmlType != null
+                && !DEFAULT.equals(xmlType.namespace())) {
+            return xmlType.namespace();
+        }
+        XmlSchema schema = schemaOf(type);
+        return (schema != null ? schema.namespace() : XMLConstants.NULL_NS_URI);
+    }
+
+    private static XmlSchema schemaOf(Class<?> type) {
+        Package typePackage = type.getPackage();
+        return (typePackage != null ? typePackage.getAnnotation(XmlSchema.class) : null);
+    }
+
+    private static boolean matches(SimplePath.Step step, QName name) {
+        return step.getLocalName().equals(name.getLocalPart())
+                && (step.getNamespaceURI() == null
+                        || step.getNamespaceURI().equals(name.getNamespaceURI()));
+    }
+
+    /**
+     * The text of a selected value, including that of types mapped to simple content.
+     *
+     * @return the text or null if it cannot be determined.
+     */
+    private static String textOf(Object value) {
+        Class<?> type = value.getClass();
+        if (type.getAnnotation(XmlType.class) == null) {
+            return print(value);
+        }
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getAnnotation(XmlValue.class) != null) {
+                    if (field.getAnnotation(XmlJavaTypeAdapter.class) != null) {
+                        return null;
+                    }
+                    Object fieldValue = BeanReflectionHelper.extractFieldValue(value, field);
+                    return (fieldValue == null ? "" : print(fieldValue));
+                }
+            }
+        }
+        // Element content
+        return null;
+    }
+
+    /**
+     * Print the value in its XML lexical form, as JAXB would when marshalling it.
+     *
+     * @return the text or null if the value is not of a type with a fixed lexical form.
+     */
+    private static String print(Object value) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Boolean) {
+            return DatatypeConverter.printBoolean((Boolean) value);
+        }
+        if (value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte
+                || value instanceof BigInteger) {
+            return value.toString();
+        }
+        if (value instanceof BigDecimal) {
+            return DatatypeConverter.printDecimal((BigDecimal) value);
+        }
+        if (value instanceof Double) {
+            return DatatypeConverter.printDouble((Double) value);
+        }
+        if (value instanceof Float) {
+            return DatatypeConverter.printFloat((Float) value);
+        }
+        if (value instanceof XMLGregorianCalendar) {
+            return ((XMLGregorianCalendar) value).toXMLFormat();
+        }
+        if (value instanceof Duration) {
+            return value.toString();
+        }
+        return null;
+    }
+}
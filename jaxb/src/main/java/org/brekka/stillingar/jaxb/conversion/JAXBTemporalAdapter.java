@@ -18,8 +18,11 @@ package org.brekka.stillingar.jaxb.conversion;
 
 import java.util.Calendar;
 
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.Duration;
 import javax.xml.datatype.XMLGregorianCalendar;
 
+import org.brekka.stillingar.core.conversion.IsoTemporal;
 import org.brekka.stillingar.core.conversion.TemporalAdapter;
 
 /**
@@ -44,4 +47,48 @@ public class JAXBTemporalAdapter extends TemporalAdapter {
         }
         return value;
     }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.TemporalAdapter#toIsoTemporal(java.lang.Object, java.lang.Class)
+     */
+    @Override
+    public IsoTemporal toIsoTemporal(Object obj, Class<?> expectedType) {
+        IsoTemporal value;
+        if (obj instanceof XMLGregorianCalendar) {
+            XMLGregorianCalendar xCal = (XMLGregorianCalendar) obj;
+            boolean hasDate = xCal.getYear() != DatatypeConstants.FIELD_UNDEFINED;
+            boolean hasTime = xCal.getHour() != DatatypeConstants.FIELD_UNDEFINED;
+            boolean hasOffset = xCal.getTimezone() != DatatypeConstants.FIELD_UNDEFINED;
+            int nano = 0;
+            if (xCal.getFractionalSecond() != null) {
+                nano = xCal.getFractionalSecond().movePointRight(9).intValue();
+            }
+            value = new IsoTemporal(hasDate, 
+                    hasDate ? xCal.getYear() : 1970, 
+                    hasDate ? xCal.getMonth() : 1, 
+                    hasDate ? xCal.getDay() : 1, 
+                    hasTime, 
+                    hasTime ? xCal.getHour() : 0, 
+                    hasTime ? xCal.getMinute() : 0, 
+                    hasTime && xCal.getSecond() != DatatypeConstants.FIELD_UNDEFINED ? xCal.getSecond() : 0, 
+                    nano, 
+                    hasOffset, 
+                    hasOffset ? xCal.getTimezone() * 60 : 0, 
+                    null);
+        } else {
+            value = super.toIsoTemporal(obj, expectedType);
+        }
+        return value;
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.TemporalAdapter#toText(java.lang.Object, java.lang.Class)
+     */
+    @Override
+    public String toText(Object obj, Class<?> expectedType) {
+        if (obj instanceof Duration) {
+            return obj.toString();
+        }
+        return super.toText(obj, expectedType);
+    }
 }
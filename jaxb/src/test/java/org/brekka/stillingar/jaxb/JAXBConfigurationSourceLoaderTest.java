@@ -0,0 +1,166 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.jaxb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.brekka.stillingar.api.ConfigurationSource;
+import org.brekka.stillingar.core.SourceChanges;
+import org.brekka.stillingar.core.dom.DefaultNamespaceContext;
+import org.brekka.stillingar.test.jaxb.Configuration;
+import org.brekka.stillingar.test.jaxb.Configuration.Services.Rules;
+import org.junit.Test;
+
+/**
+ * Test of JAXBConfigurationSourceLoader
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class JAXBConfigurationSourceLoaderTest {
+
+    private static final String MAX_QUANTITY = "/c:Configuration/c:Services/c:Rules/c:Transaction/c:MaxQuantity";
+
+    private final JAXBConfigurationSourceLoader loader = new JAXBConfigurationSourceLoader(
+            "org.brekka.stillingar.test.jaxb", Collections.<URL>emptyList(), 
+            new DefaultNamespaceContext("c", "http://brekka.org/xml/stillingar/test/v1"));
+
+    @Test
+    public void testParseRepeatedly() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertMaxQuantity(parse());
+        }
+    }
+
+    @Test
+    public void testParseConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ConfigurationSource>> results = new ArrayList<Future<ConfigurationSource>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<ConfigurationSource>() {
+                    @Override
+                    public ConfigurationSource call() throws Exception {
+                        return parse();
+                    }
+                }));
+            }
+            for (Future<ConfigurationSource> result : results) {
+                assertMaxQuantity(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseLazyDocument() throws Exception {
+        loader.setLazyDocument(true);
+        JAXBConfigurationSource configurationSource = (JAXBConfigurationSource) parse();
+        Configuration configuration = configurationSource.retrieve(Configuration.class);
+        // Simple paths are resolved from the object graph
+        assertEquals(Integer.valueOf(42), configurationSource.retrieve(MAX_QUANTITY, Integer.class));
+        assertEquals(42, configurationSource.retrieveInt(MAX_QUANTITY));
+        assertEquals(new BigDecimal("50000.73"), configurationSource.retrieve(
+                "/c:Configuration/c:Services/c:Rules/c:Transaction/c:MaxAmount", BigDecimal.class));
+        assertEquals(0.89f, configurationSource.retrieve(
+                "/c:Configuration/c:Services/c:Rules/c:Fraud/c:TriggerFactor", Float.class), 0f);
+        assertEquals(Arrays.asList("KeywordA", "KeywordB", "KeywordC"), configurationSource.retrieveList(
+                "/c:Configuration/c:Services/c:Rules/c:Fraud/c:Keyword", String.class));
+        assertEquals(Arrays.asList("alpha", "beta"), 
+                configurationSource.retrieveList("/c:Configuration/c:FeatureFlag/@key", String.class));
+        assertEquals(Arrays.asList(Boolean.TRUE, Boolean.TRUE), 
+                configurationSource.retrieveList("/c:Configuration/c:FeatureFlag", Boolean.class));
+        assertEquals(LocalDateTime.of(2012, 12, 31, 12, 0), 
+                configurationSource.retrieve("/c:Configuration/c:MOTD/c:Expires", LocalDateTime.class));
+        assertTrue(configurationSource.isAvailable("/c:Configuration/c:MOTD/c:Message"));
+        assertFalse(configurationSource.isAvailable("/c:Configuration/c:CompanyX"));
+        assertFalse(configurationSource.isDocumentAvailable());
+
+        // The document is marshalled from the same object graph for anything else
+        Rules rules = configurationSource.retrieve("/c:Configuration/c:Services/c:Rules", Rules.class);
+        assertSame(configuration.getServices().getRules(), rules);
+        assertTrue(configurationSource.isDocumentAvailable());
+        assertEquals(Integer.valueOf(42), configurationSource.retrieve("//c:MaxQuantity", Integer.class));
+    }
+
+    @Test
+    public void testLazyDocumentDiff() throws Exception {
+        loader.setLazyDocument(true);
+        JAXBConfigurationSource previous = (JAXBConfigurationSource) parse();
+        SourceChanges changes = ((JAXBConfigurationSource) parse()).diff(previous);
+        assertNotNull(changes);
+        assertTrue(changes.isEmpty());
+
+        String xml = read("TestConfiguration.xml").replace("<MaxQuantity>42</MaxQuantity>", 
+                "<MaxQuantity>43</MaxQuantity>");
+        JAXBConfigurationSource latest = (JAXBConfigurationSource) loader.parse(
+                new ByteArrayInputStream(xml.getBytes("UTF-8")), null);
+        changes = latest.diff(previous);
+        assertTrue(changes.affects(MAX_QUANTITY));
+        assertFalse(changes.affects("/c:Configuration/c:MOTD/c:Message"));
+        // The documents compared are not retained
+        assertFalse(previous.isDocumentAvailable());
+        assertFalse(latest.isDocumentAvailable());
+
+        // Nor does it matter whether one of the sources already has its document
+        previous.retrieve("/c:Configuration/c:Services/c:Rules", Rules.class);
+        assertTrue(latest.diff(previous).affects(MAX_QUANTITY));
+    }
+
+    private ConfigurationSource parse() throws Exception {
+        return loader.parse(getClass().getResourceAsStream("TestConfiguration.xml"), null);
+    }
+
+    private String read(String resource) throws Exception {
+        InputStream is = getClass().getResourceAsStream(resource);
+        try {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                os.write(buffer, 0, read);
+            }
+            return os.toString("UTF-8");
+        } finally {
+            is.close();
+        }
+    }
+
+    private static void assertMaxQuantity(ConfigurationSource configurationSource) {
+        Rules rules = configurationSource.retrieve("/c:Configuration/c:Services/c:Rules", Rules.class);
+        assertEquals(42, rules.getTransaction().getMaxQuantity());
+    }
+}
@@ -19,12 +19,14 @@ package org.brekka.stillingar.jaxb;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
@@ -33,6 +35,7 @@ import java.util.Locale;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import javax.xml.bind.Binder;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.parsers.DocumentBuilder;
@@ -42,6 +45,8 @@ import net.iharder.Base64;
 
 import org.brekka.stillingar.core.conversion.ConversionManager;
 import org.brekka.stillingar.core.dom.DefaultNamespaceContext;
+import org.brekka.stillingar.core.dom.XPathExpressionCache;
+import org.brekka.stillingar.test.jaxb.Configuration;
 import org.brekka.stillingar.test.jaxb.Configuration.CompanyX;
 import org.brekka.stillingar.test.jaxb.Configuration.CompanyY;
 import org.brekka.stillingar.test.jaxb.Configuration.FeatureFlag;
@@ -51,6 +56,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 /**
  * Test of JAXBConfigurationSource
@@ -262,4 +268,63 @@ public class JAXBConfigurationSourceTest {
         Document document = configurationSource.retrieve("//c:ApplicationContext/b:beans", Document.class);
         assertEquals("beans", document.getDocumentElement().getLocalName());
     }
+    
+    @Test
+    public void testRetrieveLocalDateTime() throws Exception {
+        assertEquals(LocalDateTime.of(2012, 12, 31, 12, 0), configurationSource.retrieve("//c:Expires", LocalDateTime.class));
+    }
+    
+    @Test
+    public void testBinderRetrieveFromList() throws Exception {
+        JAXBConfigurationSource source = binderSource();
+        FeatureFlag flag = source.retrieve("//c:FeatureFlag[@key='beta']", FeatureFlag.class);
+        assertEquals("beta", flag.getKey());
+        List<FeatureFlag> flags = source.retrieveList("//c:FeatureFlag[@key='beta']", FeatureFlag.class);
+        assertEquals(1, flags.size());
+        assertEquals("beta", flags.get(0).getKey());
+        assertEquals(2, source.retrieveList("//c:FeatureFlag", FeatureFlag.class).size());
+    }
+    
+    @Test
+    public void testBinderRetrieveNested() throws Exception {
+        JAXBConfigurationSource source = binderSource();
+        Fraud fraud = source.retrieve("/c:Configuration/c:Services/c:Rules/c:Fraud", Fraud.class);
+        assertEquals(3, fraud.getKeyword().size());
+        // Simple values are not associated by the binder
+        assertEquals(Integer.valueOf(42), source.retrieve("//c:MaxQuantity", Integer.class));
+    }
+    
+    @Test
+    public void testBinderAssociationsCopied() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        DocumentBuilder documentBuilder = factory.newDocumentBuilder();
+        Document document = documentBuilder.parse(getClass().getResourceAsStream("TestConfiguration.xml"));
+        Binder<Node> binder = JAXBContext.newInstance("org.brekka.stillingar.test.jaxb").createBinder();
+        Configuration configuration = (Configuration) binder.unmarshal(document);
+        JAXBConfigurationSource source = new JAXBConfigurationSource(document, configuration, 
+                new DefaultNamespaceContext("c", "http://brekka.org/xml/stillingar/test/v1"), 
+                new ConversionManager(JAXBConfigurationSourceLoader.prepareConverters()), 
+                new XPathExpressionCache(), null, binder);
+        // Reusing the binder replaces its associations, which must not affect the source
+        binder.unmarshal(documentBuilder.parse(getClass().getResourceAsStream("TestConfiguration.xml")));
+        
+        Node fraudNode = document.getElementsByTagNameNS("*", "Fraud").item(0);
+        assertSame(configuration.getServices().getRules().getFraud(), source.boundObject(fraudNode));
+        assertSame(configuration.getFeatureFlag().get(1), 
+                source.retrieve("//c:FeatureFlag[@key='beta']", FeatureFlag.class));
+    }
+    
+    private JAXBConfigurationSource binderSource() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder().parse(getClass().getResourceAsStream("TestConfiguration.xml"));
+        Binder<Node> binder = JAXBContext.newInstance("org.brekka.stillingar.test.jaxb").createBinder();
+        Object object = binder.unmarshal(document);
+        DefaultNamespaceContext namespaceContext = new DefaultNamespaceContext(
+            "c", "http://brekka.org/xml/stillingar/test/v1");
+        return new JAXBConfigurationSource(document, object, namespaceContext, 
+                new ConversionManager(JAXBConfigurationSourceLoader.prepareConverters()), 
+                new XPathExpressionCache(), null, binder);
+    }
 }
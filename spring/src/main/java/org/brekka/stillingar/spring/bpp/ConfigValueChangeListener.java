@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.spring.bpp;
+
+import java.lang.reflect.Field;
+
+import org.brekka.stillingar.api.ConfigValue;
+
+/**
+ * Change listener for a field declared as a {@link ConfigValue} (or one of its primitive counterparts). The field is
+ * assigned a {@link ConfigValueSlot} the first time the listener is called, after which changes are applied to the
+ * slot without touching the field again.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+class ConfigValueChangeListener<T extends Object> extends InvocationChangeListenerSupport<T> {
+
+    /**
+     * The field that holds the slot
+     */
+    private final Field field;
+
+    /**
+     * The slot assigned to the field of the registered bean. Prototype beans are passed in on each change and are
+     * assigned their own slot.
+     */
+    private volatile ConfigValueSlot slot;
+
+    /**
+     * @param field
+     *            the field that will hold the slot
+     * @param target
+     *            The object containing the field.
+     * @param expectedValueType
+     *            The type of the value that is expected.
+     * @param list
+     *            Determines whether the value is a list (true if it is)
+     */
+    public ConfigValueChangeListener(Field field, Object target, Class<?> expectedValueType, boolean list) {
+        super(target, expectedValueType, list, "Field");
+        if (field == null) {
+            throw new IllegalArgumentException("Field may not be null");
+        }
+        this.field = field;
+    }
+
+    /**
+     * Apply the value to the slot of the target, assigning the slot first if necessary.
+     */
+    @Override
+    public void onChange(T newValue, T oldValue, Object target) {
+        ConfigValueSlot current = slot;
+        if (current == null
+                || target != getReferent()) {
+            current = assignSlot(target, newValue);
+            if (target == getReferent()) {
+                slot = current;
+            }
+        }
+        if (newValue == null) {
+            // There is no value (should be a @Configured(required=false)), leave the slot as it is.
+            return;
+        }
+        try {
+            current.set(newValue);
+        } catch (ClassCastException e) {
+            throwError(field.getName(), newValue, e);
+        }
+    }
+
+    /**
+     * Obtain the slot held by the field of <code>target</code>, assigning a new one if it does not have one yet.
+     */
+    private ConfigValueSlot assignSlot(Object target, T newValue) {
+        ConfigValueSlot assigned = null;
+        try {
+            if (!field.isAccessible()) {
+                field.setAccessible(true);
+            }
+            Object existing = field.get(target);
+            if (existing instanceof ConfigValueSlot) {
+                assigned = (ConfigValueSlot) existing;
+            } else {
+                assigned = ConfigValueSlot.create(field.getType());
+                field.set(target, assigned);
+            }
+        } catch (IllegalAccessException e) {
+            throwError(field.getName(), newValue, e);
+        }
+        return assigned;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.spring.bpp;
+
+import org.brekka.stillingar.api.BooleanConfigValue;
+import org.brekka.stillingar.api.ConfigValue;
+import org.brekka.stillingar.api.DoubleConfigValue;
+import org.brekka.stillingar.api.IntConfigValue;
+import org.brekka.stillingar.api.LongConfigValue;
+
+/**
+ * The implementations of {@link ConfigValue} and its primitive counterparts that are injected into configured fields.
+ * Each holds its value in a volatile field that is updated when the configuration changes.
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+abstract class ConfigValueSlot {
+
+    /**
+     * Apply a new value.
+     *
+     * @param value
+     *            the value, never null.
+     */
+    abstract void set(Object value);
+
+    /**
+     * Determine whether a field of the specified type should be injected with a slot.
+     *
+     * @param fieldType
+     *            the type of the field
+     * @return true if the field is a {@link ConfigValue} or one of its primitive counterparts.
+     */
+    static boolean isSlotType(Class<?> fieldType) {
+        return fieldType == ConfigValue.class
+            || primitiveValueType(fieldType) != null;
+    }
+
+    /**
+     * The type of value held by a primitive slot type.
+     *
+     * @param fieldType
+     *            the type of the field
+     * @return the wrapper type of the primitive value, or null if the field is not a primitive slot type.
+     */
+    static Class<?> primitiveValueType(Class<?> fieldType) {
+        if (fieldType == IntConfigValue.class) {
+            return Integer.class;
+        } else if (fieldType == LongConfigValue.class) {
+            return Long.class;
+        } else if (fieldType == DoubleConfigValue.class) {
+            return Double.class;
+        } else if (fieldType == BooleanConfigValue.class) {
+            return Boolean.class;
+        }
+        return null;
+    }
+
+    /**
+     * Create a new slot that can be assigned to a field of the specified type.
+     *
+     * @param fieldType
+     *            the type of the field
+     * @return the new slot
+     */
+    static ConfigValueSlot create(Class<?> fieldType) {
+        if (fieldType == IntConfigValue.class) {
+            return new IntSlot();
+        } else if (fieldType == LongConfigValue.class) {
+            return new LongSlot();
+        } else if (fieldType == DoubleConfigValue.class) {
+            return new DoubleSlot();
+        } else if (fieldType == BooleanConfigValue.class) {
+            return new BooleanSlot();
+        }
+        return new ObjectSlot();
+    }
+
+    static final class ObjectSlot extends ConfigValueSlot implements ConfigValue<Object> {
+        private volatile Object value;
+
+        @Override
+        public Object get() {
+            return value;
+        }
+
+        @Override
+        void set(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    static final class IntSlot extends ConfigValueSlot implements IntConfigValue {
+        private volatile int value;
+
+        @Override
+        public int get() {
+            return value;
+        }
+
+        @Override
+        void set(Object value) {
+            this.value = ((Number) value).intValue();
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    static final class LongSlot extends ConfigValueSlot implements LongConfigValue {
+        private volatile long value;
+
+        @Override
+        public long get() {
+            return value;
+        }
+
+        @Override
+        void set(Object value) {
+            this.value = ((Number) value).longValue();
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    static final class DoubleSlot extends ConfigValueSlot implements DoubleConfigValue {
+        private volatile double value;
+
+        @Override
+        public double get() {
+            return value;
+        }
+
+        @Override
+        void set(Object value) {
+            this.value = ((Number) value).doubleValue();
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    static final class BooleanSlot extends ConfigValueSlot implements BooleanConfigValue {
+        private volatile boolean value;
+
+        @Override
+        public boolean get() {
+            return value;
+        }
+
+        @Override
+        void set(Object value) {
+            this.value = ((Boolean) value).booleanValue();
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+}
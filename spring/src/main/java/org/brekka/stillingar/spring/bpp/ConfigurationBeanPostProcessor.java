@@ -300,7 +300,9 @@ public class ConfigurationBeanPostProcessor implements BeanPostProcessor, BeanFa
     }
 
     /**
-     * Encapsulates a field in a {@link ValueDefinition} so that it can be registered for updates.
+     * Encapsulates a field in a {@link ValueDefinition} so that it can be registered for updates. Fields declared as a
+     * {@link org.brekka.stillingar.api.ConfigValue} (or primitive counterpart) are assigned a handle once, with
+     * subsequent updates applied to the handle.
      * 
      * @param field
      *            the field being processed
@@ -316,7 +318,21 @@ public class ConfigurationBeanPostProcessor implements BeanPostProcessor, BeanFa
             Class type = field.getType();
             boolean list = false;
             ValueDefinition<Object, ?> value;
-            if (type == List.class) {
+            if (ConfigValueSlot.isSlotType(type)) {
+                type = ConfigValueSlot.primitiveValueType(type);
+                if (type == null) {
+                    Type valueType = identifyTypeArgument(field.getGenericType());
+                    list = valueType instanceof ParameterizedType
+                            && ((ParameterizedType) valueType).getRawType() == List.class;
+                    type = (list ? identifyParameterizedType(valueType) : rawType(valueType, field.getGenericType()));
+                }
+                ConfigValueChangeListener listener = new ConfigValueChangeListener(field, bean, type, list);
+                if (list) {
+                    value = new ValueListDefinition<Object>(type, annotation.value(), listener);
+                } else {
+                    value = new SingleValueDefinition<Object>(type, annotation.value(), listener);
+                }
+            } else if (type == List.class) {
                 type = identifyParameterizedType(field.getGenericType());
                 FieldValueChangeListener<List<Object>> listener = new FieldValueChangeListener<List<Object>>(field, bean, type, list);
                 value = new ValueListDefinition<Object>(type, annotation.value(), listener);
@@ -539,17 +555,48 @@ public class ConfigurationBeanPostProcessor implements BeanPostProcessor, BeanFa
      *            the list/replacement type to inspect
      * @return the list/replacement type or null if it is not parameterised.
      */
-    @SuppressWarnings("rawtypes")
     private static Class<?> identifyParameterizedType(Type type) {
-        Class<?> genericClass;
+        return rawType(identifyTypeArgument(type), type);
+    }
+
+    /**
+     * Resolve the class of a type argument, which may itself be parameterised (in which case its type arguments are
+     * ignored).
+     * 
+     * @param typeArgument
+     *            the type argument to resolve
+     * @param declaredType
+     *            the type declaring the argument, for error reporting.
+     * @return the class of the type argument
+     * @throws ConfigurationException
+     *             if the type argument is a wildcard, type variable or generic array.
+     */
+    private static Class<?> rawType(Type typeArgument, Type declaredType) {
+        if (typeArgument instanceof Class) {
+            return (Class<?>) typeArgument;
+        }
+        if (typeArgument instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) typeArgument).getRawType();
+        }
+        throw new ConfigurationException(String.format(
+                "Unable to determine the value type of '%s', the type argument '%s' must be a concrete type",
+                declaredType, typeArgument));
+    }
+
+    /**
+     * Identifies the type argument of the parameterised list/replacement/config value.
+     * 
+     * @param type
+     *            the parameterised type to inspect
+     * @return the type argument
+     */
+    private static Type identifyTypeArgument(Type type) {
         if (type instanceof ParameterizedType) {
             ParameterizedType pType = (ParameterizedType) type;
             Type[] actualTypeArguments = pType.getActualTypeArguments();
-            genericClass = (Class) actualTypeArguments[0];
-        } else {
-            throw new ConfigurationException(String.format(
-                    "Not a parameterised list or replacement type: '%s'", type));
+            return actualTypeArguments[0];
         }
-        return genericClass;
+        throw new ConfigurationException(String.format(
+                "Not a parameterised list or replacement type: '%s'", type));
     }
 }
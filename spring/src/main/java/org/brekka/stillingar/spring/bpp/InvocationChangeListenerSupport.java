@@ -18,7 +18,7 @@ package org.brekka.stillingar.spring.bpp;
 
 import java.lang.ref.WeakReference;
 
-import org.brekka.stillingar.core.Expirable;
+import org.brekka.stillingar.core.ExpirableReferent;
 import org.brekka.stillingar.core.ReferentUpdateException;
 import org.brekka.stillingar.core.ValueChangeListener;
 
@@ -28,7 +28,7 @@ import org.brekka.stillingar.core.ValueChangeListener;
  * @author Andrew Taylor (andrew@brekka.org)
  */
 abstract class InvocationChangeListenerSupport<T extends Object> implements ValueChangeListener<T>, 
-                    PrototypeValueChangeListener<T>, Expirable {
+                    PrototypeValueChangeListener<T>, ExpirableReferent {
     /**
      * The object containing the value to be updated.
      */
@@ -84,7 +84,15 @@ abstract class InvocationChangeListenerSupport<T extends Object> implements Valu
      */
     @Override
     public boolean isExpired() {
-        return targetRef.isEnqueued();
+        return targetRef.get() == null;
+    }
+    
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.ExpirableReferent#getReferent()
+     */
+    @Override
+    public Object getReferent() {
+        return targetRef.get();
     }
 
     /**
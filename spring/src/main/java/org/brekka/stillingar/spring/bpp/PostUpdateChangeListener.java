@@ -26,7 +26,7 @@ import java.util.List;
 
 import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ConfigurationSource;
-import org.brekka.stillingar.core.Expirable;
+import org.brekka.stillingar.core.ExpirableReferent;
 import org.brekka.stillingar.core.GroupChangeListener;
 
 /**
@@ -34,7 +34,7 @@ import org.brekka.stillingar.core.GroupChangeListener;
  * 
  * @author Andrew Taylor (andrew@brekka.org)
  */
-class PostUpdateChangeListener implements GroupChangeListener, PrototypeGroupChangeListener, Expirable {
+class PostUpdateChangeListener implements GroupChangeListener, PrototypeGroupChangeListener, ExpirableReferent {
     /**
      * The target object containing the method to be invoked
      */
@@ -108,7 +108,15 @@ class PostUpdateChangeListener implements GroupChangeListener, PrototypeGroupCha
      */
     @Override
     public boolean isExpired() {
-        return (targetRef.isEnqueued());
+        return targetRef.get() == null;
+    }
+    
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.ExpirableReferent#getReferent()
+     */
+    @Override
+    public Object getReferent() {
+        return targetRef.get();
     }
 
     /**
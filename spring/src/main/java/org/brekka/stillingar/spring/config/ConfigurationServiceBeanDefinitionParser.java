@@ -26,6 +26,7 @@ import java.util.List;
 
 import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.core.conversion.ConversionManager;
+import org.brekka.stillingar.core.conversion.DefaultConverters;
 import org.brekka.stillingar.core.conversion.TemporalAdapter;
 import org.brekka.stillingar.core.conversion.xml.DocumentConverter;
 import org.brekka.stillingar.core.dom.DOMConfigurationSourceLoader;
@@ -106,6 +107,9 @@ class ConfigurationServiceBeanDefinitionParser extends AbstractSingleBeanDefinit
         builder.addConstructorArgValue(prepareDefaultConfigurationSource(element, engine));
         prepareSnapshotEventHandler(element, builder);
         builder.addPropertyValue("deltaValueInterceptor", prepareDeltaValueInterceptor(element));
+        if (booleanAttribute(element, "changed-values-only")) {
+            builder.addPropertyValue("changedValuesOnly", Boolean.TRUE);
+        }
         builder.getRawBeanDefinition().setDestroyMethodName("shutdown");
 
         prepareNamespaceContext(element, parserContext);
@@ -678,9 +682,12 @@ class ConfigurationServiceBeanDefinitionParser extends AbstractSingleBeanDefinit
         List<String> converterShortNames = Arrays.asList("BigDecimalConverter", "BigIntegerConverter",
                 "BooleanConverter", "ByteConverter", "ByteArrayConverter", "UUIDConverter", "EnumConverter",
                 "DoubleConverter", "ElementConverter", "FloatConverter", "IntegerConverter", "LongConverter",
-                "ShortConverter", "StringConverter", "URIConverter", "DocumentConverter", "LocaleConverter"
+                "ShortConverter", "StringConverter", "URIConverter", "DocumentConverter", "LocaleConverter",
+                "ByteBufferConverter"
         );
         ManagedList<AbstractBeanDefinition> converters = toManagedConverterList(converterShortNames, "org.brekka.stillingar.xmlbeans.conversion");
+        converters.addAll(toManagedConverterList(Arrays.asList("IntArrayConverter", "LongArrayConverter",
+                "DoubleArrayConverter", "StringArrayConverter"), "org.brekka.stillingar.core.conversion"));
         converters.addAll(prepareTemporalConverters("org.brekka.stillingar.xmlbeans.conversion", "XmlBeansTemporalAdapter"));
 
         BeanDefinitionBuilder appCxtBeanDefBuilder = BeanDefinitionBuilder.genericBeanDefinition(ApplicationContextConverter.class);
@@ -688,7 +695,7 @@ class ConfigurationServiceBeanDefinitionParser extends AbstractSingleBeanDefinit
                 BeanDefinitionBuilder.genericBeanDefinition("org.brekka.stillingar.xmlbeans.conversion.DocumentConverter").getBeanDefinition()
         );
         converters.add(appCxtBeanDefBuilder.getBeanDefinition());
-        builder.addConstructorArgValue(converters);
+        builder.addConstructorArgValue(prepareDiscoveredConverters(converters));
         return builder.getBeanDefinition();
     }
 
@@ -703,7 +710,7 @@ class ConfigurationServiceBeanDefinitionParser extends AbstractSingleBeanDefinit
                 BeanDefinitionBuilder.genericBeanDefinition(DocumentConverter.class).getBeanDefinition()
         );
         converters.add(appCxtBeanDefBuilder.getBeanDefinition());
-        builder.addConstructorArgValue(converters);
+        builder.addConstructorArgValue(prepareDiscoveredConverters(converters));
         return builder.getBeanDefinition();
     }
 
@@ -718,7 +725,7 @@ class ConfigurationServiceBeanDefinitionParser extends AbstractSingleBeanDefinit
                 BeanDefinitionBuilder.genericBeanDefinition(DocumentConverter.class).getBeanDefinition()
         );
         converters.add(appCxtBeanDefBuilder.getBeanDefinition());
-        builder.addConstructorArgValue(converters);
+        builder.addConstructorArgValue(prepareDiscoveredConverters(converters));
         return builder.getBeanDefinition();
     }
 
@@ -747,12 +754,29 @@ class ConfigurationServiceBeanDefinitionParser extends AbstractSingleBeanDefinit
         return objectMapper;
     }
 
+    /**
+     * Add the converters registered as services that are visible to the context class loader after
+     * <code>converters</code>, as the loaders do for their default converters.
+     * 
+     * @param converters
+     *            the built-in converters
+     * @return the definition of the complete list of converters.
+     */
+    protected AbstractBeanDefinition prepareDiscoveredConverters(final ManagedList<AbstractBeanDefinition> converters) {
+        BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(DefaultConverters.class);
+        builder.setFactoryMethod("withDiscovered");
+        builder.addConstructorArgValue(converters);
+        builder.addConstructorArgValue(Thread.currentThread().getContextClassLoader());
+        return builder.getBeanDefinition();
+    }
+
     protected ManagedList<AbstractBeanDefinition> prepareCoreConverters() {
         List<String> coreConverterShortNames = Arrays.asList("BigDecimalConverter", "BigIntegerConverter",
                 "BooleanConverter", "ByteConverter", "ByteArrayConverter",
                 "DoubleConverter", "xml.ElementConverter", "FloatConverter", "IntegerConverter", "LongConverter",
                 "ShortConverter", "StringConverter", "URIConverter", "xml.DocumentConverter", "LocaleConverter",
-                "UUIDConverter", "EnumConverter");
+                "UUIDConverter", "EnumConverter", "IntArrayConverter", "LongArrayConverter", "DoubleArrayConverter",
+                "StringArrayConverter", "ByteBufferConverter");
         return toManagedConverterList(coreConverterShortNames, "org.brekka.stillingar.core.conversion");
     }
 
@@ -779,6 +803,13 @@ class ConfigurationServiceBeanDefinitionParser extends AbstractSingleBeanDefinit
                 converters.add(converterBldr.getBeanDefinition());
             }
         }
+        if (ClassUtils.isPresent("java.time.Instant", Thread.currentThread().getContextClassLoader())) {
+            // Running on Java 8 or later, add the java.time support classes
+            temporalConverterShortNames = new ArrayList<String>(temporalConverterShortNames);
+            temporalConverterShortNames.addAll(Arrays.asList("time.InstantConverter", "time.DurationConverter",
+                    "time.LocalDateConverter", "time.LocalTimeConverter", "time.LocalDateTimeConverter",
+                    "time.OffsetDateTimeConverter", "time.ZonedDateTimeConverter"));
+        }
         for (String shortName : temporalConverterShortNames) {
             BeanDefinitionBuilder converterBldr = BeanDefinitionBuilder
                     .genericBeanDefinition("org.brekka.stillingar.core.conversion." + shortName);
@@ -815,6 +846,21 @@ class ConfigurationServiceBeanDefinitionParser extends AbstractSingleBeanDefinit
         return value;
     }
 
+    /**
+     * Read an <code>xsd:boolean</code> attribute, which may be any of "true", "false", "1" or "0" with surrounding
+     * whitespace.
+     * 
+     * @param elem
+     *            the element holding the attribute
+     * @param attributeName
+     *            the name of the attribute
+     * @return the value of the attribute, false if not specified.
+     */
+    protected static boolean booleanAttribute(final Element elem, final String attributeName) {
+        String value = elem.getAttribute(attributeName).trim();
+        return "1".equals(value) || Boolean.parseBoolean(value);
+    }
+
     /**
      * @param element
      * @return
@@ -18,7 +18,7 @@ package org.brekka.stillingar.spring.pc;
 
 import java.lang.ref.WeakReference;
 
-import org.brekka.stillingar.core.Expirable;
+import org.brekka.stillingar.core.ExpirableReferent;
 import org.brekka.stillingar.spring.expr.Fragment;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.PropertyAccessorFactory;
@@ -31,7 +31,7 @@ import org.springframework.beans.factory.BeanFactory;
  * 
  * @author Andrew Taylor (andrew@brekka.org)
  */
-class BeanPropertyChangeListener extends AbstractExpressionGroupListener implements Expirable {
+class BeanPropertyChangeListener extends AbstractExpressionGroupListener implements ExpirableReferent {
     /**
      * The name of the bean that will be used to lookup its bean definition in the beanFactory.
      */
@@ -66,11 +66,19 @@ class BeanPropertyChangeListener extends AbstractExpressionGroupListener impleme
     }
     
     /* (non-Javadoc)
-     * @see org.brekka.stillingar.core.ExpiringListener#isExpired()
+     * @see org.brekka.stillingar.core.Expirable#isExpired()
      */
     @Override
     public boolean isExpired() {
-        return beanFactoryRef.isEnqueued();
+        return beanFactoryRef.get() == null;
+    }
+    
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.ExpirableReferent#getReferent()
+     */
+    @Override
+    public Object getReferent() {
+        return beanFactoryRef.get();
     }
 
     /**
@@ -18,7 +18,7 @@ package org.brekka.stillingar.spring.pc;
 
 import java.lang.ref.WeakReference;
 
-import org.brekka.stillingar.core.Expirable;
+import org.brekka.stillingar.core.ExpirableReferent;
 import org.brekka.stillingar.spring.expr.Fragment;
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.PropertyValue;
@@ -33,7 +33,7 @@ import org.springframework.util.ObjectUtils;
  * 
  * @author Andrew Taylor (andrew@brekka.org)
  */
-class PropertyDefChangeListener extends AbstractExpressionGroupListener implements Expirable {
+class PropertyDefChangeListener extends AbstractExpressionGroupListener implements ExpirableReferent {
     /**
      * The name of the bean within the Spring context. Will be used to lookup its current definition.
      */
@@ -87,10 +87,18 @@ class PropertyDefChangeListener extends AbstractExpressionGroupListener implemen
     }
     
     /* (non-Javadoc)
-     * @see org.brekka.stillingar.core.ExpiringListener#isExpired()
+     * @see org.brekka.stillingar.core.Expirable#isExpired()
      */
     @Override
     public boolean isExpired() {
-        return beanFactoryRef.isEnqueued();
+        return beanFactoryRef.get() == null;
+    }
+    
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.ExpirableReferent#getReferent()
+     */
+    @Override
+    public Object getReferent() {
+        return beanFactoryRef.get();
     }
 }
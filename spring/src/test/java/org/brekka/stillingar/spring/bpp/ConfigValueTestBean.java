@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.spring.bpp;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.brekka.stillingar.api.BooleanConfigValue;
+import org.brekka.stillingar.api.ConfigValue;
+import org.brekka.stillingar.api.IntConfigValue;
+import org.brekka.stillingar.api.annotations.Configured;
+
+/**
+ * Bean with {@link ConfigValue} fields
+ *
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+@Configured
+class ConfigValueTestBean {
+
+    @Configured("/c:value1")
+    private ConfigValue<String> value1;
+
+    @Configured("/c:value2")
+    private IntConfigValue value2;
+
+    @Configured("/c:value3")
+    private ConfigValue<List<Locale>> value3;
+
+    @Configured(value = "/c:value4", required = false)
+    private BooleanConfigValue value4;
+
+    @Configured(value = "/c:value5", required = false)
+    private ConfigValue<Comparable<String>> value5;
+
+    public ConfigValue<String> getValue1() {
+        return value1;
+    }
+
+    public IntConfigValue getValue2() {
+        return value2;
+    }
+
+    public ConfigValue<List<Locale>> getValue3() {
+        return value3;
+    }
+
+    public BooleanConfigValue getValue4() {
+        return value4;
+    }
+
+    public ConfigValue<Comparable<String>> getValue5() {
+        return value5;
+    }
+}
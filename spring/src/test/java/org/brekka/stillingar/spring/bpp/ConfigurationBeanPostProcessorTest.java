@@ -30,7 +30,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
 
+import org.brekka.stillingar.api.ConfigValue;
 import org.brekka.stillingar.api.ConfigurationException;
+import org.brekka.stillingar.api.IntConfigValue;
 import org.brekka.stillingar.core.ConfigurationService;
 import org.brekka.stillingar.core.ValueChangeListener;
 import org.brekka.stillingar.core.ValueDefinition;
@@ -181,6 +183,59 @@ public class ConfigurationBeanPostProcessorTest {
         beanPostProcessor.destroy();
     }
     
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testConfigValueFields() throws Exception {
+        List<Locale> localeList = Arrays.asList(Locale.ENGLISH);
+        when(beanFactory.isSingleton(eq("bob"))).thenReturn(true);
+        ConfigValueTestBean bean = new ConfigValueTestBean();
+        beanPostProcessor.postProcessBeforeInitialization(bean, "bob");
+        
+        ArgumentCaptor<ValueDefinitionGroup> vdg = ArgumentCaptor.forClass(ValueDefinitionGroup.class);
+        verify(configurationService).register(vdg.capture(), eq(true));
+        List<ValueDefinition<?,?>> values = new ArrayList<ValueDefinition<?,?>>(vdg.getValue().getValues());
+        Collections.sort(values, new Comparator<ValueDefinition<?,?>>() {
+            @Override
+            public int compare(ValueDefinition<?, ?> o1, ValueDefinition<?, ?> o2) {
+                return o1.getExpression().compareTo(o2.getExpression());
+            }
+        });
+        verifyValue("/c:value1", values.get(0), "v1", String.class, false);
+        verifyValue("/c:value2", values.get(1), 12, Integer.class, false);
+        verifyValue("/c:value3", values.get(2), localeList, Locale.class, true);
+        verifyValue("/c:value4", values.get(3), null, Boolean.class, false);
+        verifyValue("/c:value5", values.get(4), "v5", Comparable.class, false);
+        
+        ConfigValue<String> value1 = bean.getValue1();
+        IntConfigValue value2 = bean.getValue2();
+        assertEquals("v1", value1.get());
+        assertEquals(12, value2.get());
+        assertEquals(localeList, bean.getValue3().get());
+        assertFalse(bean.getValue4().get());
+        assertEquals("v5", bean.getValue5().get());
+        
+        ((ValueChangeListener) values.get(0).getChangeListener()).onChange("v1b", "v1");
+        ((ValueChangeListener) values.get(1).getChangeListener()).onChange(13, 12);
+        assertSame(value1, bean.getValue1());
+        assertSame(value2, bean.getValue2());
+        assertEquals("v1b", value1.get());
+        assertEquals(13, value2.get());
+    }
+    
+    @Test
+    public void testWildcardConfigValueField() {
+        when(beanFactory.isSingleton(eq("bob"))).thenReturn(true);
+        WildcardConfigValueBean bean = new WildcardConfigValueBean();
+        
+        try {
+            beanPostProcessor.postProcessBeforeInitialization(bean, "bob");
+            fail();
+        } catch (ConfigurationException e) {
+            assertEquals("Unable to determine the value type of 'org.brekka.stillingar.api.ConfigValue<?>', " +
+                    "the type argument '?' must be a concrete type", e.getMessage());
+        }
+    }
+    
     @Test
     public void testInvalidListenerBeanNotFound() throws Exception {
         ConfiguredTestBean bean = new ConfiguredTestBean();
@@ -18,9 +18,17 @@ package org.brekka.stillingar.spring.config;
 
 import static org.junit.Assert.*;
 
+import java.awt.Dimension;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.brekka.stillingar.core.conversion.AbstractTypeConverter;
+import org.brekka.stillingar.core.conversion.ConversionManager;
 import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+import org.w3c.dom.Element;
 
 /**
  * A very simple test that the spring based stillingar configuration namespace is working, using properties based configuration.
@@ -48,5 +56,44 @@ public class ConfigurationNamespaceTest extends AbstractJUnit4SpringContextTests
     public void checkNestedPropertyReplacement() {
         assertEquals("Other Value is (Internal)", applicationContext.getBean("nestedBean", TheBean.class).getProperty());
     }
+
+    @Test
+    public void checkBooleanAttribute() throws Exception {
+        Element element = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument().createElement("e");
+        assertFalse(ConfigurationServiceBeanDefinitionParser.booleanAttribute(element, "flag"));
+        for (String value : new String[] { "true", "1", " 1 " }) {
+            element.setAttribute("flag", value);
+            assertTrue(value, ConfigurationServiceBeanDefinitionParser.booleanAttribute(element, "flag"));
+        }
+        for (String value : new String[] { "false", "0", "" }) {
+            element.setAttribute("flag", value);
+            assertFalse(value, ConfigurationServiceBeanDefinitionParser.booleanAttribute(element, "flag"));
+        }
+    }
     
+    @Test
+    public void checkDiscoveredConverters() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("conversionManager", 
+                new ConfigurationServiceBeanDefinitionParser().prepareDOMConversionManager());
+        ConversionManager conversionManager = beanFactory.getBean("conversionManager", ConversionManager.class);
+        assertEquals(Integer.valueOf(42), conversionManager.convert("42", Integer.class));
+        assertEquals(new Dimension(3, 4), conversionManager.convert("3x4", Dimension.class));
+    }
+    
+    /**
+     * Registered in META-INF/services
+     */
+    public static class DimensionConverter extends AbstractTypeConverter<Dimension> {
+        @Override
+        public Class<Dimension> targetType() {
+            return Dimension.class;
+        }
+
+        @Override
+        public Dimension convert(Object obj) {
+            String[] parts = obj.toString().split("x");
+            return new Dimension(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        }
+    }
 }
@@ -30,6 +30,7 @@ import javax.xml.xpath.XPathFactory;
 import javax.xml.xpath.XPathVariableResolver;
 
 import org.apache.xmlbeans.impl.store.PathDelegate;
+import org.brekka.stillingar.core.dom.SimplePathWalker;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
@@ -59,6 +60,11 @@ public class JavaxBasedXPath implements PathDelegate.SelectPathInterface {
      */
     private final String contextVar;
     
+    /**
+     * Walks the DOM directly when the path consists only of simple child steps (null otherwise).
+     */
+    private final SimplePathWalker walker;
+    
     /**
      * Construct given an XPath expression string.
      * 
@@ -75,6 +81,7 @@ public class JavaxBasedXPath implements PathDelegate.SelectPathInterface {
         this.path = path;
         this.contextVar = contextVar;
         this.namespaceMap = namespaceMap != null ? new MapNamespaceContext(namespaceMap, defaultNS) : null;
+        this.walker = SimplePathWalker.compile(path, this.namespaceMap);
     }
 
     /*
@@ -84,8 +91,11 @@ public class JavaxBasedXPath implements PathDelegate.SelectPathInterface {
      */
     @Override
     public List<Node> selectPath(Object node) {
-        List<Node> results = new ArrayList<Node>();
         Node contextNode = (Node) node;
+        if (walker != null) {
+            return walker.select(contextNode);
+        }
+        List<Node> results = new ArrayList<Node>();
         XPathFactory xFactory = XPathFactory.newInstance();
         xFactory.setXPathVariableResolver(new XPathVariableResolver() {
             @Override
@@ -21,20 +21,33 @@ import static java.lang.String.format;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.xmlbeans.XmlAnySimpleType;
+import org.apache.xmlbeans.XmlBeans;
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlCursor.TokenType;
 import org.apache.xmlbeans.XmlObject;
+import org.brekka.stillingar.api.ConcurrentReadCapable;
 import org.brekka.stillingar.api.ConfigurationSource;
 import org.brekka.stillingar.api.ValueConfigurationException;
+import org.brekka.stillingar.api.ValueLookup;
+import org.brekka.stillingar.core.DiffableConfigurationSource;
+import org.brekka.stillingar.core.PrimitiveValueLocator;
+import org.brekka.stillingar.core.SourceChanges;
 import org.brekka.stillingar.core.conversion.ConversionManager;
+import org.brekka.stillingar.core.dom.DOMChanges;
 import org.brekka.stillingar.core.dom.DefaultNamespaceContext;
+import org.brekka.stillingar.core.dom.SimplePathIndex;
+import org.brekka.stillingar.core.support.ConvertedValueCache;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
 
 /**
  * Configuration snapshot based on Apache XmlBeans.
  * 
  * @author Andrew Taylor
  */
-class XmlBeansConfigurationSource implements ConfigurationSource {
+class XmlBeansConfigurationSource implements DiffableConfigurationSource, ValueLookup, PrimitiveValueLocator,
+        ConcurrentReadCapable {
 
     private final XmlObject bean;
 
@@ -42,9 +55,22 @@ class XmlBeansConfigurationSource implements ConfigurationSource {
 
     private final DefaultNamespaceContext xpathNamespaces;
 
+    private final ConvertedValueCache convertedValueCache = new ConvertedValueCache();
+
+    /**
+     * Index of the text selected by simple paths (can be null).
+     */
+    private final SimplePathIndex simplePathIndex;
+
     public XmlBeansConfigurationSource(XmlObject bean, DefaultNamespaceContext xpathNamespaces,
             ConversionManager conversionManager) {
+        this(bean, xpathNamespaces, conversionManager, null);
+    }
+
+    public XmlBeansConfigurationSource(XmlObject bean, DefaultNamespaceContext xpathNamespaces,
+            ConversionManager conversionManager, SimplePathIndex simplePathIndex) {
         this.bean = bean;
+        this.simplePathIndex = simplePathIndex;
         this.xpathNamespaces = xpathNamespaces;
         this.conversionManager = conversionManager;
     }
@@ -81,7 +107,7 @@ class XmlBeansConfigurationSource implements ConfigurationSource {
      */
     @Override
     public boolean isAvailable(String expression) {
-        return evaluate(expression).length > 0;
+        return select(expression).length > 0;
     }
 
     /*
@@ -105,20 +131,39 @@ class XmlBeansConfigurationSource implements ConfigurationSource {
      * @see org.brekka.configuration.xmlbeans.Instance#retrieve(java.lang.Class, java.lang.String)
      */
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T retrieve(String expression, Class<T> valueType) {
-        T value;
-        XmlObject[] found = evaluate(expression);
-        if (found.length == 1) {
-            XmlObject xml = found[0];
-            value = convert(valueType, xml, expression);
-        } else if (found.length == 0) {
+        Object cached = convertedValueCache.get(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return (T) cached;
+        }
+        XmlObject[] found = select(expression);
+        if (found.length == 0) {
             // No value found, return null
-            value = null;
-        } else {
-            throw new ValueConfigurationException(
-                    "multiple values found, only one expected", valueType.getClass(),
-                    expression);
+            return null;
+        }
+        T value = convertSingle(found, valueType, expression);
+        convertedValueCache.put(expression, valueType, value);
+        return value;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.ValueLookup#lookup(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookup(String expression, Class<?> valueType) {
+        Object cached = convertedValueCache.get(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return cached;
+        }
+        XmlObject[] found = select(expression);
+        if (found.length == 0) {
+            return NOT_FOUND;
         }
+        Object value = convertSingle(found, valueType, expression);
+        convertedValueCache.put(expression, valueType, value);
         return value;
     }
 
@@ -144,9 +189,200 @@ class XmlBeansConfigurationSource implements ConfigurationSource {
      * @see org.brekka.configuration.xmlbeans.Instance#retrieveList(java.lang.Class, java.lang.String)
      */
     @Override
+    @SuppressWarnings("unchecked")
     public <T> List<T> retrieveList(String expression, Class<T> valueType) {
-        List<T> results = new ArrayList<T>();
-        XmlObject[] found = evaluate(expression);
+        Object cached = convertedValueCache.getList(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return (List<T>) cached;
+        }
+        XmlObject[] found = select(expression);
+        List<T> values = convertList(found, valueType, expression);
+        convertedValueCache.putList(expression, valueType, values);
+        return values;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.ValueLookup#lookupList(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object lookupList(String expression, Class<?> valueType) {
+        Object cached = convertedValueCache.getList(expression, valueType);
+        if (cached != ConvertedValueCache.MISS) {
+            return cached;
+        }
+        XmlObject[] found = select(expression);
+        if (found.length == 0) {
+            return NOT_FOUND;
+        }
+        List<?> values = convertList(found, valueType, expression);
+        convertedValueCache.putList(expression, valueType, values);
+        return values;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveInt(java.lang.String)
+     */
+    @Override
+    public int retrieveInt(String expression) {
+        return toInt(requirePrimitive(expression, Integer.TYPE), expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toInt(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public int toInt(Object value, String expression) {
+        try {
+            return conversionManager.convertToInt(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Conversion failure", Integer.TYPE, expression, e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveLong(java.lang.String)
+     */
+    @Override
+    public long retrieveLong(String expression) {
+        return toLong(requirePrimitive(expression, Long.TYPE), expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toLong(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public long toLong(Object value, String expression) {
+        try {
+            return conversionManager.convertToLong(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Conversion failure", Long.TYPE, expression, e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveDouble(java.lang.String)
+     */
+    @Override
+    public double retrieveDouble(String expression) {
+        return toDouble(requirePrimitive(expression, Double.TYPE), expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toDouble(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public double toDouble(Object value, String expression) {
+        try {
+            return conversionManager.convertToDouble(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Conversion failure", Double.TYPE, expression, e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.api.PrimitiveValueLookup#retrieveBoolean(java.lang.String)
+     */
+    @Override
+    public boolean retrieveBoolean(String expression) {
+        return toBoolean(requirePrimitive(expression, Boolean.TYPE), expression);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#toBoolean(java.lang.Object, java.lang.String)
+     */
+    @Override
+    public boolean toBoolean(Object value, String expression) {
+        try {
+            return conversionManager.convertToBoolean(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValueConfigurationException("Conversion failure", Boolean.TYPE, expression, e);
+        }
+    }
+
+    /**
+     * @return the cache of values converted from this source, for inspecting hit and miss counts.
+     */
+    public ConvertedValueCache getConvertedValueCache() {
+        return convertedValueCache;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.brekka.stillingar.core.PrimitiveValueLocator#locatePrimitive(java.lang.String, java.lang.Class)
+     */
+    @Override
+    public Object locatePrimitive(String expression, Class<?> primitiveType) {
+        XmlObject[] found = select(expression);
+        if (found.length == 0) {
+            return NOT_FOUND;
+        }
+        if (found.length > 1) {
+            throw new ValueConfigurationException(
+                    "multiple values found, only one expected", primitiveType, expression);
+        }
+        return found[0];
+    }
+
+    /**
+     * Locate the single object identified by <code>expression</code> that is to be converted to a primitive, which
+     * must exist.
+     */
+    private Object requirePrimitive(String expression, Class<?> primitiveType) {
+        Object value = locatePrimitive(expression, primitiveType);
+        if (value == NOT_FOUND) {
+            throw new ValueConfigurationException("No value found matching expression", primitiveType, expression);
+        }
+        return value;
+    }
+
+    private <T> T convertSingle(XmlObject[] found, Class<T> valueType, String expression) {
+        if (valueType.isArray() 
+                && found.length > 1) {
+            // Each of the repeated values becomes an element of the array
+            List<String> texts = new ArrayList<String>(found.length);
+            for (XmlObject xmlObject : found) {
+                if (xmlObject instanceof XmlAnySimpleType) {
+                    texts.add(((XmlAnySimpleType) xmlObject).getStringValue());
+                } else {
+                    texts.add(xmlObject.getDomNode().getTextContent());
+                }
+            }
+            try {
+                return conversionManager.convert(texts, valueType);
+            } catch (IllegalArgumentException e) {
+                throw new ValueConfigurationException(format(
+                        "Conversion failure"), valueType, expression, e);
+            }
+        }
+        if (found.length > 1) {
+            throw new ValueConfigurationException(
+                    "multiple values found, only one expected", valueType.getClass(),
+                    expression);
+        }
+        return convert(valueType, found[0], expression);
+    }
+
+    private <T> List<T> convertList(XmlObject[] found, Class<T> valueType, String expression) {
+        List<T> results = new ArrayList<T>(found.length);
         for (XmlObject xmlObject : found) {
             T value = convert(valueType, xmlObject, expression);
             results.add(value);
@@ -154,6 +390,32 @@ class XmlBeansConfigurationSource implements ConfigurationSource {
         return results;
     }
 
+    /**
+     * XmlBeans synchronizes access to the underlying store, so concurrent reads are supported.
+     */
+    @Override
+    public boolean supportsConcurrentReads() {
+        return true;
+    }
+
+    /**
+     * Compares the DOM views of the two documents. Expressions are evaluated relative to the bean, so the diff is only
+     * attempted when both beans are documents.
+     */
+    @Override
+    public SourceChanges diff(ConfigurationSource previous) {
+        if (!(previous instanceof XmlBeansConfigurationSource)) {
+            return null;
+        }
+        Node previousNode = ((XmlBeansConfigurationSource) previous).bean.getDomNode();
+        Node currentNode = bean.getDomNode();
+        if (!(previousNode instanceof Document)
+                || !(currentNode instanceof Document)) {
+            return null;
+        }
+        return DOMChanges.diff(previousNode, currentNode, xpathNamespaces);
+    }
+
     private XmlObject[] find(Class<?> type, boolean singleExpected) {
         List<XmlObject> results = new ArrayList<XmlObject>();
         XmlCursor cursor = bean.newCursor();
@@ -176,6 +438,28 @@ class XmlBeansConfigurationSource implements ConfigurationSource {
         return results.toArray(new XmlObject[results.size()]);
     }
 
+    /**
+     * Resolve the objects selected by <code>expression</code>, from the index where possible. Indexed nodes are mapped
+     * back to the objects that XPath evaluation would have selected, so that values are converted from their schema
+     * types in the same way whether or not the index is used.
+     */
+    private XmlObject[] select(String expression) {
+        List<Node> nodes = (simplePathIndex != null ? simplePathIndex.lookupNodes(expression) : null);
+        if (nodes == null) {
+            return evaluate(expression);
+        }
+        XmlObject[] found = new XmlObject[nodes.size()];
+        for (int i = 0; i < found.length; i++) {
+            XmlCursor cursor = XmlBeans.nodeToCursor(nodes.get(i));
+            try {
+                found[i] = cursor.getObject();
+            } finally {
+                cursor.dispose();
+            }
+        }
+        return found;
+    }
+
     private XmlObject[] evaluate(String expression) {
         StringBuilder sb = new StringBuilder();
         for (String prefix : xpathNamespaces.getPrefixes()) {
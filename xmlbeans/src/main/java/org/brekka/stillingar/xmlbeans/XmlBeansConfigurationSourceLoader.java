@@ -32,14 +32,21 @@ import org.brekka.stillingar.api.ConfigurationSourceLoader;
 import org.brekka.stillingar.core.conversion.CalendarConverter;
 import org.brekka.stillingar.core.conversion.ConversionManager;
 import org.brekka.stillingar.core.conversion.DateConverter;
+import org.brekka.stillingar.core.conversion.DefaultConverters;
+import org.brekka.stillingar.core.conversion.DoubleArrayConverter;
+import org.brekka.stillingar.core.conversion.IntArrayConverter;
+import org.brekka.stillingar.core.conversion.LongArrayConverter;
+import org.brekka.stillingar.core.conversion.StringArrayConverter;
 import org.brekka.stillingar.core.conversion.TemporalAdapter;
 import org.brekka.stillingar.core.conversion.TypeConverter;
 import org.brekka.stillingar.core.conversion.TypeConverterListBuilder;
 import org.brekka.stillingar.core.dom.DefaultNamespaceContext;
+import org.brekka.stillingar.core.dom.SimplePathIndex;
 import org.brekka.stillingar.xmlbeans.conversion.BigDecimalConverter;
 import org.brekka.stillingar.xmlbeans.conversion.BigIntegerConverter;
 import org.brekka.stillingar.xmlbeans.conversion.BooleanConverter;
 import org.brekka.stillingar.xmlbeans.conversion.ByteArrayConverter;
+import org.brekka.stillingar.xmlbeans.conversion.ByteBufferConverter;
 import org.brekka.stillingar.xmlbeans.conversion.ByteConverter;
 import org.brekka.stillingar.xmlbeans.conversion.DocumentConverter;
 import org.brekka.stillingar.xmlbeans.conversion.DoubleConverter;
@@ -54,6 +61,7 @@ import org.brekka.stillingar.xmlbeans.conversion.StringConverter;
 import org.brekka.stillingar.xmlbeans.conversion.URIConverter;
 import org.brekka.stillingar.xmlbeans.conversion.UUIDConverter;
 import org.brekka.stillingar.xmlbeans.conversion.XmlBeansTemporalAdapter;
+import org.w3c.dom.Document;
 
 
 /**
@@ -62,12 +70,24 @@ import org.brekka.stillingar.xmlbeans.conversion.XmlBeansTemporalAdapter;
  * @author Andrew Taylor
  */
 public class XmlBeansConfigurationSourceLoader implements ConfigurationSourceLoader {
+    
+    /**
+     * The default converters, prepared (and discovered) on first use.
+     */
+    private static final DefaultConverters DEFAULT_CONVERTERS = new DefaultConverters() {
+        @Override
+        protected List<TypeConverter<?>> prepare() {
+            return prepareConverters();
+        }
+    };
 
     private final ConversionManager conversionManager;
 
     private final DefaultNamespaceContext xpathNamespaces;
 
     private boolean validate = true;
+
+    private boolean indexSimplePaths = false;
     
     /**
      * Options passed to the XmlObject.parse(...) operation. Defaults are to strip comments
@@ -76,7 +96,7 @@ public class XmlBeansConfigurationSourceLoader implements ConfigurationSourceLoa
     private XmlOptions loadXmlOptions;
 
     public XmlBeansConfigurationSourceLoader() {
-        this(new ConversionManager(prepareConverters()));
+        this(DEFAULT_CONVERTERS.newConversionManager());
     }
     
     public XmlBeansConfigurationSourceLoader(ConversionManager conversionManager) {
@@ -84,7 +104,7 @@ public class XmlBeansConfigurationSourceLoader implements ConfigurationSourceLoa
     }
     
     public XmlBeansConfigurationSourceLoader(DefaultNamespaceContext xpathNamespaces) {
-        this(new ConversionManager(prepareConverters()), xpathNamespaces);
+        this(DEFAULT_CONVERTERS.newConversionManager(), xpathNamespaces);
     }
     
     public XmlBeansConfigurationSourceLoader(ConversionManager conversionManager, DefaultNamespaceContext xpathNamespaces) {
@@ -118,7 +138,12 @@ public class XmlBeansConfigurationSourceLoader implements ConfigurationSourceLoa
             if (this.validate) {
                 validate(xmlBean);
             }
-            return new XmlBeansConfigurationSource(xmlBean, this.xpathNamespaces, conversionManager);
+            SimplePathIndex simplePathIndex = null;
+            if (this.indexSimplePaths
+                    && xmlBean.getDomNode() instanceof Document) {
+                simplePathIndex = SimplePathIndex.build(xmlBean.getDomNode(), this.xpathNamespaces);
+            }
+            return new XmlBeansConfigurationSource(xmlBean, this.xpathNamespaces, conversionManager, simplePathIndex);
         } catch (XmlException e) {
             throw new ConfigurationException(String.format(
                     "This does not appear to be an XML document"), e);
@@ -139,6 +164,27 @@ public class XmlBeansConfigurationSourceLoader implements ConfigurationSourceLoa
         this.validate = validate;
     }
     
+    /**
+     * Index the nodes of each loaded document by simple path, so that expressions consisting only of child steps are
+     * resolved without XPath. The indexed nodes are mapped back to their XmlBeans objects, so values are converted from
+     * their schema types exactly as they would be without the index. Off by default.
+     * 
+     * @param indexSimplePaths
+     *            true to index each document when it is loaded.
+     */
+    public void setIndexSimplePaths(boolean indexSimplePaths) {
+        this.indexSimplePaths = indexSimplePaths;
+    }
+    
+    /**
+     * The default converters, prepared (and discovered) once on first use and shared by all loaders relying on them.
+     * 
+     * @return the unmodifiable list of default converters.
+     */
+    public static List<TypeConverter<?>> defaultConverters() {
+        return DEFAULT_CONVERTERS.getConverters();
+    }
+    
     public static List<TypeConverter<?>> prepareConverters() {
         TemporalAdapter temporalAdapter = new XmlBeansTemporalAdapter();
         return new TypeConverterListBuilder().<TypeConverter<?>> 
@@ -148,11 +194,20 @@ public class XmlBeansConfigurationSourceLoader implements ConfigurationSourceLoa
                 new ShortConverter(), new StringConverter(), new URIConverter(), new ElementConverter(), 
                 new DocumentConverter(), new LocaleConverter(), new UUIDConverter(), new EnumConverter(),
                 new ElementConverter(), new DocumentConverter(),  new ByteArrayConverter(),
+                new IntArrayConverter(), new LongArrayConverter(), new DoubleArrayConverter(), new StringArrayConverter(),
+                new ByteBufferConverter(),
                 new CalendarConverter(temporalAdapter), new DateConverter(temporalAdapter))
             .inPackage("org.brekka.stillingar.core.conversion")
                 .addOptionalClass("DateTimeConverter", temporalAdapter)
                 .addOptionalClass("LocalTimeConverter", temporalAdapter)
                 .addOptionalClass("LocalDateConverter", temporalAdapter)
+                .addOptionalClass("time.InstantConverter", temporalAdapter)
+                .addOptionalClass("time.DurationConverter", temporalAdapter)
+                .addOptionalClass("time.LocalDateConverter", temporalAdapter)
+                .addOptionalClass("time.LocalTimeConverter", temporalAdapter)
+                .addOptionalClass("time.LocalDateTimeConverter", temporalAdapter)
+                .addOptionalClass("time.OffsetDateTimeConverter", temporalAdapter)
+                .addOptionalClass("time.ZonedDateTimeConverter", temporalAdapter)
             .done()
             .addOptionalClass("org.brekka.stillingar.xmlbeans.conversion.PeriodConverter")
             .toList();
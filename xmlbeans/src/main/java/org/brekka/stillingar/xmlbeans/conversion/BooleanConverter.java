@@ -33,4 +33,15 @@ public class BooleanConverter extends org.brekka.stillingar.core.conversion.Bool
         }
         return value;
     }
+
+    @Override
+    public boolean toBoolean(Object obj) {
+        boolean value;
+        if (obj instanceof XmlBoolean) {
+            value = ((XmlBoolean) obj).getBooleanValue();
+        } else {
+            value = super.toBoolean(obj);
+        }
+        return value;
+    }
 }
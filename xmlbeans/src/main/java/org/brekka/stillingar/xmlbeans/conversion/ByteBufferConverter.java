@@ -0,0 +1,40 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.brekka.stillingar.xmlbeans.conversion;
+
+import java.nio.ByteBuffer;
+
+import org.apache.xmlbeans.XmlAnySimpleType;
+
+/**
+ * Decodes the lexical value of base64 typed XmlBeans values straight into a direct buffer.
+ * 
+ * @author Andrew Taylor (andrew@brekka.org)
+ */
+public class ByteBufferConverter extends org.brekka.stillingar.core.conversion.ByteBufferConverter {
+
+    @Override
+    public ByteBuffer convert(Object obj) {
+        ByteBuffer value;
+        if (obj instanceof XmlAnySimpleType) {
+            value = decode(((XmlAnySimpleType) obj).getStringValue());
+        } else {
+            value = super.convert(obj);
+        }
+        return value;
+    }
+}
@@ -5,11 +5,11 @@ import javax.xml.transform.TransformerFactory;
 public class DocumentConverter extends org.brekka.stillingar.core.conversion.xml.DocumentConverter {
 
     public DocumentConverter() {
-        this(new ElementConverter(), TransformerFactory.newInstance());
+        this(new ElementConverter());
     }
     
     public DocumentConverter(org.brekka.stillingar.core.conversion.xml.ElementConverter elementConverter) {
-        this(elementConverter, TransformerFactory.newInstance());
+        super(elementConverter);
     }
     
     public DocumentConverter(org.brekka.stillingar.core.conversion.xml.ElementConverter elementConverter, TransformerFactory factory) {
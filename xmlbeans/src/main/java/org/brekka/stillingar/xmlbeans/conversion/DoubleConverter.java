@@ -41,6 +41,16 @@ public class DoubleConverter extends org.brekka.stillingar.core.conversion.Doubl
         return value;
     }
 
- 
-    
+    @Override
+    public double toDouble(Object xmlValue) {
+        double value;
+        if (xmlValue instanceof XmlDouble) {
+            value = ((XmlDouble) xmlValue).getDoubleValue();
+        } else if (xmlValue instanceof XmlDecimal) {
+            value = ((XmlDecimal) xmlValue).getBigDecimalValue().doubleValue();
+        } else {
+            value = super.toDouble(xmlValue);
+        }
+        return value;
+    }
 }
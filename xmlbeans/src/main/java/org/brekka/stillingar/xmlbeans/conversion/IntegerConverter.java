@@ -40,4 +40,17 @@ public class IntegerConverter extends org.brekka.stillingar.core.conversion.Inte
         }
         return value;
     }
+
+    @Override
+    public int toInt(Object xmlValue) {
+        int value;
+        if (xmlValue instanceof XmlInt) {
+            value = ((XmlInt) xmlValue).getIntValue();
+        } else if (xmlValue instanceof XmlInteger) {
+            value = ((XmlInteger) xmlValue).getBigIntegerValue().intValue();
+        } else {
+            value = super.toInt(xmlValue);
+        }
+        return value;
+    }
 }
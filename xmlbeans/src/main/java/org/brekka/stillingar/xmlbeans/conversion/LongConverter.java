@@ -41,6 +41,16 @@ public class LongConverter extends org.brekka.stillingar.core.conversion.LongCon
         return value;
     }
 
- 
-    
+    @Override
+    public long toLong(Object xmlValue) {
+        long value;
+        if (xmlValue instanceof XmlLong) {
+            value = ((XmlLong) xmlValue).getLongValue();
+        } else if (xmlValue instanceof XmlInteger) {
+            value = ((XmlInteger) xmlValue).getBigIntegerValue().longValue();
+        } else {
+            value = super.toLong(xmlValue);
+        }
+        return value;
+    }
 }
@@ -18,9 +18,13 @@ package org.brekka.stillingar.xmlbeans.conversion;
 
 import java.util.Calendar;
 
+import org.apache.xmlbeans.XmlAnySimpleType;
 import org.apache.xmlbeans.XmlDate;
 import org.apache.xmlbeans.XmlDateTime;
+import org.apache.xmlbeans.XmlDuration;
 import org.apache.xmlbeans.XmlTime;
+import org.brekka.stillingar.core.conversion.IsoTemporal;
+import org.brekka.stillingar.core.conversion.IsoTemporalParser;
 import org.brekka.stillingar.core.conversion.TemporalAdapter;
 
 /**
@@ -47,4 +51,32 @@ public class XmlBeansTemporalAdapter extends TemporalAdapter {
         }
         return value;
     }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.TemporalAdapter#toIsoTemporal(java.lang.Object, java.lang.Class)
+     */
+    @Override
+    public IsoTemporal toIsoTemporal(Object obj, Class<?> expectedType) {
+        IsoTemporal value;
+        if (obj instanceof XmlDateTime
+                || obj instanceof XmlDate
+                || obj instanceof XmlTime) {
+            // Parse the lexical value so that the absence of an offset is preserved
+            value = IsoTemporalParser.parse(((XmlAnySimpleType) obj).getStringValue());
+        } else {
+            value = super.toIsoTemporal(obj, expectedType);
+        }
+        return value;
+    }
+
+    /* (non-Javadoc)
+     * @see org.brekka.stillingar.core.conversion.TemporalAdapter#toText(java.lang.Object, java.lang.Class)
+     */
+    @Override
+    public String toText(Object obj, Class<?> expectedType) {
+        if (obj instanceof XmlDuration) {
+            return ((XmlDuration) obj).getStringValue();
+        }
+        return super.toText(obj, expectedType);
+    }
 }
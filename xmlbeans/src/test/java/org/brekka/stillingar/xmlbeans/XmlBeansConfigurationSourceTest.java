@@ -25,19 +25,30 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import net.iharder.Base64;
 
 import org.apache.xmlbeans.XmlOptions;
 import org.brekka.stillingar.api.ValueConfigurationException;
+import org.brekka.stillingar.core.SingleValueDefinition;
+import org.brekka.stillingar.core.ValueDefinition;
+import org.brekka.stillingar.core.ValueDefinitionGroup;
 import org.brekka.stillingar.core.conversion.ConversionManager;
+import org.brekka.stillingar.core.delta.DeltaOperations;
+import org.brekka.stillingar.core.delta.GroupChangeAction;
+import org.brekka.stillingar.core.delta.TwoPhasedGroupsUpdater;
 import org.brekka.stillingar.core.dom.DefaultNamespaceContext;
 import org.brekka.xml.stillingar.test.v1.ConfigurationDocument;
 import org.brekka.xml.stillingar.test.v1.ConfigurationDocument.Configuration.CompanyX;
@@ -255,4 +266,60 @@ public class XmlBeansConfigurationSourceTest {
         configurationSource.retrieve("//c:MaxQuantity", URL.class);
     }
     
+    @Test
+    public void testRetrievePrimitives() throws Exception {
+        assertEquals(42, configurationSource.retrieveInt("//c:MaxQuantity"));
+        assertEquals(85697458963323L, configurationSource.retrieveLong("//c:Length"));
+        assertEquals(42d, configurationSource.retrieveDouble("//c:MaxQuantity"), 0d);
+        assertTrue(configurationSource.retrieveBoolean("//c:Fraud//c:Enabled"));
+    }
+    
+    @Test
+    public void testRetrieveLocalDateTime() throws Exception {
+        assertEquals(LocalDateTime.of(2012, 12, 31, 12, 0), configurationSource.retrieve("//c:Expires", LocalDateTime.class));
+    }
+    
+    @Test
+    public void testRetrieveByteBuffer() throws Exception {
+        ByteBuffer buffer = configurationSource.retrieve("//c:PublicKey", ByteBuffer.class);
+        assertTrue(buffer.isReadOnly());
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertEquals("Stillingar", new String(bytes, "UTF-8"));
+    }
+    
+    /**
+     * XMLBeans supports concurrent reads, so phase one should resolve the groups on the executor against the
+     * real document and still return the actions in group order.
+     */
+    @Test
+    public void testPhaseOneUpdateParallel() throws Exception {
+        assertTrue(configurationSource.supportsConcurrentReads());
+        String[] keywords = { "KeywordA", "KeywordB", "KeywordC" };
+        List<ValueDefinitionGroup> valueGroups = new ArrayList<ValueDefinitionGroup>();
+        for (int i = 0; i < 200; i++) {
+            List<ValueDefinition<?, ?>> values = new ArrayList<ValueDefinition<?, ?>>();
+            values.add(new SingleValueDefinition<Integer>(Integer.class, "//c:MaxQuantity", null));
+            values.add(new SingleValueDefinition<String>(String.class, "//c:Keyword[" + (i % 3 + 1) + "]", null));
+            values.add(new SingleValueDefinition<Long>(Long.class, "//c:Length", null));
+            valueGroups.add(new ValueDefinitionGroup("Group" + i, values, null));
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            TwoPhasedGroupsUpdater updater = new TwoPhasedGroupsUpdater(valueGroups, configurationSource, 
+                    new DeltaOperations(), executor);
+            List<GroupChangeAction> actions = updater.phaseOneUpdate();
+            assertEquals(200, actions.size());
+            for (int i = 0; i < 200; i++) {
+                GroupChangeAction action = actions.get(i);
+                assertEquals("Group" + i, action.getGroup().getName());
+                assertEquals(Integer.valueOf(42), action.getActionList().get(0).getNewValue());
+                assertEquals(keywords[i % 3], action.getActionList().get(1).getNewValue());
+                assertEquals(Long.valueOf(85697458963323L), action.getActionList().get(2).getNewValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
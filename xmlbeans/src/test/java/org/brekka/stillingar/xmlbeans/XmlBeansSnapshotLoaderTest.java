@@ -16,12 +16,19 @@
 
 package org.brekka.stillingar.xmlbeans;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Scanner;
 
 import org.brekka.stillingar.api.ConfigurationException;
 import org.brekka.stillingar.api.ConfigurationSource;
 import org.brekka.stillingar.core.conversion.ConversionManager;
 import org.brekka.stillingar.core.dom.DefaultNamespaceContext;
+import org.brekka.xml.stillingar.test.v1.ConfigurationDocument.Configuration.Services.Rules;
 import org.brekka.stillingar.xmlbeans.conversion.StringConverter;
 import org.junit.Test;
 
@@ -63,6 +70,49 @@ public class XmlBeansSnapshotLoaderTest {
         assertNotNull(configurationSource);
     }
     
+    @Test
+    public void testParseIndexSimplePaths() throws Exception {
+        XmlBeansConfigurationSourceLoader xmlBeansSnapshotLoader = new XmlBeansConfigurationSourceLoader(
+                new DefaultNamespaceContext("c", "http://brekka.org/xml/stillingar/test/v1"));
+        xmlBeansSnapshotLoader.setIndexSimplePaths(true);
+        ConfigurationSource configurationSource = xmlBeansSnapshotLoader.parse(getClass().getResourceAsStream("TestConfiguration.xml"), null);
+        assertEquals(Integer.valueOf(42), configurationSource.retrieve(
+                "/c:Configuration/c:Services/c:Rules/c:Transaction/c:MaxQuantity", Integer.class));
+        assertEquals(3, configurationSource.retrieveList(
+                "/c:Configuration/c:Services/c:Rules/c:Fraud/c:Keyword", String.class).size());
+        // XmlBeans types come from the bean
+        assertNotNull(configurationSource.retrieve("/c:Configuration/c:Services/c:Rules", Rules.class));
+    }
+    
+    @Test
+    public void testIndexSimplePathsUsesSchemaTypes() throws Exception {
+        String xml = new Scanner(getClass().getResourceAsStream("TestConfiguration.xml"), "UTF-8")
+                .useDelimiter("\\A").next()
+                .replace("<Enabled>true</Enabled>", "<Enabled>1</Enabled>")
+                .replace("<MaxQuantity>42</MaxQuantity>", "<MaxQuantity> 42 </MaxQuantity>");
+        XmlBeansConfigurationSource plain = parse(xml, false);
+        XmlBeansConfigurationSource indexed = parse(xml, true);
+        
+        String enabled = "/c:Configuration/c:Services/c:Rules/c:Fraud/c:Enabled";
+        String maxQuantity = "/c:Configuration/c:Services/c:Rules/c:Transaction/c:MaxQuantity";
+        assertEquals(Boolean.TRUE, plain.retrieve(enabled, Boolean.class));
+        assertEquals(Boolean.TRUE, indexed.retrieve(enabled, Boolean.class));
+        assertTrue(indexed.retrieveBoolean(enabled));
+        assertEquals(Integer.valueOf(42), plain.retrieve(maxQuantity, Integer.class));
+        assertEquals(Integer.valueOf(42), indexed.retrieve(maxQuantity, Integer.class));
+        assertEquals(42, indexed.retrieveInt(maxQuantity));
+        assertEquals(Arrays.asList(Boolean.TRUE), indexed.retrieveList(enabled, Boolean.class));
+        assertEquals(Integer.valueOf(1), indexed.retrieve("/c:Configuration/c:MOTD/@number", Integer.class));
+    }
+    
+    private XmlBeansConfigurationSource parse(String xml, boolean indexSimplePaths) throws Exception {
+        XmlBeansConfigurationSourceLoader xmlBeansSnapshotLoader = new XmlBeansConfigurationSourceLoader(
+                new DefaultNamespaceContext("c", "http://brekka.org/xml/stillingar/test/v1"));
+        xmlBeansSnapshotLoader.setIndexSimplePaths(indexSimplePaths);
+        return (XmlBeansConfigurationSource) xmlBeansSnapshotLoader.parse(
+                new ByteArrayInputStream(xml.getBytes("UTF-8")), null);
+    }
+    
     @Test
     public void testParseInvalidNoValidation() throws Exception {
         XmlBeansConfigurationSourceLoader xmlBeansSnapshotLoader = new XmlBeansConfigurationSourceLoader();